@@ -0,0 +1,55 @@
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**
+ * A quick experiment comparing building a graph with a loop of addVertex
+ * and addEdge calls to building it with one batch.
+ *
+ * Usage: java BatchExperiment [vertices] [edges]
+ */
+public class BatchExperiment {
+
+  public static void main(String[] args) throws Exception {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    int numVertices = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+    int numEdges = (args.length > 1) ? Integer.parseInt(args[1]) : 10000000;
+
+    // Make up the edges
+    Random random = new Random(207);
+    int[] froms = new int[numEdges];
+    int[] tos = new int[numEdges];
+    int[] weights = new int[numEdges];
+    for (int i = 0; i < numEdges; i++) {
+      froms[i] = random.nextInt(numVertices);
+      do {
+        tos[i] = random.nextInt(numVertices);
+      } while (tos[i] == froms[i]);
+      weights[i] = random.nextInt(100);
+    } // for
+
+    for (int round = 0; round < 3; round++) {
+      long begin = System.nanoTime();
+      Graph loop = new Graph();
+      for (int i = 0; i < numVertices; i++) {
+        loop.addVertex();
+      } // for
+      for (int i = 0; i < numEdges; i++) {
+        loop.addEdge(froms[i], tos[i], weights[i]);
+      } // for
+      long loopTime = System.nanoTime() - begin;
+      loop = null;
+
+      begin = System.nanoTime();
+      Graph batched = new Graph();
+      GraphBuilder batch = batched.batch();
+      batch.addVertices(numVertices);
+      batch.addEdges(froms, tos, weights);
+      batch.commit();
+      long batchTime = System.nanoTime() - begin;
+
+      pen.println(batched.numEdges() + " edges: loop " + loopTime / 1000000
+          + " ms, batch " + batchTime / 1000000 + " ms");
+    } // for
+  } // main(String[])
+
+} // class BatchExperiment
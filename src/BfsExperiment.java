@@ -0,0 +1,56 @@
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**
+ * A quick experiment comparing breadth-first search on one thread to
+ * the parallel search used by Graph.bfs, on random graphs.
+ *
+ * Usage: java BfsExperiment [vertices] [edges]
+ */
+public class BfsExperiment {
+
+  public static void main(String[] args) throws Exception {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    int numVertices = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+    int numEdges = (args.length > 1) ? Integer.parseInt(args[1]) : 10000000;
+    pen.println(Runtime.getRuntime().availableProcessors() + " processors");
+
+    for (Graph g : new Graph[] {new Graph(numVertices),
+        new UndirectedGraph()}) {
+      for (int i = 0; i < numVertices; i++) {
+        g.addVertex();
+      } // for
+      Random random = new Random(207);
+      while (g.numEdges() < numEdges) {
+        int from = random.nextInt(numVertices);
+        int to = random.nextInt(numVertices);
+        if (from != to) {
+          g.addEdge(from, to, random.nextInt(100));
+        } // if
+      } // while
+      pen.println(g.getClass().getName() + ", " + g.numEdges() + " edges");
+
+      // Warm up, and build the reversed snapshot
+      for (int i = 0; i < 3; i++) {
+        BreadthFirstSearch.sequential(g, i, -1);
+        g.bfs(i);
+      } // for
+
+      long sequential = 0;
+      long parallel = 0;
+      int reached = 0;
+      for (int source = 0; source < 10; source++) {
+        long begin = System.nanoTime();
+        reached = BreadthFirstSearch.sequential(g, source, -1).numReached();
+        sequential += System.nanoTime() - begin;
+        begin = System.nanoTime();
+        g.bfs(source);
+        parallel += System.nanoTime() - begin;
+      } // for
+      pen.println("  reached " + reached + " vertices");
+      pen.println("  sequential: " + sequential / 10000000 + " ms per search");
+      pen.println("  parallel:   " + parallel / 10000000 + " ms per search");
+    } // for
+  } // main(String[])
+
+} // class BfsExperiment
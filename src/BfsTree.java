@@ -0,0 +1,134 @@
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * The result of a breadth-first search from one vertex: how many edges it
+ * takes to reach each vertex, and the last edge on a path with that many
+ * edges. Build one with Graph.bfs.
+ *
+ * @author Samuel A. Rebelsky
+ */
+public class BfsTree {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The vertex we searched from.
+   */
+  int source;
+
+  /**
+   * The number of edges from source to each vertex, or -1 for vertices
+   * we did not reach.
+   */
+  int[] distance;
+
+  /**
+   * The start of the last edge on a path to each vertex reached (other
+   * than source). (This approach is derived from one by GM and GT.)
+   */
+  int[] parent;
+
+  /**
+   * The weight of that edge.
+   */
+  int[] parentWeight;
+
+  /**
+   * The vertices we reached, in order of distance. The first numReached
+   * entries are meaningful.
+   */
+  int[] order;
+
+  /**
+   * The number of vertices we reached, including source.
+   */
+  int numReached;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a tree for a search of a graph with the given capacity.
+   */
+  BfsTree(int source, int capacity) {
+    this.source = source;
+    this.distance = new int[capacity];
+    this.parent = new int[capacity];
+    this.parentWeight = new int[capacity];
+    this.order = new int[capacity];
+    this.numReached = 0;
+  } // BfsTree(int, int)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the vertex we searched from.
+   */
+  public int source() {
+    return this.source;
+  } // source()
+
+  /**
+   * Get the number of vertices we reached, including the source.
+   */
+  public int numReached() {
+    return this.numReached;
+  } // numReached()
+
+  /**
+   * Determine if we reached a vertex.
+   */
+  public boolean reached(int vertex) {
+    return (vertex >= 0) && (vertex < this.distance.length)
+        && (this.distance[vertex] != -1);
+  } // reached(int)
+
+  /**
+   * Get the number of edges on a shortest path from the source to vertex,
+   * or -1 if there is no such path.
+   */
+  public int distance(int vertex) {
+    return this.reached(vertex) ? this.distance[vertex] : -1;
+  } // distance(int)
+
+  /**
+   * Get the distances to all of the vertices, indexed by vertex number.
+   * The array belongs to this tree, so please don't change it.
+   */
+  public int[] distances() {
+    return this.distance;
+  } // distances()
+
+  /**
+   * Get the last edge on a shortest path to vertex. Returns null for the
+   * source and for vertices we did not reach.
+   */
+  public Edge parentEdge(int vertex) {
+    if (!this.reached(vertex) || (vertex == this.source)) {
+      return null;
+    } // if
+    return new Edge(this.parent[vertex], vertex, this.parentWeight[vertex]);
+  } // parentEdge(int)
+
+  /**
+   * Get a path with as few edges as possible from the source to vertex.
+   * If we did not reach vertex, returns null.
+   */
+  public List<Edge> pathTo(int vertex) {
+    if (!this.reached(vertex)) {
+      return null;
+    } // if
+    LinkedList<Edge> path = new LinkedList<Edge>();
+    for (int v = vertex; v != this.source; v = this.parent[v]) {
+      path.addFirst(new Edge(this.parent[v], v, this.parentWeight[v]));
+    } // for
+    return path;
+  } // pathTo(int)
+
+} // class BfsTree
@@ -0,0 +1,103 @@
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A quick experiment comparing Graph.path to a bidirectional search on a
+ * large random graph.
+ *
+ * Usage: java BidirectionalPathExperiment [vertices] [degree] [queries]
+ */
+public class BidirectionalPathExperiment {
+
+  public static void main(String[] args) throws Exception {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    int numVertices = (args.length > 0) ? Integer.parseInt(args[0]) : 200000;
+    int degree = (args.length > 1) ? Integer.parseInt(args[1]) : 8;
+    int queries = (args.length > 2) ? Integer.parseInt(args[2]) : 200;
+
+    // Build a random graph
+    Random random = new Random(207);
+    Graph g = new Graph(numVertices);
+    for (int i = 0; i < numVertices; i++) {
+      g.addVertex();
+    } // for
+    for (int from = 0; from < numVertices; from++) {
+      for (int i = 0; i < degree; i++) {
+        int to = random.nextInt(numVertices);
+        if (to != from) {
+          g.addEdge(from, to, 1);
+        } // if
+      } // for
+    } // for
+    pen.println(g.numVertices() + " vertices, " + g.numEdges() + " edges");
+
+    // Pick the queries
+    int[] starts = new int[queries];
+    int[] finishes = new int[queries];
+    for (int q = 0; q < queries; q++) {
+      starts[q] = random.nextInt(numVertices);
+      finishes[q] = random.nextInt(numVertices);
+    } // for
+
+    // One-sided search
+    long oneSidedEdges = 0;
+    long begin = System.nanoTime();
+    for (int q = 0; q < queries; q++) {
+      List<Edge> path = g.path(starts[q], finishes[q]);
+      oneSidedEdges += (path == null) ? 0 : path.size();
+    } // for
+    long oneSidedTime = System.nanoTime() - begin;
+    long oneSidedVisited = 0;
+    for (int q = 0; q < queries; q++) {
+      oneSidedVisited += reached(g, starts[q], finishes[q]);
+    } // for
+
+    // Two-sided search, through the same call that clients use
+    long twoSidedEdges = 0;
+    begin = System.nanoTime();
+    for (int q = 0; q < queries; q++) {
+      List<Edge> path = g.pathBidirectional(starts[q], finishes[q]);
+      twoSidedEdges += (path == null) ? 0 : path.size();
+    } // for
+    long twoSidedTime = System.nanoTime() - begin;
+    BidirectionalSearch search = new BidirectionalSearch(g);
+    long twoSidedVisited = 0;
+    for (int q = 0; q < queries; q++) {
+      search.path(starts[q], finishes[q]);
+      twoSidedVisited += search.visited();
+    } // for
+
+    pen.println("path:              " + oneSidedTime / 1000000 + " ms, "
+        + oneSidedVisited / queries + " vertices reached per query");
+    pen.println("pathBidirectional: " + twoSidedTime / 1000000 + " ms, "
+        + twoSidedVisited / queries + " vertices reached per query");
+    pen.println("Total path lengths: " + oneSidedEdges + " and "
+        + twoSidedEdges);
+  } // main(String[])
+
+  /**
+   * Count the vertices that a one-sided breadth-first search reaches
+   * before it reaches finish.
+   */
+  static int reached(Graph g, int start, int finish) {
+    boolean[] seen = new boolean[g.capacity()];
+    int[] queue = new int[g.capacity()];
+    int head = 0;
+    int tail = 0;
+    queue[tail++] = start;
+    seen[start] = true;
+    EdgeCursor edges = g.cursor();
+    while ((head < tail) && !seen[finish]) {
+      edges.reset(queue[head++]);
+      while (edges.next()) {
+        if (!seen[edges.to()]) {
+          seen[edges.to()] = true;
+          queue[tail++] = edges.to();
+        } // if
+      } // while
+    } // while
+    return tail;
+  } // reached(Graph, int, int)
+
+} // class BidirectionalPathExperiment
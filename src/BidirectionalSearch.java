@@ -0,0 +1,331 @@
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Breadth-first search for a path between two vertices that works from
+ * both ends at once. Each side only needs to go about half as deep as a
+ * one-sided search, which usually means reaching far fewer vertices.
+ *
+ * A search object may be reused for many queries on the same graph; it
+ * keeps its arrays between queries. Graph.pathBidirectional uses one
+ * search for each thread.
+ *
+ * @author Samuel A. Rebelsky
+ */
+public class BidirectionalSearch {
+
+  // +-------+-------------------------------------------------------
+  // | Notes |
+  // +-------+
+
+  /*
+   * The forward search follows edges out of start; the backward search
+   * follows edges into finish. We alternately expand one full level of
+   * whichever side has the smaller frontier. Whenever an edge joins a
+   * vertex reached from start to one reached from finish, we have found a
+   * path. Once we finish the level in which we first find a path, the
+   * shortest path we found is as short as any path can be.
+   *
+   * To follow edges backward, we use the incoming edges of the graph:
+   * the graph's own index of incoming edges, if it keeps one, or else a
+   * reversed snapshot. For an undirected graph, the incoming edges are
+   * the same as the outgoing edges. Since the index of incoming edges
+   * does not record weights, we look up the weights of the backward half
+   * of the path once we've found it.
+   *
+   * As in ShortestPaths, we stamp the entries of each array rather than
+   * clearing the arrays between queries, and we keep one search for each
+   * thread, so that Graph.pathBidirectional need not allocate arrays as
+   * large as the graph on every call. The arrays grow when a query's
+   * graph has a larger capacity than they do. Between queries, the search
+   * for a thread drops its graph, so that it does not keep the graph
+   * alive.
+   */
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The search for each thread, for Graph.pathBidirectional.
+   */
+  private static final ThreadLocal<BidirectionalSearch> searches =
+      ThreadLocal.withInitial(() -> new BidirectionalSearch(null));
+
+  /**
+   * The graph we search.
+   */
+  Graph graph;
+
+  /**
+   * The stamp of the current query.
+   */
+  int stamp;
+
+  /**
+   * Stamps for the vertices reached from start.
+   */
+  int[] forwardStamps;
+
+  /**
+   * Stamps for the vertices reached from finish.
+   */
+  int[] backwardStamps;
+
+  /**
+   * The number of edges from start to each vertex reached from start.
+   */
+  int[] forwardDepth;
+
+  /**
+   * The number of edges to finish from each vertex reached from finish.
+   */
+  int[] backwardDepth;
+
+  /**
+   * For a vertex reached from start, the previous vertex on the path.
+   */
+  int[] previous;
+
+  /**
+   * For a vertex reached from start, the weight of the edge from the
+   * previous vertex.
+   */
+  int[] previousWeight;
+
+  /**
+   * For a vertex reached from finish, the next vertex on the path.
+   */
+  int[] following;
+
+  /**
+   * The vertices reached from start, in the order we reached them.
+   */
+  int[] forwardQueue;
+
+  /**
+   * The vertices reached from finish, in the order we reached them.
+   */
+  int[] backwardQueue;
+
+  /**
+   * The number of vertices reached in the last search.
+   */
+  int visited;
+
+  /**
+   * The best join found so far: an edge from meetFrom (reached from start)
+   * to meetTo (reached from finish), giving a path with meetLength edges.
+   */
+  int meetFrom;
+  int meetTo;
+  int meetLength;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a search over graph.
+   */
+  public BidirectionalSearch(Graph graph) {
+    this.graph = graph;
+    this.stamp = 0;
+    this.allocate(0);
+  } // BidirectionalSearch(Graph)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get a path from start to finish with as few edges as possible. If no
+   * such path exists, returns null. Gives the same kind of result as
+   * Graph.path.
+   */
+  public List<Edge> path(int start, int finish) {
+    Graph g = this.graph;
+    this.visited = 0;
+    if (!g.validVertex(start) || !g.validVertex(finish)) {
+      return null;
+    } // if
+    if (start == finish) {
+      // Graph.path looks for a cycle; a two-sided search gains nothing.
+      return g.path(start, finish);
+    } // if
+    this.prepare(g.capacity());
+
+    // Set up the two sides
+    boolean indexed = g.symmetric() || (g.sources != null);
+    CsrGraph reversed = indexed ? null : g.reverseIndex();
+    EdgeCursor edges = g.cursor();
+    int forwardHead = 0;
+    int forwardTail = 0;
+    int backwardHead = 0;
+    int backwardTail = 0;
+    this.forwardStamps[start] = this.stamp;
+    this.forwardDepth[start] = 0;
+    this.forwardQueue[forwardTail++] = start;
+    this.backwardStamps[finish] = this.stamp;
+    this.backwardDepth[finish] = 0;
+    this.backwardQueue[backwardTail++] = finish;
+    this.meetLength = Integer.MAX_VALUE;
+
+    // Expand levels until we find a path or one side runs out
+    while ((this.meetLength == Integer.MAX_VALUE)
+        && (forwardHead < forwardTail) && (backwardHead < backwardTail)) {
+      if (forwardTail - forwardHead <= backwardTail - backwardHead) {
+        int levelEnd = forwardTail;
+        while (forwardHead < levelEnd) {
+          int v = this.forwardQueue[forwardHead++];
+          edges.reset(v);
+          while (edges.next()) {
+            forwardTail = this.forward(v, edges.to(), edges.weight(),
+                forwardTail);
+          } // while
+        } // while
+      } else {
+        int levelEnd = backwardTail;
+        while (backwardHead < levelEnd) {
+          int v = this.backwardQueue[backwardHead++];
+          if (g.symmetric()) {
+            edges.reset(v);
+            while (edges.next()) {
+              backwardTail = this.backward(edges.to(), v, backwardTail);
+            } // while
+          } else if (indexed) {
+            int[] starts = g.sources[v];
+            int count = g.inDegrees[v];
+            for (int i = 0; i < count; i++) {
+              backwardTail = this.backward(starts[i], v, backwardTail);
+            } // for
+          } else {
+            int end = reversed.offsets[v + 1];
+            for (int pos = reversed.offsets[v]; pos < end; pos++) {
+              backwardTail = this.backward(reversed.targets[pos], v,
+                  backwardTail);
+            } // for
+          } // if/else
+        } // while
+      } // if/else
+    } // while
+    this.visited = forwardTail + backwardTail;
+
+    // Return the appropriate list
+    if (this.meetLength == Integer.MAX_VALUE) {
+      return null;
+    } // if
+    LinkedList<Edge> path = new LinkedList<Edge>();
+    path.add(g.edge(this.meetFrom, g.indexOf(this.meetFrom, this.meetTo)));
+    for (int v = this.meetFrom; v != start; v = this.previous[v]) {
+      path.addFirst(new Edge(this.previous[v], v, this.previousWeight[v]));
+    } // for
+    for (int v = this.meetTo; v != finish; v = this.following[v]) {
+      path.addLast(g.edge(v, g.indexOf(v, this.following[v])));
+    } // for
+    return path;
+  } // path(int, int)
+
+  /**
+   * Get the number of vertices reached (from either end) in the last
+   * search.
+   */
+  public int visited() {
+    return this.visited;
+  } // visited()
+
+  /**
+   * Get a path from start to finish in graph, using this thread's search.
+   */
+  static List<Edge> find(Graph graph, int start, int finish) {
+    BidirectionalSearch search = searches.get();
+    search.graph = graph;
+    try {
+      return search.path(start, finish);
+    } finally {
+      search.graph = null;
+    } // try/finally
+  } // find(Graph, int, int)
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Follow the edge from v (reached from start) to u. Returns the new
+   * length of the forward queue.
+   */
+  private int forward(int v, int u, int weight, int tail) {
+    if (this.forwardStamps[u] != this.stamp) {
+      this.forwardStamps[u] = this.stamp;
+      this.forwardDepth[u] = this.forwardDepth[v] + 1;
+      this.previous[u] = v;
+      this.previousWeight[u] = weight;
+      this.forwardQueue[tail++] = u;
+    } // if
+    if (this.backwardStamps[u] == this.stamp) {
+      this.meet(v, u);
+    } // if
+    return tail;
+  } // forward(int, int, int, int)
+
+  /**
+   * Follow the edge from u to v (reached from finish) backward. Returns the
+   * new length of the backward queue.
+   */
+  private int backward(int u, int v, int tail) {
+    if (this.backwardStamps[u] != this.stamp) {
+      this.backwardStamps[u] = this.stamp;
+      this.backwardDepth[u] = this.backwardDepth[v] + 1;
+      this.following[u] = v;
+      this.backwardQueue[tail++] = u;
+    } // if
+    if (this.forwardStamps[u] == this.stamp) {
+      this.meet(u, v);
+    } // if
+    return tail;
+  } // backward(int, int, int)
+
+  /**
+   * Note that the edge from u (reached from start) to v (reached from
+   * finish) joins the two searches.
+   */
+  private void meet(int u, int v) {
+    int length = this.forwardDepth[u] + 1 + this.backwardDepth[v];
+    if (length < this.meetLength) {
+      this.meetLength = length;
+      this.meetFrom = u;
+      this.meetTo = v;
+    } // if
+  } // meet(int, int)
+
+  /**
+   * Get ready for a search of a graph with the given capacity.
+   */
+  private void prepare(int capacity) {
+    if (capacity > this.forwardStamps.length) {
+      this.allocate(capacity);
+      this.stamp = 0;
+    } // if
+    if (++this.stamp == Integer.MAX_VALUE) {
+      this.allocate(this.forwardStamps.length);
+      this.stamp = 1;
+    } // if
+  } // prepare(int)
+
+  /**
+   * Allocate all of the arrays.
+   */
+  private void allocate(int capacity) {
+    this.forwardStamps = new int[capacity];
+    this.backwardStamps = new int[capacity];
+    this.forwardDepth = new int[capacity];
+    this.backwardDepth = new int[capacity];
+    this.previous = new int[capacity];
+    this.previousWeight = new int[capacity];
+    this.following = new int[capacity];
+    this.forwardQueue = new int[capacity];
+    this.backwardQueue = new int[capacity];
+  } // allocate(int)
+
+} // class BidirectionalSearch
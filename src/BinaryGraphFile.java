@@ -0,0 +1,542 @@
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Saving graphs to, and loading graphs from, a compact binary format.
+ *
+ * @author Samuel A. Rebelsky
+ */
+public class BinaryGraphFile {
+
+  // +-------+-------------------------------------------------------
+  // | Notes |
+  // +-------+
+
+  /*
+   * A file has the following parts. All ints and longs are big-endian.
+   *
+   *   int    MAGIC
+   *   int    FORMAT_VERSION
+   *   int    flags (UNDIRECTED, COMPRESSED)
+   *   int    capacity (the number of vertex numbers)
+   *   int    the number of vertices
+   *   long   the number of edges
+   *   long   the position in the file of the edges (version 2 and later)
+   *
+   *   For each vertex number, v, from 0 to capacity-1:
+   *     int  the length of the UTF-8 name of v, or -1 if v is unused
+   *     the bytes of the name
+   *
+   *   If the file is not compressed, the edges in CSR form (see CsrGraph):
+   *     int  offsets[capacity+1]
+   *     int  targets[number of edges]
+   *     int  weights[number of edges]
+   *
+   *   If the file is compressed, for each vertex number, v:
+   *     varint   the number of edges from v
+   *     for each edge, in order of increasing target:
+   *       varint the difference between its target and the previous
+   *              target (or 0, for the first edge)
+   *       varint the weight, zigzag-encoded so that small negative
+   *              weights stay small
+   *
+   * Uncompressed files keep the edges from each vertex in the same order
+   * as the graph; compressed files sort them.
+   *
+   * We read and write through large buffers, moving whole arrays of ints
+   * at a time, so even huge graphs take only a few trips to the disk.
+   *
+   * Version 2 added the position of the edges to the header, so that
+   * MappedGraph can find them without reading the names. We can still load
+   * version 1 files.
+   *
+   * Since a file may be damaged (or not one of ours at all), load checks
+   * everything it reads before it touches the graph: the sizes in the
+   * header, the offsets, the range of every target, that names are
+   * unique, and so on. Anything wrong makes it throw an exception that
+   * says the file is not a valid graph file, and leaves the graph as it
+   * was.
+   */
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The first four bytes of every file ("GRPH").
+   */
+  static final int MAGIC = 0x47525048;
+
+  /**
+   * The version of the format.
+   */
+  static final int FORMAT_VERSION = 2;
+
+  /**
+   * The size of the header in the current version.
+   */
+  static final int HEADER_SIZE = 36;
+
+  /**
+   * The position of the edge position in the header.
+   */
+  static final int EDGES_START_POSITION = 28;
+
+  /**
+   * The flag for undirected graphs.
+   */
+  static final int UNDIRECTED = 1;
+
+  /**
+   * The flag for compressed files.
+   */
+  static final int COMPRESSED = 2;
+
+  /**
+   * The size of our buffers.
+   */
+  static final int BUFFER_SIZE = 1 << 20;
+
+  // +----------------+----------------------------------------------
+  // | Public methods |
+  // +----------------+
+
+  /**
+   * Save graph to a file. If compress is true, varint-encode the edges.
+   */
+  public static void save(Graph graph, String fname, boolean compress)
+      throws Exception {
+    CsrGraph csr = graph.freeze();
+    int capacity = csr.offsets.length - 1;
+    try (RandomAccessFile file = new RandomAccessFile(fname, "rw");
+        FileChannel channel = file.getChannel()) {
+      channel.truncate(0);
+      Output out = new Output(channel);
+      out.putInt(MAGIC);
+      out.putInt(FORMAT_VERSION);
+      out.putInt((graph.symmetric() ? UNDIRECTED : 0)
+          | (compress ? COMPRESSED : 0));
+      out.putInt(capacity);
+      out.putInt(csr.numVertices);
+      out.putLong(csr.numEdges);
+      out.putLong(0); // The position of the edges, which we fill in later
+      for (int v = 0; v < capacity; v++) {
+        // The names are already UTF-8, so we copy their bytes as they are
+        int length = csr.names.lengths.get(v);
+        if (length == NameTable.DEFAULT) {
+          byte[] name = NameTable.defaultName(v);
+          out.putInt(name.length);
+          out.putBytes(name, 0, name.length);
+        } else {
+          out.putInt(length);
+          if (length >= 0) {
+            out.putBytes(csr.names.bytes, csr.names.starts.get(v), length);
+          } // if
+        } // if/else
+      } // for
+      out.flush();
+      ByteBuffer edgesStart = ByteBuffer.allocate(8);
+      edgesStart.putLong(channel.position()).flip();
+      channel.write(edgesStart, EDGES_START_POSITION);
+      if (compress) {
+        for (int v = 0; v < capacity; v++) {
+          writeCompressed(out, csr, v);
+        } // for
+      } else {
+        out.putInts(csr.offsets, csr.offsets.length);
+        out.putInts(csr.targets, csr.numEdges);
+        out.putInts(csr.weights, csr.numEdges);
+      } // if/else
+      out.flush();
+    } // try
+  } // save(Graph, String, boolean)
+
+  /**
+   * Load a file into graph, replacing anything already in the graph.
+   *
+   * @exception Exception if the file is not in the right format, if it
+   *              does not describe a valid graph, or if it holds a
+   *              directed graph and graph is undirected
+   */
+  public static void load(Graph graph, String fname) throws Exception {
+    try (RandomAccessFile file = new RandomAccessFile(fname, "r");
+        FileChannel channel = file.getChannel()) {
+      long size = channel.size();
+      Input in = new Input(channel);
+      if (in.getInt() != MAGIC) {
+        throw new Exception(fname + " is not a binary graph file");
+      } // if
+      int version = in.getInt();
+      if ((version < 1) || (version > FORMAT_VERSION)) {
+        throw new Exception(fname + " has unknown format version " + version);
+      } // if
+      int flags = in.getInt();
+      if (graph.symmetric() && ((flags & UNDIRECTED) == 0)) {
+        throw new Exception(fname + " does not hold an undirected graph");
+      } // if
+      int capacity = in.getInt();
+      in.getInt(); // The number of vertices, which we count as we go
+      long numEdges = in.getLong();
+      if (version >= 2) {
+        in.getLong(); // The position of the edges, which we don't need
+      } // if
+      if (numEdges > Integer.MAX_VALUE) {
+        throw new Exception(fname + " has too many edges");
+      } // if
+      // Each vertex takes at least four bytes, and each edge at least two,
+      // so we need not allocate more than the file could describe
+      if ((capacity < 0) || (capacity > size / 4)) {
+        throw invalid(fname, "bad number of vertices");
+      } // if
+      if ((numEdges < 0) || (numEdges > size / 2)) {
+        throw invalid(fname, "bad number of edges");
+      } // if
+
+      // The names are already UTF-8, so they go straight into the table,
+      // except that a default name need not be stored (see NameTable)
+      NameTable names = new NameTable(capacity);
+      byte[] name = new byte[64];
+      for (int v = 0; v < capacity; v++) {
+        int length = in.getInt();
+        if ((length < -1) || (length > size)) {
+          throw invalid(fname, "bad name length for vertex " + v);
+        } // if
+        if (length >= 0) {
+          if (length > name.length) {
+            name = new byte[Math.max(length, 2 * name.length)];
+          } // if
+          in.getBytes(name, length);
+          if (names.find(name, 0, length) != -1) {
+            throw invalid(fname, "two vertices are named "
+                + new String(name, 0, length, StandardCharsets.UTF_8));
+          } // if
+          if (NameTable.parseDefault(name, 0, length) == v) {
+            names.putDefault(v);
+          } else {
+            names.put(v, name, 0, length);
+          } // if/else
+        } // if
+      } // for
+
+      int[] offsets = new int[capacity + 1];
+      int[] targets = new int[(int) numEdges];
+      int[] weights = new int[(int) numEdges];
+      if ((flags & COMPRESSED) == 0) {
+        in.getInts(offsets, offsets.length);
+        if ((offsets[0] != 0) || (offsets[capacity] != numEdges)) {
+          throw invalid(fname, "offsets do not match number of edges");
+        } // if
+        for (int v = 0; v < capacity; v++) {
+          if (offsets[v + 1] < offsets[v]) {
+            throw invalid(fname, "offsets decrease at vertex " + v);
+          } // if
+        } // for
+        in.getInts(targets, targets.length);
+        in.getInts(weights, weights.length);
+      } else {
+        int pos = 0;
+        for (int v = 0; v < capacity; v++) {
+          offsets[v] = pos;
+          int degree = in.getVarint();
+          if ((degree < 0) || (degree > numEdges - pos)) {
+            throw invalid(fname, "more edges than the header says");
+          } // if
+          int target = 0;
+          for (int i = 0; i < degree; i++) {
+            int gap = in.getVarint();
+            if ((gap < 0) || (gap >= capacity - target)) {
+              throw invalid(fname, "edge from " + v + " out of range");
+            } // if
+            target += gap;
+            int zigzag = in.getVarint();
+            targets[pos] = target;
+            weights[pos] = (zigzag >>> 1) ^ -(zigzag & 1);
+            ++pos;
+          } // for
+        } // for
+        if (pos != numEdges) {
+          throw invalid(fname, "fewer edges than the header says");
+        } // if
+        offsets[capacity] = pos;
+      } // if/else
+      checkEdges(fname, names, offsets, targets, weights, graph.symmetric());
+      graph.replaceWith(names, offsets, targets, weights);
+    } // try
+  } // load(Graph, String)
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Make sure that the edges read from a file make sense: every edge goes
+   * between two different vertices that have names, and no vertex has two
+   * edges to the same vertex. If symmetric is true, also make sure that
+   * every edge has a matching edge the other way, with the same weight.
+   *
+   * @exception Exception if they do not.
+   */
+  static void checkEdges(String fname, NameTable names, int[] offsets,
+      int[] targets, int[] weights, boolean symmetric) throws Exception {
+    int capacity = offsets.length - 1;
+    // seen[w] is v+1 once we have seen an edge from v to w
+    int[] seen = new int[capacity];
+    for (int v = 0; v < capacity; v++) {
+      if ((offsets[v] != offsets[v + 1]) && !names.contains(v)) {
+        throw invalid(fname, "edges from unused vertex " + v);
+      } // if
+      for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+        int w = targets[i];
+        if ((w < 0) || (w >= capacity) || !names.contains(w)) {
+          throw invalid(fname, "edge from " + v + " to unused vertex " + w);
+        } // if
+        if (w == v) {
+          throw invalid(fname, "edge from " + v + " to itself");
+        } // if
+        if (seen[w] == v + 1) {
+          throw invalid(fname, "two edges from " + v + " to " + w);
+        } // if
+        seen[w] = v + 1;
+      } // for
+    } // for
+    if (!symmetric) {
+      return;
+    } // if
+    // Sort the edges by target, and check that the edges into each vertex
+    // match the edges out of it. (Since no edge repeats, matching each
+    // edge in is enough once the counts agree.)
+    int[] into = new int[capacity + 1];
+    for (int i = 0; i < targets.length; i++) {
+      ++into[targets[i] + 1];
+    } // for
+    for (int v = 0; v < capacity; v++) {
+      into[v + 1] += into[v];
+    } // for
+    int[] froms = new int[targets.length];
+    int[] costs = new int[targets.length];
+    int[] next = Arrays.copyOf(into, capacity);
+    for (int v = 0; v < capacity; v++) {
+      for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+        int j = next[targets[i]]++;
+        froms[j] = v;
+        costs[j] = weights[i];
+      } // for
+    } // for
+    int[] weightTo = new int[capacity];
+    Arrays.fill(seen, 0);
+    for (int v = 0; v < capacity; v++) {
+      if (into[v + 1] - into[v] != offsets[v + 1] - offsets[v]) {
+        throw invalid(fname, "edges of " + v + " are not symmetric");
+      } // if
+      for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+        seen[targets[i]] = v + 1;
+        weightTo[targets[i]] = weights[i];
+      } // for
+      for (int j = into[v]; j < into[v + 1]; j++) {
+        if ((seen[froms[j]] != v + 1) || (weightTo[froms[j]] != costs[j])) {
+          throw invalid(fname, "edges of " + v + " are not symmetric");
+        } // if
+      } // for
+    } // for
+  } // checkEdges(String, NameTable, int[], int[], int[], boolean)
+
+  /**
+   * Build the exception for a file that does not describe a valid graph.
+   */
+  static Exception invalid(String fname, String problem) {
+    return new Exception(fname + " is not a valid graph file: " + problem);
+  } // invalid(String, String)
+
+  /**
+   * Write the edges from v in compressed form.
+   */
+  static void writeCompressed(Output out, CsrGraph csr, int v)
+      throws Exception {
+    int start = csr.offsets[v];
+    int degree = csr.offsets[v + 1] - start;
+    // Sort the edges by target, keeping each weight with its target
+    long[] edges = new long[degree];
+    for (int i = 0; i < degree; i++) {
+      edges[i] = ((long) csr.targets[start + i] << 32)
+          | (csr.weights[start + i] & 0xFFFFFFFFL);
+    } // for
+    Arrays.sort(edges);
+    out.putVarint(degree);
+    int previous = 0;
+    for (int i = 0; i < degree; i++) {
+      int target = (int) (edges[i] >>> 32);
+      int weight = (int) edges[i];
+      out.putVarint(target - previous);
+      out.putVarint((weight << 1) ^ (weight >> 31));
+      previous = target;
+    } // for
+  } // writeCompressed(Output, CsrGraph, int)
+
+  // +---------+-----------------------------------------------------
+  // | Buffers |
+  // +---------+
+
+  /**
+   * A buffer that we fill and then write to a channel.
+   */
+  static class Output {
+    FileChannel channel;
+    ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    Output(FileChannel channel) {
+      this.channel = channel;
+    } // Output(FileChannel)
+
+    /**
+     * Make sure that there's room for bytes more bytes.
+     */
+    void ensure(int bytes) throws Exception {
+      if (this.buffer.remaining() < bytes) {
+        this.flush();
+      } // if
+    } // ensure(int)
+
+    /**
+     * Write everything in the buffer.
+     */
+    void flush() throws Exception {
+      this.buffer.flip();
+      while (this.buffer.hasRemaining()) {
+        this.channel.write(this.buffer);
+      } // while
+      this.buffer.clear();
+    } // flush()
+
+    void putInt(int value) throws Exception {
+      this.ensure(4);
+      this.buffer.putInt(value);
+    } // putInt(int)
+
+    void putLong(long value) throws Exception {
+      this.ensure(8);
+      this.buffer.putLong(value);
+    } // putLong(long)
+
+    void putBytes(byte[] bytes, int start, int length) throws Exception {
+      int end = start + length;
+      for (int pos = start; pos < end;) {
+        this.ensure(1);
+        int count = Math.min(end - pos, this.buffer.remaining());
+        this.buffer.put(bytes, pos, count);
+        pos += count;
+      } // for
+    } // putBytes(byte[], int, int)
+
+    /**
+     * Write the first count values in an array.
+     */
+    void putInts(int[] values, int count) throws Exception {
+      for (int pos = 0; pos < count;) {
+        this.ensure(4);
+        int n = Math.min(count - pos, this.buffer.remaining() / 4);
+        this.buffer.asIntBuffer().put(values, pos, n);
+        this.buffer.position(this.buffer.position() + 4 * n);
+        pos += n;
+      } // for
+    } // putInts(int[], int)
+
+    /**
+     * Write a non-negative int in 7-bit groups, low group first, with the
+     * high bit of each byte saying whether more follow.
+     */
+    void putVarint(int value) throws Exception {
+      this.ensure(5);
+      while ((value & ~0x7F) != 0) {
+        this.buffer.put((byte) ((value & 0x7F) | 0x80));
+        value >>>= 7;
+      } // while
+      this.buffer.put((byte) value);
+    } // putVarint(int)
+  } // class Output
+
+  /**
+   * A buffer that we fill from a channel and then read.
+   */
+  static class Input {
+    FileChannel channel;
+    ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    Input(FileChannel channel) {
+      this.channel = channel;
+      this.buffer.flip();
+    } // Input(FileChannel)
+
+    /**
+     * Make sure that at least bytes bytes are in the buffer.
+     */
+    void ensure(int bytes) throws Exception {
+      if (this.buffer.remaining() < bytes) {
+        this.buffer.compact();
+        while (this.buffer.position() < bytes) {
+          if (this.channel.read(this.buffer) < 0) {
+            throw new Exception("Unexpected end of file");
+          } // if
+        } // while
+        this.buffer.flip();
+      } // if
+    } // ensure(int)
+
+    int getInt() throws Exception {
+      this.ensure(4);
+      return this.buffer.getInt();
+    } // getInt()
+
+    long getLong() throws Exception {
+      this.ensure(8);
+      return this.buffer.getLong();
+    } // getLong()
+
+    /**
+     * Read length bytes into the start of an array.
+     */
+    void getBytes(byte[] bytes, int length) throws Exception {
+      for (int pos = 0; pos < length;) {
+        this.ensure(1);
+        int count = Math.min(length - pos, this.buffer.remaining());
+        this.buffer.get(bytes, pos, count);
+        pos += count;
+      } // for
+    } // getBytes(byte[], int)
+
+    /**
+     * Read count ints into an array.
+     */
+    void getInts(int[] values, int count) throws Exception {
+      for (int pos = 0; pos < count;) {
+        this.ensure(4);
+        int n = Math.min(count - pos, this.buffer.remaining() / 4);
+        this.buffer.asIntBuffer().get(values, pos, n);
+        this.buffer.position(this.buffer.position() + 4 * n);
+        pos += n;
+      } // for
+    } // getInts(int[], int)
+
+    /**
+     * Read an int written by Output.putVarint.
+     */
+    int getVarint() throws Exception {
+      int value = 0;
+      int shift = 0;
+      byte b;
+      do {
+        this.ensure(1);
+        b = this.buffer.get();
+        value |= (b & 0x7F) << shift;
+        shift += 7;
+        if ((b < 0) && (shift > 28)) {
+          throw new Exception("Number too long");
+        } // if
+      } while (b < 0);
+      return value;
+    } // getVarint()
+  } // class Input
+
+} // class BinaryGraphFile
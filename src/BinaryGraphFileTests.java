@@ -0,0 +1,222 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Some tests of binary graph files, each checked by saving a graph,
+ * loading it again, and comparing the two, or by damaging a file and
+ * checking that loading it fails without changing the graph.
+ */
+class BinaryGraphFileTests {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of vertex numbers in the graphs we save.
+   */
+  static final int VERTICES = 300;
+
+  /**
+   * Some names whose UTF-8 bytes are not all ASCII.
+   */
+  static final String[] unusual = {"caf\u00e9", "\u540d\u524d",
+      "na\u00efve", "\u00fcber", "\u03b1\u03b2\u03b3", "\ud83d\ude00"};
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Save and load a directed graph with holes in its numbering, negative
+   * and extreme weights, and names of every sort, both with and without
+   * compression.
+   */
+  @Test
+  void testRoundTrip() throws Exception {
+    Graph g = randomGraph(new Graph(), new Random(41));
+    File file = File.createTempFile("BinaryGraphFileTests", ".bin");
+    try {
+      g.saveBinary(file.getPath(), false);
+      Graph loaded = Graph.loadBinary(file.getPath());
+      check(g, loaded);
+      // Without compression, the edges keep their order
+      for (int v = 0; v < VERTICES; v++) {
+        assertEquals(edgesFrom(g, v, false), edgesFrom(loaded, v, false),
+            "Edges from " + v);
+      } // for
+
+      g.saveBinary(file.getPath(), true);
+      check(g, Graph.loadBinary(file.getPath()));
+    } finally {
+      file.delete();
+    } // try/finally
+  } // testRoundTrip()
+
+  /**
+   * Save and load an undirected graph. A directed graph will not load
+   * into an undirected one.
+   */
+  @Test
+  void testUndirected() throws Exception {
+    UndirectedGraph g = randomGraph(new UndirectedGraph(), new Random(43));
+    File file = File.createTempFile("BinaryGraphFileTests", ".bin");
+    try {
+      for (boolean compress : new boolean[] {false, true}) {
+        g.saveBinary(file.getPath(), compress);
+        check(g, UndirectedGraph.loadBinary(file.getPath()));
+        check(g, Graph.loadBinary(file.getPath()));
+      } // for
+      new Graph().saveBinary(file.getPath());
+      assertThrows(Exception.class,
+          () -> UndirectedGraph.loadBinary(file.getPath()));
+    } finally {
+      file.delete();
+    } // try/finally
+  } // testUndirected()
+
+  /**
+   * A file with the wrong magic number or an unknown version, or one that
+   * stops short, should not load, and should leave the graph alone.
+   */
+  @Test
+  void testDamagedFiles() throws Exception {
+    Graph g = randomGraph(new Graph(), new Random(47));
+    File file = File.createTempFile("BinaryGraphFileTests", ".bin");
+    try {
+      for (boolean compress : new boolean[] {false, true}) {
+        // The magic number
+        g.saveBinary(file.getPath(), compress);
+        overwrite(file, 0, 0x47525049);
+        checkRejected(file);
+
+        // The version, too new and too old
+        g.saveBinary(file.getPath(), compress);
+        overwrite(file, 4, BinaryGraphFile.FORMAT_VERSION + 1);
+        checkRejected(file);
+        overwrite(file, 4, 0);
+        checkRejected(file);
+
+        // Cut off in the header, the names, and the edges
+        g.saveBinary(file.getPath(), compress);
+        long length = file.length();
+        for (long cut : new long[] {length - 1, length - 9, length / 2,
+            length / 5, BinaryGraphFile.HEADER_SIZE + 3,
+            BinaryGraphFile.HEADER_SIZE - 1, 6, 0}) {
+          g.saveBinary(file.getPath(), compress);
+          try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(cut);
+          } // try
+          checkRejected(file);
+        } // for
+      } // for
+    } finally {
+      file.delete();
+    } // try/finally
+  } // testDamagedFiles()
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Fill g with VERTICES vertices, remove some to leave holes, and add
+   * random edges with weights of every sign and size.
+   */
+  static <T extends Graph> T randomGraph(T g, Random random)
+      throws Exception {
+    for (int i = 0; i < VERTICES; i++) {
+      if (i % 10 == 0) {
+        g.addVertex(unusual[(i / 10) % unusual.length] + i);
+      } else if (i % 10 == 1) {
+        g.addVertex("name " + i);
+      } else {
+        g.addVertex();
+      } // if/else
+    } // for
+    int[] weights = {0, -1, 1, -64, 64, Integer.MIN_VALUE, Integer.MAX_VALUE};
+    for (int i = 0; i < 8 * VERTICES; i++) {
+      int from = random.nextInt(VERTICES);
+      int to = random.nextInt(VERTICES);
+      if (from != to) {
+        int weight = (i % 3 == 0) ? weights[i % weights.length]
+            : random.nextInt(20000) - 10000;
+        g.addEdge(from, to, weight);
+      } // if
+    } // for
+    // Holes in the numbering, including the first and last numbers
+    for (int v : new int[] {0, 5, 10, 11, 12, 150, VERTICES - 1}) {
+      g.removeVertex(v);
+    } // for
+    return g;
+  } // randomGraph(T, Random)
+
+  /**
+   * Check that loaded has the same vertices, names, and edges as g.
+   */
+  static void check(Graph g, Graph loaded) {
+    assertEquals(g.numVertices(), loaded.numVertices());
+    assertEquals(g.numEdges(), loaded.numEdges());
+    assertEquals(g.capacity(), loaded.capacity());
+    for (int v = 0; v < g.capacity(); v++) {
+      assertEquals(g.vertexName(v), loaded.vertexName(v), "Name of " + v);
+      if (g.vertexName(v) != null) {
+        assertEquals(v, loaded.vertexNumber(g.vertexName(v)),
+            "Number of " + g.vertexName(v));
+      } // if
+      assertEquals(edgesFrom(g, v, true), edgesFrom(loaded, v, true),
+          "Edges from " + v);
+    } // for
+  } // check(Graph, Graph)
+
+  /**
+   * Check that file does not load, and that a failed load leaves the
+   * graph as it was.
+   */
+  static void checkRejected(File file) throws Exception {
+    Graph g = new Graph();
+    g.addVertex("before");
+    g.addVertex("after");
+    g.addEdge(0, 1, 42);
+    assertThrows(Exception.class,
+        () -> BinaryGraphFile.load(g, file.getPath()));
+    assertEquals(2, g.numVertices());
+    assertEquals(1, g.numEdges());
+    assertEquals("before", g.vertexName(0));
+    assertEquals(42, g.edgeWeight(0, 1));
+  } // checkRejected(File)
+
+  /**
+   * Write a big-endian int into a file at a given position.
+   */
+  static void overwrite(File file, long position, int value)
+      throws IOException {
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.seek(position);
+      raf.writeInt(value);
+    } // try
+  } // overwrite(File, long, int)
+
+  /**
+   * Get the edges from a vertex as strings, sorted if sort is true.
+   */
+  static List<String> edgesFrom(Graph g, int v, boolean sort) {
+    List<String> result = new ArrayList<String>();
+    for (Iterator<Edge> edges = g.edgesFrom(v); edges.hasNext(); ) {
+      Edge edge = edges.next();
+      result.add(edge.to() + ":" + edge.weight());
+    } // for
+    if (sort) {
+      result.sort(null);
+    } // if
+    return result;
+  } // edgesFrom(Graph, int, boolean)
+
+} // BinaryGraphFileTests
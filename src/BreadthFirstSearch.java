@@ -0,0 +1,470 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Breadth-first search from one vertex to every vertex it can reach,
+ * using several threads for large graphs.
+ *
+ * @author Samuel A. Rebelsky
+ */
+public class BreadthFirstSearch {
+
+  // +-------+-------------------------------------------------------
+  // | Notes |
+  // +-------+
+
+  /*
+   * We search one level at a time. The vertices at the current distance
+   * (the frontier) are a contiguous part of order; the vertices we reach
+   * from them are appended after it, and become the next frontier.
+   *
+   * There are two ways to find the next level.
+   *
+   *   Top-down: follow every edge out of the frontier, and claim each
+   *   unreached end. Several threads may find the same vertex at once, so
+   *   we claim a vertex by setting its bit in an atomic bitset (visited);
+   *   only the thread that sets the bit records a parent.
+   *
+   *   Bottom-up: for every vertex not yet reached, look at the edges into
+   *   it until we find one from the frontier. Each vertex is handled by
+   *   only one thread, and we can stop at the first such edge. To check
+   *   membership in the frontier quickly, we keep it as a bitset, too.
+   *
+   * Top-down is better when the frontier is small; bottom-up is better
+   * when the frontier has more edges than the unreached part of the graph
+   * (as in the middle levels of a search of a small-world graph). We
+   * switch as in Beamer, Asanovic, and Patterson's direction-optimizing
+   * search: to bottom-up when the edges from the frontier outnumber
+   * 1/ALPHA of the edges from unreached vertices, and back to top-down
+   * when the frontier holds fewer than 1/BETA of the vertices.
+   *
+   * Bottom-up steps need the edges into each vertex. For an undirected
+   * graph, those are the edges out of it; for a directed graph, we use
+   * the graph's reversed snapshot, which it keeps until it changes.
+   *
+   * Small graphs and small frontiers aren't worth splitting among
+   * threads, so we handle them on the calling thread. The sequential
+   * search (used by Graph.path) visits vertices in exactly the same
+   * order as a simple queue-based search, so it gives the same paths.
+   * The parallel search finds a shortest path to every vertex, but which
+   * one may vary from run to run.
+   */
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The smallest graph (by number of vertex numbers) that we search with
+   * several threads.
+   */
+  static final int PARALLEL_THRESHOLD = 1 << 16;
+
+  /**
+   * The smallest frontier that we split among threads.
+   */
+  static final int PARALLEL_FRONTIER = 1024;
+
+  /**
+   * The number of frontier vertices handled by one top-down task.
+   */
+  static final int TOP_DOWN_GRAIN = 256;
+
+  /**
+   * The number of vertex numbers handled by one bottom-up task. Must be a
+   * multiple of 64, so that tasks never share a word of a bitset.
+   */
+  static final int BOTTOM_UP_GRAIN = 4096;
+
+  /**
+   * The size of the buffer in which a task collects the vertices it
+   * reaches.
+   */
+  static final int BUFFER_SIZE = 1024;
+
+  /**
+   * The parameters that decide when to switch directions.
+   */
+  static final int ALPHA = 14;
+  static final int BETA = 24;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The graph we search.
+   */
+  Graph graph;
+
+  /**
+   * The pool that runs our tasks, or null for a sequential search.
+   */
+  ForkJoinPool pool;
+
+  /**
+   * What we've found.
+   */
+  BfsTree tree;
+
+  /**
+   * One bit per vertex number, set once we've reached the vertex. Null in
+   * a sequential search.
+   */
+  AtomicLongArray visited;
+
+  /**
+   * The current frontier, as a bitset, for bottom-up steps.
+   */
+  long[] frontierBits;
+
+  /**
+   * The next frontier, as a bitset, filled by bottom-up steps.
+   */
+  long[] nextBits;
+
+  /**
+   * The end of the vertices we've reached so far in tree.order.
+   */
+  AtomicInteger tail;
+
+  /**
+   * The number of edges from the vertices reached in the current step.
+   */
+  AtomicLong nextEdges;
+
+  /**
+   * The edges into each vertex, if the graph is not symmetric.
+   */
+  CsrGraph reversed;
+
+  /**
+   * The current level (the distance to the frontier).
+   */
+  int level;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Get ready to search graph from source.
+   */
+  private BreadthFirstSearch(Graph graph, int source, ForkJoinPool pool) {
+    int capacity = graph.capacity();
+    this.graph = graph;
+    this.pool = pool;
+    this.tree = new BfsTree(source, capacity);
+    Arrays.fill(this.tree.distance, -1);
+    this.tree.distance[source] = 0;
+    this.tree.parent[source] = -1;
+    this.tree.order[0] = source;
+    if (pool != null) {
+      int words = (capacity + 63) / 64;
+      this.visited = new AtomicLongArray(words);
+      this.visited.set(source / 64, 1L << source);
+      this.frontierBits = new long[words];
+      this.nextBits = new long[words];
+      this.tail = new AtomicInteger(1);
+      this.nextEdges = new AtomicLong();
+    } // if
+  } // BreadthFirstSearch(Graph, int, ForkJoinPool)
+
+  // +----------------+----------------------------------------------
+  // | Public methods |
+  // +----------------+
+
+  /**
+   * Search graph from source, using the common fork-join pool if the
+   * graph is large. Returns null if source is not a vertex.
+   */
+  public static BfsTree search(Graph graph, int source) {
+    return search(graph, source, ForkJoinPool.commonPool());
+  } // search(Graph, int)
+
+  /**
+   * Search graph from source, using the given pool of threads if the
+   * graph is large. Returns null if source is not a vertex.
+   */
+  public static BfsTree search(Graph graph, int source, ForkJoinPool pool) {
+    if (!graph.validVertex(source)) {
+      return null;
+    } // if
+    if (graph.capacity() < PARALLEL_THRESHOLD) {
+      return sequential(graph, source, -1);
+    } // if
+    long expected = graph.version;
+    BfsTree tree = new BreadthFirstSearch(graph, source, pool).parallel();
+    graph.failFast(expected);
+    return tree;
+  } // search(Graph, int, ForkJoinPool)
+
+  /**
+   * Search graph from source on this thread, stopping once we reach
+   * finish (if finish is not -1). Source must be a vertex.
+   */
+  static BfsTree sequential(Graph graph, int source, int finish) {
+    BfsTree tree = new BreadthFirstSearch(graph, source, null).tree;
+    int[] distance = tree.distance;
+    int[] order = tree.order;
+    int head = 0;
+    int tail = 1;
+    while ((head < tail) && ((finish == -1) || (distance[finish] == -1))) {
+      int v = order[head++];
+      int[] ends = graph.targets.get(v);
+      int[] costs = graph.weights.get(v);
+      int degree = graph.degrees.get(v);
+      for (int i = 0; i < degree; i++) {
+        int to = ends[i];
+        if (distance[to] == -1) {
+          distance[to] = distance[v] + 1;
+          tree.parent[to] = v;
+          tree.parentWeight[to] = costs[i];
+          order[tail++] = to;
+        } // if
+      } // for
+    } // while
+    tree.numReached = tail;
+    return tree;
+  } // sequential(Graph, int, int)
+
+  // +-----------------+---------------------------------------------
+  // | Parallel search |
+  // +-----------------+
+
+  /**
+   * Search, one level at a time.
+   */
+  private BfsTree parallel() {
+    Graph g = this.graph;
+    int capacity = g.capacity();
+    int source = this.tree.source;
+    int head = 0;
+    int tail = 1;
+    long frontierEdges = g.degrees.get(source);
+    long unexplored = g.numEdges - frontierEdges;
+    boolean bottomUp = false;
+    boolean bitsReady = false;
+    this.level = 0;
+    while (head < tail) {
+      int size = tail - head;
+      if (bottomUp) {
+        bottomUp = size >= capacity / BETA;
+      } else {
+        bottomUp = frontierEdges > unexplored / ALPHA;
+      } // if/else
+      this.nextEdges.set(0);
+      if (bottomUp) {
+        if (!g.symmetric() && (this.reversed == null)) {
+          this.reversed = g.reverseIndex();
+        } // if
+        if (!bitsReady) {
+          Arrays.fill(this.frontierBits, 0);
+          for (int i = head; i < tail; i++) {
+            int v = this.tree.order[i];
+            this.frontierBits[v / 64] |= 1L << v;
+          } // for
+        } // if
+        this.pool.invoke(new BottomUp(0, capacity));
+        long[] bits = this.frontierBits;
+        this.frontierBits = this.nextBits;
+        this.nextBits = bits;
+        Arrays.fill(this.nextBits, 0);
+        bitsReady = true;
+      } else if (size < PARALLEL_FRONTIER) {
+        this.topDown(head, tail);
+        bitsReady = false;
+      } else {
+        this.pool.invoke(new TopDown(head, tail));
+        bitsReady = false;
+      } // if/else
+      head = tail;
+      tail = this.tail.get();
+      frontierEdges = this.nextEdges.get();
+      unexplored -= frontierEdges;
+      ++this.level;
+    } // while
+    this.tree.numReached = tail;
+    return this.tree;
+  } // parallel()
+
+  /**
+   * Follow the edges from the frontier vertices in order[lo] ..
+   * order[hi-1].
+   */
+  void topDown(int lo, int hi) {
+    Graph g = this.graph;
+    BfsTree t = this.tree;
+    Collector next = new Collector();
+    for (int i = lo; i < hi; i++) {
+      int v = t.order[i];
+      int[] ends = g.targets.get(v);
+      int[] costs = g.weights.get(v);
+      int degree = g.degrees.get(v);
+      for (int j = 0; j < degree; j++) {
+        int to = ends[j];
+        if (this.claim(to)) {
+          t.distance[to] = this.level + 1;
+          t.parent[to] = v;
+          t.parentWeight[to] = costs[j];
+          next.add(to);
+        } // if
+      } // for
+    } // for
+    next.flush();
+  } // topDown(int, int)
+
+  /**
+   * Look for edges from the frontier into the unreached vertices numbered
+   * lo .. hi-1. lo must be a multiple of 64.
+   */
+  void bottomUp(int lo, int hi) {
+    Graph g = this.graph;
+    BfsTree t = this.tree;
+    boolean symmetric = (this.reversed == null);
+    Collector next = new Collector();
+    for (int v = lo; v < hi; v++) {
+      if ((this.visited.get(v / 64) & (1L << v)) != 0) {
+        continue;
+      } // if
+      int[] ends;
+      int[] costs;
+      int start;
+      int end;
+      if (symmetric) {
+        ends = g.targets.get(v);
+        costs = g.weights.get(v);
+        start = 0;
+        end = g.degrees.get(v);
+      } else {
+        ends = this.reversed.targets;
+        costs = this.reversed.weights;
+        start = this.reversed.offsets[v];
+        end = this.reversed.offsets[v + 1];
+      } // if/else
+      for (int j = start; j < end; j++) {
+        int from = ends[j];
+        if ((this.frontierBits[from / 64] & (1L << from)) != 0) {
+          this.claim(v);
+          t.distance[v] = this.level + 1;
+          t.parent[v] = from;
+          t.parentWeight[v] = costs[j];
+          this.nextBits[v / 64] |= 1L << v;
+          next.add(v);
+          break;
+        } // if
+      } // for
+    } // for
+    next.flush();
+  } // bottomUp(int, int)
+
+  /**
+   * Set the visited bit of a vertex. Returns true if we set it and false
+   * if it was already set.
+   */
+  boolean claim(int vertex) {
+    int word = vertex / 64;
+    long bit = 1L << vertex;
+    long old;
+    do {
+      old = this.visited.get(word);
+      if ((old & bit) != 0) {
+        return false;
+      } // if
+    } while (!this.visited.compareAndSet(word, old, old | bit));
+    return true;
+  } // claim(int)
+
+  // +-------+-------------------------------------------------------
+  // | Tasks |
+  // +-------+
+
+  /**
+   * A top-down step over part of the frontier.
+   */
+  class TopDown extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The part of the frontier, as positions in order.
+     */
+    int lo;
+    int hi;
+
+    TopDown(int lo, int hi) {
+      this.lo = lo;
+      this.hi = hi;
+    } // TopDown(int, int)
+
+    protected void compute() {
+      if (this.hi - this.lo <= TOP_DOWN_GRAIN) {
+        topDown(this.lo, this.hi);
+      } else {
+        int mid = (this.lo + this.hi) >>> 1;
+        invokeAll(new TopDown(this.lo, mid), new TopDown(mid, this.hi));
+      } // if/else
+    } // compute()
+  } // class TopDown
+
+  /**
+   * A bottom-up step over a range of vertex numbers.
+   */
+  class BottomUp extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The range of vertex numbers.
+     */
+    int lo;
+    int hi;
+
+    BottomUp(int lo, int hi) {
+      this.lo = lo;
+      this.hi = hi;
+    } // BottomUp(int, int)
+
+    protected void compute() {
+      if (this.hi - this.lo <= BOTTOM_UP_GRAIN) {
+        bottomUp(this.lo, this.hi);
+      } else {
+        int mid = (((this.lo + this.hi) >>> 1) / 64) * 64;
+        invokeAll(new BottomUp(this.lo, mid), new BottomUp(mid, this.hi));
+      } // if/else
+    } // compute()
+  } // class BottomUp
+
+  /**
+   * Collects the vertices a task reaches, and adds them to the end of
+   * order a bufferful at a time.
+   */
+  class Collector {
+    int[] buffer = new int[BUFFER_SIZE];
+    int count = 0;
+    long edges = 0;
+
+    void add(int vertex) {
+      if (this.count == this.buffer.length) {
+        this.flush();
+      } // if
+      this.buffer[this.count++] = vertex;
+      this.edges += graph.degrees.get(vertex);
+    } // add(int)
+
+    void flush() {
+      if (this.count > 0) {
+        int pos = tail.getAndAdd(this.count);
+        System.arraycopy(this.buffer, 0, tree.order, pos, this.count);
+        this.count = 0;
+      } // if
+      if (this.edges > 0) {
+        nextEdges.addAndGet(this.edges);
+        this.edges = 0;
+      } // if
+    } // flush()
+  } // class Collector
+
+} // class BreadthFirstSearch
@@ -0,0 +1,485 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Measures of the importance of each vertex in a graph: PageRank, degree
+ * centrality, and betweenness. Each returns an array of scores indexed by
+ * vertex number, with 0 for unused numbers.
+ *
+ * @author Samuel A. Rebelsky
+ */
+public class Centrality {
+
+  // +-------+-------------------------------------------------------
+  // | Notes |
+  // +-------+
+
+  /*
+   * PageRank works in rounds. In each round, every vertex shares its rank
+   * equally among the edges out of it, and the new rank of a vertex is
+   * (1 - damping) / n plus damping times what its incoming edges bring
+   * it. Vertices with no edges out share their rank with everyone. We
+   * stop when the ranks change by less than the tolerance in total (the
+   * sum of the absolute changes) or after MAX_ITERATIONS rounds. Weights
+   * are ignored.
+   *
+   * Rather than have each vertex push its share along its edges, which
+   * would need synchronization to run in parallel, each vertex pulls the
+   * shares of the vertices with edges into it, using the reversed graph
+   * (Graph.reverseIndex). We first compute each vertex's share, rank[v] /
+   * degree(v), so that the pull is a plain sum over one slice of the
+   * reversed graph's arrays. Both passes split the vertex numbers into
+   * blocks with about the same number of vertices plus incoming edges,
+   * which threads take in turn; each block sums its own part of the
+   * totals (dangling rank, change), so the results do not depend on the
+   * number of threads.
+   *
+   * Betweenness counts, for each vertex, the shortest paths between other
+   * vertices that go through it (each path weighted by one over the number
+   * of shortest paths between its ends), using Brandes's algorithm. Path
+   * length is the number of edges. A breadth-first search from each
+   * source counts the shortest paths to each vertex; going back through
+   * the vertices in the opposite order then gives each vertex's share.
+   * That costs one search per source, so for large graphs we take a
+   * random sample of sources and scale up. The searches run on separate
+   * threads, each with its own arrays, and we add up their results at
+   * the end. For an undirected graph, each path is found from both ends,
+   * so we halve the totals.
+   */
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The usual damping factor for PageRank.
+   */
+  public static final double DEFAULT_DAMPING = 0.85;
+
+  /**
+   * The default tolerance for PageRank.
+   */
+  public static final double DEFAULT_TOLERANCE = 1e-6;
+
+  /**
+   * The most rounds of PageRank we do.
+   */
+  public static final int MAX_ITERATIONS = 100;
+
+  /**
+   * The amount of work (vertices plus incoming edges) in a block of
+   * PageRank.
+   */
+  static final int BLOCK_WORK = 1 << 16;
+
+  // +----------+----------------------------------------------------
+  // | PageRank |
+  // +----------+
+
+  /**
+   * Compute the PageRank of each vertex, with the usual damping and
+   * tolerance.
+   */
+  public static double[] pageRank(Graph graph) {
+    return pageRank(graph, DEFAULT_DAMPING, DEFAULT_TOLERANCE);
+  } // pageRank(Graph)
+
+  /**
+   * Compute the PageRank of each vertex, using the common fork-join pool
+   * if the graph is large and there is more than one thread. The ranks
+   * add up to 1.
+   */
+  public static double[] pageRank(Graph graph, double damping,
+      double tolerance) {
+    return pageRank(graph, damping, tolerance, ForkJoinPool.commonPool());
+  } // pageRank(Graph, double, double)
+
+  /**
+   * Compute the PageRank of each vertex, using the threads in pool.
+   */
+  public static double[] pageRank(Graph graph, double damping,
+      double tolerance, ForkJoinPool pool) {
+    long expected = graph.version;
+    int capacity = graph.capacity();
+    int n = graph.numVertices();
+    double[] rank = new double[capacity];
+    if (n == 0) {
+      return rank;
+    } // if
+    CsrGraph reversed = graph.reverseIndex();
+    int[] offsets = reversed.offsets;
+    int[] sources = reversed.targets;
+    IntPages degrees = graph.degrees;
+    LongPages live = graph.live;
+    for (int v = Graph.nextLive(live, 0); v != -1;
+        v = Graph.nextLive(live, v + 1)) {
+      rank[v] = 1.0 / n;
+    } // for
+
+    int[] bounds = blocks(offsets, capacity);
+    int numBlocks = bounds.length - 1;
+    boolean parallel = (capacity >= ComponentFinder.PARALLEL_THRESHOLD)
+        && (pool.getParallelism() >= 2);
+    double[] share = new double[capacity];
+    double[] dangling = new double[numBlocks];
+    double[] change = new double[numBlocks];
+    double[][] ranks = {rank, new double[capacity]};
+
+    for (int round = 0; round < MAX_ITERATIONS; round++) {
+      double[] current = ranks[round % 2];
+      double[] next = ranks[(round + 1) % 2];
+      // Each vertex's share of its rank, and the rank with nowhere to go
+      forEachBlock(pool, parallel, numBlocks, (b) -> {
+        double lost = 0;
+        for (int v = bounds[b]; v < bounds[b + 1]; v++) {
+          int degree = degrees.get(v);
+          if (degree > 0) {
+            share[v] = current[v] / degree;
+          } else {
+            share[v] = 0;
+            lost += current[v];
+          } // if/else
+        } // for
+        dangling[b] = lost;
+      });
+      double base = (1 - damping) / n + damping * sum(dangling) / n;
+      // Pull the shares along the incoming edges
+      forEachBlock(pool, parallel, numBlocks, (b) -> {
+        double changed = 0;
+        for (int v = bounds[b]; v < bounds[b + 1]; v++) {
+          if ((live.get(v >>> 6) & (1L << v)) == 0) {
+            continue;
+          } // if
+          double pulled = 0;
+          for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+            pulled += share[sources[i]];
+          } // for
+          next[v] = base + damping * pulled;
+          changed += Math.abs(next[v] - current[v]);
+        } // for
+        change[b] = changed;
+      });
+      rank = next;
+      if (sum(change) < tolerance) {
+        break;
+      } // if
+    } // for
+    graph.failFast(expected);
+    return rank;
+  } // pageRank(Graph, double, double, ForkJoinPool)
+
+  // +-------------------+-------------------------------------------
+  // | Degree centrality |
+  // +-------------------+
+
+  /**
+   * Compute the degree centrality of each vertex: the number of edges
+   * into or out of it, divided by the number of other vertices. (For an
+   * undirected graph, each edge counts once.)
+   */
+  public static double[] degreeCentrality(Graph graph) {
+    int capacity = graph.capacity();
+    int n = graph.numVertices();
+    double scale = (n > 1) ? 1.0 / (n - 1) : 1.0;
+    double[] result = new double[capacity];
+    for (int v = 0; v < capacity; v++) {
+      result[v] = graph.degrees.get(v);
+    } // for
+    if (!graph.symmetric()) {
+      for (int v = 0; v < capacity; v++) {
+        for (int i = 0; i < graph.degrees.get(v); i++) {
+          ++result[graph.targets.get(v)[i]];
+        } // for
+      } // for
+    } // if
+    for (int v = 0; v < capacity; v++) {
+      result[v] *= scale;
+    } // for
+    return result;
+  } // degreeCentrality(Graph)
+
+  // +-------------+-------------------------------------------------
+  // | Betweenness |
+  // +-------------+
+
+  /**
+   * Compute the betweenness of each vertex exactly, using every vertex as
+   * a source. This takes time proportional to the number of vertices
+   * times the number of edges.
+   */
+  public static double[] betweenness(Graph graph) {
+    return betweenness(graph, graph.numVertices(), 0);
+  } // betweenness(Graph)
+
+  /**
+   * Estimate the betweenness of each vertex from the paths from samples
+   * sources, chosen at random (with the given seed), using the common
+   * fork-join pool.
+   */
+  public static double[] betweenness(Graph graph, int samples, long seed) {
+    return betweenness(graph, samples, seed, ForkJoinPool.commonPool());
+  } // betweenness(Graph, int, long)
+
+  /**
+   * Estimate the betweenness of each vertex from samples sources, using
+   * the threads in pool.
+   */
+  public static double[] betweenness(Graph graph, int samples, long seed,
+      ForkJoinPool pool) {
+    long expected = graph.version;
+    int n = graph.numVertices();
+    int capacity = graph.capacity();
+    // Choose the sources: the first samples vertices of a shuffle
+    int[] vertices = new int[n];
+    int count = 0;
+    for (int v = Graph.nextLive(graph.live, 0); v != -1;
+        v = Graph.nextLive(graph.live, v + 1)) {
+      vertices[count++] = v;
+    } // for
+    int k = Math.max(0, Math.min(samples, n));
+    if (k < n) {
+      Random random = new Random(seed);
+      for (int i = 0; i < k; i++) {
+        int j = i + random.nextInt(n - i);
+        int tmp = vertices[i];
+        vertices[i] = vertices[j];
+        vertices[j] = tmp;
+      } // for
+    } // if
+    if (k == 0) {
+      return new double[capacity];
+    } // if
+
+    // About four tasks per thread, so that threads that finish early can
+    // help the others
+    int threads = pool.getParallelism();
+    Searches all = new Searches(graph, vertices, 0, k,
+        (threads < 2) ? k : Math.max(1, k / (4 * threads)));
+    double[] result = (threads < 2) ? all.compute() : pool.invoke(all);
+    double scale = (double) n / k;
+    if (graph.symmetric()) {
+      scale /= 2;
+    } // if
+    for (int v = 0; v < capacity; v++) {
+      result[v] *= scale;
+    } // for
+    graph.failFast(expected);
+    return result;
+  } // betweenness(Graph, int, long, ForkJoinPool)
+
+  /**
+   * Add to result each vertex's share of the shortest paths from source,
+   * as in Brandes's algorithm. The arrays dist (all -1) and sigma (all 0)
+   * are left as we found them.
+   */
+  static void accumulate(Graph graph, int source, int[] dist,
+      double[] sigma, double[] delta, int[] order, double[] result) {
+    ListPages targets = graph.targets;
+    IntPages degrees = graph.degrees;
+    // Count the shortest paths to each vertex, breadth first
+    int size = 0;
+    order[size++] = source;
+    dist[source] = 0;
+    sigma[source] = 1;
+    for (int head = 0; head < size; head++) {
+      int v = order[head];
+      int[] ends = targets.get(v);
+      int degree = degrees.get(v);
+      for (int i = 0; i < degree; i++) {
+        int w = ends[i];
+        if (dist[w] < 0) {
+          dist[w] = dist[v] + 1;
+          order[size++] = w;
+        } // if
+        if (dist[w] == dist[v] + 1) {
+          sigma[w] += sigma[v];
+        } // if
+      } // for
+    } // for
+    // Work back from the farthest vertices. Every vertex one step
+    // farther than v comes later in order, so its delta is ready.
+    for (int j = size - 1; j >= 0; j--) {
+      int v = order[j];
+      int[] ends = targets.get(v);
+      int degree = degrees.get(v);
+      double sum = 0;
+      for (int i = 0; i < degree; i++) {
+        int w = ends[i];
+        if (dist[w] == dist[v] + 1) {
+          sum += (sigma[v] / sigma[w]) * (1 + delta[w]);
+        } // if
+      } // for
+      delta[v] = sum;
+      if (v != source) {
+        result[v] += sum;
+      } // if
+    } // for
+    for (int j = 0; j < size; j++) {
+      dist[order[j]] = -1;
+      sigma[order[j]] = 0;
+    } // for
+  } // accumulate(Graph, int, int[], double[], double[], int[], double[])
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Something to do for one block.
+   */
+  interface BlockAction {
+    void run(int block);
+  } // interface BlockAction
+
+  /**
+   * Split the vertex numbers 0 .. capacity-1 into blocks with about
+   * BLOCK_WORK vertices plus incoming edges each, given the offsets of
+   * the reversed graph. Block b is bounds[b] .. bounds[b+1]-1.
+   */
+  static int[] blocks(int[] offsets, int capacity) {
+    int numBlocks = 0;
+    int[] bounds = new int[16];
+    long work = 0;
+    for (int v = 0; v < capacity; v++) {
+      work += 1 + offsets[v + 1] - offsets[v];
+      if ((work >= BLOCK_WORK) || (v == capacity - 1)) {
+        if (numBlocks + 2 > bounds.length) {
+          bounds = Arrays.copyOf(bounds, 2 * bounds.length);
+        } // if
+        bounds[++numBlocks] = v + 1;
+        work = 0;
+      } // if
+    } // for
+    return Arrays.copyOf(bounds, numBlocks + 1);
+  } // blocks(int[], int)
+
+  /**
+   * Do action for each of the blocks 0 .. numBlocks-1, on the threads of
+   * pool if parallel is set.
+   */
+  static void forEachBlock(ForkJoinPool pool, boolean parallel,
+      int numBlocks, BlockAction action) {
+    if (parallel) {
+      pool.invoke(new Blocks(action, 0, numBlocks));
+    } else {
+      for (int b = 0; b < numBlocks; b++) {
+        action.run(b);
+      } // for
+    } // if/else
+  } // forEachBlock(ForkJoinPool, boolean, int, BlockAction)
+
+  /**
+   * Add up the values in an array.
+   */
+  static double sum(double[] values) {
+    double total = 0;
+    for (double value : values) {
+      total += value;
+    } // for
+    return total;
+  } // sum(double[])
+
+  // +-------+-------------------------------------------------------
+  // | Tasks |
+  // +-------+
+
+  /**
+   * A task that does something for a range of blocks, one block at a
+   * time.
+   */
+  static class Blocks extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * What to do.
+     */
+    transient BlockAction action;
+
+    /**
+     * The range of blocks.
+     */
+    int lo;
+    int hi;
+
+    Blocks(BlockAction action, int lo, int hi) {
+      this.action = action;
+      this.lo = lo;
+      this.hi = hi;
+    } // Blocks(BlockAction, int, int)
+
+    protected void compute() {
+      if (this.hi - this.lo == 1) {
+        this.action.run(this.lo);
+      } else if (this.hi > this.lo) {
+        int mid = (this.lo + this.hi) >>> 1;
+        invokeAll(new Blocks(this.action, this.lo, mid),
+            new Blocks(this.action, mid, this.hi));
+      } // if/else
+    } // compute()
+  } // class Blocks
+
+  /**
+   * A task that does the betweenness searches from some sources and
+   * returns the sum of their results.
+   */
+  static class Searches extends RecursiveTask<double[]> {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The graph.
+     */
+    transient Graph graph;
+
+    /**
+     * The sources are sources[lo] .. sources[hi-1].
+     */
+    int[] sources;
+    int lo;
+    int hi;
+
+    /**
+     * The most sources one task searches from.
+     */
+    int grain;
+
+    Searches(Graph graph, int[] sources, int lo, int hi, int grain) {
+      this.graph = graph;
+      this.sources = sources;
+      this.lo = lo;
+      this.hi = hi;
+      this.grain = grain;
+    } // Searches(Graph, int[], int, int, int)
+
+    protected double[] compute() {
+      if (this.hi - this.lo > this.grain) {
+        int mid = (this.lo + this.hi) >>> 1;
+        Searches first = new Searches(this.graph, this.sources, this.lo,
+            mid, this.grain);
+        first.fork();
+        double[] result = new Searches(this.graph, this.sources, mid,
+            this.hi, this.grain).compute();
+        double[] other = first.join();
+        for (int v = 0; v < result.length; v++) {
+          result[v] += other[v];
+        } // for
+        return result;
+      } // if
+      int capacity = this.graph.capacity();
+      int[] dist = new int[capacity];
+      Arrays.fill(dist, -1);
+      double[] sigma = new double[capacity];
+      double[] delta = new double[capacity];
+      int[] order = new int[capacity];
+      double[] result = new double[capacity];
+      for (int i = this.lo; i < this.hi; i++) {
+        accumulate(this.graph, this.sources[i], dist, sigma, delta, order,
+            result);
+      } // for
+      return result;
+    } // compute()
+  } // class Searches
+
+} // class Centrality
@@ -0,0 +1,64 @@
+import java.io.PrintWriter;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A quick experiment with centrality: the time for a round of PageRank,
+ * and for betweenness from a sample of sources, on a random graph in
+ * which a few vertices have many of the edges into them.
+ *
+ * Usage: java CentralityExperiment [vertices] [edges] [samples]
+ */
+public class CentralityExperiment {
+
+  public static void main(String[] args) throws Exception {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    int numVertices = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+    int numEdges = (args.length > 1) ? Integer.parseInt(args[1]) : 10000000;
+    int samples = (args.length > 2) ? Integer.parseInt(args[2]) : 20;
+
+    Graph g = new Graph(numVertices);
+    for (int i = 0; i < numVertices; i++) {
+      g.addVertex();
+    } // for
+    Random random = new Random(207);
+    for (int i = 0; i < numEdges; i++) {
+      int from = random.nextInt(numVertices);
+      int to = (i % 4 == 0) ? random.nextInt(1000)
+          : random.nextInt(numVertices);
+      if (from != to) {
+        g.addEdge(from, to, 1);
+      } // if
+    } // for
+    pen.println(g.numVertices() + " vertices, " + g.numEdges() + " edges, "
+        + ForkJoinPool.commonPool().getParallelism() + " threads");
+
+    for (int round = 0; round < 3; round++) {
+      // With no tolerance, we always do MAX_ITERATIONS rounds
+      long begin = System.nanoTime();
+      double[] rank = Centrality.pageRank(g, Centrality.DEFAULT_DAMPING, 0);
+      long elapsed = System.nanoTime() - begin;
+      int best = 0;
+      for (int v = 1; v < rank.length; v++) {
+        if (rank[v] > rank[best]) {
+          best = v;
+        } // if
+      } // for
+      pen.println("PageRank: " + elapsed / 1000000 / Centrality.MAX_ITERATIONS
+          + " ms per round (top vertex " + best + ", " + rank[best] + ")");
+    } // for
+
+    long begin = System.nanoTime();
+    double[] between = Centrality.betweenness(g, samples, 207);
+    long elapsed = System.nanoTime() - begin;
+    int best = 0;
+    for (int v = 1; v < between.length; v++) {
+      if (between[v] > between[best]) {
+        best = v;
+      } // if
+    } // for
+    pen.println("betweenness from " + samples + " sources: "
+        + elapsed / 1000000 + " ms (top vertex " + best + ")");
+  } // main(String[])
+
+} // class CentralityExperiment
@@ -0,0 +1,209 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Some tests of betweenness, each checked against scores we know for
+ * paths and stars or against a brute-force count of the shortest paths
+ * between every pair of vertices.
+ */
+class CentralityTests {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of vertex numbers in the random tests.
+   */
+  static final int VERTICES = 60;
+
+  /**
+   * How close the scores must be to what we expect.
+   */
+  static final double TOLERANCE = 1e-9;
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * On a path of n vertices, vertex i lies between the i vertices before
+   * it and the n-1-i after it. In a directed path, only the pairs in
+   * order count, and undirected pairs count once.
+   */
+  @Test
+  void testPath() throws Exception {
+    int n = 12;
+    Graph directed = new Graph();
+    UndirectedGraph undirected = new UndirectedGraph();
+    for (int i = 0; i < n; i++) {
+      directed.addVertex();
+      undirected.addVertex();
+    } // for
+    for (int i = 0; i + 1 < n; i++) {
+      directed.addEdge(i, i + 1, 7);
+      undirected.addEdge(i, i + 1, i);
+    } // for
+    for (int samples : new int[] {n, n + 1, 10 * n}) {
+      double[] scores = directed.betweenness(samples);
+      double[] both = undirected.betweenness(samples);
+      for (int i = 0; i < n; i++) {
+        assertEquals(i * (n - 1 - i), scores[i], TOLERANCE, "Directed " + i);
+        assertEquals(i * (n - 1 - i), both[i], TOLERANCE, "Undirected " + i);
+      } // for
+    } // for
+  } // testPath()
+
+  /**
+   * In a star, every path between two leaves goes through the center,
+   * and no path goes through a leaf.
+   */
+  @Test
+  void testStar() throws Exception {
+    int n = 15;
+    UndirectedGraph star = new UndirectedGraph();
+    for (int i = 0; i < n; i++) {
+      star.addVertex();
+    } // for
+    for (int i = 1; i < n; i++) {
+      star.addEdge(0, i, 1);
+    } // for
+    double[] scores = star.betweenness(n);
+    assertEquals((n - 1) * (n - 2) / 2, scores[0], TOLERANCE);
+    for (int i = 1; i < n; i++) {
+      assertEquals(0, scores[i], TOLERANCE, "Leaf " + i);
+    } // for
+
+    // With two centers, each pair of leaves has two shortest paths, and
+    // the centers have one through each leaf
+    star.addVertex();
+    for (int i = 1; i < n; i++) {
+      star.addEdge(n, i, 1);
+    } // for
+    scores = star.betweenness(n + 1);
+    assertEquals((n - 1) * (n - 2) / 4.0, scores[0], TOLERANCE);
+    assertEquals((n - 1) * (n - 2) / 4.0, scores[n], TOLERANCE);
+    for (int i = 1; i < n; i++) {
+      assertEquals(1.0 / (n - 1), scores[i], TOLERANCE, "Leaf " + i);
+    } // for
+  } // testStar()
+
+  /**
+   * Random graphs with holes in the numbering, many equally short paths,
+   * and parts that cannot reach each other, on one thread and on four.
+   */
+  @Test
+  void testRandomGraphs() throws Exception {
+    Random random = new Random(97);
+    ForkJoinPool one = new ForkJoinPool(1);
+    ForkJoinPool four = new ForkJoinPool(4);
+    try {
+      for (int edges : new int[] {30, 80, 200, 600}) {
+        for (Graph g : new Graph[] {new Graph(), new UndirectedGraph()}) {
+          for (int i = 0; i < VERTICES; i++) {
+            g.addVertex();
+          } // for
+          for (int i = 0; i < edges; i++) {
+            int from = random.nextInt(VERTICES);
+            int to = random.nextInt(VERTICES);
+            if (from != to) {
+              g.addEdge(from, to, random.nextInt(100) - 50);
+            } // if
+          } // for
+          for (int i = 0; i < 5; i++) {
+            g.removeVertex(random.nextInt(VERTICES));
+          } // for
+          double[] expected = bruteForce(g);
+          int n = g.numVertices();
+          check(expected, g.betweenness(n), g);
+          check(expected, Centrality.betweenness(g), g);
+          check(expected, Centrality.betweenness(g, 3 * n, 5, one), g);
+          check(expected, Centrality.betweenness(g, n, 9, four), g);
+        } // for
+      } // for
+    } finally {
+      one.shutdown();
+      four.shutdown();
+    } // try/finally
+  } // testRandomGraphs()
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Compute the betweenness of each vertex from the number of shortest
+   * paths between every pair, found by a search from every vertex: v
+   * lies on sigma[s][v] * sigma[v][t] of the sigma[s][t] shortest paths
+   * from s to t when dist[s][v] + dist[v][t] = dist[s][t]. Undirected
+   * pairs count once.
+   */
+  static double[] bruteForce(Graph g) {
+    int capacity = g.capacity();
+    int[][] dist = new int[capacity][];
+    double[][] sigma = new double[capacity][];
+    for (int s = 0; s < capacity; s++) {
+      dist[s] = new int[capacity];
+      sigma[s] = new double[capacity];
+      Arrays.fill(dist[s], -1);
+      if (!g.validVertex(s)) {
+        continue;
+      } // if
+      int[] queue = new int[capacity];
+      int size = 0;
+      queue[size++] = s;
+      dist[s][s] = 0;
+      sigma[s][s] = 1;
+      for (int head = 0; head < size; head++) {
+        int v = queue[head];
+        for (int w = 0; w < capacity; w++) {
+          if (!g.hasEdge(v, w)) {
+            continue;
+          } // if
+          if (dist[s][w] < 0) {
+            dist[s][w] = dist[s][v] + 1;
+            queue[size++] = w;
+          } // if
+          if (dist[s][w] == dist[s][v] + 1) {
+            sigma[s][w] += sigma[s][v];
+          } // if
+        } // for
+      } // for
+    } // for
+    double[] result = new double[capacity];
+    for (int s = 0; s < capacity; s++) {
+      for (int t = 0; t < capacity; t++) {
+        if ((s == t) || (dist[s][t] < 0)) {
+          continue;
+        } // if
+        for (int v = 0; v < capacity; v++) {
+          if ((v != s) && (v != t) && (dist[s][v] > 0) && (dist[v][t] > 0)
+              && (dist[s][v] + dist[v][t] == dist[s][t])) {
+            result[v] += sigma[s][v] * sigma[v][t] / sigma[s][t];
+          } // if
+        } // for
+      } // for
+    } // for
+    if (g.symmetric()) {
+      for (int v = 0; v < capacity; v++) {
+        result[v] /= 2;
+      } // for
+    } // if
+    return result;
+  } // bruteForce(Graph)
+
+  /**
+   * Check scores against the expected scores, with 0 for unused numbers.
+   */
+  static void check(double[] expected, double[] scores, Graph g) {
+    assertEquals(g.capacity(), scores.length);
+    for (int v = 0; v < g.capacity(); v++) {
+      assertEquals(expected[v], scores[v],
+          TOLERANCE * Math.max(1, expected[v]), "Betweenness of " + v);
+    } // for
+  } // check(double[], double[], Graph)
+
+} // CentralityTests
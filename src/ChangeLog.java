@@ -0,0 +1,238 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The recent changes to a graph, so that copies of the graph can keep up
+ * without reading the whole graph. Get one with Graph.changeLog().
+ *
+ * A log keeps the most recent changes (up to its capacity) in a ring
+ * buffer. A consumer that remembers the version of the last change it
+ * saw can ask for every change since then, as long as the log still has
+ * them; if it does not, the consumer must start over from a copy of the
+ * graph. A consumer may instead register a listener to hear about each
+ * change as it happens.
+ *
+ * @author Samuel A. Rebelsky
+ */
+public class ChangeLog {
+
+  // +-------+-------------------------------------------------------
+  // | Notes |
+  // +-------+
+
+  /*
+   * We keep the changes in parallel arrays, rather than as objects, so
+   * that a large log takes little space and recording a change allocates
+   * nothing. Change i (counting from the first change we ever recorded)
+   * is at position i % capacity. When we overwrite a change, we remember
+   * its version in lostVersion: a consumer who has seen that version has
+   * seen everything we've lost.
+   *
+   * Several changes may have the same version, since committing a batch
+   * or loading a file changes the version just once. Since we lose
+   * changes oldest first, lostVersion still tells us who can catch up.
+   *
+   * Like the graph, a log is not synchronized.
+   */
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The default number of changes to keep.
+   */
+  public static final int DEFAULT_CAPACITY = 1 << 16;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The changes, by position.
+   */
+  long[] versions;
+  byte[] kinds;
+  int[] froms;
+  int[] tos;
+  int[] weights;
+  String[] names;
+
+  /**
+   * The number of changes we've ever recorded.
+   */
+  long count = 0;
+
+  /**
+   * The version of the graph when we started, or the version of the last
+   * change we overwrote, whichever is later.
+   */
+  long lostVersion;
+
+  /**
+   * The listeners.
+   */
+  List<GraphChangeListener> listeners =
+      new ArrayList<GraphChangeListener>();
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a log that keeps up to capacity changes to a graph that is
+   * now at the given version.
+   */
+  ChangeLog(int capacity, long version) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Invalid capacity " + capacity);
+    } // if
+    this.versions = new long[capacity];
+    this.kinds = new byte[capacity];
+    this.froms = new int[capacity];
+    this.tos = new int[capacity];
+    this.weights = new int[capacity];
+    this.names = new String[capacity];
+    this.lostVersion = version;
+  } // ChangeLog(int, long)
+
+  // +-----------+---------------------------------------------------
+  // | Listeners |
+  // +-----------+
+
+  /**
+   * Call listener after each change to the graph.
+   */
+  public void addListener(GraphChangeListener listener) {
+    this.listeners.add(listener);
+  } // addListener(GraphChangeListener)
+
+  /**
+   * Stop calling listener.
+   */
+  public void removeListener(GraphChangeListener listener) {
+    this.listeners.remove(listener);
+  } // removeListener(GraphChangeListener)
+
+  // +-----------+---------------------------------------------------
+  // | Observers |
+  // +-----------+
+
+  /**
+   * Get the number of changes the log can hold.
+   */
+  public int capacity() {
+    return this.versions.length;
+  } // capacity()
+
+  /**
+   * Get the earliest version a consumer may catch up from.
+   */
+  public long oldestVersion() {
+    return this.lostVersion;
+  } // oldestVersion()
+
+  /**
+   * Determine if the log still has every change after the given version.
+   */
+  public boolean canCatchUp(long version) {
+    return version >= this.lostVersion;
+  } // canCatchUp(long)
+
+  /**
+   * Get every change after the given version, oldest first.
+   *
+   * @exception Exception if the log no longer has all of them.
+   */
+  public Iterator<GraphChange> since(long version) throws Exception {
+    if (!this.canCatchUp(version)) {
+      throw new Exception("Changes after version " + version
+          + " are no longer available; the oldest is after version "
+          + this.lostVersion);
+    } // if
+
+    // Find the first change after version. The versions only increase, so
+    // we can use binary search.
+    long lo = Math.max(0, this.count - this.capacity());
+    long hi = this.count;
+    while (lo < hi) {
+      long mid = (lo + hi) >>> 1;
+      if (this.versions[this.position(mid)] <= version) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      } // if/else
+    } // while
+    final long first = lo;
+
+    return new Iterator<GraphChange>() {
+      // The number of the next change to return
+      long next = first;
+
+      public boolean hasNext() {
+        if (this.next < ChangeLog.this.count - ChangeLog.this.capacity()) {
+          throw new IllegalStateException("Changes were overwritten");
+        } // if
+        return this.next < ChangeLog.this.count;
+      } // hasNext()
+
+      public GraphChange next() {
+        if (!this.hasNext()) {
+          throw new NoSuchElementException();
+        } // if
+        return ChangeLog.this.get(this.next++);
+      } // next()
+    }; // new Iterator<GraphChange>
+  } // since(long)
+
+  // +-----------+---------------------------------------------------
+  // | Recording |
+  // +-----------+
+
+  /**
+   * Record a change.
+   */
+  void record(long version, int kind, int from, int to, int weight,
+      String name) {
+    int pos = this.position(this.count);
+    if (this.count >= this.capacity()) {
+      this.lostVersion = this.versions[pos];
+    } // if
+    this.versions[pos] = version;
+    this.kinds[pos] = (byte) kind;
+    this.froms[pos] = from;
+    this.tos[pos] = to;
+    this.weights[pos] = weight;
+    this.names[pos] = name;
+    ++this.count;
+    if (!this.listeners.isEmpty()) {
+      GraphChange change = this.get(this.count - 1);
+      for (GraphChangeListener listener : this.listeners) {
+        listener.changed(change);
+      } // for
+    } // if
+  } // record(long, int, int, int, int, String)
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Get the position of change number i.
+   */
+  int position(long i) {
+    return (int) (i % this.capacity());
+  } // position(long)
+
+  /**
+   * Get change number i as an object.
+   */
+  GraphChange get(long i) {
+    int pos = this.position(i);
+    return new GraphChange(this.versions[pos], this.kinds[pos],
+        this.froms[pos], this.tos[pos], this.weights[pos], this.names[pos]);
+  } // get(long)
+
+} // class ChangeLog
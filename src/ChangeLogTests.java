@@ -0,0 +1,195 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Some tests of change logs, each checked against a list of every change
+ * recorded or a HashMap of the edges a graph should have.
+ */
+class ChangeLogTests {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of vertices in the graphs we follow.
+   */
+  static final int VERTICES = 50;
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Record many more changes than a small log holds, some of them with
+   * the same version, and check what the log can still give back from
+   * each version.
+   */
+  @Test
+  void testWrapAround() throws Exception {
+    int capacity = 5;
+    ChangeLog log = new ChangeLog(capacity, 10);
+    List<long[]> recorded = new ArrayList<long[]>();
+    long version = 10;
+    for (int i = 0; i < 23; i++) {
+      // Every third change shares a version with the one before it
+      if (i % 3 != 2) {
+        ++version;
+      } // if
+      log.record(version, GraphChange.ADD_EDGE, i, i + 1, 100 + i, null);
+      recorded.add(new long[] {version, i});
+
+      // The oldest version we can catch up from is the version of the
+      // last change we lost
+      int lost = recorded.size() - capacity;
+      long oldest = (lost > 0) ? recorded.get(lost - 1)[0] : 10;
+      assertEquals(oldest, log.oldestVersion(), "After change " + i);
+      for (long v = 10; v <= version; v++) {
+        assertEquals(v >= oldest, log.canCatchUp(v),
+            "Version " + v + " after change " + i);
+        if (v >= oldest) {
+          checkSince(log, v, recorded);
+        } else {
+          final long from = v;
+          assertThrows(Exception.class, () -> log.since(from));
+        } // if/else
+      } // for
+    } // for
+  } // testWrapAround()
+
+  /**
+   * An iterator from since should notice when the changes it has yet to
+   * return are overwritten.
+   */
+  @Test
+  void testOverwrittenWhileReading() throws Exception {
+    ChangeLog log = new ChangeLog(4, 0);
+    for (int i = 1; i <= 4; i++) {
+      log.record(i, GraphChange.REMOVE_EDGE, i, i + 1, 0, null);
+    } // for
+    Iterator<GraphChange> changes = log.since(0);
+    assertEquals(1, changes.next().version());
+    log.record(5, GraphChange.REMOVE_EDGE, 5, 6, 0, null);
+    assertEquals(2, changes.next().version());
+    log.record(6, GraphChange.REMOVE_EDGE, 6, 7, 0, null);
+    log.record(7, GraphChange.REMOVE_EDGE, 7, 8, 0, null);
+    assertThrows(IllegalStateException.class, () -> changes.hasNext());
+  } // testOverwrittenWhileReading()
+
+  /**
+   * Keep a second graph up to date from the log of the first, starting
+   * over from the first graph's edges whenever the log has lost changes
+   * the second has not seen.
+   */
+  @Test
+  void testFollower() throws Exception {
+    Random random = new Random(13);
+    int n = VERTICES;
+    Graph g = new Graph();
+    for (int i = 0; i < n; i++) {
+      g.addVertex();
+    } // for
+    ChangeLog log = g.changeLog(64);
+    Graph follower = copy(g, n);
+    long seen = log.oldestVersion();
+    Map<Long, Integer> expected = new HashMap<Long, Integer>();
+    int restarts = 0;
+    for (int step = 0; step < 5000; step++) {
+      int from = random.nextInt(n);
+      int to = random.nextInt(n);
+      if (from != to) {
+        if (random.nextInt(4) == 0) {
+          g.removeEdge(from, to);
+          expected.remove(key(from, to));
+        } else {
+          g.addEdge(from, to, step);
+          expected.put(key(from, to), step);
+        } // if/else
+      } // if
+      // Sometimes catch up after a few changes, sometimes after too many
+      if (random.nextInt((step % 500 < 250) ? 10 : 200) == 0) {
+        if (log.canCatchUp(seen)) {
+          for (Iterator<GraphChange> changes = log.since(seen);
+              changes.hasNext(); ) {
+            GraphChange change = changes.next();
+            change.applyTo(follower);
+            seen = change.version();
+          } // for
+        } else {
+          follower = copy(g, n);
+          seen = (log.count == 0) ? log.oldestVersion()
+              : log.get(log.count - 1).version();
+          ++restarts;
+        } // if/else
+        checkEdges(follower, expected);
+      } // if
+    } // for
+    assertTrue(restarts > 0, "The follower should have fallen behind");
+  } // testFollower()
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Check that log.since(version) gives exactly the recorded changes
+   * after version, in order.
+   */
+  static void checkSince(ChangeLog log, long version, List<long[]> recorded)
+      throws Exception {
+    Iterator<GraphChange> changes = log.since(version);
+    for (long[] change : recorded) {
+      if (change[0] > version) {
+        assertTrue(changes.hasNext(), "Missing change " + change[1]);
+        GraphChange next = changes.next();
+        assertEquals(change[0], next.version());
+        assertEquals((int) change[1], next.from());
+        assertEquals((int) change[1] + 1, next.to());
+        assertEquals(100 + (int) change[1], next.weight());
+      } // if
+    } // for
+    assertFalse(changes.hasNext());
+  } // checkSince(ChangeLog, long, List<long[]>)
+
+  /**
+   * Make a copy of a graph with vertices 0 .. n-1.
+   */
+  static Graph copy(Graph g, int n) throws Exception {
+    Graph result = new Graph();
+    for (int i = 0; i < n; i++) {
+      result.addVertex();
+    } // for
+    for (Iterator<Edge> edges = g.edges(); edges.hasNext(); ) {
+      Edge edge = edges.next();
+      result.addEdge(edge.from(), edge.to(), edge.weight());
+    } // for
+    return result;
+  } // copy(Graph, int)
+
+  /**
+   * Check that g has exactly the expected edges.
+   */
+  static void checkEdges(Graph g, Map<Long, Integer> expected) {
+    assertEquals(expected.size(), g.numEdges());
+    for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+      int from = (int) (entry.getKey() / VERTICES);
+      int to = (int) (entry.getKey() % VERTICES);
+      assertEquals((int) entry.getValue(), g.edgeWeight(from, to),
+          "Edge from " + from + " to " + to);
+    } // for
+  } // checkEdges(Graph, Map<Long, Integer>)
+
+  /**
+   * Get the key for an edge in the expected edges.
+   */
+  static long key(int from, int to) {
+    return (long) from * VERTICES + to;
+  } // key(int, int)
+
+} // ChangeLogTests
@@ -0,0 +1,71 @@
+import java.io.PrintWriter;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * A quick experiment with churn: after we remove most of the vertices of
+ * a graph, how long does it take to iterate the rest, and how long does
+ * compacting the graph take?
+ *
+ * Usage: java CompactExperiment [vertices] [percent-removed]
+ */
+public class CompactExperiment {
+
+  public static void main(String[] args) throws Exception {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    int numVertices = (args.length > 0) ? Integer.parseInt(args[0]) : 2000000;
+    int percent = (args.length > 1) ? Integer.parseInt(args[1]) : 95;
+
+    Graph g = new Graph();
+    g.indexIncomingEdges();
+    Random random = new Random(207);
+    for (int i = 0; i < numVertices; i++) {
+      g.addVertex("v" + i);
+    } // for
+    for (int i = 0; i < 2 * numVertices; i++) {
+      int from = random.nextInt(numVertices);
+      int to = random.nextInt(numVertices);
+      if (from != to) {
+        g.addEdge(from, to, i);
+      } // if
+    } // for
+    for (int v = 0; v < numVertices; v++) {
+      if (random.nextInt(100) < percent) {
+        g.removeVertex(v);
+      } // if
+    } // for
+    pen.println(g.numVertices() + " of " + numVertices + " vertices left, "
+        + g.numEdges() + " edges");
+
+    time(pen, "iterate with holes", g);
+    long begin = System.nanoTime();
+    g.compact();
+    pen.println("compact: " + (System.nanoTime() - begin) / 1000000 + " ms");
+    time(pen, "iterate compacted", g);
+  } // main(String[])
+
+  /**
+   * Time iterating the vertices and edges of g.
+   */
+  static void time(PrintWriter pen, String label, Graph g) {
+    long sum = 0;
+    long begin = System.nanoTime();
+    for (int round = 0; round < 10; round++) {
+      Iterator<Integer> vertices = g.vertices();
+      while (vertices.hasNext()) {
+        sum += vertices.next();
+      } // while
+    } // for
+    long middle = System.nanoTime();
+    for (int round = 0; round < 10; round++) {
+      Iterator<Edge> edges = g.edges();
+      while (edges.hasNext()) {
+        sum += edges.next().weight();
+      } // while
+    } // for
+    long end = System.nanoTime();
+    pen.println(label + ": vertices " + (middle - begin) / 10000 + " us, "
+        + "edges " + (end - middle) / 10000 + " us (" + sum + ")");
+  } // time(PrintWriter, String, Graph)
+
+} // class CompactExperiment
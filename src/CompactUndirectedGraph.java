@@ -0,0 +1,790 @@
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A weighted, undirected graph that stores each edge only once, for large
+ * undirected graphs (road networks, peering graphs) where memory and
+ * insert speed matter more than the full set of Graph's algorithms. The
+ * edges from a vertex still include the edges to it, and numEdges counts
+ * each undirected edge once. To run the algorithms of Graph, copy it with
+ * toUndirectedGraph.
+ *
+ * @author Samuel A. Rebelsky
+ */
+public class CompactUndirectedGraph {
+
+  // +-------+-------------------------------------------------------
+  // | Notes |
+  // +-------+
+
+  /*
+   * UndirectedGraph stores each edge twice, once from each end, so that
+   * every algorithm of Graph can follow it from either end. Here we keep
+   * the edge between u and v only in the adjacency list of the smaller of
+   * the two, min(u, v). So the adjacency lists (a pair of parallel int
+   * arrays for each vertex, as in Graph) together form the upper triangle
+   * of the adjacency matrix, and adding or removing an edge touches one
+   * list rather than two. As in Graph, a vertex whose list reaches
+   * Graph.HASH_THRESHOLD edges also gets an EdgeTable, and its list then
+   * fills the gap left by a removed edge with the last edge.
+   *
+   * To find the edges from v to smaller vertices, we keep a lower index:
+   * for each vertex, in CSR form (as in CsrGraph), the smaller vertices
+   * whose lists hold an edge to it, and the weights of those edges. Like
+   * Graph.reverseIndex, the index is built when we first need it after
+   * the edges change, and takes time proportional to the size of the
+   * graph. So edgesFrom, forEachNeighbor, path, and removeVertex are
+   * cheap while the graph stays the same, and the first of them after a
+   * change to the edges (including a new weight) is not. Adding a vertex
+   * without growing the arrays leaves the index alone. (An index without
+   * weights would be half the size, but looking up each weight in the
+   * list of the other end made path about four times slower.) The index
+   * is not part of the graph proper, so trimToSize drops it.
+   *
+   * We keep the full degree of each vertex, so degree need not use the
+   * index.
+   *
+   * As in Graph, we reuse the numbers of removed vertices before any
+   * number we have never used.
+   */
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of vertices in the graph.
+   */
+  int numVertices;
+
+  /**
+   * The number of (undirected) edges in the graph.
+   */
+  int numEdges;
+
+  /**
+   * The ends of the edges from each vertex to larger vertices.
+   */
+  int[][] targets;
+
+  /**
+   * The weights of those edges.
+   */
+  int[][] weights;
+
+  /**
+   * The number of edges in each of those lists.
+   */
+  int[] upperDegrees;
+
+  /**
+   * The number of edges at each vertex, in either list.
+   */
+  int[] degrees;
+
+  /**
+   * The hash table for each vertex with many edges to larger vertices,
+   * or null.
+   */
+  EdgeTable[] edgeTables;
+
+  /**
+   * The names of the vertices, and the number of each name.
+   */
+  NameTable names;
+
+  /**
+   * The numbers of removed vertices, to reuse.
+   */
+  int[] freeNumbers;
+
+  /**
+   * The number of entries in freeNumbers.
+   */
+  int numFree;
+
+  /**
+   * The smallest number we have never used.
+   */
+  int nextVertex;
+
+  /**
+   * The version of the graph. Changes whenever the graph changes.
+   */
+  long version;
+
+  /**
+   * The version of the edges. Changes whenever an edge comes, goes, or
+   * gets a new weight.
+   */
+  long edgeVersion;
+
+  /**
+   * For the lower index, where the smaller neighbors of each vertex
+   * start in lowerStarts. There is one more offset than there are
+   * vertex numbers. Null if we have not built the index.
+   */
+  int[] lowerOffsets;
+
+  /**
+   * The smaller neighbors of each vertex.
+   */
+  int[] lowerStarts;
+
+  /**
+   * The weights of the edges to those neighbors.
+   */
+  int[] lowerCosts;
+
+  /**
+   * The edge version for which we built the lower index.
+   */
+  long lowerVersion;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new graph with the default capacity.
+   */
+  public CompactUndirectedGraph() {
+    this(Graph.INITIAL_CAPACITY);
+  } // CompactUndirectedGraph()
+
+  /**
+   * Create a new graph with a specified initial capacity.
+   */
+  public CompactUndirectedGraph(int initialCapacity) {
+    initialCapacity = Math.max(initialCapacity, 1);
+    this.targets = new int[initialCapacity][];
+    this.weights = new int[initialCapacity][];
+    Arrays.fill(this.targets, Graph.NO_EDGES);
+    Arrays.fill(this.weights, Graph.NO_EDGES);
+    this.upperDegrees = new int[initialCapacity];
+    this.degrees = new int[initialCapacity];
+    this.edgeTables = new EdgeTable[initialCapacity];
+    this.names = new NameTable(initialCapacity);
+    this.freeNumbers = new int[16];
+    this.lowerVersion = -1;
+  } // CompactUndirectedGraph(int)
+
+  /**
+   * Copy an undirected graph, keeping its vertex numbers and names.
+   */
+  public CompactUndirectedGraph(UndirectedGraph graph) {
+    this(graph.capacity());
+    for (int v = 0; v < graph.capacity(); v++) {
+      if (!graph.validVertex(v)) {
+        continue;
+      } // if
+      graph.names.copyName(v, this.names, v);
+      ++this.numVertices;
+      this.nextVertex = v + 1;
+    } // for
+    for (int v = this.nextVertex - 1; v >= 0; v--) {
+      if (!this.names.contains(v)) {
+        this.freeNumber(v);
+      } // if
+    } // for
+    for (int u = 0; u < this.nextVertex; u++) {
+      int[] ends = graph.targets.get(u);
+      int[] costs = graph.weights.get(u);
+      for (int i = 0; i < graph.degrees.get(u); i++) {
+        if (ends[i] > u) {
+          this.appendEdge(u, ends[i], costs[i]);
+        } // if
+      } // for
+    } // for
+  } // CompactUndirectedGraph(UndirectedGraph)
+
+  // +----------------------+----------------------------------------
+  // | Vertex names/numbers |
+  // +----------------------+
+
+  /**
+   * Given a vertex number, get the corresponding vertex name. If there is no
+   * corresponding vertex name, returns null;
+   */
+  public String vertexName(int vertexNumber) {
+    if (!validVertex(vertexNumber)) {
+      return null;
+    } // if
+    return this.names.get(vertexNumber);
+  } // vertexName(int)
+
+  /**
+   * Given a vertex name, get the corresponding vertex number. If there is no
+   * corresponding vertex number, returns -1.
+   */
+  public int vertexNumber(String vertexName) {
+    return this.names.find(vertexName);
+  } // vertexNumber(String)
+
+  // +-----------+---------------------------------------------------
+  // | Observers |
+  // +-----------+
+
+  /**
+   * Get the number of edges, counting each undirected edge once.
+   */
+  public int numEdges() {
+    return this.numEdges;
+  } // numEdges()
+
+  /**
+   * Get the number of vertices.
+   */
+  public int numVertices() {
+    return this.numVertices;
+  } // numVertices()
+
+  /**
+   * Get the number of edges at a vertex.
+   */
+  public int degree(int vertex) {
+    if (!validVertex(vertex)) {
+      return 0;
+    } // if
+    return this.degrees[vertex];
+  } // degree(int)
+
+  /**
+   * Determine if there is an edge between two vertices.
+   */
+  public boolean hasEdge(int u, int v) {
+    return validVertex(u) && validVertex(v) && (u != v)
+        && (this.indexOf(Math.min(u, v), Math.max(u, v)) != -1);
+  } // hasEdge(int, int)
+
+  /**
+   * Determine if there is an edge between two vertices.
+   */
+  public boolean hasEdge(String u, String v) {
+    return hasEdge(this.vertexNumber(u), this.vertexNumber(v));
+  } // hasEdge(String, String)
+
+  /**
+   * Get the weight of the edge between two vertices.
+   *
+   * @exception NoSuchElementException if there is no such edge
+   */
+  public int edgeWeight(int u, int v) {
+    if (hasEdge(u, v)) {
+      int low = Math.min(u, v);
+      return this.weights[low][this.indexOf(low, Math.max(u, v))];
+    } // if
+    throw new NoSuchElementException("No edge from " + u + " to " + v);
+  } // edgeWeight(int, int)
+
+  /**
+   * Get the weight of the edge between two vertices.
+   *
+   * @exception NoSuchElementException if there is no such edge
+   */
+  public int edgeWeight(String u, String v) {
+    return edgeWeight(this.vertexNumber(u), this.vertexNumber(v));
+  } // edgeWeight(String, String)
+
+  /**
+   * Get an iterator for the edges, each undirected edge once, from its
+   * smaller end to its larger end.
+   */
+  public Iterator<Edge> edges() {
+    return new Iterator<Edge>() {
+      // The version number of the graph when this iterator was created
+      long version = CompactUndirectedGraph.this.version;
+      // The number of edges we have returned
+      int pos = 0;
+      // The current vertex
+      int vertex = 0;
+      // The index of the next edge from the current vertex
+      int i = 0;
+
+      public boolean hasNext() {
+        failFast(this.version);
+        return this.pos < CompactUndirectedGraph.this.numEdges;
+      } // hasNext()
+
+      public Edge next() {
+        if (!this.hasNext()) {
+          throw new NoSuchElementException();
+        } // if
+        CompactUndirectedGraph g = CompactUndirectedGraph.this;
+        while (this.i >= g.upperDegrees[this.vertex]) {
+          ++this.vertex;
+          this.i = 0;
+        } // while
+        ++this.pos;
+        int i = this.i++;
+        return new Edge(this.vertex, g.targets[this.vertex][i],
+            g.weights[this.vertex][i]);
+      } // next()
+    }; // new Iterator<Edge>
+  } // edges()
+
+  /**
+   * Get all of the edges from a particular vertex, in both directions:
+   * first those to larger vertices, then those to smaller ones. The first
+   * call after a change to the edges takes time proportional to the size
+   * of the graph.
+   */
+  public Iterator<Edge> edgesFrom(int vertex) {
+    final int upper;
+    final int lowerStart;
+    final int lowerEnd;
+    if (!validVertex(vertex)) {
+      upper = 0;
+      lowerStart = 0;
+      lowerEnd = 0;
+    } else {
+      this.lowerIndex();
+      upper = this.upperDegrees[vertex];
+      lowerStart = this.lowerOffsets[vertex];
+      lowerEnd = this.lowerOffsets[vertex + 1];
+    } // if/else
+    return new Iterator<Edge>() {
+      // The version number of the graph when this iterator was created
+      long version = CompactUndirectedGraph.this.version;
+      // The index of the next edge to a larger vertex
+      int i = 0;
+      // The position of the next smaller neighbor in the lower index
+      int pos = lowerStart;
+
+      public boolean hasNext() {
+        failFast(this.version);
+        return (this.i < upper) || (this.pos < lowerEnd);
+      } // hasNext()
+
+      public Edge next() {
+        if (!this.hasNext()) {
+          throw new NoSuchElementException();
+        } // if
+        CompactUndirectedGraph g = CompactUndirectedGraph.this;
+        if (this.i < upper) {
+          int i = this.i++;
+          return new Edge(vertex, g.targets[vertex][i],
+              g.weights[vertex][i]);
+        } // if
+        int pos = this.pos++;
+        return new Edge(vertex, g.lowerStarts[pos], g.lowerCosts[pos]);
+      } // next()
+    }; // new Iterator<Edge>
+  } // edgesFrom(int)
+
+  /**
+   * Get all of the edges from a particular vertex.
+   */
+  public Iterator<Edge> edgesFrom(String vertex) {
+    return this.edgesFrom(this.vertexNumber(vertex));
+  } // edgesFrom(String)
+
+  /**
+   * Visit all of the edges from a particular vertex, in both directions,
+   * in the same order as edgesFrom.
+   */
+  public void forEachNeighbor(int vertex, EdgeVisitor visitor) {
+    if (!validVertex(vertex)) {
+      return;
+    } // if
+    this.lowerIndex();
+    long expected = this.version;
+    int[] ends = this.targets[vertex];
+    int[] costs = this.weights[vertex];
+    int upper = this.upperDegrees[vertex];
+    for (int i = 0; i < upper; i++) {
+      visitor.visit(vertex, ends[i], costs[i]);
+    } // for
+    int end = this.lowerOffsets[vertex + 1];
+    int[] starts = this.lowerStarts;
+    int[] lowerCosts = this.lowerCosts;
+    for (int pos = this.lowerOffsets[vertex]; pos < end; pos++) {
+      visitor.visit(vertex, starts[pos], lowerCosts[pos]);
+    } // for
+    failFast(expected);
+  } // forEachNeighbor(int, EdgeVisitor)
+
+  /**
+   * Get a path from start to finish with as few edges as possible. If no
+   * such path exists, returns null.
+   */
+  public List<Edge> path(int start, int finish) {
+    if (!validVertex(start) || !validVertex(finish)) {
+      return null;
+    } // if
+    return PathSearch.path(this::forEachNeighbor, this.capacity(), start,
+        finish);
+  } // path(int, int)
+
+  /**
+   * Get a path from start to finish. If no such path exists, returns null.
+   */
+  public List<Edge> path(String start, String finish) {
+    return path(this.vertexNumber(start), this.vertexNumber(finish));
+  } // path(String, String)
+
+  /**
+   * Copy this graph into an UndirectedGraph, with the same vertex numbers
+   * and names, for the algorithms that only Graph has. The copy stores
+   * each edge twice.
+   */
+  public UndirectedGraph toUndirectedGraph() {
+    int capacity = this.capacity();
+    int[] offsets = new int[capacity + 1];
+    for (int v = 0; v < capacity; v++) {
+      offsets[v + 1] = offsets[v] + this.degrees[v];
+    } // for
+    int[] ends = new int[2 * this.numEdges];
+    int[] costs = new int[2 * this.numEdges];
+    int[] fill = Arrays.copyOf(offsets, capacity);
+    for (int u = 0; u < capacity; u++) {
+      for (int i = 0; i < this.upperDegrees[u]; i++) {
+        int v = this.targets[u][i];
+        int weight = this.weights[u][i];
+        ends[fill[u]] = v;
+        costs[fill[u]++] = weight;
+        ends[fill[v]] = u;
+        costs[fill[v]++] = weight;
+      } // for
+    } // for
+    UndirectedGraph graph = new UndirectedGraph();
+    graph.replaceWith(new NameTable(this.names), offsets, ends, costs);
+    return graph;
+  } // toUndirectedGraph()
+
+  // +----------+----------------------------------------------------
+  // | Mutators |
+  // +----------+
+
+  /**
+   * Add an edge between two vertices. If the edge already exists, replace
+   * its weight. If the vertices are invalid, throws an exception.
+   */
+  public void addEdge(int u, int v, int weight) throws Exception {
+    if (!validVertex(u) || !validVertex(v)) {
+      throw new Exception("Invalid ends");
+    } // if
+    if (u == v) {
+      throw new Exception("Cannot add an edge from a vertex to itself");
+    } // if
+    ++this.version;
+    int low = Math.min(u, v);
+    int high = Math.max(u, v);
+    int existing = this.indexOf(low, high);
+    if (existing != -1) {
+      this.weights[low][existing] = weight;
+      ++this.edgeVersion;
+    } else {
+      this.appendEdge(low, high, weight);
+    } // if/else
+  } // addEdge(int, int, int)
+
+  /**
+   * Add an edge between two vertices. If the edge already exists, replace
+   * its weight. If the vertices are invalid, throws an exception.
+   */
+  public void addEdge(String u, String v, int weight) throws Exception {
+    addEdge(this.vertexNumber(u), this.vertexNumber(v), weight);
+  } // addEdge(String, String, int)
+
+  /**
+   * Add a vertex with a particular name.
+   *
+   * @return v the number of the vertex
+   *
+   * @exception Exception if there is already a vertex with that name.
+   */
+  public int addVertex(String name) throws Exception {
+    if (this.vertexNumber(name) != -1) {
+      throw new Exception("Already have a node named " + name);
+    } // if
+    int v = this.newVertexNumber();
+    this.names.put(v, name);
+    ++this.numVertices;
+    ++this.version;
+    return v;
+  } // addVertex(String)
+
+  /**
+   * Add an unnamed vertex.
+   *
+   * @return v the number of the vertex
+   */
+  public int addVertex() {
+    int v = this.newVertexNumber();
+    // As in Graph, we give it the default name unless another vertex
+    // might have that name
+    if (this.names.mayClash()) {
+      String name = "v" + v;
+      while (this.vertexNumber(name) != -1) {
+        name = "v" + name;
+      } // while
+      this.names.put(v, name);
+    } else {
+      this.names.putDefault(v);
+    } // if/else
+    ++this.numVertices;
+    ++this.version;
+    return v;
+  } // addVertex()
+
+  /**
+   * Remove the edge between two vertices. If the edge does not exist,
+   * does nothing.
+   */
+  public void removeEdge(int u, int v) {
+    if (!hasEdge(u, v)) {
+      return;
+    } // if
+    int low = Math.min(u, v);
+    int high = Math.max(u, v);
+    this.removeEdgeAt(low, this.indexOf(low, high));
+    --this.numEdges;
+    ++this.version;
+    ++this.edgeVersion;
+  } // removeEdge(int, int)
+
+  /**
+   * Remove the edge between two vertices. If the edge does not exist,
+   * does nothing.
+   */
+  public void removeEdge(String u, String v) {
+    removeEdge(this.vertexNumber(u), this.vertexNumber(v));
+  } // removeEdge(String, String)
+
+  /**
+   * Remove a vertex and its edges. If the vertex does not exist, does
+   * nothing. Like edgesFrom, the first call after a change to the edges
+   * takes time proportional to the size of the graph.
+   */
+  public void removeVertex(int vertex) {
+    if (!validVertex(vertex)) {
+      return;
+    } // if
+    this.lowerIndex();
+    this.numEdges -= this.degrees[vertex];
+    int end = this.lowerOffsets[vertex + 1];
+    for (int pos = this.lowerOffsets[vertex]; pos < end; pos++) {
+      int u = this.lowerStarts[pos];
+      this.removeEdgeAt(u, this.indexOf(u, vertex));
+    } // for
+    for (int i = 0; i < this.upperDegrees[vertex]; i++) {
+      --this.degrees[this.targets[vertex][i]];
+    } // for
+    this.targets[vertex] = Graph.NO_EDGES;
+    this.weights[vertex] = Graph.NO_EDGES;
+    this.upperDegrees[vertex] = 0;
+    this.degrees[vertex] = 0;
+    this.edgeTables[vertex] = null;
+    this.names.remove(vertex);
+    --this.numVertices;
+    this.freeNumber(vertex);
+    ++this.version;
+    ++this.edgeVersion;
+  } // removeVertex(int)
+
+  /**
+   * Remove a vertex. If the vertex does not exist, does nothing.
+   */
+  public void removeVertex(String vertex) {
+    this.removeVertex(this.vertexNumber(vertex));
+  } // removeVertex(String)
+
+  /**
+   * Shrink each adjacency list to exactly fit its edges, and drop the
+   * lower index. Useful once a large graph has been built.
+   */
+  public void trimToSize() {
+    for (int v = 0; v < this.capacity(); v++) {
+      int degree = this.upperDegrees[v];
+      if (degree == 0) {
+        this.targets[v] = Graph.NO_EDGES;
+        this.weights[v] = Graph.NO_EDGES;
+      } else if (degree < this.targets[v].length) {
+        this.targets[v] = Arrays.copyOf(this.targets[v], degree);
+        this.weights[v] = Arrays.copyOf(this.weights[v], degree);
+      } // if/else
+    } // for
+    this.lowerOffsets = null;
+    this.lowerStarts = null;
+    this.lowerCosts = null;
+    this.lowerVersion = -1;
+  } // trimToSize()
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Get the number of vertex numbers we have room for.
+   */
+  int capacity() {
+    return this.targets.length;
+  } // capacity()
+
+  /**
+   * Determine if a vertex is valid.
+   */
+  boolean validVertex(int vertex) {
+    return (vertex >= 0) && (vertex < this.capacity())
+        && this.names.contains(vertex);
+  } // validVertex(int)
+
+  /**
+   * Find the index of the edge from low to high in the list of low.
+   * Returns -1 if there is no such edge.
+   */
+  int indexOf(int low, int high) {
+    if (this.edgeTables[low] != null) {
+      return this.edgeTables[low].get(high);
+    } // if
+    int[] ends = this.targets[low];
+    int degree = this.upperDegrees[low];
+    for (int i = 0; i < degree; i++) {
+      if (ends[i] == high) {
+        return i;
+      } // if
+    } // for
+    return -1;
+  } // indexOf(int, int)
+
+  /**
+   * Add a new edge from low to a larger vertex, high. Does not update
+   * version or check for an existing edge.
+   */
+  void appendEdge(int low, int high, int weight) {
+    int[] ends = this.targets[low];
+    int[] costs = this.weights[low];
+    int degree = this.upperDegrees[low];
+    if (degree == ends.length) {
+      int newSize = Math.max(Graph.INITIAL_DEGREE, degree * 2);
+      ends = Arrays.copyOf(ends, newSize);
+      costs = Arrays.copyOf(costs, newSize);
+      this.targets[low] = ends;
+      this.weights[low] = costs;
+    } // if
+    ends[degree] = high;
+    costs[degree] = weight;
+    this.upperDegrees[low] = degree + 1;
+    ++this.degrees[low];
+    ++this.degrees[high];
+    ++this.numEdges;
+    ++this.edgeVersion;
+    if (this.edgeTables[low] != null) {
+      this.edgeTables[low].put(high, degree);
+    } else if (degree + 1 >= Graph.HASH_THRESHOLD) {
+      EdgeTable table = new EdgeTable(degree + 1);
+      for (int i = 0; i <= degree; i++) {
+        table.put(ends[i], i);
+      } // for
+      this.edgeTables[low] = table;
+    } // if/else
+  } // appendEdge(int, int, int)
+
+  /**
+   * Remove the ith edge from the list of low, as Graph.removeEdgeAt does,
+   * and update the degrees of both ends. Does not update numEdges or the
+   * versions.
+   */
+  void removeEdgeAt(int low, int i) {
+    int last = this.upperDegrees[low] - 1;
+    int[] ends = this.targets[low];
+    int[] costs = this.weights[low];
+    --this.degrees[low];
+    --this.degrees[ends[i]];
+    this.upperDegrees[low] = last;
+    EdgeTable table = this.edgeTables[low];
+    if (table == null) {
+      System.arraycopy(ends, i + 1, ends, i, last - i);
+      System.arraycopy(costs, i + 1, costs, i, last - i);
+    } else {
+      table.remove(ends[i]);
+      if (i != last) {
+        ends[i] = ends[last];
+        costs[i] = costs[last];
+        table.put(ends[i], i);
+      } // if
+    } // if/else
+  } // removeEdgeAt(int, int)
+
+  /**
+   * Make sure the lower index matches the edges, rebuilding it if they
+   * have changed since we built it.
+   */
+  void lowerIndex() {
+    if ((this.lowerOffsets != null)
+        && (this.lowerOffsets.length == this.capacity() + 1)
+        && (this.lowerVersion == this.edgeVersion)) {
+      return;
+    } // if
+    int capacity = this.capacity();
+    int[] offsets = new int[capacity + 1];
+    for (int u = 0; u < capacity; u++) {
+      offsets[u + 1] = offsets[u] + this.degrees[u] - this.upperDegrees[u];
+    } // for
+    int[] starts = new int[this.numEdges];
+    int[] lowerCosts = new int[this.numEdges];
+    int[] fill = Arrays.copyOf(offsets, capacity);
+    // Going through the smaller ends in order leaves each list sorted
+    for (int u = 0; u < capacity; u++) {
+      int[] ends = this.targets[u];
+      int[] costs = this.weights[u];
+      for (int i = 0; i < this.upperDegrees[u]; i++) {
+        int pos = fill[ends[i]]++;
+        starts[pos] = u;
+        lowerCosts[pos] = costs[i];
+      } // for
+    } // for
+    this.lowerOffsets = offsets;
+    this.lowerStarts = starts;
+    this.lowerCosts = lowerCosts;
+    this.lowerVersion = this.edgeVersion;
+  } // lowerIndex()
+
+  /**
+   * Compare an expected version to the current version. Die if they do not
+   * match.
+   */
+  void failFast(long expectedVersion) {
+    if (this.version != expectedVersion) {
+      throw new ConcurrentModificationException();
+    } // if
+  } // failFast(long)
+
+  /**
+   * Get an unused vertex number, growing the arrays if we need to.
+   */
+  private int newVertexNumber() {
+    if (this.numFree > 0) {
+      return this.freeNumbers[--this.numFree];
+    } // if
+    int v = this.nextVertex++;
+    if (v == this.capacity()) {
+      int newSize = 2 * v;
+      this.targets = Arrays.copyOf(this.targets, newSize);
+      this.weights = Arrays.copyOf(this.weights, newSize);
+      Arrays.fill(this.targets, v, newSize, Graph.NO_EDGES);
+      Arrays.fill(this.weights, v, newSize, Graph.NO_EDGES);
+      this.upperDegrees = Arrays.copyOf(this.upperDegrees, newSize);
+      this.degrees = Arrays.copyOf(this.degrees, newSize);
+      this.edgeTables = Arrays.copyOf(this.edgeTables, newSize);
+      this.names.ensureCapacity(newSize);
+    } // if
+    return v;
+  } // newVertexNumber()
+
+  /**
+   * Note that vertex number v is unused.
+   */
+  private void freeNumber(int v) {
+    if (this.numFree == this.freeNumbers.length) {
+      this.freeNumbers = Arrays.copyOf(this.freeNumbers,
+          Math.max(2 * this.numFree, 16));
+    } // if
+    this.freeNumbers[this.numFree++] = v;
+  } // freeNumber(int)
+
+} // class CompactUndirectedGraph
@@ -0,0 +1,93 @@
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A quick experiment comparing UndirectedGraph, which stores each edge
+ * twice, to CompactUndirectedGraph, which stores each edge once: heap per
+ * edge, time to add the edges, and time to find paths afterward (which,
+ * for CompactUndirectedGraph, includes building its lower index).
+ *
+ * Usage: java CompactUndirectedGraphExperiment [vertices] [edges] [paths]
+ */
+public class CompactUndirectedGraphExperiment {
+
+  public static void main(String[] args) throws Exception {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    int numVertices = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+    int numEdges = (args.length > 1) ? Integer.parseInt(args[1]) : 5000000;
+    int paths = (args.length > 2) ? Integer.parseInt(args[2]) : 20;
+
+    // Pick the edges and the paths
+    Random random = new Random(207);
+    int[] ends = new int[2 * numEdges];
+    int[] costs = new int[numEdges];
+    for (int i = 0; i < numEdges; i++) {
+      ends[2 * i] = random.nextInt(numVertices);
+      do {
+        ends[2 * i + 1] = random.nextInt(numVertices);
+      } while (ends[2 * i + 1] == ends[2 * i]);
+      costs[i] = random.nextInt(1000);
+    } // for
+    int[] starts = new int[paths];
+    int[] finishes = new int[paths];
+    for (int q = 0; q < paths; q++) {
+      starts[q] = random.nextInt(numVertices);
+      finishes[q] = random.nextInt(numVertices);
+    } // for
+
+    // Stored twice
+    UndirectedGraph twice = new UndirectedGraph();
+    for (int i = 0; i < numVertices; i++) {
+      twice.addVertex();
+    } // for
+    long before = MemoryExperiment.usedMemory();
+    long begin = System.nanoTime();
+    for (int i = 0; i < numEdges; i++) {
+      twice.addEdge(ends[2 * i], ends[2 * i + 1], costs[i]);
+    } // for
+    long twiceInsert = System.nanoTime() - begin;
+    long twiceBytes = MemoryExperiment.usedMemory() - before;
+    begin = System.nanoTime();
+    long twiceLength = 0;
+    for (int q = 0; q < paths; q++) {
+      List<Edge> path = twice.path(starts[q], finishes[q]);
+      twiceLength += (path == null) ? 0 : path.size();
+    } // for
+    long twicePaths = System.nanoTime() - begin;
+    int edges = twice.numEdges() / 2;
+    twice = null;
+
+    // Stored once
+    CompactUndirectedGraph once = new CompactUndirectedGraph();
+    for (int i = 0; i < numVertices; i++) {
+      once.addVertex();
+    } // for
+    before = MemoryExperiment.usedMemory();
+    begin = System.nanoTime();
+    for (int i = 0; i < numEdges; i++) {
+      once.addEdge(ends[2 * i], ends[2 * i + 1], costs[i]);
+    } // for
+    long onceInsert = System.nanoTime() - begin;
+    long onceBytes = MemoryExperiment.usedMemory() - before;
+    begin = System.nanoTime();
+    long onceLength = 0;
+    for (int q = 0; q < paths; q++) {
+      List<Edge> path = once.path(starts[q], finishes[q]);
+      onceLength += (path == null) ? 0 : path.size();
+    } // for
+    long oncePaths = System.nanoTime() - begin;
+    long indexBytes = MemoryExperiment.usedMemory() - before - onceBytes;
+
+    pen.println(numVertices + " vertices, " + edges + " undirected edges");
+    pen.println("UndirectedGraph:        " + twiceBytes / edges
+        + " bytes/edge, inserts " + twiceInsert / 1000000 + " ms, "
+        + paths + " paths " + twicePaths / 1000000 + " ms");
+    pen.println("CompactUndirectedGraph: " + onceBytes / edges
+        + " bytes/edge (" + indexBytes / edges + " more with the index)"
+        + ", inserts " + onceInsert / 1000000 + " ms, "
+        + paths + " paths " + oncePaths / 1000000 + " ms");
+    pen.println("Total path lengths: " + twiceLength + " and " + onceLength);
+  } // main(String[])
+
+} // class CompactUndirectedGraphExperiment
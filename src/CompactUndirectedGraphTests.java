@@ -0,0 +1,235 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Some tests of graphs that store each undirected edge once, each checked
+ * against a HashMap of the edges the graph should have or against an
+ * UndirectedGraph with the same edges.
+ */
+class CompactUndirectedGraphTests {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of vertices in the random tests.
+   */
+  static final int VERTICES = 200;
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Add and remove random edges and vertices, reading the graph between
+   * changes so that the lower index is rebuilt often.
+   */
+  @Test
+  void testRandomChanges() throws Exception {
+    Random random = new Random(21);
+    CompactUndirectedGraph g = new CompactUndirectedGraph();
+    Map<Long, Integer> expected = new HashMap<Long, Integer>();
+    Set<Integer> vertices = new HashSet<Integer>();
+    for (int i = 0; i < VERTICES; i++) {
+      vertices.add(g.addVertex());
+    } // for
+    for (int step = 0; step < 20000; step++) {
+      int u = random.nextInt(VERTICES);
+      int v = random.nextInt(VERTICES);
+      int choice = random.nextInt(100);
+      if ((choice < 1) && vertices.contains(u)) {
+        g.removeVertex(u);
+        vertices.remove(u);
+        expected.keySet().removeIf((key) -> (key / VERTICES == u)
+            || (key % VERTICES == u));
+      } else if ((choice < 2) && (vertices.size() < VERTICES)) {
+        int w = g.addVertex();
+        assertFalse(vertices.contains(w), "Reused a number in use");
+        vertices.add(w);
+      } else if ((u != v) && vertices.contains(u) && vertices.contains(v)) {
+        if (choice < 30) {
+          g.removeEdge(u, v);
+          expected.remove(key(u, v));
+        } else {
+          g.addEdge(u, v, step);
+          expected.put(key(u, v), step);
+        } // if/else
+      } // if/else
+      if (step % 200 == 0) {
+        check(g, vertices, expected);
+      } // if
+    } // for
+    check(g, vertices, expected);
+  } // testRandomChanges()
+
+  /**
+   * Give one vertex enough edges, in both directions, that its list has a
+   * hash table, then take some of them away.
+   */
+  @Test
+  void testHub() throws Exception {
+    CompactUndirectedGraph g = new CompactUndirectedGraph();
+    Map<Long, Integer> expected = new HashMap<Long, Integer>();
+    Set<Integer> vertices = new HashSet<Integer>();
+    for (int i = 0; i < VERTICES; i++) {
+      vertices.add(g.addVertex());
+    } // for
+    int hub = VERTICES / 4;
+    for (int v = 0; v < VERTICES; v++) {
+      if (v != hub) {
+        g.addEdge(v, hub, v);
+        expected.put(key(v, hub), v);
+      } // if
+    } // for
+    assertNotNull(g.edgeTables[hub]);
+    assertEquals(VERTICES - 1, g.degree(hub));
+    check(g, vertices, expected);
+    for (int v = 0; v < VERTICES; v += 3) {
+      g.removeEdge(hub, v);
+      expected.remove(key(v, hub));
+    } // for
+    g.addEdge(hub, 1, -5);
+    expected.put(key(1, hub), -5);
+    check(g, vertices, expected);
+
+    // Removing the hub takes every edge with it
+    g.removeVertex(hub);
+    vertices.remove(hub);
+    expected.clear();
+    check(g, vertices, expected);
+    assertEquals(0, g.numEdges());
+  } // testHub()
+
+  /**
+   * Copy an UndirectedGraph with holes in its numbering and back again.
+   */
+  @Test
+  void testCopies() throws Exception {
+    Random random = new Random(23);
+    UndirectedGraph original = new UndirectedGraph();
+    for (int i = 0; i < VERTICES; i++) {
+      if (i % 5 == 0) {
+        original.addVertex("name" + i);
+      } else {
+        original.addVertex();
+      } // if/else
+    } // for
+    for (int i = 0; i < 4 * VERTICES; i++) {
+      int u = random.nextInt(VERTICES);
+      int v = random.nextInt(VERTICES);
+      if (u != v) {
+        original.addEdge(u, v, random.nextInt(100) - 50);
+      } // if
+    } // for
+    for (int v = 7; v < VERTICES; v += 11) {
+      original.removeVertex(v);
+    } // for
+
+    CompactUndirectedGraph g = new CompactUndirectedGraph(original);
+    assertEquals(original.numVertices(), g.numVertices());
+    assertEquals(original.numEdges(), 2 * g.numEdges());
+    for (int v = 0; v < VERTICES; v++) {
+      assertEquals(original.vertexName(v), g.vertexName(v), "Name of " + v);
+      assertEquals(edgesFrom(original.edgesFrom(v)),
+          edgesFrom(g.edgesFrom(v)), "Edges from " + v);
+    } // for
+    // We reuse the numbers of the removed vertices first
+    assertEquals(7, g.addVertex());
+    assertEquals(10, g.vertexNumber("name10"));
+
+    UndirectedGraph copy = g.toUndirectedGraph();
+    assertEquals(g.numVertices(), copy.numVertices());
+    assertEquals(2 * g.numEdges(), copy.numEdges());
+    for (int v = 0; v < VERTICES; v++) {
+      assertEquals(g.vertexName(v), copy.vertexName(v), "Name of " + v);
+      assertEquals(edgesFrom(g.edgesFrom(v)), edgesFrom(copy.edgesFrom(v)),
+          "Edges from " + v);
+    } // for
+  } // testCopies()
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Check that g has exactly the given vertices and the expected edges,
+   * each of which we find from both ends.
+   */
+  static void check(CompactUndirectedGraph g, Set<Integer> vertices,
+      Map<Long, Integer> expected) {
+    assertEquals(vertices.size(), g.numVertices());
+    assertEquals(expected.size(), g.numEdges());
+    Map<Integer, Map<Integer, Integer>> neighbors =
+        new HashMap<Integer, Map<Integer, Integer>>();
+    for (int v : vertices) {
+      neighbors.put(v, new HashMap<Integer, Integer>());
+    } // for
+    for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+      int u = (int) (entry.getKey() / VERTICES);
+      int v = (int) (entry.getKey() % VERTICES);
+      neighbors.get(u).put(v, entry.getValue());
+      neighbors.get(v).put(u, entry.getValue());
+      assertTrue(g.hasEdge(v, u), "Edge between " + u + " and " + v);
+      assertEquals((int) entry.getValue(), g.edgeWeight(v, u),
+          "Edge between " + u + " and " + v);
+    } // for
+    for (int v = 0; v < VERTICES; v++) {
+      Map<Integer, Integer> expectedEdges = neighbors.get(v);
+      if (expectedEdges == null) {
+        assertNull(g.vertexName(v));
+        assertFalse(g.edgesFrom(v).hasNext());
+        continue;
+      } // if
+      Map<Integer, Integer> edges = new HashMap<Integer, Integer>();
+      for (Iterator<Edge> it = g.edgesFrom(v); it.hasNext(); ) {
+        Edge edge = it.next();
+        assertEquals(v, edge.from());
+        assertFalse(edges.containsKey(edge.to()), "Repeated edge");
+        edges.put(edge.to(), edge.weight());
+      } // for
+      assertEquals(expectedEdges, edges, "Edges from " + v);
+      assertEquals(expectedEdges.size(), g.degree(v), "Degree of " + v);
+      Map<Integer, Integer> visited = new HashMap<Integer, Integer>();
+      g.forEachNeighbor(v, (from, to, weight) -> visited.put(to, weight));
+      assertEquals(expectedEdges, visited, "Neighbors of " + v);
+    } // for
+    int count = 0;
+    for (Iterator<Edge> it = g.edges(); it.hasNext(); ) {
+      Edge edge = it.next();
+      assertTrue(edge.from() < edge.to());
+      assertEquals((int) expected.get(key(edge.from(), edge.to())),
+          edge.weight());
+      ++count;
+    } // for
+    assertEquals(expected.size(), count);
+  } // check(CompactUndirectedGraph, Set<Integer>, Map<Long, Integer>)
+
+  /**
+   * Get the edges from an iterator, in sorted order.
+   */
+  static List<String> edgesFrom(Iterator<Edge> edges) {
+    List<String> result = new ArrayList<String>();
+    while (edges.hasNext()) {
+      result.add(edges.next().toString());
+    } // while
+    result.sort(null);
+    return result;
+  } // edgesFrom(Iterator<Edge>)
+
+  /**
+   * Get the key for an undirected edge in the expected edges.
+   */
+  static long key(int u, int v) {
+    return (long) Math.min(u, v) * VERTICES + Math.max(u, v);
+  } // key(int, int)
+
+} // CompactUndirectedGraphTests
@@ -0,0 +1,408 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Finding the connected and strongly connected components of a graph.
+ *
+ * @author Samuel A. Rebelsky
+ */
+public class ComponentFinder {
+
+  // +-------+-------------------------------------------------------
+  // | Notes |
+  // +-------+
+
+  /*
+   * Connected components (for a directed graph, the components we get by
+   * ignoring the direction of the edges) come from union-find: each
+   * vertex starts in a set of its own, and we join the sets of the ends
+   * of each edge. Each set is a tree, given by parent; we always hang the
+   * root with the larger number under the one with the smaller number,
+   * and halve the paths we follow as we go.
+   *
+   * For large graphs, we do the same on several threads, following
+   * Sutton, Ben-Nun, and Barak's Afforest. Threads join sets by changing
+   * the parent of a root with compare-and-set, trying again if another
+   * thread got there first. To save work, we first join each vertex with
+   * just its first NEIGHBOR_ROUNDS neighbors, which is usually enough to
+   * build most of the largest component. We then guess which component
+   * that is by sampling, and only look at the rest of the edges of the
+   * vertices outside it. (For a directed graph, those vertices must also
+   * look at the edges into them, since we skipped the edges out of the
+   * vertices in the big component.)
+   *
+   * Strongly connected components come from Tarjan's algorithm. It is
+   * usually written recursively, but a long path would overflow the
+   * stack, so we keep our own stack of vertices and the position of the
+   * next edge to follow from each.
+   */
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The smallest graph (by number of vertex numbers) for which we use
+   * several threads.
+   */
+  static final int PARALLEL_THRESHOLD = 1 << 16;
+
+  /**
+   * The number of vertex numbers handled by one task.
+   */
+  static final int GRAIN = 4096;
+
+  /**
+   * The number of neighbors of each vertex we join before sampling.
+   */
+  static final int NEIGHBOR_ROUNDS = 2;
+
+  /**
+   * The number of vertices we sample to find the largest component.
+   */
+  static final int SAMPLES = 1024;
+
+  // +----------------+----------------------------------------------
+  // | Public methods |
+  // +----------------+
+
+  /**
+   * Find the connected components of graph, using the common fork-join
+   * pool if the graph is large.
+   */
+  public static Components connected(Graph graph) {
+    return connected(graph, ForkJoinPool.commonPool());
+  } // connected(Graph)
+
+  /**
+   * Find the connected components of graph, using the given pool of
+   * threads if the graph is large and the pool has more than one.
+   */
+  public static Components connected(Graph graph, ForkJoinPool pool) {
+    long expected = graph.version;
+    int[] parent;
+    if ((graph.capacity() < PARALLEL_THRESHOLD)
+        || (pool.getParallelism() < 2)) {
+      parent = unionFind(graph);
+    } else {
+      parent = afforest(graph, pool);
+    } // if/else
+    graph.failFast(expected);
+    return new Components(graph, parent);
+  } // connected(Graph, ForkJoinPool)
+
+  /**
+   * Find the strongly connected components of graph.
+   */
+  public static Components strong(Graph graph) {
+    if (graph.symmetric()) {
+      return connected(graph);
+    } // if
+    long expected = graph.version;
+    int[] representative = tarjan(graph);
+    graph.failFast(expected);
+    return new Components(graph, representative);
+  } // strong(Graph)
+
+  // +------------+--------------------------------------------------
+  // | Union-find |
+  // +------------+
+
+  /**
+   * Join the sets of the ends of every edge, on this thread. Returns the
+   * root of the set of each vertex.
+   */
+  static int[] unionFind(Graph graph) {
+    int capacity = graph.capacity();
+    boolean symmetric = graph.symmetric();
+    int[] parent = new int[capacity];
+    for (int v = 0; v < capacity; v++) {
+      parent[v] = v;
+    } // for
+    for (int v = 0; v < capacity; v++) {
+      int[] ends = graph.targets.get(v);
+      int degree = graph.degrees.get(v);
+      for (int i = 0; i < degree; i++) {
+        int w = ends[i];
+        // In a symmetric graph, we'll see this edge again from w
+        if (!symmetric || (w > v)) {
+          union(parent, v, w);
+        } // if
+      } // for
+    } // for
+    // Every parent has a smaller number than its child, so by the time we
+    // reach v, its parent points straight at the root
+    for (int v = 0; v < capacity; v++) {
+      parent[v] = parent[parent[v]];
+    } // for
+    return parent;
+  } // unionFind(Graph)
+
+  /**
+   * Join the sets that contain u and v.
+   */
+  static void union(int[] parent, int u, int v) {
+    u = find(parent, u);
+    v = find(parent, v);
+    if (u < v) {
+      parent[v] = u;
+    } else if (v < u) {
+      parent[u] = v;
+    } // if/else
+  } // union(int[], int, int)
+
+  /**
+   * Find the root of the set that contains v, halving the path to it.
+   */
+  static int find(int[] parent, int v) {
+    while (parent[v] != v) {
+      parent[v] = parent[parent[v]];
+      v = parent[v];
+    } // while
+    return v;
+  } // find(int[], int)
+
+  // +----------+----------------------------------------------------
+  // | Afforest |
+  // +----------+
+
+  /**
+   * Join the sets of the ends of every edge, using the threads in pool.
+   * Returns the root of the set of each vertex.
+   */
+  static int[] afforest(Graph graph, ForkJoinPool pool) {
+    int capacity = graph.capacity();
+    AtomicIntegerArray parent = new AtomicIntegerArray(capacity);
+    run(pool, capacity, (lo, hi) -> {
+      for (int v = lo; v < hi; v++) {
+        parent.set(v, v);
+      } // for
+    });
+
+    // Join each vertex with its first few neighbors, one round at a time
+    for (int round = 0; round < NEIGHBOR_ROUNDS; round++) {
+      final int i = round;
+      run(pool, capacity, (lo, hi) -> {
+        for (int v = lo; v < hi; v++) {
+          if (i < graph.degrees.get(v)) {
+            link(parent, v, graph.targets.get(v)[i]);
+          } // if
+        } // for
+      });
+      run(pool, capacity, (lo, hi) -> compress(parent, lo, hi));
+    } // for
+
+    // Guess the largest component, and finish the rest
+    int big = sampleLargest(parent, capacity);
+    CsrGraph reversed = graph.symmetric() ? null : graph.reverseIndex();
+    run(pool, capacity, (lo, hi) -> {
+      for (int v = lo; v < hi; v++) {
+        if (parent.get(v) == big) {
+          continue;
+        } // if
+        int[] ends = graph.targets.get(v);
+        int degree = graph.degrees.get(v);
+        for (int i = NEIGHBOR_ROUNDS; i < degree; i++) {
+          link(parent, v, ends[i]);
+        } // for
+        if (reversed != null) {
+          for (int i = reversed.offsets[v]; i < reversed.offsets[v + 1];
+              i++) {
+            link(parent, v, reversed.targets[i]);
+          } // for
+        } // if
+      } // for
+    });
+    run(pool, capacity, (lo, hi) -> compress(parent, lo, hi));
+
+    int[] result = new int[capacity];
+    for (int v = 0; v < capacity; v++) {
+      result[v] = parent.get(v);
+    } // for
+    return result;
+  } // afforest(Graph, ForkJoinPool)
+
+  /**
+   * Join the sets that contain u and v, safely with other threads.
+   */
+  static void link(AtomicIntegerArray parent, int u, int v) {
+    int p1 = parent.get(u);
+    int p2 = parent.get(v);
+    while (p1 != p2) {
+      int high = Math.max(p1, p2);
+      int low = Math.min(p1, p2);
+      int highParent = parent.get(high);
+      // Done if high already hangs under low, or if we hang it there
+      if ((highParent == low)
+          || ((highParent == high) && parent.compareAndSet(high, high, low))) {
+        return;
+      } // if
+      p1 = parent.get(parent.get(high));
+      p2 = parent.get(low);
+    } // while
+  } // link(AtomicIntegerArray, int, int)
+
+  /**
+   * Point each of the vertices numbered lo .. hi-1 directly at its root.
+   */
+  static void compress(AtomicIntegerArray parent, int lo, int hi) {
+    for (int v = lo; v < hi; v++) {
+      while (parent.get(v) != parent.get(parent.get(v))) {
+        parent.set(v, parent.get(parent.get(v)));
+      } // while
+    } // for
+  } // compress(AtomicIntegerArray, int, int)
+
+  /**
+   * Guess the most common root by looking at a random sample.
+   */
+  static int sampleLargest(AtomicIntegerArray parent, int capacity) {
+    Random random = new Random(capacity);
+    int[] samples = new int[SAMPLES];
+    for (int i = 0; i < SAMPLES; i++) {
+      samples[i] = parent.get(random.nextInt(capacity));
+    } // for
+    Arrays.sort(samples);
+    int best = samples[0];
+    int bestCount = 0;
+    for (int i = 0, j = 0; i < SAMPLES; i = j) {
+      while ((j < SAMPLES) && (samples[j] == samples[i])) {
+        ++j;
+      } // while
+      if (j - i > bestCount) {
+        best = samples[i];
+        bestCount = j - i;
+      } // if
+    } // for
+    return best;
+  } // sampleLargest(AtomicIntegerArray, int)
+
+  // +--------+------------------------------------------------------
+  // | Tarjan |
+  // +--------+
+
+  /**
+   * Find the strongly connected components of graph with Tarjan's
+   * algorithm, without recursion. Returns, for each vertex, the first
+   * vertex of its component that we visited.
+   */
+  static int[] tarjan(Graph graph) {
+    int capacity = graph.capacity();
+    // The order in which we visited each vertex, plus one (0 if we have
+    // not visited it)
+    int[] index = new int[capacity];
+    // The smallest index of a vertex still on the stack that we can reach
+    int[] low = new int[capacity];
+    // The vertices whose components we have not settled, in order
+    int[] stack = new int[capacity];
+    boolean[] onStack = new boolean[capacity];
+    int top = 0;
+    // The vertices we're exploring, and the next edge to follow from each
+    int[] path = new int[capacity];
+    int[] nextEdge = new int[capacity];
+    int[] representative = new int[capacity];
+    int count = 0;
+
+    for (int root = 0; root < capacity; root++) {
+      if ((index[root] != 0) || !graph.validVertex(root)) {
+        continue;
+      } // if
+      int depth = 0;
+      path[0] = root;
+      nextEdge[0] = 0;
+      index[root] = low[root] = ++count;
+      stack[top++] = root;
+      onStack[root] = true;
+      while (depth >= 0) {
+        int v = path[depth];
+        if (nextEdge[depth] < graph.degrees.get(v)) {
+          int w = graph.targets.get(v)[nextEdge[depth]++];
+          if (index[w] == 0) {
+            // Explore w, as a recursive call would
+            ++depth;
+            path[depth] = w;
+            nextEdge[depth] = 0;
+            index[w] = low[w] = ++count;
+            stack[top++] = w;
+            onStack[w] = true;
+          } else if (onStack[w]) {
+            low[v] = Math.min(low[v], index[w]);
+          } // if/else
+        } else {
+          // Done with v, as a recursive call would return
+          if (low[v] == index[v]) {
+            int w;
+            do {
+              w = stack[--top];
+              onStack[w] = false;
+              representative[w] = v;
+            } while (w != v);
+          } // if
+          --depth;
+          if (depth >= 0) {
+            int u = path[depth];
+            low[u] = Math.min(low[u], low[v]);
+          } // if
+        } // if/else
+      } // while
+    } // for
+    return representative;
+  } // tarjan(Graph)
+
+  // +-------+-------------------------------------------------------
+  // | Tasks |
+  // +-------+
+
+  /**
+   * Something to do for a range of vertex numbers.
+   */
+  interface RangeAction {
+    void run(int lo, int hi);
+  } // interface RangeAction
+
+  /**
+   * Do action for the vertex numbers 0 .. capacity-1, in pieces of about
+   * GRAIN, using the threads in pool.
+   */
+  static void run(ForkJoinPool pool, int capacity, RangeAction action) {
+    pool.invoke(new Range(action, 0, capacity));
+  } // run(ForkJoinPool, int, RangeAction)
+
+  /**
+   * A task that does something for a range of vertex numbers.
+   */
+  static class Range extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * What to do.
+     */
+    transient RangeAction action;
+
+    /**
+     * The range of vertex numbers.
+     */
+    int lo;
+    int hi;
+
+    Range(RangeAction action, int lo, int hi) {
+      this.action = action;
+      this.lo = lo;
+      this.hi = hi;
+    } // Range(RangeAction, int, int)
+
+    protected void compute() {
+      if (this.hi - this.lo <= GRAIN) {
+        this.action.run(this.lo, this.hi);
+      } else {
+        int mid = (this.lo + this.hi) >>> 1;
+        invokeAll(new Range(this.action, this.lo, mid),
+            new Range(this.action, mid, this.hi));
+      } // if/else
+    } // compute()
+  } // class Range
+
+} // class ComponentFinder
@@ -0,0 +1,182 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Some tests of connected and strongly connected components, each checked
+ * against the transitive closure of the graph, found by a plain search
+ * from every vertex.
+ */
+class ComponentFinderTests {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of vertex numbers in the random tests.
+   */
+  static final int VERTICES = 120;
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Random directed graphs, from sparse (mostly single vertices) to dense
+   * (one big component), with holes in the numbering.
+   */
+  @Test
+  void testRandomGraphs() throws Exception {
+    Random random = new Random(53);
+    for (int edges : new int[] {0, 40, 100, 150, 250, 400, 1000}) {
+      Graph g = new Graph();
+      for (int i = 0; i < VERTICES; i++) {
+        g.addVertex();
+      } // for
+      for (int i = 0; i < edges; i++) {
+        int from = random.nextInt(VERTICES);
+        int to = random.nextInt(VERTICES);
+        if (from != to) {
+          g.addEdge(from, to, 1);
+        } // if
+      } // for
+      for (int i = 0; i < 5; i++) {
+        g.removeVertex(random.nextInt(VERTICES));
+      } // for
+      boolean[][] reach = closure(g, false);
+      check(g, g.strongComponents(), reach, true);
+      check(g, g.components(), closure(g, true), false);
+    } // for
+  } // testRandomGraphs()
+
+  /**
+   * In an undirected graph, the strong components are the connected
+   * components.
+   */
+  @Test
+  void testUndirected() throws Exception {
+    Random random = new Random(59);
+    UndirectedGraph g = new UndirectedGraph();
+    for (int i = 0; i < VERTICES; i++) {
+      g.addVertex();
+    } // for
+    for (int i = 0; i < VERTICES; i++) {
+      int u = random.nextInt(VERTICES);
+      int v = random.nextInt(VERTICES);
+      if (u != v) {
+        g.addEdge(u, v, 1);
+      } // if
+    } // for
+    boolean[][] reach = closure(g, false);
+    check(g, g.strongComponents(), reach, true);
+    check(g, g.components(), reach, false);
+  } // testUndirected()
+
+  /**
+   * Long paths and cycles, deep enough that a recursive search would run
+   * out of stack.
+   */
+  @Test
+  void testLongCycles() throws Exception {
+    int n = 200000;
+    Graph g = new Graph(n);
+    for (int i = 0; i < n; i++) {
+      g.addVertex();
+    } // for
+    // A path 0 -> 1 -> ... -> n-1, closed into two cycles at the middle
+    for (int i = 0; i + 1 < n; i++) {
+      g.addEdge(i, i + 1, 1);
+    } // for
+    Components path = g.strongComponents();
+    assertEquals(n, path.numComponents());
+    g.addEdge(n / 2 - 1, 0, 1);
+    g.addEdge(n - 1, n / 2, 1);
+    Components cycles = g.strongComponents();
+    assertEquals(2, cycles.numComponents());
+    assertTrue(cycles.sameComponent(0, n / 2 - 1));
+    assertFalse(cycles.sameComponent(0, n / 2));
+    assertEquals(n / 2, cycles.size(cycles.component(n - 1)));
+    assertEquals(1, g.components().numComponents());
+  } // testLongCycles()
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Find which vertices each vertex can reach, following edges forward,
+   * or in either direction if undirected is true. Every vertex reaches
+   * itself.
+   */
+  static boolean[][] closure(Graph g, boolean undirected) {
+    int capacity = g.capacity();
+    boolean[][] adjacent = new boolean[capacity][capacity];
+    for (int v = 0; v < capacity; v++) {
+      for (int w = 0; w < capacity; w++) {
+        adjacent[v][w] = g.hasEdge(v, w)
+            || (undirected && g.hasEdge(w, v));
+      } // for
+    } // for
+    boolean[][] reach = new boolean[capacity][];
+    for (int start = 0; start < capacity; start++) {
+      reach[start] = new boolean[capacity];
+      if (!g.validVertex(start)) {
+        continue;
+      } // if
+      int[] stack = new int[capacity];
+      int size = 0;
+      stack[size++] = start;
+      reach[start][start] = true;
+      while (size > 0) {
+        int v = stack[--size];
+        for (int w = 0; w < capacity; w++) {
+          if (adjacent[v][w] && !reach[start][w]) {
+            reach[start][w] = true;
+            stack[size++] = w;
+          } // if
+        } // for
+      } // while
+    } // for
+    return reach;
+  } // closure(Graph, boolean)
+
+  /**
+   * Check components against a closure. If mutual is true, two vertices
+   * belong together when each reaches the other; otherwise, when one
+   * reaches the other (which, for a closure in both directions, is the
+   * same thing).
+   */
+  static void check(Graph g, Components components, boolean[][] reach,
+      boolean mutual) {
+    int capacity = g.capacity();
+    int[] sizes = new int[components.numComponents()];
+    int next = 0;
+    for (int v = 0; v < capacity; v++) {
+      int c = components.component(v);
+      if (!g.validVertex(v)) {
+        assertEquals(-1, c, "Component of unused number " + v);
+        continue;
+      } // if
+      // Components are numbered in order of their smallest vertex
+      assertTrue(c <= next, "Component " + c + " of " + v + " is early");
+      if (c == next) {
+        ++next;
+      } // if
+      ++sizes[c];
+      for (int w = 0; w < capacity; w++) {
+        if (g.validVertex(w)) {
+          boolean together = mutual ? (reach[v][w] && reach[w][v])
+              : (reach[v][w] || reach[w][v]);
+          assertEquals(together, components.sameComponent(v, w),
+              "Vertices " + v + " and " + w);
+        } // if
+      } // for
+    } // for
+    assertEquals(next, components.numComponents());
+    for (int c = 0; c < sizes.length; c++) {
+      assertEquals(sizes[c], components.size(c), "Size of " + c);
+    } // for
+  } // check(Graph, Components, boolean[][], boolean)
+
+} // ComponentFinderTests
@@ -0,0 +1,126 @@
+/**
+ * A division of the vertices of a graph into components (connected or
+ * strongly connected), numbered 0 .. numComponents()-1. Build one with
+ * Graph.components or Graph.strongComponents.
+ *
+ * @author Samuel A. Rebelsky
+ */
+public class Components {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The component of each vertex number, or -1 for unused numbers.
+   */
+  int[] componentId;
+
+  /**
+   * The number of vertices in each component.
+   */
+  int[] sizes;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Number the components of graph, given a representative for each
+   * vertex: two vertices are in the same component exactly when they have
+   * the same representative. Components are numbered in order of their
+   * smallest vertex. Reuses representative for componentId.
+   */
+  Components(Graph graph, int[] representative) {
+    int capacity = representative.length;
+    // The number of the component of each representative, plus one
+    int[] number = new int[capacity];
+    int count = 0;
+    for (int v = 0; v < capacity; v++) {
+      if (graph.validVertex(v)) {
+        int r = representative[v];
+        if (number[r] == 0) {
+          number[r] = ++count;
+        } // if
+      } // if
+    } // for
+    this.sizes = new int[count];
+    for (int v = 0; v < capacity; v++) {
+      if (graph.validVertex(v)) {
+        int c = number[representative[v]] - 1;
+        representative[v] = c;
+        ++this.sizes[c];
+      } else {
+        representative[v] = -1;
+      } // if/else
+    } // for
+    this.componentId = representative;
+  } // Components(Graph, int[])
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the number of components.
+   */
+  public int numComponents() {
+    return this.sizes.length;
+  } // numComponents()
+
+  /**
+   * Get the component of a vertex, or -1 if it is not a vertex.
+   */
+  public int component(int vertex) {
+    if ((vertex < 0) || (vertex >= this.componentId.length)) {
+      return -1;
+    } // if
+    return this.componentId[vertex];
+  } // component(int)
+
+  /**
+   * Determine if two vertices are in the same component.
+   */
+  public boolean sameComponent(int u, int v) {
+    int c = this.component(u);
+    return (c != -1) && (c == this.component(v));
+  } // sameComponent(int, int)
+
+  /**
+   * Get the number of vertices in a component.
+   */
+  public int size(int component) {
+    return this.sizes[component];
+  } // size(int)
+
+  /**
+   * Get the largest component (the first, if there is a tie), or -1 if
+   * there are no components.
+   */
+  public int largest() {
+    int best = -1;
+    for (int c = 0; c < this.sizes.length; c++) {
+      if ((best == -1) || (this.sizes[c] > this.sizes[best])) {
+        best = c;
+      } // if
+    } // for
+    return best;
+  } // largest()
+
+  /**
+   * Get the component of every vertex number (-1 for unused numbers). The
+   * array belongs to this object, so do not change it.
+   */
+  public int[] componentIds() {
+    return this.componentId;
+  } // componentIds()
+
+  /**
+   * Get the size of every component. The array belongs to this object,
+   * so do not change it.
+   */
+  public int[] sizes() {
+    return this.sizes;
+  } // sizes()
+
+} // class Components
@@ -0,0 +1,62 @@
+import java.io.PrintWriter;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A quick experiment comparing the ways we find components: union-find
+ * on one thread, Afforest on several, and Tarjan's algorithm for strongly
+ * connected components, on random graphs.
+ *
+ * Usage: java ComponentsExperiment [vertices] [edges]
+ */
+public class ComponentsExperiment {
+
+  public static void main(String[] args) throws Exception {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    int numVertices = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+    int numEdges = (args.length > 1) ? Integer.parseInt(args[1]) : 5000000;
+    pen.println(Runtime.getRuntime().availableProcessors() + " processors");
+
+    for (Graph g : new Graph[] {new Graph(numVertices),
+        new UndirectedGraph()}) {
+      for (int i = 0; i < numVertices; i++) {
+        g.addVertex();
+      } // for
+      Random random = new Random(207);
+      while (g.numEdges() < numEdges) {
+        int from = random.nextInt(numVertices);
+        int to = random.nextInt(numVertices);
+        if (from != to) {
+          g.addEdge(from, to, random.nextInt(100));
+        } // if
+      } // while
+      pen.println(g.getClass().getName() + ", " + g.numEdges() + " edges");
+
+      long unionFind = 0;
+      long afforest = 0;
+      long tarjan = 0;
+      Components connected = null;
+      Components strong = null;
+      for (int round = 0; round < 5; round++) {
+        long begin = System.nanoTime();
+        ComponentFinder.unionFind(g);
+        unionFind += System.nanoTime() - begin;
+        begin = System.nanoTime();
+        ComponentFinder.afforest(g, ForkJoinPool.commonPool());
+        afforest += System.nanoTime() - begin;
+        connected = g.components();
+        begin = System.nanoTime();
+        strong = g.strongComponents();
+        tarjan += System.nanoTime() - begin;
+      } // for
+      pen.println("  " + connected.numComponents() + " components, largest "
+          + connected.size(connected.largest()));
+      pen.println("  " + strong.numComponents() + " strong components,"
+          + " largest " + strong.size(strong.largest()));
+      pen.println("  union-find: " + unionFind / 5000000 + " ms");
+      pen.println("  afforest:   " + afforest / 5000000 + " ms");
+      pen.println("  tarjan:     " + tarjan / 5000000 + " ms");
+    } // for
+  } // main(String[])
+
+} // class ComponentsExperiment
@@ -0,0 +1,624 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A weighted, directed graph that many threads may read and change at
+ * once. Threads that change the edges from different vertices rarely
+ * wait for each other, and threads that only read never wait at all.
+ *
+ * @author Samuel A. Rebelsky
+ */
+public class ConcurrentGraph {
+
+  // +-------+-------------------------------------------------------
+  // | Notes |
+  // +-------+
+
+  /*
+   * The edges from each vertex are described by an Adjacency: a pair of
+   * int arrays (ends and weights) and the number of edges in them. Once
+   * we publish an Adjacency, we never change the part of the arrays it
+   * covers. So a reader just grabs the current Adjacency for a vertex
+   * and reads it, without locks, and sees a consistent list even if
+   * writers carry on.
+   *
+   *   To add an edge, we write it just past the end of the current list
+   *   (copying to larger arrays if there's no room) and then publish a
+   *   new Adjacency that covers it. The slot we write was not covered
+   *   by any earlier Adjacency.
+   *
+   *   To remove an edge or change a weight, we copy the arrays, change
+   *   the copies, and publish them. Like Graph, we fill the hole left by
+   *   a removed edge with the last edge.
+   *
+   * Writers to the same vertex take turns using one of STRIPES locks,
+   * chosen by vertex number. As in Graph, the writers also keep a hash
+   * table for each vertex with many edges; only writers (holding the
+   * lock) use it.
+   *
+   * We keep the vertices in segments of SEGMENT_SIZE, and add segments as
+   * the graph grows, so we never need to copy existing vertices. We do not
+   * reuse the numbers of removed vertices, so a thread that holds an old
+   * vertex number never finds a different vertex there.
+   *
+   * Since readers see each adjacency list as it was at some moment,
+   * iterators never throw ConcurrentModificationException. But they
+   * don't see a single moment of the whole graph; for that, build a
+   * Graph with toGraph while no one is changing this one.
+   */
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of locks.
+   */
+  static final int STRIPES = 256;
+
+  /**
+   * The number of vertices in a segment. (Must be a power of two.)
+   */
+  static final int SEGMENT_SIZE = 4096;
+
+  /**
+   * The adjacency list of a vertex with no edges.
+   */
+  static final Adjacency NO_EDGES =
+      new Adjacency(Graph.NO_EDGES, Graph.NO_EDGES, 0);
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The vertices, in segments. Vertex v is number v % SEGMENT_SIZE in
+   * segment v / SEGMENT_SIZE.
+   */
+  volatile Segment[] segments;
+
+  /**
+   * The locks for the vertices. Vertex v uses locks[v % STRIPES].
+   */
+  final Object[] locks;
+
+  /**
+   * The next vertex number to use.
+   */
+  final AtomicInteger nextVertex;
+
+  /**
+   * The number of vertices in the graph.
+   */
+  final AtomicInteger numVertices;
+
+  /**
+   * The number of edges in the graph.
+   */
+  final LongAdder numEdges;
+
+  /**
+   * The numbers of the vertices.
+   */
+  final ConcurrentHashMap<String, Integer> vertexNumbers;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new, empty, graph.
+   */
+  public ConcurrentGraph() {
+    this.segments = new Segment[0];
+    this.locks = new Object[STRIPES];
+    for (int i = 0; i < STRIPES; i++) {
+      this.locks[i] = new Object();
+    } // for
+    this.nextVertex = new AtomicInteger();
+    this.numVertices = new AtomicInteger();
+    this.numEdges = new LongAdder();
+    this.vertexNumbers = new ConcurrentHashMap<String, Integer>();
+  } // ConcurrentGraph()
+
+  // +----------------------+----------------------------------------
+  // | Vertex names/numbers |
+  // +----------------------+
+
+  /**
+   * Given a vertex number, get the corresponding vertex name. If there is no
+   * corresponding vertex name, returns null;
+   */
+  public String vertexName(int vertexNumber) {
+    if ((vertexNumber < 0) || (vertexNumber >= this.nextVertex.get())) {
+      return null;
+    } // if
+    return this.segment(vertexNumber).names.get(vertexNumber
+        & (SEGMENT_SIZE - 1));
+  } // vertexName(int)
+
+  /**
+   * Given a vertex name, get the corresponding vertex number. If there is no
+   * corresponding vertex number, returns -1.
+   */
+  public int vertexNumber(String vertexName) {
+    Integer result = this.vertexNumbers.get(vertexName);
+    if (result == null) {
+      return -1;
+    } else {
+      return result;
+    } // if/else
+  } // vertexNumber(String)
+
+  // +-----------+---------------------------------------------------
+  // | Observers |
+  // +-----------+
+
+  /**
+   * Get the number of edges.
+   */
+  public long numEdges() {
+    return this.numEdges.sum();
+  } // numEdges()
+
+  /**
+   * Get the number of vertices.
+   */
+  public int numVertices() {
+    return this.numVertices.get();
+  } // numVertices()
+
+  /**
+   * Get the number of edges from a vertex.
+   */
+  public int degree(int vertex) {
+    if (!this.validVertex(vertex)) {
+      return 0;
+    } // if
+    return this.adjacency(vertex).degree;
+  } // degree(int)
+
+  /**
+   * Determine if there is an edge from one vertex to another.
+   */
+  public boolean hasEdge(int from, int to) {
+    return this.validVertex(from) && (this.adjacency(from).indexOf(to) != -1);
+  } // hasEdge(int, int)
+
+  /**
+   * Get the weight of the edge from one vertex to another.
+   *
+   * @exception NoSuchElementException if there is no such edge
+   */
+  public int edgeWeight(int from, int to) {
+    if (this.validVertex(from)) {
+      Adjacency edges = this.adjacency(from);
+      int i = edges.indexOf(to);
+      if (i != -1) {
+        return edges.costs[i];
+      } // if
+    } // if
+    throw new NoSuchElementException("No edge from " + from + " to " + to);
+  } // edgeWeight(int, int)
+
+  /**
+   * Get all of the edges from a particular vertex, as they were when we
+   * called this method. Never blocks, and is not affected by later
+   * changes.
+   */
+  public Iterator<Edge> edgesFrom(int vertex) {
+    final Adjacency edges =
+        this.validVertex(vertex) ? this.adjacency(vertex) : NO_EDGES;
+    return new Iterator<Edge>() {
+      // The position of the next edge
+      int pos = 0;
+
+      public boolean hasNext() {
+        return this.pos < edges.degree;
+      } // hasNext()
+
+      public Edge next() {
+        if (!this.hasNext()) {
+          throw new NoSuchElementException();
+        } // if
+        Edge e = new Edge(vertex, edges.ends[this.pos], edges.costs[this.pos]);
+        ++this.pos;
+        return e;
+      } // next()
+    }; // new Iterator<Edge>
+  } // edgesFrom(int)
+
+  /**
+   * Get all of the edges from a particular vertex.
+   */
+  public Iterator<Edge> edgesFrom(String vertex) {
+    return this.edgesFrom(this.vertexNumber(vertex));
+  } // edgesFrom(String)
+
+  /**
+   * Visit all of the edges from a particular vertex, as they were when we
+   * called this method.
+   */
+  public void forEachNeighbor(int vertex, EdgeVisitor visitor) {
+    if (!this.validVertex(vertex)) {
+      return;
+    } // if
+    Adjacency edges = this.adjacency(vertex);
+    for (int i = 0; i < edges.degree; i++) {
+      visitor.visit(vertex, edges.ends[i], edges.costs[i]);
+    } // for
+  } // forEachNeighbor(int, EdgeVisitor)
+
+  /**
+   * Copy this graph into an ordinary Graph. If other threads change this
+   * graph in the meantime, the copy may include some of their changes.
+   */
+  public Graph toGraph() {
+    int capacity = this.nextVertex.get();
+    String[] names = new String[capacity];
+    Adjacency[] lists = new Adjacency[capacity];
+    for (int v = 0; v < capacity; v++) {
+      names[v] = this.vertexName(v);
+      lists[v] = (names[v] == null) ? NO_EDGES : this.adjacency(v);
+    } // for
+    // Skip edges to vertices that were removed while we looked
+    int[] offsets = new int[capacity + 1];
+    for (int v = 0; v < capacity; v++) {
+      int count = 0;
+      for (int i = 0; i < lists[v].degree; i++) {
+        if (names[lists[v].ends[i]] != null) {
+          ++count;
+        } // if
+      } // for
+      offsets[v + 1] = offsets[v] + count;
+    } // for
+    int[] ends = new int[offsets[capacity]];
+    int[] costs = new int[offsets[capacity]];
+    int pos = 0;
+    for (int v = 0; v < capacity; v++) {
+      Adjacency edges = lists[v];
+      for (int i = 0; i < edges.degree; i++) {
+        if (names[edges.ends[i]] != null) {
+          ends[pos] = edges.ends[i];
+          costs[pos] = edges.costs[i];
+          ++pos;
+        } // if
+      } // for
+    } // for
+    Graph graph = new Graph();
+    graph.replaceWith(names, offsets, ends, costs);
+    return graph;
+  } // toGraph()
+
+  // +----------+----------------------------------------------------
+  // | Mutators |
+  // +----------+
+
+  /**
+   * Add an edge between two vertices. If the edge already exists, replace it.
+   * If the vertices are invalid, throws an exception.
+   */
+  public void addEdge(int from, int to, int weight) throws Exception {
+    if (!this.validVertex(from) || !this.validVertex(to)) {
+      throw new Exception("Invalid ends");
+    } // if
+    if (from == to) {
+      throw new Exception("Cannot add an edge from a vertex to itself");
+    } // if
+    Segment segment = this.segment(from);
+    int index = from & (SEGMENT_SIZE - 1);
+    synchronized (this.locks[from % STRIPES]) {
+      // Check again while we hold the lock, so that removeVertex can't
+      // slip in between (see removeVertex)
+      if ((segment.names.get(index) == null) || !this.validVertex(to)) {
+        throw new Exception("Invalid ends");
+      } // if
+      Adjacency edges = segment.lists.get(index);
+      EdgeTable table = segment.tables[index];
+      int existing = (table != null) ? table.get(to) : edges.indexOf(to);
+      if (existing != -1) {
+        int[] costs = Arrays.copyOf(edges.costs, edges.costs.length);
+        costs[existing] = weight;
+        segment.lists.set(index, new Adjacency(edges.ends, costs,
+            edges.degree));
+        return;
+      } // if
+      int[] ends = edges.ends;
+      int[] costs = edges.costs;
+      int degree = edges.degree;
+      if (degree == ends.length) {
+        int newSize = Math.max(Graph.INITIAL_DEGREE, degree * 2);
+        ends = Arrays.copyOf(ends, newSize);
+        costs = Arrays.copyOf(costs, newSize);
+      } // if
+      ends[degree] = to;
+      costs[degree] = weight;
+      segment.lists.set(index, new Adjacency(ends, costs, degree + 1));
+      if (table != null) {
+        table.put(to, degree);
+      } else if (degree + 1 >= Graph.HASH_THRESHOLD) {
+        table = new EdgeTable(degree + 1);
+        for (int i = 0; i <= degree; i++) {
+          table.put(ends[i], i);
+        } // for
+        segment.tables[index] = table;
+      } // if/else
+    } // synchronized
+    this.numEdges.increment();
+  } // addEdge(int, int, int)
+
+  /**
+   * Add an edge between two vertices. If the edge already exists, replace it.
+   * if the vertices are invalid, throws an exception.
+   */
+  public void addEdge(String from, String to, int weight) throws Exception {
+    addEdge(this.vertexNumber(from), this.vertexNumber(to), weight);
+  } // addEdge(String, String, int)
+
+  /**
+   * Add a vertex with a particular name.
+   *
+   * @return v the number of the vertex
+   *
+   * @exception Exception if there is already a vertex with that name.
+   */
+  public int addVertex(String name) throws Exception {
+    boolean[] added = new boolean[1];
+    int v = this.vertexNumbers.computeIfAbsent(name, (n) -> {
+      added[0] = true;
+      return this.newVertex(n);
+    });
+    if (!added[0]) {
+      throw new Exception("Already have a node named " + name);
+    } // if
+    return v;
+  } // addVertex(String)
+
+  /**
+   * Get the number of the vertex with a particular name, adding it if
+   * there is no such vertex. Useful when several threads load edges
+   * that may share vertices.
+   */
+  public int addVertexIfAbsent(String name) {
+    return this.vertexNumbers.computeIfAbsent(name, this::newVertex);
+  } // addVertexIfAbsent(String)
+
+  /**
+   * Add an unnamed vertex.
+   *
+   * @return v the number of the vertex
+   */
+  public int addVertex() {
+    int v = this.newVertex(null);
+    String name = "v" + v;
+    // On the off chance there is already a vertex with that name,
+    // we try some other names.
+    while (this.vertexNumbers.putIfAbsent(name, v) != null) {
+      name = "v" + name;
+    } // while
+    this.segment(v).names.set(v & (SEGMENT_SIZE - 1), name);
+    return v;
+  } // addVertex()
+
+  /**
+   * Remove an edge. If the edge does not exist, does nothing.
+   */
+  public void removeEdge(int from, int to) {
+    if (!this.validVertex(from)) {
+      return;
+    } // if
+    Segment segment = this.segment(from);
+    int index = from & (SEGMENT_SIZE - 1);
+    synchronized (this.locks[from % STRIPES]) {
+      if (this.removeEdgeLocked(segment, index, to)) {
+        this.numEdges.decrement();
+      } // if
+    } // synchronized
+  } // removeEdge(int, int)
+
+  /**
+   * Remove an edge. If the edge does not exist, does nothing.
+   */
+  public void removeEdge(String from, String to) {
+    removeEdge(this.vertexNumber(from), this.vertexNumber(to));
+  } // removeEdge(String, String)
+
+  /**
+   * Remove a vertex and all of the edges to and from it. If the vertex
+   * does not exist, does nothing. Since we must look for edges into the
+   * vertex from every other vertex, this takes time proportional to the
+   * size of the graph.
+   */
+  public void removeVertex(int vertex) {
+    if (!this.validVertex(vertex)) {
+      return;
+    } // if
+    Segment segment = this.segment(vertex);
+    int index = vertex & (SEGMENT_SIZE - 1);
+    String name;
+    synchronized (this.locks[vertex % STRIPES]) {
+      name = segment.names.get(index);
+      if (name == null) {
+        return;
+      } // if
+      // Once the name is gone, addEdge won't add new edges to the
+      // vertex, so we can safely remove the ones already there.
+      segment.names.set(index, null);
+      this.numEdges.add(-segment.lists.get(index).degree);
+      segment.lists.set(index, NO_EDGES);
+      segment.tables[index] = null;
+    } // synchronized
+    this.vertexNumbers.remove(name, vertex);
+    this.numVertices.decrementAndGet();
+    int capacity = this.nextVertex.get();
+    for (int v = 0; v < capacity; v++) {
+      Segment other = this.segment(v);
+      int i = v & (SEGMENT_SIZE - 1);
+      synchronized (this.locks[v % STRIPES]) {
+        if (this.removeEdgeLocked(other, i, vertex)) {
+          this.numEdges.decrement();
+        } // if
+      } // synchronized
+    } // for
+  } // removeVertex(int)
+
+  /**
+   * Remove a vertex. If the vertex does not exist, does nothing.
+   */
+  public void removeVertex(String vertex) {
+    this.removeVertex(this.vertexNumber(vertex));
+  } // removeVertex(String)
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Determine if a vertex is valid.
+   */
+  boolean validVertex(int vertex) {
+    return (vertex >= 0) && (this.vertexName(vertex) != null);
+  } // validVertex(int)
+
+  /**
+   * Get the current adjacency list of a vertex.
+   */
+  Adjacency adjacency(int vertex) {
+    return this.segment(vertex).lists.get(vertex & (SEGMENT_SIZE - 1));
+  } // adjacency(int)
+
+  /**
+   * Get the segment that holds a vertex, which must have been allocated.
+   * (Since newVertex adds the segment before it updates nextVertex, any
+   * thread that has seen the vertex number sees the segment.)
+   */
+  Segment segment(int vertex) {
+    return this.segments[vertex / SEGMENT_SIZE];
+  } // segment(int)
+
+  /**
+   * Allocate a new vertex with a particular name. (If the name is null,
+   * the vertex is not valid until the caller names it.)
+   */
+  private int newVertex(String name) {
+    int v;
+    Segment segment;
+    synchronized (this.nextVertex) {
+      v = this.nextVertex.get();
+      int s = v / SEGMENT_SIZE;
+      if (s == this.segments.length) {
+        Segment[] segments = Arrays.copyOf(this.segments,
+            Math.max(4, 2 * s));
+        for (int i = s; i < segments.length; i++) {
+          segments[i] = new Segment();
+        } // for
+        this.segments = segments;
+      } // if
+      segment = this.segments[s];
+      segment.names.set(v & (SEGMENT_SIZE - 1), name);
+      this.nextVertex.set(v + 1);
+    } // synchronized
+    this.numVertices.incrementAndGet();
+    return v;
+  } // newVertex(String)
+
+  /**
+   * Remove the edge to a vertex from one of the adjacency lists in a
+   * segment. The caller must hold the lock for the list. Returns true if
+   * there was such an edge.
+   */
+  private boolean removeEdgeLocked(Segment segment, int index, int to) {
+    Adjacency edges = segment.lists.get(index);
+    EdgeTable table = segment.tables[index];
+    int i = (table != null) ? table.get(to) : edges.indexOf(to);
+    if (i == -1) {
+      return false;
+    } // if
+    int last = edges.degree - 1;
+    int[] ends = Arrays.copyOf(edges.ends, edges.ends.length);
+    int[] costs = Arrays.copyOf(edges.costs, edges.costs.length);
+    ends[i] = ends[last];
+    costs[i] = costs[last];
+    segment.lists.set(index, new Adjacency(ends, costs, last));
+    if (table != null) {
+      table.remove(to);
+      if (i != last) {
+        table.put(ends[i], i);
+      } // if
+    } // if
+    return true;
+  } // removeEdgeLocked(Segment, int, int)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * The edges from one vertex at some moment. Never changes.
+   */
+  static final class Adjacency {
+    /**
+     * The ends and weights of the edges, in positions 0 .. degree-1.
+     */
+    final int[] ends;
+    final int[] costs;
+
+    /**
+     * The number of edges.
+     */
+    final int degree;
+
+    Adjacency(int[] ends, int[] costs, int degree) {
+      this.ends = ends;
+      this.costs = costs;
+      this.degree = degree;
+    } // Adjacency(int[], int[], int)
+
+    /**
+     * Find the position of the edge to a vertex, or -1 if there is none.
+     */
+    int indexOf(int to) {
+      for (int i = 0; i < this.degree; i++) {
+        if (this.ends[i] == to) {
+          return i;
+        } // if
+      } // for
+      return -1;
+    } // indexOf(int)
+  } // class Adjacency
+
+  /**
+   * SEGMENT_SIZE vertices.
+   */
+  static final class Segment {
+    /**
+     * The names of the vertices, or null for unused vertex numbers.
+     */
+    final AtomicReferenceArray<String> names =
+        new AtomicReferenceArray<String>(SEGMENT_SIZE);
+
+    /**
+     * The current adjacency lists of the vertices.
+     */
+    final AtomicReferenceArray<Adjacency> lists =
+        new AtomicReferenceArray<Adjacency>(SEGMENT_SIZE);
+
+    /**
+     * The hash tables of the vertices with many edges. Used only by
+     * writers, while they hold the lock for the vertex.
+     */
+    final EdgeTable[] tables = new EdgeTable[SEGMENT_SIZE];
+
+    Segment() {
+      for (int i = 0; i < SEGMENT_SIZE; i++) {
+        this.lists.set(i, NO_EDGES);
+      } // for
+    } // Segment()
+  } // class Segment
+
+} // class ConcurrentGraph
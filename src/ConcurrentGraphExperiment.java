@@ -0,0 +1,128 @@
+import java.io.PrintWriter;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * A quick experiment measuring the throughput of a mix of reads and
+ * writes from many threads, on a ConcurrentGraph and on a Graph that
+ * every thread locks in turn.
+ *
+ * Usage: java ConcurrentGraphExperiment [vertices] [operations per thread]
+ *   [percent writes]
+ */
+public class ConcurrentGraphExperiment {
+
+  /**
+   * The numbers of threads to try.
+   */
+  static final int[] THREADS = {1, 4, 16, 64};
+
+  public static void main(String[] args) throws Exception {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    int numVertices = (args.length > 0) ? Integer.parseInt(args[0]) : 100000;
+    int ops = (args.length > 1) ? Integer.parseInt(args[1]) : 200000;
+    int writes = (args.length > 2) ? Integer.parseInt(args[2]) : 20;
+    pen.println(Runtime.getRuntime().availableProcessors() + " processors, "
+        + writes + "% writes");
+    pen.printf("%8s %20s %20s\n", "threads", "ConcurrentGraph", "locked Graph");
+
+    for (int threads : THREADS) {
+      // Build the same starting graph both ways
+      ConcurrentGraph concurrent = new ConcurrentGraph();
+      Graph locked = new Graph(numVertices);
+      Random random = new Random(207);
+      for (int i = 0; i < numVertices; i++) {
+        concurrent.addVertex();
+        locked.addVertex();
+      } // for
+      for (int i = 0; i < 4 * numVertices; i++) {
+        int from = random.nextInt(numVertices);
+        int to = random.nextInt(numVertices);
+        if (from != to) {
+          concurrent.addEdge(from, to, i);
+          locked.addEdge(from, to, i);
+        } // if
+      } // for
+
+      long concurrentTime = run(threads, (seed) -> {
+        Random r = new Random(seed);
+        for (int i = 0; i < ops; i++) {
+          int from = r.nextInt(numVertices);
+          int to = (from + 1 + r.nextInt(numVertices - 1)) % numVertices;
+          if (r.nextInt(100) < writes) {
+            if (r.nextBoolean()) {
+              concurrent.addEdge(from, to, i);
+            } else {
+              concurrent.removeEdge(from, to);
+            } // if/else
+          } else {
+            Iterator<Edge> edges = concurrent.edgesFrom(from);
+            while (edges.hasNext()) {
+              edges.next();
+            } // while
+          } // if/else
+        } // for
+      });
+
+      long lockedTime = run(threads, (seed) -> {
+        Random r = new Random(seed);
+        for (int i = 0; i < ops; i++) {
+          int from = r.nextInt(numVertices);
+          int to = (from + 1 + r.nextInt(numVertices - 1)) % numVertices;
+          synchronized (locked) {
+            if (r.nextInt(100) < writes) {
+              if (r.nextBoolean()) {
+                locked.addEdge(from, to, i);
+              } else {
+                locked.removeEdge(from, to);
+              } // if/else
+            } else {
+              Iterator<Edge> edges = locked.edgesFrom(from);
+              while (edges.hasNext()) {
+                edges.next();
+              } // while
+            } // if/else
+          } // synchronized
+        } // for
+      });
+
+      long total = (long) threads * ops;
+      pen.printf("%8d %15.0f op/s %15.0f op/s\n", threads,
+          total / (concurrentTime / 1e9), total / (lockedTime / 1e9));
+    } // for
+  } // main(String[])
+
+  /**
+   * Something for each thread to do.
+   */
+  interface Work {
+    void run(int seed) throws Exception;
+  } // interface Work
+
+  /**
+   * Run work in the given number of threads at once. Returns the elapsed
+   * time, in nanoseconds.
+   */
+  static long run(int threads, Work work) throws Exception {
+    Thread[] workers = new Thread[threads];
+    for (int t = 0; t < threads; t++) {
+      int seed = t;
+      workers[t] = new Thread(() -> {
+        try {
+          work.run(seed);
+        } catch (Exception e) {
+          throw new RuntimeException(e);
+        } // try/catch
+      });
+    } // for
+    long begin = System.nanoTime();
+    for (Thread worker : workers) {
+      worker.start();
+    } // for
+    for (Thread worker : workers) {
+      worker.join();
+    } // for
+    return System.nanoTime() - begin;
+  } // run(int, Work)
+
+} // class ConcurrentGraphExperiment
@@ -0,0 +1,79 @@
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**
+ * A quick experiment with the connectivity index: the cost of keeping it
+ * up to date as random edges stream into an undirected graph (and some
+ * are removed), and the cost of a query.
+ *
+ * Usage: java ConnectivityExperiment [vertices] [edges]
+ */
+public class ConnectivityExperiment {
+
+  public static void main(String[] args) throws Exception {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    int numVertices = (args.length > 0) ? Integer.parseInt(args[0]) : 200000;
+    int numEdges = (args.length > 1) ? Integer.parseInt(args[1]) : 400000;
+
+    for (boolean indexed : new boolean[] {false, true}) {
+      UndirectedGraph g = new UndirectedGraph();
+      for (int i = 0; i < numVertices; i++) {
+        g.addVertex();
+      } // for
+      if (indexed) {
+        g.indexConnectivity();
+      } // if
+      Random random = new Random(207);
+      long begin = System.nanoTime();
+      int removed = 0;
+      for (int i = 0; i < numEdges; i++) {
+        int from = random.nextInt(numVertices);
+        int to = random.nextInt(numVertices);
+        if (from != to) {
+          g.addEdge(from, to, 1);
+        } // if
+        // Now and then, remove the edge we just added
+        if (i % 10 == 0) {
+          g.removeEdge(from, to);
+          ++removed;
+        } // if
+      } // for
+      long update = System.nanoTime() - begin;
+      pen.println((indexed ? "indexed" : "plain") + ": " + numEdges
+          + " edges added and " + removed + " removed in "
+          + update / 1000000 + " ms");
+    } // for
+
+    // Queries, with the index
+    UndirectedGraph g = new UndirectedGraph();
+    for (int i = 0; i < numVertices; i++) {
+      g.addVertex();
+    } // for
+    Random random = new Random(207);
+    for (int i = 0; i < numEdges / 2; i++) {
+      int from = random.nextInt(numVertices);
+      int to = random.nextInt(numVertices);
+      if (from != to) {
+        g.addEdge(from, to, 1);
+      } // if
+    } // for
+    g.indexConnectivity();
+    int queries = 10000000;
+    int yes = 0;
+    long begin = System.nanoTime();
+    for (int i = 0; i < queries; i++) {
+      if (g.connected(random.nextInt(numVertices),
+          random.nextInt(numVertices))) {
+        ++yes;
+      } // if
+    } // for
+    long elapsed = System.nanoTime() - begin;
+    pen.println(queries + " queries (" + yes + " connected) in "
+        + elapsed / 1000000 + " ms");
+    begin = System.nanoTime();
+    g.components();
+    pen.println("one components() call: "
+        + (System.nanoTime() - begin) / 1000000 + " ms");
+  } // main(String[])
+
+} // class ConnectivityExperiment
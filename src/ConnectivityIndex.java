@@ -0,0 +1,510 @@
+import java.util.Arrays;
+
+/**
+ * An index that answers "are these two vertices connected?" in constant
+ * time for an undirected graph, and keeps up as the graph changes. Get
+ * one with UndirectedGraph.indexConnectivity.
+ *
+ * @author Samuel A. Rebelsky
+ */
+public class ConnectivityIndex {
+
+  // +-------+-------------------------------------------------------
+  // | Notes |
+  // +-------+
+
+  /*
+   * We give each component a label, and record the label of each vertex,
+   * so a query compares two labels. We also keep the members of each
+   * component in a circular, doubly-linked list (by vertex number, in
+   * next and prev), along with its size.
+   *
+   * This is a form of union-find. To join two components when an edge
+   * is added, we relabel the members of the smaller one and splice the
+   * lists together. A vertex is relabeled only when its component at
+   * least doubles, so each vertex is relabeled at most log V times as
+   * edges are added.
+   *
+   * Removing an edge may split a component. We search from both ends of
+   * the edge at once, one vertex from each side in turn. If the searches
+   * meet, nothing has changed. Otherwise, whichever search runs out first
+   * has found a whole new component, which we move to a new label. Either
+   * way, the work is proportional to the smaller side, so the rest of
+   * the graph is never touched. Removing a vertex removes its edges
+   * before we hear about it, so we relabel the rest of its component from
+   * scratch.
+   *
+   * We hear about changes from the change log of the graph, and note the
+   * version of each. If the graph's version ever differs from the last
+   * one we heard about (say, because a batch added nothing), we rebuild
+   * the index before answering.
+   */
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The graph.
+   */
+  Graph graph;
+
+  /**
+   * The version of the graph that the index describes.
+   */
+  long version;
+
+  /**
+   * The label of the component of each vertex, or -1 for unused numbers.
+   */
+  int[] label;
+
+  /**
+   * The next and previous members of the component of each vertex.
+   */
+  int[] next;
+  int[] prev;
+
+  /**
+   * One member and the size of each component, by label.
+   */
+  int[] head;
+  int[] size;
+
+  /**
+   * The labels not in use.
+   */
+  int[] freeLabels;
+  int numFree;
+
+  /**
+   * The number of components.
+   */
+  int numComponents;
+
+  /**
+   * Marks for our searches. A vertex is marked with stamp if it is on
+   * the first side, and with stamp+1 if it is on the second.
+   */
+  int[] mark;
+  int stamp = 1;
+
+  /**
+   * The vertices found on each side of a search.
+   */
+  int[] found;
+  int[] otherFound;
+
+  /**
+   * Hears about each change to the graph.
+   */
+  GraphChangeListener listener = (change) -> this.changed(change);
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Build an index for graph, which must be symmetric, and keep it up to
+   * date.
+   */
+  ConnectivityIndex(Graph graph) {
+    this.graph = graph;
+    this.build();
+    graph.changeLog().addListener(this.listener);
+  } // ConnectivityIndex(Graph)
+
+  // +-----------+---------------------------------------------------
+  // | Observers |
+  // +-----------+
+
+  /**
+   * Determine if there is a path between two vertices.
+   */
+  public boolean connected(int u, int v) {
+    this.check();
+    return this.graph.validVertex(u) && this.graph.validVertex(v)
+        && (this.label[u] == this.label[v]);
+  } // connected(int, int)
+
+  /**
+   * Get the number of vertices connected to a vertex (including itself),
+   * or 0 if it is not a vertex.
+   */
+  public int componentSize(int vertex) {
+    this.check();
+    if (!this.graph.validVertex(vertex)) {
+      return 0;
+    } // if
+    return this.size[this.label[vertex]];
+  } // componentSize(int)
+
+  /**
+   * Get the number of components.
+   */
+  public int numComponents() {
+    this.check();
+    return this.numComponents;
+  } // numComponents()
+
+  /**
+   * Stop keeping the index up to date.
+   */
+  void detach() {
+    this.graph.changeLog().removeListener(this.listener);
+  } // detach()
+
+  // +---------+-----------------------------------------------------
+  // | Changes |
+  // +---------+
+
+  /**
+   * Update the index after a change.
+   */
+  void changed(GraphChange change) {
+    switch (change.kind()) {
+      case GraphChange.ADD_VERTEX:
+        this.addVertex(change.vertex());
+        break;
+      case GraphChange.REMOVE_VERTEX:
+        this.removeVertex(change.vertex());
+        break;
+      case GraphChange.ADD_EDGE:
+        this.union(change.from(), change.to());
+        break;
+      case GraphChange.REMOVE_EDGE:
+        // The first half of an undirected edge goes before the second;
+        // wait until both are gone.
+        if (!this.graph.hasEdge(change.to(), change.from())) {
+          this.split(change.from(), change.to());
+        } // if
+        break;
+      case GraphChange.CLEAR:
+        this.clear();
+        break;
+      default:
+        break;
+    } // switch
+    this.version = change.version();
+  } // changed(GraphChange)
+
+  /**
+   * Add a vertex, in a component of its own.
+   */
+  void addVertex(int v) {
+    this.ensureCapacity(Math.max(v + 1, this.graph.capacity()));
+    int l = this.newLabel();
+    this.label[v] = l;
+    this.next[v] = v;
+    this.prev[v] = v;
+    this.head[l] = v;
+    this.size[l] = 1;
+  } // addVertex(int)
+
+  /**
+   * Join the components of u and v.
+   */
+  void union(int u, int v) {
+    int big = this.label[u];
+    int small = this.label[v];
+    if (big == small) {
+      return;
+    } // if
+    if (this.size[big] < this.size[small]) {
+      int temp = big;
+      big = small;
+      small = temp;
+    } // if
+    int first = this.head[small];
+    int x = first;
+    do {
+      this.label[x] = big;
+      x = this.next[x];
+    } while (x != first);
+    // Splice the lists: big's head, then all of small, then the rest
+    int h = this.head[big];
+    int afterHead = this.next[h];
+    int last = this.prev[first];
+    this.next[h] = first;
+    this.prev[first] = h;
+    this.next[last] = afterHead;
+    this.prev[afterHead] = last;
+    this.size[big] += this.size[small];
+    this.freeLabel(small);
+  } // union(int, int)
+
+  /**
+   * Handle the removal of the last edge between u and v.
+   */
+  void split(int u, int v) {
+    if (u == v) {
+      return;
+    } // if
+    int a = this.nextStamp();
+    int b = a + 1;
+    int[] sideA = this.found;
+    int[] sideB = this.otherFound;
+    int headA = 0;
+    int tailA = 0;
+    int headB = 0;
+    int tailB = 0;
+    sideA[tailA++] = u;
+    this.mark[u] = a;
+    sideB[tailB++] = v;
+    this.mark[v] = b;
+    while (true) {
+      // One step on each side, stopping if they meet or one runs out
+      int x = sideA[headA++];
+      for (int i = 0; i < this.graph.degrees.get(x); i++) {
+        int w = this.graph.targets.get(x)[i];
+        if (this.mark[w] == b) {
+          return;
+        } else if (this.mark[w] != a) {
+          this.mark[w] = a;
+          sideA[tailA++] = w;
+        } // if/else
+      } // for
+      if (headA == tailA) {
+        this.moveToNewLabel(sideA, tailA);
+        return;
+      } // if
+      x = sideB[headB++];
+      for (int i = 0; i < this.graph.degrees.get(x); i++) {
+        int w = this.graph.targets.get(x)[i];
+        if (this.mark[w] == a) {
+          return;
+        } else if (this.mark[w] != b) {
+          this.mark[w] = b;
+          sideB[tailB++] = w;
+        } // if/else
+      } // for
+      if (headB == tailB) {
+        this.moveToNewLabel(sideB, tailB);
+        return;
+      } // if
+    } // while
+  } // split(int, int)
+
+  /**
+   * Move the vertices in vertices[0] .. vertices[count-1], which have
+   * just become a component of their own, to a new label.
+   */
+  void moveToNewLabel(int[] vertices, int count) {
+    int old = this.label[vertices[0]];
+    int l = this.newLabel();
+    for (int i = 0; i < count; i++) {
+      int x = vertices[i];
+      this.unlink(x, old);
+      this.label[x] = l;
+      this.link(x, l, i == 0);
+    } // for
+    this.size[l] = count;
+  } // moveToNewLabel(int[], int)
+
+  /**
+   * Handle the removal of a vertex, whose edges are already gone.
+   */
+  void removeVertex(int v) {
+    int old = this.label[v];
+    this.unlink(v, old);
+    this.label[v] = -1;
+    if (this.size[old] == 0) {
+      this.freeLabel(old);
+      return;
+    } // if
+
+    // Gather the rest of the component, and label the pieces anew
+    int[] members = this.otherFound;
+    int count = 0;
+    int first = this.head[old];
+    int x = first;
+    do {
+      members[count++] = x;
+      x = this.next[x];
+    } while (x != first);
+    this.freeLabel(old);
+    int a = this.nextStamp();
+    int[] piece = this.found;
+    for (int i = 0; i < count; i++) {
+      int start = members[i];
+      if (this.mark[start] == a) {
+        continue;
+      } // if
+      int headP = 0;
+      int tailP = 0;
+      piece[tailP++] = start;
+      this.mark[start] = a;
+      while (headP < tailP) {
+        int y = piece[headP++];
+        for (int j = 0; j < this.graph.degrees.get(y); j++) {
+          int w = this.graph.targets.get(y)[j];
+          if (this.mark[w] != a) {
+            this.mark[w] = a;
+            piece[tailP++] = w;
+          } // if
+        } // for
+      } // while
+      int l = this.newLabel();
+      for (int j = 0; j < tailP; j++) {
+        this.label[piece[j]] = l;
+        this.link(piece[j], l, j == 0);
+      } // for
+      this.size[l] = tailP;
+    } // for
+  } // removeVertex(int)
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Rebuild the index if the graph has changed without telling us.
+   */
+  void check() {
+    if (this.graph.version != this.version) {
+      this.build();
+    } // if
+  } // check()
+
+  /**
+   * Build the index from scratch.
+   */
+  void build() {
+    this.clear();
+    int capacity = this.graph.capacity();
+    int[] root = ComponentFinder.unionFind(this.graph);
+    Arrays.fill(this.head, -1);
+    for (int v = 0; v < capacity; v++) {
+      if (this.graph.validVertex(v)) {
+        int l = root[v];
+        this.label[v] = l;
+        this.link(v, l, this.head[l] == -1);
+        ++this.size[l];
+      } // if
+    } // for
+    // The roots of the components are their labels; the rest are free
+    this.numFree = 0;
+    this.numComponents = 0;
+    for (int l = capacity - 1; l >= 0; l--) {
+      if (this.size[l] == 0) {
+        this.freeLabels[this.numFree++] = l;
+      } else {
+        ++this.numComponents;
+      } // if/else
+    } // for
+    this.version = this.graph.version;
+  } // build()
+
+  /**
+   * Forget every vertex.
+   */
+  void clear() {
+    int capacity = this.graph.capacity();
+    this.label = new int[capacity];
+    Arrays.fill(this.label, -1);
+    this.next = new int[capacity];
+    this.prev = new int[capacity];
+    this.head = new int[capacity];
+    this.size = new int[capacity];
+    this.freeLabels = new int[capacity];
+    this.numFree = 0;
+    for (int l = capacity - 1; l >= 0; l--) {
+      this.freeLabels[this.numFree++] = l;
+    } // for
+    this.numComponents = 0;
+    this.mark = new int[capacity];
+    this.stamp = 1;
+    this.found = new int[capacity];
+    this.otherFound = new int[capacity];
+  } // clear()
+
+  /**
+   * Make room for vertex numbers (and labels) 0 .. capacity-1.
+   */
+  void ensureCapacity(int capacity) {
+    int oldCapacity = this.label.length;
+    if (capacity <= oldCapacity) {
+      return;
+    } // if
+    this.label = Arrays.copyOf(this.label, capacity);
+    Arrays.fill(this.label, oldCapacity, capacity, -1);
+    this.next = Arrays.copyOf(this.next, capacity);
+    this.prev = Arrays.copyOf(this.prev, capacity);
+    this.head = Arrays.copyOf(this.head, capacity);
+    this.size = Arrays.copyOf(this.size, capacity);
+    this.mark = Arrays.copyOf(this.mark, capacity);
+    this.found = new int[capacity];
+    this.otherFound = new int[capacity];
+    this.freeLabels = Arrays.copyOf(this.freeLabels, capacity);
+    for (int l = capacity - 1; l >= oldCapacity; l--) {
+      this.freeLabels[this.numFree++] = l;
+    } // for
+  } // ensureCapacity(int)
+
+  /**
+   * Add x to the list of the component with label l, as its only member
+   * if first is true.
+   */
+  void link(int x, int l, boolean first) {
+    if (first) {
+      this.head[l] = x;
+      this.next[x] = x;
+      this.prev[x] = x;
+    } else {
+      int h = this.head[l];
+      int last = this.prev[h];
+      this.next[last] = x;
+      this.prev[x] = last;
+      this.next[x] = h;
+      this.prev[h] = x;
+    } // if/else
+  } // link(int, int, boolean)
+
+  /**
+   * Remove x from the list of the component with label l.
+   */
+  void unlink(int x, int l) {
+    if (this.next[x] == x) {
+      this.head[l] = -1;
+    } else {
+      this.next[this.prev[x]] = this.next[x];
+      this.prev[this.next[x]] = this.prev[x];
+      if (this.head[l] == x) {
+        this.head[l] = this.next[x];
+      } // if
+    } // if/else
+    --this.size[l];
+  } // unlink(int, int)
+
+  /**
+   * Get an unused label.
+   */
+  int newLabel() {
+    ++this.numComponents;
+    return this.freeLabels[--this.numFree];
+  } // newLabel()
+
+  /**
+   * Note that a label is no longer in use.
+   */
+  void freeLabel(int l) {
+    --this.numComponents;
+    this.size[l] = 0;
+    this.head[l] = -1;
+    this.freeLabels[this.numFree++] = l;
+  } // freeLabel(int)
+
+  /**
+   * Get a pair of new stamps for marking a search.
+   */
+  int nextStamp() {
+    if (this.stamp >= Integer.MAX_VALUE - 2) {
+      Arrays.fill(this.mark, 0);
+      this.stamp = 1;
+    } // if
+    int result = this.stamp;
+    this.stamp += 2;
+    return result;
+  } // nextStamp()
+
+} // class ConnectivityIndex
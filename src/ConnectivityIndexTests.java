@@ -0,0 +1,244 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Some tests of the connectivity index, each checked against components
+ * found by a plain breadth-first search over a HashMap of neighbors.
+ */
+class ConnectivityIndexTests {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of vertices in the random tests.
+   */
+  static final int VERTICES = 300;
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Removing an edge on a path splits its component; removing an edge
+   * on a cycle does not.
+   */
+  @Test
+  void testSplit() throws Exception {
+    UndirectedGraph g = new UndirectedGraph();
+    Map<Integer, Set<Integer>> neighbors = new HashMap<Integer, Set<Integer>>();
+    for (int i = 0; i < 6; i++) {
+      addVertex(g, neighbors);
+    } // for
+    ConnectivityIndex index = g.indexConnectivity();
+    for (int i = 0; i < 5; i++) {
+      addEdge(g, neighbors, i, i + 1);
+    } // for
+    addEdge(g, neighbors, 5, 2);
+    assertEquals(1, index.numComponents());
+    check(g, index, neighbors);
+
+    // 2-3-4-5-2 is a cycle
+    removeEdge(g, neighbors, 3, 4);
+    assertEquals(1, index.numComponents());
+    check(g, index, neighbors);
+
+    // Now 3 hangs off 2 alone
+    removeEdge(g, neighbors, 2, 3);
+    assertEquals(2, index.numComponents());
+    assertFalse(index.connected(0, 3));
+    assertEquals(1, index.componentSize(3));
+    assertEquals(5, index.componentSize(0));
+    check(g, index, neighbors);
+
+    // Split the big side down the middle
+    removeEdge(g, neighbors, 1, 2);
+    assertEquals(3, index.numComponents());
+    assertTrue(index.connected(2, 4));
+    assertFalse(index.connected(1, 2));
+    check(g, index, neighbors);
+  } // testSplit()
+
+  /**
+   * Removing a vertex in the middle of a component leaves its neighbors
+   * in separate components, unless they are joined some other way.
+   */
+  @Test
+  void testRemoveVertex() throws Exception {
+    UndirectedGraph g = new UndirectedGraph();
+    Map<Integer, Set<Integer>> neighbors = new HashMap<Integer, Set<Integer>>();
+    for (int i = 0; i < 8; i++) {
+      addVertex(g, neighbors);
+    } // for
+    ConnectivityIndex index = g.indexConnectivity();
+    // A star around 0, with 3 and 4 also joined to each other, and a
+    // separate edge from 6 to 7
+    for (int i = 1; i <= 5; i++) {
+      addEdge(g, neighbors, 0, i);
+    } // for
+    addEdge(g, neighbors, 3, 4);
+    addEdge(g, neighbors, 6, 7);
+    assertEquals(2, index.numComponents());
+
+    removeVertex(g, neighbors, 0);
+    assertEquals(5, index.numComponents());
+    assertTrue(index.connected(3, 4));
+    assertFalse(index.connected(1, 2));
+    assertFalse(index.connected(0, 1));
+    assertEquals(0, index.componentSize(0));
+    check(g, index, neighbors);
+
+    // The number comes back as a vertex of its own
+    int v = addVertex(g, neighbors);
+    assertEquals(6, index.numComponents());
+    addEdge(g, neighbors, v, 6);
+    addEdge(g, neighbors, v, 1);
+    assertEquals(4, index.numComponents());
+    assertTrue(index.connected(1, 7));
+    check(g, index, neighbors);
+
+    // Removing a vertex with no other members frees its label
+    removeVertex(g, neighbors, 5);
+    assertEquals(3, index.numComponents());
+    check(g, index, neighbors);
+  } // testRemoveVertex()
+
+  /**
+   * Make many random changes, checking the index against a fresh search
+   * as we go.
+   */
+  @Test
+  void testRandomChanges() throws Exception {
+    Random random = new Random(19);
+    UndirectedGraph g = new UndirectedGraph();
+    Map<Integer, Set<Integer>> neighbors = new HashMap<Integer, Set<Integer>>();
+    for (int i = 0; i < VERTICES; i++) {
+      addVertex(g, neighbors);
+    } // for
+    ConnectivityIndex index = g.indexConnectivity();
+    List<Integer> removed = new ArrayList<Integer>();
+    for (int step = 0; step < 20000; step++) {
+      int u = random.nextInt(VERTICES);
+      int v = random.nextInt(VERTICES);
+      int choice = random.nextInt(100);
+      if ((choice < 2) && neighbors.containsKey(u)) {
+        removeVertex(g, neighbors, u);
+        removed.add(u);
+      } else if ((choice < 4) && !removed.isEmpty()) {
+        removed.remove((Integer) addVertex(g, neighbors));
+      } else if ((u != v) && neighbors.containsKey(u)
+          && neighbors.containsKey(v)) {
+        // Keep the graph sparse, so that there is something to split
+        if (choice < 55) {
+          removeEdge(g, neighbors, u, v);
+        } else {
+          addEdge(g, neighbors, u, v);
+        } // if/else
+      } // if/else
+      if (step % 100 == 0) {
+        check(g, index, neighbors);
+      } // if
+    } // for
+    check(g, index, neighbors);
+  } // testRandomChanges()
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Add a vertex to g and to neighbors.
+   */
+  static int addVertex(UndirectedGraph g,
+      Map<Integer, Set<Integer>> neighbors) {
+    int v = g.addVertex();
+    neighbors.put(v, new HashSet<Integer>());
+    return v;
+  } // addVertex(UndirectedGraph, Map<Integer, Set<Integer>>)
+
+  /**
+   * Remove a vertex from g and from neighbors.
+   */
+  static void removeVertex(UndirectedGraph g,
+      Map<Integer, Set<Integer>> neighbors, int v) {
+    g.removeVertex(v);
+    for (int w : neighbors.remove(v)) {
+      neighbors.get(w).remove(v);
+    } // for
+  } // removeVertex(UndirectedGraph, Map<Integer, Set<Integer>>, int)
+
+  /**
+   * Add an edge to g and to neighbors.
+   */
+  static void addEdge(UndirectedGraph g, Map<Integer, Set<Integer>> neighbors,
+      int u, int v) throws Exception {
+    g.addEdge(u, v, 1);
+    neighbors.get(u).add(v);
+    neighbors.get(v).add(u);
+  } // addEdge(UndirectedGraph, Map<Integer, Set<Integer>>, int, int)
+
+  /**
+   * Remove an edge from g and from neighbors.
+   */
+  static void removeEdge(UndirectedGraph g,
+      Map<Integer, Set<Integer>> neighbors, int u, int v) {
+    g.removeEdge(u, v);
+    neighbors.get(u).remove(v);
+    neighbors.get(v).remove(u);
+  } // removeEdge(UndirectedGraph, Map<Integer, Set<Integer>>, int, int)
+
+  /**
+   * Check the index against the components of neighbors. The index must
+   * have kept up with every change, rather than rebuilt itself.
+   */
+  static void check(UndirectedGraph g, ConnectivityIndex index,
+      Map<Integer, Set<Integer>> neighbors) {
+    assertEquals(g.version, index.version, "The index fell behind");
+
+    // Find the components with a breadth-first search from each vertex
+    Map<Integer, Integer> component = new HashMap<Integer, Integer>();
+    List<Integer> sizes = new ArrayList<Integer>();
+    for (int start : neighbors.keySet()) {
+      if (component.containsKey(start)) {
+        continue;
+      } // if
+      int c = sizes.size();
+      List<Integer> queue = new ArrayList<Integer>();
+      queue.add(start);
+      component.put(start, c);
+      for (int head = 0; head < queue.size(); head++) {
+        for (int w : neighbors.get(queue.get(head))) {
+          if (!component.containsKey(w)) {
+            component.put(w, c);
+            queue.add(w);
+          } // if
+        } // for
+      } // for
+      sizes.add(queue.size());
+    } // for
+
+    // Each component should have one label, and each label one component
+    assertEquals(sizes.size(), index.numComponents());
+    Map<Integer, Integer> labels = new HashMap<Integer, Integer>();
+    for (Map.Entry<Integer, Integer> entry : component.entrySet()) {
+      int v = entry.getKey();
+      int c = entry.getValue();
+      Integer label = labels.putIfAbsent(c, index.label[v]);
+      assertEquals((label == null) ? index.label[v] : label,
+          index.label[v], "Label of " + v);
+      assertEquals((int) sizes.get(c), index.componentSize(v),
+          "Component size of " + v);
+    } // for
+    assertEquals(labels.size(), new HashSet<Integer>(labels.values()).size(),
+        "Two components share a label");
+  } // check(UndirectedGraph, ConnectivityIndex, Map<Integer, Set<Integer>>)
+
+} // ConnectivityIndexTests
@@ -0,0 +1,262 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A frozen, read-only snapshot of a weighted, directed graph, stored in
+ * compressed sparse row (CSR) form. Build one with Graph.freeze().
+ *
+ * @author Samuel A. Rebelsky
+ */
+public class CsrGraph {
+
+  // +-------+-------------------------------------------------------
+  // | Notes |
+  // +-------+
+
+  /*
+   * Rather than keeping a separate list for each vertex, we pack all of the
+   * edges into three parallel arrays. The edges from vertex v are stored in
+   * positions offsets[v] through offsets[v+1]-1 of targets and weights.
+   *
+   * Vertex numbers are the same as those in the graph we were built from, so
+   * a vertex number that is unused in the original graph is also unused
+   * here (and has no edges).
+   *
+   * Since the graph cannot change, we need no version numbers, and
+   * traversals need not allocate anything per edge.
+   */
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of vertices in the graph.
+   */
+  int numVertices;
+
+  /**
+   * The number of edges in the graph.
+   */
+  int numEdges;
+
+  /**
+   * Where the edges for each vertex start. The edges from vertex v are in
+   * positions offsets[v] .. offsets[v+1]-1. There is one more offset than
+   * there are vertex numbers.
+   */
+  int[] offsets;
+
+  /**
+   * The ends of the edges.
+   */
+  int[] targets;
+
+  /**
+   * The weights of the edges.
+   */
+  int[] weights;
+
+  /**
+   * The names of the vertices, and the number of each name.
+   */
+  NameTable names;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Build a snapshot of graph. If reversed is true, each edge from u to v
+   * in graph becomes an edge from v to u in the snapshot.
+   */
+  CsrGraph(Graph graph, boolean reversed) {
+    int capacity = graph.capacity();
+    this.numVertices = graph.numVertices;
+    this.numEdges = graph.numEdges;
+    this.names = new NameTable(graph.names);
+    this.offsets = new int[capacity + 1];
+    this.targets = new int[graph.numEdges];
+    this.weights = new int[graph.numEdges];
+    if (reversed) {
+      this.fillReversed(graph);
+    } else {
+      this.fill(graph);
+    } // if/else
+  } // CsrGraph(Graph, boolean)
+
+  // +----------------------+----------------------------------------
+  // | Vertex names/numbers |
+  // +----------------------+
+
+  /**
+   * Given a vertex number, get the corresponding vertex name. If there is no
+   * corresponding vertex name, returns null;
+   */
+  public String vertexName(int vertexNumber) {
+    if (!validVertex(vertexNumber)) {
+      return null;
+    } else {
+      return this.names.get(vertexNumber);
+    } // if/else
+  } // vertexName(int)
+
+  /**
+   * Given a vertex name, get the corresponding vertex number. If there is no
+   * corresponding vertex number, returns -1.
+   */
+  public int vertexNumber(String vertexName) {
+    return this.names.find(vertexName);
+  } // vertexNumber(String)
+
+  // +-----------+---------------------------------------------------
+  // | Observers |
+  // +-----------+
+
+  /**
+   * Get the number of edges.
+   */
+  public int numEdges() {
+    return this.numEdges;
+  } // numEdges()
+
+  /**
+   * Get the number of vertices.
+   */
+  public int numVertices() {
+    return this.numVertices;
+  } // numVertices()
+
+  /**
+   * Get the number of edges from a particular vertex.
+   */
+  public int degree(int vertex) {
+    if (!validVertex(vertex)) {
+      return 0;
+    } // if
+    return this.offsets[vertex + 1] - this.offsets[vertex];
+  } // degree(int)
+
+  /**
+   * Get all of the edges from a particular vertex.
+   */
+  public Iterator<Edge> edgesFrom(int vertex) {
+    final int start = validVertex(vertex) ? this.offsets[vertex] : 0;
+    final int end = validVertex(vertex) ? this.offsets[vertex + 1] : 0;
+    return new Iterator<Edge>() {
+      // The position of the next edge in targets/weights
+      int pos = start;
+
+      public boolean hasNext() {
+        return this.pos < end;
+      } // hasNext()
+
+      public Edge next() {
+        if (!this.hasNext()) {
+          throw new NoSuchElementException();
+        } // if
+        Edge e = new Edge(vertex, CsrGraph.this.targets[this.pos],
+            CsrGraph.this.weights[this.pos]);
+        ++this.pos;
+        return e;
+      } // next()
+    }; // new Iterator<Edge>
+  } // edgesFrom(int)
+
+  /**
+   * Get all of the edges from a particular vertex.
+   */
+  public Iterator<Edge> edgesFrom(String vertex) {
+    return this.edgesFrom(vertexNumber(vertex));
+  } // edgesFrom(String)
+
+  /**
+   * Visit all of the edges from a particular vertex.
+   */
+  public void forEachNeighbor(int vertex, EdgeVisitor visitor) {
+    if (!validVertex(vertex)) {
+      return;
+    } // if
+    int end = this.offsets[vertex + 1];
+    for (int pos = this.offsets[vertex]; pos < end; pos++) {
+      visitor.visit(vertex, this.targets[pos], this.weights[pos]);
+    } // for
+  } // forEachNeighbor(int, EdgeVisitor)
+
+  /**
+   * Get a path from start to finish. If no such path exists, returns null.
+   */
+  public List<Edge> path(int start, int finish) {
+    if (!validVertex(start) || !validVertex(finish)) {
+      return null;
+    } // if
+    return PathSearch.path(this::forEachNeighbor, this.offsets.length - 1,
+        start, finish);
+  } // path(int, int)
+
+  /**
+   * Get a path from start to finish. If no such path exists, returns null.
+   */
+  public List<Edge> path(String start, String finish) {
+    return path(this.vertexNumber(start), this.vertexNumber(finish));
+  } // path(String, String)
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Copy the edges of graph into offsets, targets, and weights.
+   */
+  private void fill(Graph graph) {
+    int capacity = graph.capacity();
+    int pos = 0;
+    for (int vertex = 0; vertex < capacity; vertex++) {
+      this.offsets[vertex] = pos;
+      int degree = graph.degrees.get(vertex);
+      System.arraycopy(graph.targets.get(vertex), 0, this.targets, pos, degree);
+      System.arraycopy(graph.weights.get(vertex), 0, this.weights, pos, degree);
+      pos += degree;
+    } // for
+    this.offsets[capacity] = pos;
+  } // fill(Graph)
+
+  /**
+   * Copy the reversed edges of graph into offsets, targets, and weights.
+   */
+  private void fillReversed(Graph graph) {
+    int capacity = graph.capacity();
+    // Count the edges into each vertex. For now, offsets[v+1] holds the
+    // number of edges into v.
+    for (int vertex = 0; vertex < capacity; vertex++) {
+      int[] ends = graph.targets.get(vertex);
+      for (int i = 0; i < graph.degrees.get(vertex); i++) {
+        ++this.offsets[ends[i] + 1];
+      } // for
+    } // for
+    for (int vertex = 0; vertex < capacity; vertex++) {
+      this.offsets[vertex + 1] += this.offsets[vertex];
+    } // for
+    // Place each edge. next[v] is where the next edge into v goes.
+    int[] next = Arrays.copyOf(this.offsets, capacity);
+    for (int vertex = 0; vertex < capacity; vertex++) {
+      int[] ends = graph.targets.get(vertex);
+      int[] costs = graph.weights.get(vertex);
+      for (int i = 0; i < graph.degrees.get(vertex); i++) {
+        int pos = next[ends[i]]++;
+        this.targets[pos] = vertex;
+        this.weights[pos] = costs[i];
+      } // for
+    } // for
+  } // fillReversed(Graph)
+
+  /**
+   * Determine if a vertex is valid.
+   */
+  private boolean validVertex(int vertex) {
+    return (vertex < this.offsets.length - 1) && this.names.contains(vertex);
+  } // validVertex
+
+} // class CsrGraph
@@ -0,0 +1,579 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+
+/**
+ * A graph kept in a directory on disk, so that it survives crashes. Every
+ * change to the graph goes to a write-ahead log, and every so often we
+ * write a checkpoint of the whole graph and start a new log. Opening the
+ * directory again loads the latest checkpoint and replays the log.
+ *
+ * Change the graph with the methods here (or through graph(), though
+ * then we do not consider taking a checkpoint). Changes reach the disk
+ * in groups, at most SYNC_INTERVAL milliseconds after they happen; call
+ * sync() to wait until they have.
+ *
+ * @author Samuel A. Rebelsky
+ */
+public class DurableGraph implements AutoCloseable {
+
+  // +-------+-------------------------------------------------------
+  // | Notes |
+  // +-------+
+
+  /*
+   * The directory holds checkpoint-N.bin, a binary graph file (see
+   * BinaryGraphFile), and wal-N.log, the changes since that checkpoint.
+   * N counts the checkpoints. Before we have a checkpoint, N is 0 and
+   * there is only a log.
+   *
+   * Each entry in a log is
+   *
+   *   int    the length of the rest of the entry, less the checksum
+   *   int    the CRC-32 of the rest of the entry
+   *   byte   the kind of change (see GraphChange)
+   *   int    from (or the vertex)
+   *   int    to
+   *   int    weight
+   *   int    for added vertices, the length of the UTF-8 name,
+   *          followed by the bytes of the name
+   *
+   * A crash may leave a partial entry at the end of the log. When we
+   * replay the log, we stop at the first entry that is incomplete or
+   * fails its checksum, and cut the log off there.
+   *
+   * We hear about changes from the change log of the graph, and encode
+   * them into a buffer. A separate thread writes the buffer to the log
+   * and forces it to the disk every SYNC_INTERVAL milliseconds, so many
+   * changes share the cost of one force ("group commit").
+   *
+   * To take checkpoint N+1, we sync the log, write the checkpoint to a
+   * temporary file, force it, rename it to checkpoint-(N+1).bin, and
+   * start wal-(N+1).log. Only then do we delete checkpoint N and its
+   * log. A crash at any point leaves either the old checkpoint and its
+   * complete log, or the new checkpoint.
+   */
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The longest a change waits before it reaches the disk, in
+   * milliseconds.
+   */
+  public static final long SYNC_INTERVAL = 10;
+
+  /**
+   * The default size of a log, in bytes, at which we take a checkpoint.
+   */
+  public static final long CHECKPOINT_SIZE = 64L * 1024 * 1024;
+
+  /**
+   * The size of the buffer of changes at which we wake the writer early.
+   */
+  static final int MAX_PENDING = 1024 * 1024;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The graph.
+   */
+  Graph graph;
+
+  /**
+   * The directory.
+   */
+  File directory;
+
+  /**
+   * The number of the current checkpoint.
+   */
+  int generation;
+
+  /**
+   * The current log.
+   */
+  FileChannel log;
+
+  /**
+   * The size of the current log, in bytes.
+   */
+  long logSize;
+
+  /**
+   * The log size at which we take a checkpoint.
+   */
+  long checkpointSize = CHECKPOINT_SIZE;
+
+  /**
+   * The encoded changes that we have not yet written. Guarded by this.
+   */
+  ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+  /**
+   * One change, as we encode it.
+   */
+  ByteArrayOutputStream entry = new ByteArrayOutputStream();
+  DataOutputStream entryData = new DataOutputStream(this.entry);
+  CRC32 entryCrc = new CRC32();
+
+  /**
+   * Held while writing to the log.
+   */
+  Object writeLock = new Object();
+
+  /**
+   * The thread that writes the log.
+   */
+  Thread writer;
+
+  /**
+   * Set when we close.
+   */
+  volatile boolean closed = false;
+
+  /**
+   * The first problem the writer had, if any.
+   */
+  volatile Exception failure;
+
+  /**
+   * Hears about each change to the graph.
+   */
+  GraphChangeListener listener = (change) -> this.record(change);
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Open a durable graph in directory, with the changes going into graph.
+   */
+  DurableGraph(File directory, Graph graph) throws Exception {
+    this.directory = directory;
+    this.graph = graph;
+    this.recover();
+    this.graph.changeLog().addListener(this.listener);
+    this.writer = new Thread(() -> this.writeLoop(), "DurableGraph writer");
+    this.writer.setDaemon(true);
+    this.writer.start();
+  } // DurableGraph(File, Graph)
+
+  /**
+   * Open the directed graph in a directory, creating the directory if it
+   * does not exist.
+   */
+  public static DurableGraph open(String directory) throws Exception {
+    return open(directory, new Graph());
+  } // open(String)
+
+  /**
+   * Open the graph in a directory, creating the directory if it does not
+   * exist. The graph is loaded into graph, which should be empty (and
+   * undirected if the saved graph is).
+   */
+  public static DurableGraph open(String directory, Graph graph)
+      throws Exception {
+    File dir = new File(directory);
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      throw new Exception("Cannot create directory " + directory);
+    } // if
+    return new DurableGraph(dir, graph);
+  } // open(String, Graph)
+
+  // +-----------+---------------------------------------------------
+  // | Observers |
+  // +-----------+
+
+  /**
+   * Get the graph, for reading.
+   */
+  public Graph graph() {
+    return this.graph;
+  } // graph()
+
+  // +----------+----------------------------------------------------
+  // | Mutators |
+  // +----------+
+
+  /**
+   * Add an edge between two vertices, as in Graph.addEdge.
+   */
+  public void addEdge(int from, int to, int weight) throws Exception {
+    this.graph.addEdge(from, to, weight);
+    this.changed();
+  } // addEdge(int, int, int)
+
+  /**
+   * Add an edge between two named vertices, as in Graph.addEdge.
+   */
+  public void addEdge(String from, String to, int weight) throws Exception {
+    this.graph.addEdge(from, to, weight);
+    this.changed();
+  } // addEdge(String, String, int)
+
+  /**
+   * Add a vertex with a particular name, as in Graph.addVertex.
+   */
+  public int addVertex(String name) throws Exception {
+    int v = this.graph.addVertex(name);
+    this.changed();
+    return v;
+  } // addVertex(String)
+
+  /**
+   * Add an unnamed vertex, as in Graph.addVertex.
+   */
+  public int addVertex() throws Exception {
+    int v = this.graph.addVertex();
+    this.changed();
+    return v;
+  } // addVertex()
+
+  /**
+   * Remove an edge, as in Graph.removeEdge.
+   */
+  public void removeEdge(int from, int to) throws Exception {
+    this.graph.removeEdge(from, to);
+    this.changed();
+  } // removeEdge(int, int)
+
+  /**
+   * Remove a vertex, as in Graph.removeVertex.
+   */
+  public void removeVertex(int vertex) throws Exception {
+    this.graph.removeVertex(vertex);
+    this.changed();
+  } // removeVertex(int)
+
+  /**
+   * Set the size of the log, in bytes, at which we take a checkpoint.
+   */
+  public void checkpointEvery(long bytes) {
+    this.checkpointSize = bytes;
+  } // checkpointEvery(long)
+
+  // +------------+--------------------------------------------------
+  // | Durability |
+  // +------------+
+
+  /**
+   * Wait until every change so far is on the disk.
+   *
+   * @exception Exception if we could not write the log.
+   */
+  public void sync() throws Exception {
+    this.checkFailure();
+    this.write(true);
+  } // sync()
+
+  /**
+   * Write a checkpoint of the graph and start a new log.
+   *
+   * @exception Exception if we could not write the checkpoint or log.
+   */
+  public void checkpoint() throws Exception {
+    this.sync();
+    int next = this.generation + 1;
+    File temp = this.file("checkpoint-" + next + ".tmp");
+    this.graph.saveBinary(temp.getPath());
+    try (RandomAccessFile file = new RandomAccessFile(temp, "rw")) {
+      file.getChannel().force(true);
+    } // try
+    Files.move(temp.toPath(), this.checkpointFile(next).toPath(),
+        StandardCopyOption.ATOMIC_MOVE);
+    synchronized (this.writeLock) {
+      this.log.close();
+      this.generation = next;
+      this.openLog(0);
+    } // synchronized
+    this.syncDirectory();
+    this.deleteOldFiles();
+  } // checkpoint()
+
+  /**
+   * Write everything to the disk and stop logging changes to the graph.
+   * If we are interrupted while waiting for the writer, we still write
+   * what is pending, and leave the thread interrupted.
+   *
+   * @exception IOException if we could not write the log.
+   */
+  public void close() throws IOException {
+    if (this.closed) {
+      return;
+    } // if
+    this.closed = true;
+    this.graph.changeLog().removeListener(this.listener);
+    synchronized (this) {
+      this.notifyAll();
+    } // synchronized
+    try {
+      this.writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } // try/catch
+    this.write(true);
+    this.log.close();
+    this.checkFailure();
+  } // close()
+
+  // +----------+----------------------------------------------------
+  // | Recovery |
+  // +----------+
+
+  /**
+   * Load the latest checkpoint, replay its log, and clean up anything
+   * left over from an earlier crash.
+   */
+  void recover() throws Exception {
+    this.generation = 0;
+    for (String name : this.directory.list()) {
+      if (name.startsWith("checkpoint-") && name.endsWith(".bin")) {
+        int n = Integer.parseInt(name.substring(11, name.length() - 4));
+        this.generation = Math.max(this.generation, n);
+      } // if
+    } // for
+    if (this.generation > 0) {
+      BinaryGraphFile.load(this.graph,
+          this.checkpointFile(this.generation).getPath());
+    } // if
+    File logFile = this.logFile(this.generation);
+    long end = logFile.exists() ? this.replay(logFile) : 0;
+    this.openLog(end);
+    this.deleteOldFiles();
+  } // recover()
+
+  /**
+   * Apply the changes in a log to the graph. Returns the position just
+   * after the last complete entry.
+   */
+  long replay(File logFile) throws Exception {
+    long end = 0;
+    CRC32 crc = new CRC32();
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(new FileInputStream(logFile), 1 << 16))) {
+      while (true) {
+        byte[] body;
+        int checksum;
+        try {
+          int length = in.readInt();
+          checksum = in.readInt();
+          if ((length < 13) || (length > 1 << 24)) {
+            break;
+          } // if
+          body = new byte[length];
+          in.readFully(body);
+        } catch (EOFException e) {
+          break;
+        } // try/catch
+        crc.reset();
+        crc.update(body, 0, body.length);
+        if ((int) crc.getValue() != checksum) {
+          break;
+        } // if
+        ByteBuffer buf = ByteBuffer.wrap(body);
+        int kind = buf.get();
+        int from = buf.getInt();
+        int to = buf.getInt();
+        int weight = buf.getInt();
+        String name = null;
+        if (kind == GraphChange.ADD_VERTEX) {
+          int length = buf.getInt();
+          name = new String(body, buf.position(), length,
+              StandardCharsets.UTF_8);
+        } // if
+        new GraphChange(0, kind, from, to, weight, name).applyTo(this.graph);
+        end += 8 + body.length;
+      } // while
+    } // try
+    return end;
+  } // replay(File)
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Encode a change and add it to the pending changes.
+   */
+  void record(GraphChange change) {
+    try {
+      this.entry.reset();
+      this.entryData.writeByte(change.kind());
+      this.entryData.writeInt(change.from());
+      this.entryData.writeInt(change.to());
+      this.entryData.writeInt(change.weight());
+      if (change.kind() == GraphChange.ADD_VERTEX) {
+        byte[] name = change.name().getBytes(StandardCharsets.UTF_8);
+        this.entryData.writeInt(name.length);
+        this.entryData.write(name);
+      } // if
+    } catch (Exception e) {
+      // Writing to a ByteArrayOutputStream never fails
+      throw new RuntimeException(e);
+    } // try/catch
+    byte[] body = this.entry.toByteArray();
+    this.entryCrc.reset();
+    this.entryCrc.update(body, 0, body.length);
+    synchronized (this) {
+      writeInt(this.pending, body.length);
+      writeInt(this.pending, (int) this.entryCrc.getValue());
+      this.pending.write(body, 0, body.length);
+      if (this.pending.size() >= MAX_PENDING) {
+        this.notifyAll();
+      } // if
+    } // synchronized
+  } // record(GraphChange)
+
+  /**
+   * Report any problem the writer has had, and take a checkpoint if the
+   * log has grown large enough.
+   */
+  void changed() throws Exception {
+    this.checkFailure();
+    if (this.logSize + this.pending.size() >= this.checkpointSize) {
+      this.checkpoint();
+    } // if
+  } // changed()
+
+  /**
+   * Write the pending changes every SYNC_INTERVAL milliseconds, until
+   * we close.
+   */
+  void writeLoop() {
+    while (!this.closed) {
+      try {
+        synchronized (this) {
+          this.wait(SYNC_INTERVAL);
+        } // synchronized
+        this.write(true);
+      } catch (Exception e) {
+        if (this.failure == null) {
+          this.failure = e;
+        } // if
+      } // try/catch
+    } // while
+  } // writeLoop()
+
+  /**
+   * Write the pending changes to the log, forcing them to the disk if
+   * force is true.
+   */
+  void write(boolean force) throws IOException {
+    synchronized (this.writeLock) {
+      byte[] bytes;
+      synchronized (this) {
+        bytes = this.pending.toByteArray();
+        this.pending.reset();
+      } // synchronized
+      if (bytes.length > 0) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+          this.log.write(buffer);
+        } // while
+        this.logSize += bytes.length;
+        if (force) {
+          this.log.force(false);
+        } // if
+      } // if
+    } // synchronized
+  } // write(boolean)
+
+  /**
+   * Open the log for the current checkpoint, keeping its first size
+   * bytes and discarding the rest.
+   */
+  void openLog(long size) throws Exception {
+    @SuppressWarnings("resource")
+    FileChannel channel =
+        new RandomAccessFile(this.logFile(this.generation), "rw").getChannel();
+    channel.truncate(size);
+    channel.position(size);
+    channel.force(true);
+    this.log = channel;
+    this.logSize = size;
+  } // openLog(long)
+
+  /**
+   * Delete every checkpoint and log but the current ones.
+   */
+  void deleteOldFiles() {
+    String checkpoint = this.checkpointFile(this.generation).getName();
+    String log = this.logFile(this.generation).getName();
+    for (File f : this.directory.listFiles()) {
+      String name = f.getName();
+      if ((name.startsWith("checkpoint-") || name.startsWith("wal-"))
+          && !name.equals(checkpoint) && !name.equals(log)) {
+        f.delete();
+      } // if
+    } // for
+  } // deleteOldFiles()
+
+  /**
+   * Force the directory itself to the disk, so that a rename survives a
+   * crash. Not every system allows this, so we do our best.
+   */
+  void syncDirectory() {
+    try (FileChannel dir = FileChannel.open(this.directory.toPath())) {
+      dir.force(true);
+    } catch (Exception e) {
+      // Nothing more we can do
+    } // try/catch
+  } // syncDirectory()
+
+  /**
+   * Throw the first problem the writer had, if any.
+   */
+  void checkFailure() throws IOException {
+    if (this.failure != null) {
+      throw new IOException("Cannot write log", this.failure);
+    } // if
+  } // checkFailure()
+
+  /**
+   * Get a file in the directory.
+   */
+  File file(String name) {
+    return new File(this.directory, name);
+  } // file(String)
+
+  /**
+   * Get checkpoint n.
+   */
+  File checkpointFile(int n) {
+    return this.file("checkpoint-" + n + ".bin");
+  } // checkpointFile(int)
+
+  /**
+   * Get the log for checkpoint n.
+   */
+  File logFile(int n) {
+    return this.file("wal-" + n + ".log");
+  } // logFile(int)
+
+  /**
+   * Write a big-endian int to a stream.
+   */
+  static void writeInt(ByteArrayOutputStream out, int value) {
+    out.write(value >>> 24);
+    out.write(value >>> 16);
+    out.write(value >>> 8);
+    out.write(value);
+  } // writeInt(ByteArrayOutputStream, int)
+
+} // class DurableGraph
@@ -0,0 +1,91 @@
+import java.io.PrintWriter;
+
+/**
+ * A quick experiment with crash recovery in DurableGraph.
+ *
+ * "ingest" adds edges to the graph in a directory, in a fixed order,
+ * until it is killed (or has added the given number of edges). Every so
+ * often it syncs and reports how many edges are safely on the disk. Kill
+ * it at any point (say, with kill -9) and then run "check", which reopens
+ * the graph and verifies that it holds exactly the first k edges in that
+ * order, for some k at least the last number ingest reported.
+ *
+ * Usage: java DurableGraphExperiment ingest DIRECTORY [edges]
+ *        java DurableGraphExperiment check DIRECTORY
+ */
+public class DurableGraphExperiment {
+
+  /**
+   * The number of vertices.
+   */
+  static final int VERTICES = 4000;
+
+  public static void main(String[] args) throws Exception {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    if (args.length < 2) {
+      pen.println("Usage: java DurableGraphExperiment ingest|check DIRECTORY"
+          + " [edges]");
+      return;
+    } // if
+    long begin = System.nanoTime();
+    DurableGraph durable = DurableGraph.open(args[1]);
+    Graph g = durable.graph();
+    pen.println("Recovered " + g.numVertices() + " vertices and "
+        + g.numEdges() + " edges in " + (System.nanoTime() - begin) / 1000000
+        + " ms");
+
+    // Check that we have a prefix of the edges
+    int k = 0;
+    while ((k < g.numEdges()) && g.hasEdge(from(k), to(k))
+        && (g.edgeWeight(from(k), to(k)) == k)) {
+      ++k;
+    } // while
+    if ((k != g.numEdges())
+        || ((g.numVertices() != 0) && (g.numVertices() != VERTICES))) {
+      pen.println("Inconsistent: the first " + k + " edges are in order,"
+          + " but there are " + g.numEdges() + " edges");
+      System.exit(1);
+    } // if
+    pen.println("Consistent: the first " + k + " edges");
+    if (args[0].equals("check")) {
+      durable.close();
+      return;
+    } // if
+
+    // Keep adding edges
+    int limit = VERTICES * (VERTICES - 1);
+    if (args.length > 2) {
+      limit = Math.min(limit, Integer.parseInt(args[2]));
+    } // if
+    durable.checkpointEvery(8 * 1024 * 1024);
+    while (g.numVertices() < VERTICES) {
+      durable.addVertex();
+    } // while
+    begin = System.nanoTime();
+    for (int i = k; i < limit; i++) {
+      durable.addEdge(from(i), to(i), i);
+      if ((i + 1) % 100000 == 0) {
+        durable.sync();
+        pen.println("Synced " + (i + 1) + " edges");
+      } // if
+    } // for
+    durable.close();
+    pen.println("Added " + (limit - k) + " edges in "
+        + (System.nanoTime() - begin) / 1000000 + " ms");
+  } // main(String[])
+
+  /**
+   * The start of edge i. (Each pair of vertices appears just once.)
+   */
+  static int from(int i) {
+    return i % VERTICES;
+  } // from(int)
+
+  /**
+   * The end of edge i.
+   */
+  static int to(int i) {
+    return (from(i) + 1 + i / VERTICES) % VERTICES;
+  } // to(int)
+
+} // class DurableGraphExperiment
@@ -0,0 +1,379 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Some tests of durable graphs, each checked after reopening the directory
+ * against a HashMap of the edges the graph should have and an array of
+ * the names it should have.
+ */
+class DurableGraphTests {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of vertices in the graphs we keep.
+   */
+  static final int VERTICES = 40;
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Make changes before and after a checkpoint, and reopen. The changes
+   * after the checkpoint come back from the log, and the log carries on
+   * from where it was.
+   */
+  @Test
+  void testReopen() throws Exception {
+    File dir = newDirectory();
+    try {
+      Random random = new Random(29);
+      String[] names = new String[VERTICES];
+      Map<Long, Integer> expected = new HashMap<Long, Integer>();
+      DurableGraph d = DurableGraph.open(dir.getPath());
+      for (int i = 0; i < VERTICES; i++) {
+        names[i] = "n" + i;
+        assertEquals(i, d.addVertex(names[i]));
+      } // for
+      randomEdges(d, random, 200, expected);
+      d.checkpoint();
+      randomEdges(d, random, 200, expected);
+      d.close();
+
+      d = DurableGraph.open(dir.getPath());
+      check(d.graph(), names, expected);
+      randomEdges(d, random, 200, expected);
+      d.close();
+      d = DurableGraph.open(dir.getPath());
+      check(d.graph(), names, expected);
+      d.close();
+    } finally {
+      deleteDirectory(dir);
+    } // try/finally
+  } // testReopen()
+
+  /**
+   * Cut the last entry of the log short, then spoil its checksum, then
+   * leave junk after it. Each time we should get back every change but
+   * the last, and the log should be cut back to the last good entry.
+   */
+  @Test
+  void testTornRecord() throws Exception {
+    File dir = newDirectory();
+    try {
+      Random random = new Random(31);
+      String[] names = new String[VERTICES];
+      Map<Long, Integer> expected = new HashMap<Long, Integer>();
+      DurableGraph d = DurableGraph.open(dir.getPath());
+      for (int i = 0; i < VERTICES; i++) {
+        names[i] = "v" + i;
+        d.addVertex();
+      } // for
+      randomEdges(d, random, 100, expected);
+      File log = d.logFile(d.generation);
+
+      // A partial entry
+      d.sync();
+      long good = log.length();
+      d.addEdge(0, 1, 1001);
+      d.close();
+      assertTrue(log.length() > good + 10);
+      truncate(log, good + 10);
+      d = DurableGraph.open(dir.getPath());
+      check(d.graph(), names, expected);
+      assertEquals(good, log.length(), "Length of the recovered log");
+
+      // An entry with a bad checksum
+      d.addEdge(0, 1, 1002);
+      d.close();
+      try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+        file.seek(file.length() - 1);
+        int last = file.read();
+        file.seek(file.length() - 1);
+        file.write(last ^ 1);
+      } // try
+      d = DurableGraph.open(dir.getPath());
+      check(d.graph(), names, expected);
+      assertEquals(good, log.length(), "Length of the recovered log");
+
+      // Junk after the last entry, and then new changes after recovery
+      d.close();
+      try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+        file.seek(file.length());
+        file.write(new byte[] {0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0});
+      } // try
+      d = DurableGraph.open(dir.getPath());
+      check(d.graph(), names, expected);
+      d.addEdge(2, 3, 1003);
+      expected.put(key(2, 3), 1003);
+      d.close();
+      d = DurableGraph.open(dir.getPath());
+      check(d.graph(), names, expected);
+      d.close();
+    } finally {
+      deleteDirectory(dir);
+    } // try/finally
+  } // testTornRecord()
+
+  /**
+   * Take checkpoints often. Only the latest checkpoint and its log should
+   * remain, and reopening should also clear away files left by a crash.
+   */
+  @Test
+  void testCheckpointRotation() throws Exception {
+    File dir = newDirectory();
+    try {
+      Random random = new Random(37);
+      String[] names = new String[VERTICES];
+      Map<Long, Integer> expected = new HashMap<Long, Integer>();
+      DurableGraph d = DurableGraph.open(dir.getPath());
+      d.checkpointEvery(1000);
+      for (int i = 0; i < VERTICES; i++) {
+        names[i] = "v" + i;
+        d.addVertex();
+      } // for
+      for (int round = 0; round < 20; round++) {
+        randomEdges(d, random, 25, expected);
+        checkFiles(dir, d.generation);
+      } // for
+      assertTrue(d.generation >= 3, "Too few checkpoints: " + d.generation);
+      int generation = d.generation;
+      d.close();
+
+      // Files that a crash might leave
+      Files.write(new File(dir, "wal-1.log").toPath(), new byte[] {1, 2, 3});
+      Files.write(new File(dir, "checkpoint-1.bin").toPath(), new byte[] {4});
+      Files.write(new File(dir, "checkpoint-" + (generation + 1) + ".tmp")
+          .toPath(), new byte[] {5});
+      d = DurableGraph.open(dir.getPath());
+      assertEquals(generation, d.generation);
+      checkFiles(dir, generation);
+      check(d.graph(), names, expected);
+      d.close();
+    } finally {
+      deleteDirectory(dir);
+    } // try/finally
+  } // testCheckpointRotation()
+
+  /**
+   * Remove vertices and reuse their numbers, on both sides of a
+   * checkpoint. Reopening should give each vertex its old number, and
+   * the recovered graph should give out the same new numbers as the
+   * original.
+   */
+  @Test
+  void testVertexReuse() throws Exception {
+    File dir = newDirectory();
+    try {
+      String[] names = new String[VERTICES];
+      Map<Long, Integer> expected = new HashMap<Long, Integer>();
+      DurableGraph d = DurableGraph.open(dir.getPath());
+      for (int i = 0; i < VERTICES; i++) {
+        names[i] = "old" + i;
+        d.addVertex(names[i]);
+      } // for
+      for (int i = 0; i < VERTICES; i++) {
+        addEdge(d, i, (i + 1) % VERTICES, i, expected);
+        addEdge(d, i, (i + 7) % VERTICES, -i, expected);
+      } // for
+      removeVertex(d, 3, names, expected);
+      removeVertex(d, 17, names, expected);
+      removeVertex(d, 30, names, expected);
+      assertEquals(30, addVertex(d, "first", names));
+      addEdge(d, 30, 3 + 1, 100, expected);
+      d.checkpoint();
+
+      // 17 and 3 are still free
+      assertEquals(17, addVertex(d, "second", names));
+      addEdge(d, 17, 0, 101, expected);
+      addEdge(d, 2, 17, 102, expected);
+      removeVertex(d, 30, names, expected);
+      removeVertex(d, 8, names, expected);
+      assertEquals(8, addVertex(d, "third", names));
+      addEdge(d, 8, 17, 103, expected);
+      Graph original = d.graph();
+      d.close();
+
+      d = DurableGraph.open(dir.getPath());
+      check(d.graph(), names, expected);
+      for (int i = 0; i < 3; i++) {
+        assertEquals(original.addVertex("more" + i),
+            d.graph().addVertex("more" + i), "New vertex " + i);
+      } // for
+      d.close();
+    } finally {
+      deleteDirectory(dir);
+    } // try/finally
+  } // testVertexReuse()
+
+  /**
+   * Closing twice is harmless, and a failure of the writer shows up in
+   * the next change, in sync, and in close.
+   */
+  @Test
+  void testClose() throws Exception {
+    File dir = newDirectory();
+    try {
+      String[] names = new String[VERTICES];
+      Map<Long, Integer> expected = new HashMap<Long, Integer>();
+      DurableGraph d = DurableGraph.open(dir.getPath());
+      for (int i = 0; i < VERTICES; i++) {
+        names[i] = "v" + i;
+        d.addVertex();
+      } // for
+      addEdge(d, 0, 1, 5, expected);
+      d.close();
+      d.close();
+      // Once closed, changes to the graph no longer reach the log
+      d.graph().addEdge(1, 2, 6);
+      d = DurableGraph.open(dir.getPath());
+      check(d.graph(), names, expected);
+
+      // Pull the log out from under the writer
+      d.log.close();
+      d.graph().addEdge(2, 3, 7);
+      for (int i = 0; (i < 500) && (d.failure == null); i++) {
+        Thread.sleep(10);
+      } // for
+      assertNotNull(d.failure, "The writer should have failed");
+      final DurableGraph failed = d;
+      assertThrows(IOException.class, () -> failed.addEdge(3, 4, 8));
+      assertThrows(IOException.class, () -> failed.sync());
+      assertThrows(IOException.class, () -> failed.close());
+      failed.close();
+    } finally {
+      deleteDirectory(dir);
+    } // try/finally
+  } // testClose()
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Make count random changes to the edges of d, and the same changes to
+   * expected.
+   */
+  static void randomEdges(DurableGraph d, Random random, int count,
+      Map<Long, Integer> expected) throws Exception {
+    for (int i = 0; i < count; i++) {
+      int from = random.nextInt(VERTICES);
+      int to = random.nextInt(VERTICES);
+      if (from == to) {
+        continue;
+      } // if
+      if (random.nextInt(4) == 0) {
+        d.removeEdge(from, to);
+        expected.remove(key(from, to));
+      } else {
+        addEdge(d, from, to, random.nextInt(2000) - 1000, expected);
+      } // if/else
+    } // for
+  } // randomEdges(DurableGraph, Random, int, Map<Long, Integer>)
+
+  /**
+   * Add an edge to d and to expected.
+   */
+  static void addEdge(DurableGraph d, int from, int to, int weight,
+      Map<Long, Integer> expected) throws Exception {
+    d.addEdge(from, to, weight);
+    expected.put(key(from, to), weight);
+  } // addEdge(DurableGraph, int, int, int, Map<Long, Integer>)
+
+  /**
+   * Add a vertex to d and to names.
+   */
+  static int addVertex(DurableGraph d, String name, String[] names)
+      throws Exception {
+    int v = d.addVertex(name);
+    names[v] = name;
+    return v;
+  } // addVertex(DurableGraph, String, String[])
+
+  /**
+   * Remove a vertex from d, from names, and from expected.
+   */
+  static void removeVertex(DurableGraph d, int v, String[] names,
+      Map<Long, Integer> expected) throws Exception {
+    d.removeVertex(v);
+    names[v] = null;
+    expected.keySet().removeIf((key) -> (key / VERTICES == v)
+        || (key % VERTICES == v));
+  } // removeVertex(DurableGraph, int, String[], Map<Long, Integer>)
+
+  /**
+   * Check that g has exactly the named vertices and the expected edges.
+   */
+  static void check(Graph g, String[] names, Map<Long, Integer> expected) {
+    int count = 0;
+    for (int v = 0; v < names.length; v++) {
+      assertEquals(names[v], g.vertexName(v), "Name of " + v);
+      count += (names[v] == null) ? 0 : 1;
+    } // for
+    assertEquals(count, g.numVertices());
+    assertEquals(expected.size(), g.numEdges());
+    for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+      int from = (int) (entry.getKey() / VERTICES);
+      int to = (int) (entry.getKey() % VERTICES);
+      assertEquals((int) entry.getValue(), g.edgeWeight(from, to),
+          "Edge from " + from + " to " + to);
+    } // for
+  } // check(Graph, String[], Map<Long, Integer>)
+
+  /**
+   * Check that the directory holds only the given checkpoint and its log.
+   */
+  static void checkFiles(File dir, int generation) {
+    String[] files = dir.list();
+    Arrays.sort(files);
+    String[] expected = (generation == 0) ? new String[] {"wal-0.log"}
+        : new String[] {"checkpoint-" + generation + ".bin",
+            "wal-" + generation + ".log"};
+    assertEquals(Arrays.toString(expected), Arrays.toString(files));
+  } // checkFiles(File, int)
+
+  /**
+   * Cut a file off after length bytes.
+   */
+  static void truncate(File file, long length) throws IOException {
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.setLength(length);
+    } // try
+  } // truncate(File, long)
+
+  /**
+   * Make a new, empty, directory.
+   */
+  static File newDirectory() throws IOException {
+    return Files.createTempDirectory("DurableGraphTests").toFile();
+  } // newDirectory()
+
+  /**
+   * Delete a directory and the files in it.
+   */
+  static void deleteDirectory(File dir) {
+    for (File f : dir.listFiles()) {
+      f.delete();
+    } // for
+    dir.delete();
+  } // deleteDirectory(File)
+
+  /**
+   * Get the key for an edge in the expected edges.
+   */
+  static long key(int from, int to) {
+    return (long) from * VERTICES + to;
+  } // key(int, int)
+
+} // DurableGraphTests
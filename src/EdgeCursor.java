@@ -0,0 +1,152 @@
+/**
+ * A reusable cursor over the edges from a vertex. Unlike the iterators
+ * returned by Graph.edgesFrom, a cursor gives the parts of each edge as
+ * ints and creates no objects as it moves, so one cursor can be used for
+ * a whole traversal.
+ *
+ * Typical use:
+ *
+ * <pre>
+ *   EdgeCursor edges = graph.cursor();
+ *   ...
+ *   edges.reset(v);
+ *   while (edges.next()) {
+ *     ... edges.to() ... edges.weight() ...
+ *   } // while
+ * </pre>
+ *
+ * @author Samuel A. Rebelsky
+ */
+public class EdgeCursor {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The graph whose edges we visit.
+   */
+  Graph graph;
+
+  /**
+   * The vertex whose edges we visit.
+   */
+  int from;
+
+  /**
+   * The ends of the edges from that vertex.
+   */
+  int[] targets;
+
+  /**
+   * The weights of the edges from that vertex.
+   */
+  int[] weights;
+
+  /**
+   * The index of the current edge.
+   */
+  int pos;
+
+  /**
+   * The number of edges from the vertex.
+   */
+  int degree;
+
+  /**
+   * The version number of the graph when the cursor was last reset.
+   */
+  long version;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a cursor for graph. The cursor has no edges until it is
+   * reset.
+   */
+  EdgeCursor(Graph graph) {
+    this.graph = graph;
+    this.from = -1;
+    this.targets = Graph.NO_EDGES;
+    this.weights = Graph.NO_EDGES;
+    this.pos = -1;
+    this.degree = 0;
+    this.version = graph.version;
+  } // EdgeCursor(Graph)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Prepare to visit the edges from vertex. If the vertex is invalid, there
+   * are no such edges.
+   *
+   * @return this cursor, for convenience
+   */
+  public EdgeCursor reset(int vertex) {
+    Graph g = this.graph;
+    this.from = vertex;
+    this.pos = -1;
+    this.version = g.version;
+    if (g.validVertex(vertex)) {
+      this.targets = g.targets.get(vertex);
+      this.weights = g.weights.get(vertex);
+      this.degree = g.degrees.get(vertex);
+    } else {
+      this.targets = Graph.NO_EDGES;
+      this.weights = Graph.NO_EDGES;
+      this.degree = 0;
+    } // if/else
+    return this;
+  } // reset(int)
+
+  /**
+   * Advance to the next edge. Returns false if no edges remain.
+   *
+   * We only check that the graph is unchanged once we run out of edges,
+   * rather than at every step.
+   *
+   * @exception ConcurrentModificationException if we run out of edges and
+   *              the graph has changed since the last reset
+   */
+  public boolean next() {
+    if (++this.pos < this.degree) {
+      return true;
+    } // if
+    this.pos = this.degree;
+    this.graph.failFast(this.version);
+    return false;
+  } // next()
+
+  /**
+   * Get the start of the current edge.
+   */
+  public int from() {
+    return this.from;
+  } // from()
+
+  /**
+   * Get the end of the current edge.
+   */
+  public int to() {
+    return this.targets[this.pos];
+  } // to()
+
+  /**
+   * Get the weight of the current edge.
+   */
+  public int weight() {
+    return this.weights[this.pos];
+  } // weight()
+
+  /**
+   * Get the current edge as an Edge object.
+   */
+  public Edge edge() {
+    return new Edge(this.from, this.targets[this.pos], this.weights[this.pos]);
+  } // edge()
+
+} // class EdgeCursor
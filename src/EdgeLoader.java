@@ -0,0 +1,479 @@
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Reads edges from a file into a graph, using several threads. Each line
+ * of the file with three fields, separated by whitespace or asterisks,
+ * is an edge of the form FROM TO WEIGHT. Other lines (blank lines,
+ * headers, and the like) are ignored, as they always have been. Unlike
+ * the old readEdges, a run of separators counts as one separator (so a
+ * line with two spaces between fields is an edge, not a line to skip),
+ * and a line with three fields that is not a valid edge is an error
+ * rather than a silent end to the load.
+ *
+ * @author Samuel A. Rebelsky
+ */
+public class EdgeLoader {
+
+  // +-------+-------------------------------------------------------
+  // | Notes |
+  // +-------+
+
+  /*
+   * We load in three phases.
+   *
+   * 1. Split the file into chunks of about CHUNK_SIZE bytes, each of which
+   *    ends at the end of a line.
+   *
+   * 2. Parse the chunks in parallel. Each chunk is memory-mapped, copied
+   *    into a byte array, and read byte by byte, without building a String
+   *    per line. A chunk gives each vertex name it sees a local number
+   *    (using a hash table over the bytes of the name), and records its
+   *    edges in terms of those local numbers. Once done, it copies the
+   *    bytes of each distinct name into one small array, so that we can
+   *    let go of the rest of the chunk. A chunk also records the first
+   *    malformed line it sees, if any.
+   *
+   * 3. Merge the chunks, in order, on one thread, through a batch (see
+   *    GraphBuilder). We look up the names from each chunk in the graph
+   *    and the batch, still as bytes (see NameTable), add the ones that
+   *    are new to the batch, translate the local numbers, and add the
+   *    edges to the batch. Then we commit the batch, which builds the new
+   *    adjacency lists all at once. Since we go in order, a later edge
+   *    replaces an earlier one between the same vertices, just as if
+   *    we'd called addEdge for each line.
+   *
+   * If any line is malformed, we report the first one (by line number)
+   * and do not change the graph.
+   */
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The approximate number of bytes in a chunk.
+   */
+  static final int CHUNK_SIZE = 8 * 1024 * 1024;
+
+  // +----------------+----------------------------------------------
+  // | Public methods |
+  // +----------------+
+
+  /**
+   * Read the edges in a file into graph, using the common fork-join pool.
+   *
+   * @exception Exception if the file cannot be read or contains a
+   *              malformed line
+   */
+  public static void load(Graph graph, String fname) throws Exception {
+    load(graph, fname, ForkJoinPool.commonPool());
+  } // load(Graph, String)
+
+  /**
+   * Read the edges in a file into graph, using the given pool of threads.
+   *
+   * @exception Exception if the file cannot be read or contains a
+   *              malformed line
+   */
+  public static void load(Graph graph, String fname, ForkJoinPool pool)
+      throws Exception {
+    List<Chunk> chunks = new ArrayList<Chunk>();
+    try (RandomAccessFile file = new RandomAccessFile(fname, "r");
+        FileChannel channel = file.getChannel()) {
+      // Phase 1: Split
+      long size = channel.size();
+      long start = 0;
+      while (start < size) {
+        long end = lineEnd(channel, Math.min(size, start + CHUNK_SIZE), size);
+        chunks.add(new Chunk(channel.map(FileChannel.MapMode.READ_ONLY,
+            start, end - start)));
+        start = end;
+      } // while
+
+      // Phase 2: Parse
+      pool.invoke(new RecursiveAction() {
+        private static final long serialVersionUID = 1L;
+
+        protected void compute() {
+          ForkJoinTask.invokeAll(chunks);
+        } // compute()
+      }); // new RecursiveAction
+    } // try
+
+    // Report the first malformed line
+    int linesBefore = 0;
+    for (Chunk chunk : chunks) {
+      if (chunk.errorLine != 0) {
+        throw new Exception(fname + ":" + (linesBefore + chunk.errorLine)
+            + ": " + chunk.errorMessage);
+      } // if
+      linesBefore += chunk.lines;
+    } // for
+
+    // Phase 3: Merge
+    GraphBuilder batch = graph.batch();
+    for (Chunk chunk : chunks) {
+      chunk.addTo(batch);
+    } // for
+    batch.commit();
+  } // load(Graph, String, ForkJoinPool)
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Find the position just after the first newline at or after pos. If
+   * there is no such newline, returns size.
+   */
+  static long lineEnd(FileChannel channel, long pos, long size)
+      throws Exception {
+    ByteBuffer buffer = ByteBuffer.allocate(4096);
+    while (pos < size) {
+      buffer.clear();
+      int count = channel.read(buffer, pos);
+      for (int i = 0; i < count; i++) {
+        if (buffer.get(i) == '\n') {
+          return pos + i + 1;
+        } // if
+      } // for
+      pos += count;
+    } // while
+    return size;
+  } // lineEnd(FileChannel, long, long)
+
+  // +--------+------------------------------------------------------
+  // | Chunks |
+  // +--------+
+
+  /**
+   * A part of the file, and the result of parsing it.
+   */
+  static class Chunk extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The part of the file, as mapped into memory.
+     */
+    transient MappedByteBuffer mapped;
+
+    /**
+     * The contents of the chunk, copied out of the mapping so that we can
+     * read them quickly.
+     */
+    byte[] data;
+
+    /**
+     * Where the names in this chunk are, by local number. The name with
+     * local number i is in data[nameStarts[i]] .. data[nameEnds[i]-1].
+     */
+    int[] nameStarts = new int[1024];
+    int[] nameEnds = new int[1024];
+
+    /**
+     * The number of different names in this chunk.
+     */
+    int numNames = 0;
+
+    /**
+     * A hash table of the names, by the local numbers. Each cell holds a
+     * local number, or -1 if it is empty. We use linear probing and keep
+     * the table at most half full.
+     */
+    int[] nameTable = new int[2048];
+
+    /**
+     * The bytes of the names in this chunk, one after another. Built once
+     * we've finished parsing, when we change nameStarts and nameEnds to
+     * refer to this array rather than to data.
+     */
+    byte[] nameBytes;
+
+    /**
+     * The edges in this chunk, in terms of local numbers. The ith edge
+     * goes from froms[i] to tos[i] with weight weights[i].
+     */
+    int[] froms = new int[1024];
+    int[] tos = new int[1024];
+    int[] weights = new int[1024];
+
+    /**
+     * The number of edges in this chunk.
+     */
+    int numEdges = 0;
+
+    /**
+     * The number of lines in this chunk.
+     */
+    int lines = 0;
+
+    /**
+     * The line number (within the chunk, starting at 1) of the first
+     * malformed line, or 0 if there is none.
+     */
+    int errorLine = 0;
+
+    /**
+     * What's wrong with that line.
+     */
+    String errorMessage;
+
+    /**
+     * Create a chunk.
+     */
+    Chunk(MappedByteBuffer mapped) {
+      this.mapped = mapped;
+      Arrays.fill(this.nameTable, -1);
+    } // Chunk(MappedByteBuffer)
+
+    /**
+     * Parse the chunk.
+     */
+    protected void compute() {
+      byte[] in = new byte[this.mapped.limit()];
+      this.mapped.get(in);
+      this.mapped = null;
+      this.data = in;
+      int limit = in.length;
+      int pos = 0;
+      // The start and end of each of the (up to) three fields of a line
+      int[] starts = new int[3];
+      int[] ends = new int[3];
+      while (pos < limit) {
+        ++this.lines;
+        int fields = 0;
+        boolean extra = false;
+        // Read one line, noting where the fields are
+        while ((pos < limit) && (in[pos] != '\n')) {
+          if (isSpace(in[pos])) {
+            ++pos;
+          } else {
+            int start = pos;
+            while ((pos < limit) && !isSpace(in[pos]) && (in[pos] != '\n')) {
+              ++pos;
+            } // while
+            if (fields < 3) {
+              starts[fields] = start;
+              ends[fields] = pos;
+              ++fields;
+            } else {
+              extra = true;
+            } // if/else
+          } // if/else
+        } // while
+        ++pos; // Skip the newline
+
+        // Interpret the line, skipping any without three fields
+        if ((fields < 3) || extra) {
+          continue;
+        } // if
+        long weight = parseInt(in, starts[2], ends[2]);
+        if (weight == Long.MIN_VALUE) {
+          this.error("invalid weight");
+          return;
+        } // if
+        int from = this.localNumber(starts[0], ends[0]);
+        int to = this.localNumber(starts[1], ends[1]);
+        if (from == to) {
+          this.error("Cannot add an edge from a vertex to itself");
+          return;
+        } // if
+        this.addEdge(from, to, (int) weight);
+      } // while
+
+      // Gather the names while we're still in parallel
+      int total = 0;
+      for (int i = 0; i < this.numNames; i++) {
+        total += this.nameEnds[i] - this.nameStarts[i];
+      } // for
+      this.nameBytes = new byte[total];
+      int at = 0;
+      for (int i = 0; i < this.numNames; i++) {
+        int length = this.nameEnds[i] - this.nameStarts[i];
+        System.arraycopy(in, this.nameStarts[i], this.nameBytes, at, length);
+        this.nameStarts[i] = at;
+        at += length;
+        this.nameEnds[i] = at;
+      } // for
+      this.data = null;
+      this.nameTable = null;
+    } // compute()
+
+    /**
+     * Add the names and edges of this chunk to a batch, and let go of
+     * them.
+     */
+    void addTo(GraphBuilder batch) {
+      int[] global = new int[this.numNames];
+      for (int i = 0; i < global.length; i++) {
+        global[i] = batch.safeVertexNumber(this.nameBytes, this.nameStarts[i],
+            this.nameEnds[i]);
+      } // for
+      for (int i = 0; i < this.numEdges; i++) {
+        this.froms[i] = global[this.froms[i]];
+        this.tos[i] = global[this.tos[i]];
+      } // for
+      batch.addEdges(this.froms, this.tos, this.weights, this.numEdges);
+      this.nameBytes = null;
+      this.froms = null;
+      this.tos = null;
+      this.weights = null;
+    } // addTo(GraphBuilder)
+
+    /**
+     * Note an error on the current line.
+     */
+    void error(String message) {
+      this.errorLine = this.lines;
+      this.errorMessage = message;
+      this.data = null;
+    } // error(String)
+
+    /**
+     * Record an edge.
+     */
+    void addEdge(int from, int to, int weight) {
+      if (this.numEdges == this.froms.length) {
+        int newSize = this.numEdges * 2;
+        this.froms = Arrays.copyOf(this.froms, newSize);
+        this.tos = Arrays.copyOf(this.tos, newSize);
+        this.weights = Arrays.copyOf(this.weights, newSize);
+      } // if
+      this.froms[this.numEdges] = from;
+      this.tos[this.numEdges] = to;
+      this.weights[this.numEdges] = weight;
+      ++this.numEdges;
+    } // addEdge(int, int, int)
+
+    /**
+     * Get the local number of the name in data[start] .. data[end-1],
+     * assigning a new number if we have not seen it before.
+     */
+    int localNumber(int start, int end) {
+      byte[] in = this.data;
+      int hash = 0;
+      for (int i = start; i < end; i++) {
+        hash = 31 * hash + in[i];
+      } // for
+      int mask = this.nameTable.length - 1;
+      int cell = EdgeTable.hash(hash) & mask;
+      while (this.nameTable[cell] != -1) {
+        int number = this.nameTable[cell];
+        if (sameBytes(in, this.nameStarts[number], this.nameEnds[number],
+            start, end)) {
+          return number;
+        } // if
+        cell = (cell + 1) & mask;
+      } // while
+
+      // A new name
+      int number = this.numNames++;
+      if (number == this.nameStarts.length) {
+        this.nameStarts = Arrays.copyOf(this.nameStarts, 2 * number);
+        this.nameEnds = Arrays.copyOf(this.nameEnds, 2 * number);
+      } // if
+      this.nameStarts[number] = start;
+      this.nameEnds[number] = end;
+      this.nameTable[cell] = number;
+      if (2 * this.numNames > this.nameTable.length) {
+        this.growNameTable();
+      } // if
+      return number;
+    } // localNumber(int, int)
+
+    /**
+     * Double the size of the name table.
+     */
+    void growNameTable() {
+      int[] table = new int[2 * this.nameTable.length];
+      Arrays.fill(table, -1);
+      int mask = table.length - 1;
+      for (int number = 0; number < this.numNames; number++) {
+        int hash = 0;
+        for (int i = this.nameStarts[number]; i < this.nameEnds[number]; i++) {
+          hash = 31 * hash + this.data[i];
+        } // for
+        int cell = EdgeTable.hash(hash) & mask;
+        while (table[cell] != -1) {
+          cell = (cell + 1) & mask;
+        } // while
+        table[cell] = number;
+      } // for
+      this.nameTable = table;
+    } // growNameTable()
+  } // class Chunk
+
+  /**
+   * Determine if bytes[start1] .. bytes[end1-1] are the same as
+   * bytes[start2] .. bytes[end2-1].
+   */
+  static boolean sameBytes(byte[] bytes, int start1, int end1, int start2,
+      int end2) {
+    if (end1 - start1 != end2 - start2) {
+      return false;
+    } // if
+    for (int i = start1, j = start2; i < end1; i++, j++) {
+      if (bytes[i] != bytes[j]) {
+        return false;
+      } // if
+    } // for
+    return true;
+  } // sameBytes(byte[], int, int, int, int)
+
+  /**
+   * Determine if a byte separates fields: whitespace or an asterisk, as
+   * in the pattern "[\\s*]" that readEdges once split lines with.
+   * (Newlines separate lines, not fields.)
+   */
+  static boolean isSpace(byte b) {
+    return (b == ' ') || (b == '\t') || (b == '\r') || (b == '*')
+        || (b == '\f') || (b == 0x0B);
+  } // isSpace(byte)
+
+  /**
+   * Parse the decimal integer in bytes start .. end-1, which may have a
+   * sign and leading zeros, as Integer.parseInt allows. Returns
+   * Long.MIN_VALUE if it is not a valid int.
+   */
+  static long parseInt(byte[] in, int start, int end) {
+    boolean negative = false;
+    if ((in[start] == '-') || (in[start] == '+')) {
+      negative = (in[start] == '-');
+      ++start;
+    } // if
+    if (start == end) {
+      return Long.MIN_VALUE;
+    } // if
+    while ((end - start > 1) && (in[start] == '0')) {
+      ++start;
+    } // while
+    if (end - start > 10) {
+      return Long.MIN_VALUE;
+    } // if
+    long value = 0;
+    for (int i = start; i < end; i++) {
+      int digit = in[i] - '0';
+      if ((digit < 0) || (digit > 9)) {
+        return Long.MIN_VALUE;
+      } // if
+      value = value * 10 + digit;
+    } // for
+    if (negative) {
+      value = -value;
+    } // if
+    if ((value < Integer.MIN_VALUE) || (value > Integer.MAX_VALUE)) {
+      return Long.MIN_VALUE;
+    } // if
+    return value;
+  } // parseInt(byte[], int, int)
+
+} // class EdgeLoader
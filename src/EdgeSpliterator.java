@@ -0,0 +1,219 @@
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A spliterator over the edges of a graph (or a snapshot), by start
+ * vertex. See Graph.edgeStream.
+ *
+ * @author Samuel A. Rebelsky
+ */
+class EdgeSpliterator implements Spliterator<Edge> {
+
+  // +-------+-------------------------------------------------------
+  // | Notes |
+  // +-------+
+
+  /*
+   * We visit the edges from the vertices vertex .. end-1, starting with
+   * edge i of vertex. To split, we cut the range of vertices so that each
+   * side has about half of the edges, rather than half of the vertices,
+   * since a few vertices may have most of the edges. For that we need the
+   * number of edges from the vertices before each vertex, which we build
+   * the first time we split (so sequential streams never need it) and
+   * share with every part, so each split is a binary search and every
+   * part knows its exact size.
+   *
+   * Like the iterators of Graph, we fail fast if the graph changes, but
+   * we only check at the end of a traversal (or when we run out).
+   */
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The characteristics of every edge spliterator.
+   */
+  static final int CHARACTERISTICS = ORDERED | NONNULL | SIZED | SUBSIZED;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The graph, for fail-fast checks, or null if the edges cannot change
+   * (as in a snapshot).
+   */
+  Graph graph;
+
+  /**
+   * The version of the graph when we started.
+   */
+  long version;
+
+  /**
+   * The adjacency lists, as in Graph.
+   */
+  ListPages targets;
+  ListPages weights;
+  IntPages degrees;
+
+  /**
+   * The current vertex and the index of the next edge from it.
+   */
+  int vertex;
+  int i;
+
+  /**
+   * One more than the last vertex whose edges we visit.
+   */
+  int end;
+
+  /**
+   * The number of edges left.
+   */
+  int remaining;
+
+  /**
+   * The number of edges from the vertices before each vertex, or null if
+   * we have not yet needed it.
+   */
+  int[] before;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a spliterator over the remaining edges, starting with edge i
+   * of vertex and ending before vertex end.
+   */
+  EdgeSpliterator(Graph graph, long version, ListPages targets,
+      ListPages weights, IntPages degrees, int vertex, int i, int end,
+      int remaining, int[] before) {
+    this.graph = graph;
+    this.version = version;
+    this.targets = targets;
+    this.weights = weights;
+    this.degrees = degrees;
+    this.vertex = vertex;
+    this.i = i;
+    this.end = end;
+    this.remaining = remaining;
+    this.before = before;
+  } // EdgeSpliterator(...)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Visit the next edge, if there is one.
+   */
+  public boolean tryAdvance(Consumer<? super Edge> action) {
+    if (this.remaining == 0) {
+      this.check();
+      return false;
+    } // if
+    while (this.i >= this.degrees.get(this.vertex)) {
+      ++this.vertex;
+      this.i = 0;
+    } // while
+    --this.remaining;
+    int v = this.vertex;
+    int e = this.i++;
+    action.accept(new Edge(v, this.targets.get(v)[e],
+        this.weights.get(v)[e]));
+    return true;
+  } // tryAdvance(Consumer<? super Edge>)
+
+  /**
+   * Visit all of the remaining edges.
+   */
+  public void forEachRemaining(Consumer<? super Edge> action) {
+    int v = this.vertex;
+    int e = this.i;
+    int left = this.remaining;
+    this.vertex = this.end;
+    this.i = 0;
+    this.remaining = 0;
+    for (; (left > 0) && (v < this.end); v++, e = 0) {
+      int[] ends = this.targets.get(v);
+      int[] costs = this.weights.get(v);
+      int degree = this.degrees.get(v);
+      for (; e < degree; e++) {
+        action.accept(new Edge(v, ends[e], costs[e]));
+        --left;
+      } // for
+    } // for
+    this.check();
+  } // forEachRemaining(Consumer<? super Edge>)
+
+  /**
+   * Split off the vertices with about the first half of the edges, or
+   * return null if the edges cannot be split.
+   */
+  public Spliterator<Edge> trySplit() {
+    if (this.remaining < 2) {
+      return null;
+    } // if
+    if (this.before == null) {
+      int capacity = this.degrees.length();
+      this.before = new int[capacity + 1];
+      for (int v = 0; v < capacity; v++) {
+        this.before[v + 1] = this.before[v] + this.degrees.get(v);
+      } // for
+    } // if
+    // Find the first vertex after the middle edge
+    int target = this.before[this.vertex] + this.i + this.remaining / 2;
+    int lo = this.vertex + 1;
+    int hi = this.end;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (this.before[mid] < target) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      } // if/else
+    } // while
+    if (lo >= this.end) {
+      return null;
+    } // if
+    int count = this.before[lo] - this.before[this.vertex] - this.i;
+    EdgeSpliterator prefix = new EdgeSpliterator(this.graph, this.version,
+        this.targets, this.weights, this.degrees, this.vertex, this.i, lo,
+        count, this.before);
+    this.vertex = lo;
+    this.i = 0;
+    this.remaining -= count;
+    return prefix;
+  } // trySplit()
+
+  /**
+   * Get the number of edges left.
+   */
+  public long estimateSize() {
+    return this.remaining;
+  } // estimateSize()
+
+  /**
+   * Get the characteristics of the spliterator.
+   */
+  public int characteristics() {
+    return CHARACTERISTICS;
+  } // characteristics()
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Make sure that the graph has not changed.
+   */
+  void check() {
+    if (this.graph != null) {
+      this.graph.failFast(this.version);
+    } // if
+  } // check()
+
+} // class EdgeSpliterator
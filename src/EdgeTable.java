@@ -0,0 +1,170 @@
+import java.util.Arrays;
+
+/**
+ * A hash table from the end of an edge to its position in an adjacency
+ * list. Graph uses one for each vertex with many edges, so that it can
+ * find an edge without scanning the whole list.
+ *
+ * @author Samuel A. Rebelsky
+ */
+class EdgeTable {
+
+  // +-------+-------------------------------------------------------
+  // | Notes |
+  // +-------+
+
+  /*
+   * We use open addressing with linear probing over a pair of int arrays,
+   * so nothing is boxed. The capacity is always a power of two and we
+   * keep the table at most half full. Vertex numbers are never negative,
+   * so we mark empty cells with a key of -1. When we remove a key, we
+   * shift later entries of the same probe sequence back, so we never need
+   * "deleted" markers.
+   */
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The key of an empty cell.
+   */
+  static final int EMPTY = -1;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The keys (ends of edges).
+   */
+  int[] keys;
+
+  /**
+   * The values (positions in the adjacency list). values[i] goes with
+   * keys[i].
+   */
+  int[] values;
+
+  /**
+   * The number of keys in the table.
+   */
+  int size;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a table with room for at least expected keys.
+   */
+  EdgeTable(int expected) {
+    int capacity = 4;
+    while (capacity < 2 * expected) {
+      capacity *= 2;
+    } // while
+    this.keys = new int[capacity];
+    this.values = new int[capacity];
+    Arrays.fill(this.keys, EMPTY);
+    this.size = 0;
+  } // EdgeTable(int)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the value associated with key. Returns -1 if there is none.
+   */
+  int get(int key) {
+    int mask = this.keys.length - 1;
+    int i = hash(key) & mask;
+    while (this.keys[i] != EMPTY) {
+      if (this.keys[i] == key) {
+        return this.values[i];
+      } // if
+      i = (i + 1) & mask;
+    } // while
+    return -1;
+  } // get(int)
+
+  /**
+   * Associate value with key, replacing any previous value.
+   */
+  void put(int key, int value) {
+    if (2 * (this.size + 1) > this.keys.length) {
+      this.rehash(this.keys.length * 2);
+    } // if
+    int mask = this.keys.length - 1;
+    int i = hash(key) & mask;
+    while (this.keys[i] != EMPTY) {
+      if (this.keys[i] == key) {
+        this.values[i] = value;
+        return;
+      } // if
+      i = (i + 1) & mask;
+    } // while
+    this.keys[i] = key;
+    this.values[i] = value;
+    ++this.size;
+  } // put(int, int)
+
+  /**
+   * Remove key from the table, if it's there.
+   */
+  void remove(int key) {
+    int mask = this.keys.length - 1;
+    int i = hash(key) & mask;
+    while (this.keys[i] != key) {
+      if (this.keys[i] == EMPTY) {
+        return;
+      } // if
+      i = (i + 1) & mask;
+    } // while
+    --this.size;
+    // Fill the hole at i with a later entry that belongs at or before it,
+    // until we reach an empty cell.
+    int hole = i;
+    for (int j = (i + 1) & mask; this.keys[j] != EMPTY; j = (j + 1) & mask) {
+      int home = hash(this.keys[j]) & mask;
+      // Can the entry at j move to the hole? Only if its home is not in
+      // the (circular) range hole+1 .. j.
+      if (((j - home) & mask) >= ((j - hole) & mask)) {
+        this.keys[hole] = this.keys[j];
+        this.values[hole] = this.values[j];
+        hole = j;
+      } // if
+    } // for
+    this.keys[hole] = EMPTY;
+  } // remove(int)
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Rebuild the table with a new capacity.
+   */
+  private void rehash(int capacity) {
+    int[] oldKeys = this.keys;
+    int[] oldValues = this.values;
+    this.keys = new int[capacity];
+    this.values = new int[capacity];
+    Arrays.fill(this.keys, EMPTY);
+    this.size = 0;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        this.put(oldKeys[i], oldValues[i]);
+      } // if
+    } // for
+  } // rehash(int)
+
+  /**
+   * Scramble the bits of a key.
+   */
+  static int hash(int key) {
+    int h = key * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  } // hash(int)
+
+} // class EdgeTable
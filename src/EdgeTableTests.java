@@ -0,0 +1,136 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Some tests of the hash tables that index the edges of high-degree
+ * vertices, each checked against a HashMap.
+ */
+class EdgeTableTests {
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Put, get, and remove random keys from a small range, so that probe
+   * sequences run into each other often.
+   */
+  @Test
+  void testRandomOperations() {
+    Random random = new Random(7);
+    EdgeTable table = new EdgeTable(4);
+    Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+    for (int step = 0; step < 100000; step++) {
+      int key = random.nextInt(200);
+      switch (random.nextInt(3)) {
+        case 0:
+          table.put(key, step);
+          expected.put(key, step);
+          break;
+        case 1:
+          table.remove(key);
+          expected.remove(key);
+          break;
+        default:
+          assertEquals((int) expected.getOrDefault(key, -1), table.get(key),
+              "Key " + key + " at step " + step);
+      } // switch
+      assertEquals(expected.size(), table.size, "Size at step " + step);
+    } // for
+    for (int key = 0; key < 200; key++) {
+      assertEquals((int) expected.getOrDefault(key, -1), table.get(key),
+          "Key " + key);
+    } // for
+  } // testRandomOperations()
+
+  /**
+   * Remove keys from a run of entries that wraps around from the end of
+   * the table to the start. The shifts that fill each hole have to wrap
+   * too.
+   */
+  @Test
+  void testWrapAround() {
+    EdgeTable table = new EdgeTable(4);
+    int mask = table.keys.length - 1;
+    // Find four keys whose home is the last cell
+    int[] keys = new int[4];
+    int found = 0;
+    for (int key = 0; found < keys.length; key++) {
+      if ((EdgeTable.hash(key) & mask) == mask) {
+        keys[found++] = key;
+      } // if
+    } // for
+    for (int i = 0; i < keys.length; i++) {
+      table.put(keys[i], i);
+    } // for
+    assertEquals(keys[0], table.keys[mask]);
+    assertEquals(keys[1], table.keys[0]);
+
+    // Remove from the front of the run, then from the middle
+    table.remove(keys[0]);
+    assertEquals(-1, table.get(keys[0]));
+    for (int i = 1; i < keys.length; i++) {
+      assertEquals(i, table.get(keys[i]), "Key " + i);
+    } // for
+    assertEquals(keys[1], table.keys[mask]);
+    table.remove(keys[2]);
+    assertEquals(1, table.get(keys[1]));
+    assertEquals(-1, table.get(keys[2]));
+    assertEquals(3, table.get(keys[3]));
+    assertEquals(2, table.size);
+
+    // The cells the run no longer needs are empty again
+    int empty = 0;
+    for (int i = 0; i < table.keys.length; i++) {
+      if (table.keys[i] == EdgeTable.EMPTY) {
+        ++empty;
+      } // if
+    } // for
+    assertEquals(table.keys.length - 2, empty);
+  } // testWrapAround()
+
+  /**
+   * Add and remove many edges from one vertex, so that it gets a table
+   * and its edges move around in its adjacency list.
+   */
+  @Test
+  void testHubEdges() throws Exception {
+    Random random = new Random(11);
+    int n = 500;
+    Graph g = new Graph();
+    for (int i = 0; i < n; i++) {
+      g.addVertex();
+    } // for
+    Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+    for (int step = 0; step < 20000; step++) {
+      int to = 1 + random.nextInt(n - 1);
+      if (random.nextInt(3) == 0) {
+        g.removeEdge(0, to);
+        expected.remove(to);
+      } else {
+        g.addEdge(0, to, step);
+        expected.put(to, step);
+      } // if/else
+    } // for
+    assertNotNull(g.edgeTables[0]);
+    for (int to = 1; to < n; to++) {
+      assertEquals(expected.containsKey(to), g.hasEdge(0, to), "Edge " + to);
+      if (expected.containsKey(to)) {
+        assertEquals((int) expected.get(to), g.edgeWeight(0, to));
+      } // if
+    } // for
+    int count = 0;
+    for (Iterator<Edge> edges = g.edgesFrom(0); edges.hasNext(); ) {
+      Edge edge = edges.next();
+      assertEquals((int) expected.get(edge.to()), edge.weight());
+      ++count;
+    } // for
+    assertEquals(expected.size(), count);
+    assertEquals(expected.size(), g.numEdges());
+  } // testHubEdges()
+
+} // EdgeTableTests
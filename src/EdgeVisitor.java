@@ -0,0 +1,13 @@
+/**
+ * Something that visits the edges of a graph one at a time, without
+ * requiring an Edge object for each edge.
+ *
+ * @author Samuel A. Rebelsky
+ */
+@FunctionalInterface
+public interface EdgeVisitor {
+  /**
+   * Visit the edge from one vertex to another with a given weight.
+   */
+  public void visit(int from, int to, int weight);
+} // interface EdgeVisitor
@@ -1,17 +1,14 @@
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.PrintWriter;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.ConcurrentModificationException;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.NoSuchElementException;
-import java.util.Queue;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A simple weighted, directed, graph.
@@ -30,6 +27,44 @@ public class Graph {
    *
    * For convenience, you can refer to vertices by number or by name. However,
    * it is more efficient to refer to them by number.
+   *
+   * Rather than storing Edge objects, each adjacency list is a pair of
+   * parallel int arrays (the ends and the weights of the edges), which
+   * grow as needed. We only build Edge objects when a client asks for
+   * them, e.g., through edgesFrom or path.
+   *
+   * Once a vertex has HASH_THRESHOLD edges, we also keep a hash table
+   * from the end of each edge to its position in the arrays, so that
+   * addEdge, removeEdge, and hasEdge need not scan the whole list. To keep
+   * removal fast for those vertices, we fill the gap left by a removed
+   * edge with the last edge, so their edges do not stay in the order in
+   * which they were added. (Smaller lists keep their order.)
+   *
+   * Clients that need to follow edges backward, or that remove many
+   * vertices, may also ask us to keep an index of the edges into each
+   * vertex (see indexIncomingEdges). Undirected graphs never need one,
+   * since the edges into a vertex mirror the edges out of it.
+   *
+   * The per-vertex arrays (targets, weights, degrees, live, and those of
+   * names) are flat until we take our first snapshot, and from then on
+   * are kept in pages of IntPages.PAGE_SIZE entries, so that a snapshot
+   * (see GraphSnapshot) can share them rather than copy them. The first
+   * snapshot moves the entries into pages; after that, taking one copies
+   * only the lists of pages, and each change copies the one page it
+   * touches, the first time it touches it.
+   * The adjacency lists are shared, too. After taking a snapshot, we
+   * start a new epoch, and copy the list of a vertex from an earlier
+   * epoch (see edgeEpochs) before we change it. Adding an edge to the end
+   * of a list needs no copy, since no snapshot looks past the end of its
+   * list.
+   *
+   * The unused vertex numbers form a stack of ints. Removing a vertex
+   * pushes its number, so we reuse it before any number we have never
+   * used; new numbers from expanding the graph go beneath the rest, so we
+   * take them in increasing order. We also keep a bitset of the vertices
+   * in use, so that vertices and edges can skip a long run of unused
+   * numbers a word at a time. After heavy churn, compact renumbers the
+   * vertices 0 .. numVertices-1.
    */
 
   // +-----------+---------------------------------------------------
@@ -42,7 +77,24 @@ public class Graph {
   static final int INITIAL_CAPACITY = 16;
 
   /**
-   * A few of the valid marks.
+   * The initial capacity of the adjacency list of a vertex.
+   */
+  static final int INITIAL_DEGREE = 4;
+
+  /**
+   * The adjacency list of a vertex with no edges.
+   */
+  static final int[] NO_EDGES = new int[0];
+
+  /**
+   * The number of edges from a vertex at which we start to index them
+   * with a hash table.
+   */
+  static final int HASH_THRESHOLD = 32;
+
+  /**
+   * A few of the valid marks. (There are VertexMarks.MAX_MARKS in all;
+   * see VertexMarks.nthMark.)
    */
   static final byte MARK = (byte) 1;
   static final byte MARK01 = (byte) 1;
@@ -68,32 +120,68 @@ public class Graph {
   int numEdges;
 
   /**
-   * The vertices in the graph. The edges from vertex v are stored in
-   * vertices[v].
+   * The ends of the edges in the graph. The edges from vertex v go to
+   * targets.get(v)[0] .. targets.get(v)[degrees.get(v)-1].
+   */
+  ListPages targets;
+
+  /**
+   * The weights of the edges in the graph. The edge from v to
+   * targets.get(v)[i] has weight weights.get(v)[i].
+   */
+  ListPages weights;
+
+  /**
+   * The number of edges from each vertex.
+   */
+  IntPages degrees;
+
+  /**
+   * Hash tables for the vertices with many edges. If edgeTables[v] is not
+   * null, it maps each neighbor u of v to the position of the edge from v
+   * to u in targets.get(v) and weights.get(v).
+   */
+  EdgeTable[] edgeTables;
+
+  /**
+   * The starts of the edges into each vertex, in no particular order. The
+   * edges into vertex v come from sources[v][0] .. sources[v][inDegrees[v]-1].
+   * Null unless we've been asked to index incoming edges.
    */
-  List<Edge>[] vertices;
+  int[][] sources;
 
   /**
-   * The names of the vertices. The name of vertex v is stored in
-   * vertexNames[v].
+   * The number of edges into each vertex. Null unless we've been asked to
+   * index incoming edges.
    */
-  String[] vertexNames;
+  int[] inDegrees;
+
+  /**
+   * The names of the vertices, and the number of each name.
+   */
+  NameTable names;
 
   /**
    * Marks on the vertices.
    */
-  byte marks[];
+  VertexMarks marks;
 
   /**
-   * The unused vertices
+   * The unused vertex numbers, as a stack. The next number we use is
+   * freeNumbers[numFree-1].
    */
-  Queue<Integer> unusedVertices;
+  int[] freeNumbers;
 
   /**
-   * The numbers of the vertices. The vertex with name n is given by
-   * vertexNumbers.get(n).
+   * The number of unused vertex numbers.
    */
-  HashMap<String, Integer> vertexNumbers;
+  int numFree;
+
+  /**
+   * The vertices in use: bit v % 64 of live.get(v / 64) is set if v is a
+   * vertex.
+   */
+  LongPages live;
 
   /**
    * The version of the graph. (Essentially, the number of times we've modified
@@ -101,6 +189,34 @@ public class Graph {
    */
   long version;
 
+  /**
+   * A reversed snapshot of the graph, used to follow edges backward. Built
+   * on demand and rebuilt when the graph changes.
+   */
+  CsrGraph reverseIndex;
+
+  /**
+   * The version of the graph when we built reverseIndex.
+   */
+  long reverseIndexVersion;
+
+  /**
+   * The recent changes to the graph, or null if we're not keeping them.
+   */
+  ChangeLog changes;
+
+  /**
+   * The number of snapshots we've taken.
+   */
+  int epoch;
+
+  /**
+   * The epoch in which we last copied the adjacency list of each vertex.
+   * If edgeEpochs[v] is not the current epoch, a snapshot may share
+   * targets.get(v) and weights.get(v).
+   */
+  int[] edgeEpochs;
+
   // +--------------+------------------------------------------------
   // | Constructors |
   // +--------------+
@@ -115,18 +231,18 @@ public class Graph {
   /**
    * Create a new graph with a specified initial capacity.
    */
-  @SuppressWarnings("unchecked")
   public Graph(int initialCapacity) {
-    this.vertices = (ArrayList<Edge>[]) new ArrayList[initialCapacity];
-    this.vertexNames = new String[initialCapacity];
-    this.marks = new byte[initialCapacity];
-    this.vertexNumbers = new HashMap<String, Integer>();
-    this.unusedVertices = new LinkedList<Integer>();
+    this.targets = new ListPages(initialCapacity, NO_EDGES);
+    this.weights = new ListPages(initialCapacity, NO_EDGES);
+    this.degrees = new IntPages(initialCapacity, 0);
+    this.edgeTables = new EdgeTable[initialCapacity];
+    this.edgeEpochs = new int[initialCapacity];
+    this.names = new NameTable(initialCapacity);
+    this.marks = new VertexMarks(initialCapacity);
+    this.freeNumbers = new int[initialCapacity];
+    this.live = new LongPages(words(initialCapacity), 0);
     this.version = 0;
-    for (int i = 0; i < this.vertices.length; i++) {
-      this.vertices[i] = new ArrayList<Edge>();
-      this.unusedVertices.add(i);
-    } // for
+    this.freeRange(0, initialCapacity);
   } // Graph(int)
 
   /**
@@ -138,6 +254,15 @@ public class Graph {
     this.readEdges(fName);
   } // Graph
 
+  /**
+   * Load a graph saved by saveBinary.
+   */
+  public static Graph loadBinary(String fname) throws Exception {
+    Graph graph = new Graph();
+    BinaryGraphFile.load(graph, fname);
+    return graph;
+  } // loadBinary(String)
+
   // +----------------------+----------------------------------------
   // | Vertex names/numbers |
   // +----------------------+
@@ -150,7 +275,7 @@ public class Graph {
     if (!validVertex(vertexNumber)) {
       return null;
     } else {
-      return this.vertexNames[vertexNumber];
+      return this.names.get(vertexNumber);
     } // if/else
   } // vertexName(int)
 
@@ -159,12 +284,7 @@ public class Graph {
    * corresponding vertex number, returns -1.
    */
   public int vertexNumber(String vertexName) {
-    Integer result = this.vertexNumbers.get(vertexName);
-    if (result == null) {
-      return -1;
-    } else {
-      return result;
-    } // if/else
+    return this.names.find(vertexName);
   } // vertexNumber(String)
 
   // +-----------+---------------------------------------------------
@@ -178,11 +298,11 @@ public class Graph {
     pen.println("A Graph");
     pen.println("  with " + numVertices + " vertices");
     pen.println("  and " + numEdges + " edges");
-    for (int vertex = 0; vertex < vertices.length; vertex++) {
+    for (int vertex = 0; vertex < capacity(); vertex++) {
       if (validVertex(vertex)) {
         pen.print(vertex + ": ");
-        for (Edge e : vertices[vertex]) {
-          pen.print(e + " ");
+        for (int i = 0; i < degrees.get(vertex); i++) {
+          pen.print(edge(vertex, i) + " ");
         } // for()
         pen.println();
       } // if
@@ -196,7 +316,7 @@ public class Graph {
   public void dumpWithNames(PrintWriter pen) {
     pen.println("Vertices: ");
     pen.print(" ");
-    for (int vertex = 0; vertex < vertices.length; vertex++) {
+    for (int vertex = 0; vertex < capacity(); vertex++) {
       String name = vertexName(vertex);
       if (name != null) {
         pen.print(" " + name);
@@ -204,11 +324,11 @@ public class Graph {
     } // for
     pen.println();
     pen.println("Edges: ");
-    for (int vertex = 0; vertex < vertices.length; vertex++) {
+    for (int vertex = 0; vertex < capacity(); vertex++) {
       if (validVertex(vertex)) {
-        for (Edge e : vertices[vertex]) {
-          pen.println("  " + vertexName(e.from()) + " --" + e.weight() + "-> "
-              + vertexName(e.to()));
+        for (int i = 0; i < degrees.get(vertex); i++) {
+          pen.println("  " + vertexName(vertex) + " --" + weights.get(vertex)[i]
+              + "-> " + vertexName(targets.get(vertex)[i]));
         } // for()
       } // if
     } // for
@@ -224,15 +344,33 @@ public class Graph {
     file.close();
   } // save(String)
 
+  /**
+   * Save the graph in the binary form expected by loadBinary. (See
+   * BinaryGraphFile for details.)
+   */
+  public void saveBinary(String fname) throws Exception {
+    BinaryGraphFile.save(this, fname, false);
+  } // saveBinary(String)
+
+  /**
+   * Save the graph in the binary form expected by loadBinary. If compress
+   * is true, the file is smaller, but the edges from each vertex will be
+   * sorted when we load it again.
+   */
+  public void saveBinary(String fname, boolean compress) throws Exception {
+    BinaryGraphFile.save(this, fname, compress);
+  } // saveBinary(String, boolean)
+
   /**
    * Dump the graph in the form expected by readEdges.
    */
   public void write(PrintWriter pen) {
-    for (int vertex = 0; vertex < vertices.length; vertex++) {
+    for (int vertex = 0; vertex < capacity(); vertex++) {
       if (validVertex(vertex)) {
-        for (Edge e : vertices[vertex]) {
-          pen.println(vertexName(e.from()) + " " + vertexName(e.to()) + " "
-              + e.weight());
+        for (int i = 0; i < degrees.get(vertex); i++) {
+          pen.println(vertexName(vertex) + " "
+              + vertexName(targets.get(vertex)[i]) + " "
+              + weights.get(vertex)[i]);
         } // for()
       } // if
     } // for
@@ -252,6 +390,42 @@ public class Graph {
     return this.numVertices;
   } // numVertices
 
+  /**
+   * Determine if there is an edge from one vertex to another.
+   */
+  public boolean hasEdge(int from, int to) {
+    return validVertex(from) && (this.indexOf(from, to) != -1);
+  } // hasEdge(int, int)
+
+  /**
+   * Determine if there is an edge from one vertex to another.
+   */
+  public boolean hasEdge(String from, String to) {
+    return hasEdge(this.vertexNumber(from), this.vertexNumber(to));
+  } // hasEdge(String, String)
+
+  /**
+   * Get the weight of the edge from one vertex to another.
+   *
+   * @exception NoSuchElementException if there is no such edge
+   */
+  public int edgeWeight(int from, int to) {
+    int i = validVertex(from) ? this.indexOf(from, to) : -1;
+    if (i == -1) {
+      throw new NoSuchElementException("No edge from " + from + " to " + to);
+    } // if
+    return this.weights.get(from)[i];
+  } // edgeWeight(int, int)
+
+  /**
+   * Get the weight of the edge from one vertex to another.
+   *
+   * @exception NoSuchElementException if there is no such edge
+   */
+  public int edgeWeight(String from, String to) {
+    return edgeWeight(this.vertexNumber(from), this.vertexNumber(to));
+  } // edgeWeight(String, String)
+
   /**
    * Get an iterator for the edges.
    */
@@ -261,10 +435,10 @@ public class Graph {
       int pos = 0;
       // The version number of the graph when this iterator was created
       long version = Graph.this.version;
-      // The current edge iterator
-      Iterator<Edge> ie = Graph.this.vertices[0].iterator();
       // The current vertex
-      int vertex = 0;
+      int vertex = nextLive(Graph.this.live, 0);
+      // The index of the next edge from the current vertex
+      int i = 0;
 
       /**
        * Determine if edges remain.
@@ -281,11 +455,12 @@ public class Graph {
         if (!this.hasNext()) {
           throw new NoSuchElementException();
         }
-        while (!this.ie.hasNext()) {
-          this.ie = Graph.this.vertices[++this.vertex].iterator();
+        while (this.i >= Graph.this.degrees.get(this.vertex)) {
+          this.vertex = nextLive(Graph.this.live, this.vertex + 1);
+          this.i = 0;
         } // while
         ++this.pos;
-        return ie.next();
+        return Graph.this.edge(this.vertex, this.i++);
       } // next()
     }; // new Iterator<Edge>
   } // edges()
@@ -312,18 +487,19 @@ public class Graph {
       return new Iterator<Edge>() {
         // The version number of the graph when this iterator was created
         long version = Graph.this.version;
-        // The underlying iterator. We wrap it so that the client
-        // cannot call the remove method.
-        Iterator<Edge> edges = Graph.this.vertices[vertex].iterator();
+        // The index of the next edge
+        int i = 0;
 
         public boolean hasNext() {
           failFast(this.version);
-          return edges.hasNext();
+          return this.i < Graph.this.degrees.get(vertex);
         } // hasNext()
 
         public Edge next() {
-          failFast(this.version);
-          return edges.next();
+          if (!this.hasNext()) {
+            throw new NoSuchElementException();
+          } // if
+          return Graph.this.edge(vertex, this.i++);
         } // next()
       }; // new Iterator<Edge>
     } // if else
@@ -337,45 +513,115 @@ public class Graph {
   } // edgesFrom(String)
 
   /**
-   * Get a path from start to finish. If no such path exists, returns null.
+   * Get all of the edges to a particular vertex. Unless the graph indexes
+   * incoming edges (or is undirected), the first call after a change to the
+   * graph takes time proportional to the size of the graph.
    */
-  public List<Edge> path(int start, int finish) {
-    // An array of the edges that lead to vertices. incoming[i]
-    // is an edge that leads to vertex i. This approach is derived
-    // from one by GM and GT.
-    Edge[] incoming = new Edge[vertices.length];
-
-    // Vertices left to process. (We use BFS.)
-    Queue<Integer> remaining = new LinkedList<Integer>();
-    remaining.add(start);
-
-    // Keep going until we reach finish or run out of edges
-    while ((incoming[finish] == null) && (!remaining.isEmpty())) {
-      Integer v = remaining.remove();
-      Iterator<Edge> edges = this.edgesFrom(v);
-      while (edges.hasNext()) {
-        Edge e = edges.next();
-        int to = e.to();
-        if (incoming[to] == null) {
-          remaining.add(to);
-          incoming[to] = e;
+  public Iterator<Edge> edgesTo(int vertex) {
+    final int[] starts;
+    final int count;
+    if (!validVertex(vertex)) {
+      starts = NO_EDGES;
+      count = 0;
+    } else if (this.symmetric()) {
+      starts = this.targets.get(vertex);
+      count = this.degrees.get(vertex);
+    } else if (this.sources != null) {
+      starts = this.sources[vertex];
+      count = this.inDegrees[vertex];
+    } else {
+      CsrGraph reversed = this.reverseIndex();
+      int first = reversed.offsets[vertex];
+      count = reversed.offsets[vertex + 1] - first;
+      starts = Arrays.copyOfRange(reversed.targets, first, first + count);
+    } // if/else
+    return new Iterator<Edge>() {
+      // The version number of the graph when this iterator was created
+      long version = Graph.this.version;
+      // The index of the next edge
+      int i = 0;
+
+      public boolean hasNext() {
+        failFast(this.version);
+        return this.i < count;
+      } // hasNext()
+
+      public Edge next() {
+        if (!this.hasNext()) {
+          throw new NoSuchElementException();
         } // if
-      } // while
-    } // while
+        int from = starts[this.i++];
+        return Graph.this.edge(from, Graph.this.indexOf(from, vertex));
+      } // next()
+    }; // new Iterator<Edge>
+  } // edgesTo(int)
+
+  /**
+   * Get all of the edges to a particular vertex.
+   */
+  public Iterator<Edge> edgesTo(String vertex) {
+    return this.edgesTo(vertexNumber(vertex));
+  } // edgesTo(String)
+
+  /**
+   * Get a cursor over the edges of the graph. Call reset to choose a vertex.
+   */
+  public EdgeCursor cursor() {
+    return new EdgeCursor(this);
+  } // cursor()
 
-    // Return the appropriate list
-    if (incoming[finish] == null) {
+  /**
+   * Get a cursor over the edges from a particular vertex.
+   */
+  public EdgeCursor cursor(int vertex) {
+    return new EdgeCursor(this).reset(vertex);
+  } // cursor(int)
+
+  /**
+   * Visit all of the edges from a particular vertex.
+   */
+  public void forEachNeighbor(int vertex, EdgeVisitor visitor) {
+    if (!validVertex(vertex)) {
+      return;
+    } // if
+    long expected = this.version;
+    int[] ends = this.targets.get(vertex);
+    int[] costs = this.weights.get(vertex);
+    int degree = this.degrees.get(vertex);
+    for (int i = 0; i < degree; i++) {
+      visitor.visit(vertex, ends[i], costs[i]);
+    } // for
+    failFast(expected);
+  } // forEachNeighbor(int, EdgeVisitor)
+
+  /**
+   * Visit all of the neighbors of a particular vertex (that is, the ends
+   * of the edges from that vertex).
+   */
+  public void forEachNeighbor(int vertex, IntConsumer action) {
+    if (!validVertex(vertex)) {
+      return;
+    } // if
+    long expected = this.version;
+    int[] ends = this.targets.get(vertex);
+    int degree = this.degrees.get(vertex);
+    for (int i = 0; i < degree; i++) {
+      action.accept(ends[i]);
+    } // for
+    failFast(expected);
+  } // forEachNeighbor(int, IntConsumer)
+
+  /**
+   * Get a path from start to finish. If no such path exists, returns null.
+   * The path has as few edges as possible, but ignores weights; use
+   * shortestPath to find the cheapest path.
+   */
+  public List<Edge> path(int start, int finish) {
+    if (!validVertex(start) || !validVertex(finish)) {
       return null;
-    } else {
-      LinkedList<Edge> path = new LinkedList<Edge>();
-      int current = finish;
-      do {
-        Edge e = incoming[current];
-        path.addFirst(e);
-        current = e.from();
-      } while (current != start);
-      return path;
-    } // if/else
+    } // if
+    return PathSearch.path(this::forEachNeighbor, this.capacity(), start,
+        finish);
   } // path(int, int)
 
   /**
@@ -385,24 +631,187 @@ public class Graph {
     return path(this.vertexNumber(start), this.vertexNumber(finish));
   } // path(String, String)
 
+  /**
+   * Search from source to every vertex it can reach, using several threads
+   * if the graph is large. Returns null if source is not a vertex.
+   */
+  public BfsTree bfs(int source) {
+    return BreadthFirstSearch.search(this, source);
+  } // bfs(int)
+
+  /**
+   * Search from source to every vertex it can reach. Returns null if
+   * source is not a vertex.
+   */
+  public BfsTree bfs(String source) {
+    return bfs(this.vertexNumber(source));
+  } // bfs(String)
+
+  /**
+   * Find the connected components of the graph. (For a directed graph,
+   * two vertices are connected if there is a path between them when we
+   * ignore the directions of the edges.)
+   */
+  public Components components() {
+    return ComponentFinder.connected(this);
+  } // components()
+
+  /**
+   * Find the strongly connected components of the graph, in which each
+   * vertex has a path to every other.
+   */
+  public Components strongComponents() {
+    return ComponentFinder.strong(this);
+  } // strongComponents()
+
+  /**
+   * Compute the PageRank of each vertex, indexed by vertex number. See
+   * Centrality.pageRank for other damping factors and tolerances.
+   */
+  public double[] pageRank() {
+    return Centrality.pageRank(this);
+  } // pageRank()
+
+  /**
+   * Compute the degree centrality of each vertex, indexed by vertex
+   * number.
+   */
+  public double[] degreeCentrality() {
+    return Centrality.degreeCentrality(this);
+  } // degreeCentrality()
+
+  /**
+   * Estimate the betweenness of each vertex, indexed by vertex number,
+   * from the shortest paths from samples randomly chosen sources. If
+   * samples is at least the number of vertices, the result is exact.
+   */
+  public double[] betweenness(int samples) {
+    return Centrality.betweenness(this, samples, 0);
+  } // betweenness(int)
+
+  /**
+   * Get a path from start to finish, searching from both ends at once. If
+   * no such path exists, returns null. Like path, the path has as few
+   * edges as possible, but this is usually much faster for vertices that
+   * are far apart.
+   */
+  public List<Edge> pathBidirectional(int start, int finish) {
+    return BidirectionalSearch.find(this, start, finish);
+  } // pathBidirectional(int, int)
+
+  /**
+   * Get a path from start to finish, searching from both ends at once. If
+   * no such path exists, returns null.
+   */
+  public List<Edge> pathBidirectional(String start, String finish) {
+    return pathBidirectional(this.vertexNumber(start),
+        this.vertexNumber(finish));
+  } // pathBidirectional(String, String)
+
+  /**
+   * Get a cheapest path from start to finish, along with its total weight.
+   * If no such path exists, returns null.
+   *
+   * @exception Exception if the search encounters a negative weight
+   */
+  public WeightedPath shortestPath(int start, int finish) throws Exception {
+    return ShortestPaths.dijkstra(this, start, finish);
+  } // shortestPath(int, int)
+
+  /**
+   * Get a cheapest path from start to finish, along with its total weight.
+   * If no such path exists, returns null.
+   *
+   * @exception Exception if the search encounters a negative weight
+   */
+  public WeightedPath shortestPath(String start, String finish)
+      throws Exception {
+    return shortestPath(this.vertexNumber(start), this.vertexNumber(finish));
+  } // shortestPath(String, String)
+
+  /**
+   * Get a read-only snapshot of the graph, packed for fast traversal. Later
+   * changes to this graph do not affect the snapshot.
+   */
+  public CsrGraph freeze() {
+    return new CsrGraph(this, false);
+  } // freeze()
+
+  /**
+   * Get a read-only snapshot of the graph in which every edge has been
+   * reversed. That is, the edges from v in the snapshot correspond to the
+   * edges to v in this graph.
+   */
+  public CsrGraph freezeReversed() {
+    return new CsrGraph(this, true);
+  } // freezeReversed()
+
+  /**
+   * Get a read-only view of the graph as it is now. Later changes to this
+   * graph do not affect the view, and the view may be read by other
+   * threads while this graph changes. The first snapshot moves the
+   * per-vertex arrays into pages; after that, taking one copies only the
+   * lists of pages (about one entry per thousand vertices). After each,
+   * the graph copies each page or adjacency list it shares with a
+   * snapshot the first time it changes it.
+   */
+  public GraphSnapshot snapshot() {
+    GraphSnapshot snapshot = new GraphSnapshot(this);
+    ++this.epoch;
+    return snapshot;
+  } // snapshot()
+
+  /**
+   * Start a batch of changes. Vertices and edges added to the batch do not
+   * appear in the graph until the batch is committed, and then they all
+   * appear at once. See GraphBuilder.
+   */
+  public GraphBuilder batch() {
+    return new GraphBuilder(this);
+  } // batch()
+
+  /**
+   * Get the log of recent changes to the graph. The log starts with the
+   * first change after the first call, and holds up to
+   * ChangeLog.DEFAULT_CAPACITY changes.
+   */
+  public ChangeLog changeLog() {
+    if (this.changes == null) {
+      this.changes = new ChangeLog(ChangeLog.DEFAULT_CAPACITY, this.version);
+    } // if
+    return this.changes;
+  } // changeLog()
+
+  /**
+   * Start a new log of changes to the graph, holding up to capacity
+   * changes, in place of any existing log. The new log keeps the listeners
+   * of the old one.
+   */
+  public ChangeLog changeLog(int capacity) {
+    ChangeLog log = new ChangeLog(capacity, this.version);
+    if (this.changes != null) {
+      log.listeners.addAll(this.changes.listeners);
+    } // if
+    this.changes = log;
+    return log;
+  } // changeLog(int)
+
   /**
    * Get an iterator for the vertices.
    */
   public Iterator<Integer> vertices() {
     return new Iterator<Integer>() {
-      // The position of the iterator
-      int pos = 0;
       // The version number of the graph when this iterator was created
       long version = Graph.this.version;
-      // The current vertex number
-      int vertex = 0;
+      // The next vertex number, or -1 if there are no more
+      int vertex = nextLive(Graph.this.live, 0);
 
       /**
        * Determine if vertices remain.
        */
       public boolean hasNext() {
         failFast(this.version);
-        return this.pos < Graph.this.numVertices;
+        return this.vertex != -1;
       } // hasNext()
 
       /**
@@ -412,14 +821,37 @@ public class Graph {
         if (!this.hasNext()) {
           throw new NoSuchElementException();
         } // if
-        while (Graph.this.vertexNames[this.vertex] == null) {
-          ++this.vertex;
-        } // while
-        return this.vertex++;
+        int result = this.vertex;
+        this.vertex = nextLive(Graph.this.live, result + 1);
+        return result;
       } // next()
     }; // new Iterator<Integer>
   } // vertices()
 
+  /**
+   * Get a stream of the vertices, in increasing order. The stream splits
+   * into parts of known size, so vertexStream().parallel() can share the
+   * work among threads. Like vertices(), it fails if the graph changes
+   * while we use it.
+   */
+  public IntStream vertexStream() {
+    return StreamSupport.intStream(new VertexSpliterator(this, this.version,
+        this.live, 0, this.capacity(), this.numVertices), false);
+  } // vertexStream()
+
+  /**
+   * Get a stream of the edges, in the same order as edges(). The stream
+   * splits by ranges of start vertices, with about the same number of
+   * edges in each part, so edgeStream().parallel() can share the work
+   * among threads. Like edges(), it fails if the graph changes while we
+   * use it.
+   */
+  public Stream<Edge> edgeStream() {
+    return StreamSupport.stream(new EdgeSpliterator(this, this.version,
+        this.targets, this.weights, this.degrees, 0, 0, this.capacity(),
+        this.numEdges, null), false);
+  } // edgeStream()
+
   // +----------+----------------------------------------------------
   // | Mutators |
   // +----------+
@@ -429,23 +861,14 @@ public class Graph {
    * If the vertices are invalid, throws an exception.
    */
   public void addEdge(int from, int to, int weight) throws Exception {
-    if (!validVertex(from) || !validVertex(to)) {
-      throw new Exception("Invalid ends");
-    } // if
-    if (from == to) {
-      throw new Exception("Cannot add an edge from a vertex to itself");
-    }
+    this.checkEnds(from, to);
     ++this.version;
-    Edge newEdge = new Edge(from, to, weight);
-    ListIterator<Edge> edges = this.vertices[from].listIterator();
-    while (edges.hasNext()) {
-      if (edges.next().to() == to) {
-        edges.set(newEdge);
-        return;
-      } // if
-    } // while
-    edges.add(newEdge);
-    ++this.numEdges;
+    int existing = this.indexOf(from, to);
+    if (existing != -1) {
+      this.replaceEdgeAt(from, existing, weight);
+    } else {
+      this.appendEdge(from, to, weight);
+    } // if/else
   } // addEdge(int, int, int)
 
   /**
@@ -477,55 +900,83 @@ public class Graph {
    */
   public int addVertex() {
     int v = this.newVertexNumber();
-    String name = "v" + v;
-    // On the off chance there is already a vertex with that name,
-    // we try some other names.
-    while (this.vertexNumber(name) != -1) {
-      name = "v" + name;
-    } // while
-    return addVertex(name, v);
+    // Usually we can give it the default name, which we need not store
+    // (see NameTable). On the off chance that another vertex might have
+    // that name, we find one that's free.
+    if (this.names.mayClash()) {
+      return this.addVertex(this.unusedName(v), v);
+    } // if
+    return this.addVertex(null, v);
   } // addVertex()
 
   /**
    * Read a bunch of edges from a file. Throws an exception if any of the lines
-   * have the wrong form.
+   * have the wrong form. (The message gives the number of the first such
+   * line.) See EdgeLoader for details.
    */
   public void readEdges(String fname) throws Exception {
-    BufferedReader lines = new BufferedReader(new FileReader(fname));
-    // Since the only way to determine if no lines are left in a
-    // BufferedReader is to see if readLine() throws an exception,
-    // we put our loop in a try/catch clause.
-    try {
-      while (true) {
-        String line = lines.readLine();
-        String[] parts = line.split("[\\s*]");
-        if (parts.length == 3) {
-          int from = this.safeVertexNumber(parts[0]);
-          int to = this.safeVertexNumber(parts[1]);
-          int weight = Integer.parseInt(parts[2]);
-          this.addEdge(from, to, weight);
-        } // if
-      } // while
-    } catch (Exception e) {
-
-    } // try/catch
-    lines.close();
+    EdgeLoader.load(this, fname);
   } // readEdges()
 
+  /**
+   * Start keeping an index of the edges into each vertex. The index makes
+   * edgesTo fast and lets removeVertex touch only the neighbors of the
+   * vertex, rather than every vertex in the graph. It costs an extra int
+   * per edge, and a little time in addEdge and removeEdge.
+   */
+  public void indexIncomingEdges() {
+    if ((this.sources != null) || this.symmetric()) {
+      return;
+    } // if
+    int capacity = this.capacity();
+    this.sources = new int[capacity][];
+    this.inDegrees = new int[capacity];
+    Arrays.fill(this.sources, NO_EDGES);
+    for (int v = 0; v < capacity; v++) {
+      for (int i = 0; i < this.degrees.get(v); i++) {
+        this.addSource(this.targets.get(v)[i], v);
+      } // for
+    } // for
+  } // indexIncomingEdges()
+
+  /**
+   * Shrink each adjacency list to exactly fit its edges. Useful once a
+   * large graph has been built, since the lists grow by doubling.
+   */
+  public void trimToSize() {
+    for (int v = 0; v < this.capacity(); v++) {
+      int degree = this.degrees.get(v);
+      if (degree == 0) {
+        this.targets.set(v, NO_EDGES);
+        this.weights.set(v, NO_EDGES);
+      } else if (degree < this.targets.get(v).length) {
+        this.targets.set(v, Arrays.copyOf(this.targets.get(v), degree));
+        this.weights.set(v, Arrays.copyOf(this.weights.get(v), degree));
+      } // if/else
+      if ((this.sources != null)
+          && (this.inDegrees[v] < this.sources[v].length)) {
+        this.sources[v] = Arrays.copyOf(this.sources[v], this.inDegrees[v]);
+      } // if
+    } // for
+  } // trimToSize()
+
   /**
    * Remove an edge. If the edge does not exist, does nothing.
    */
   public void removeEdge(int from, int to) {
-    Iterator<Edge> ie = this.vertices[from].iterator();
-    while (ie.hasNext()) {
-      if (ie.next().to() == to) {
-        ie.remove();
-        --this.numEdges;
-        ++this.version;
-        // We could probably break out of the loop at this point,
-        // but it's safer to go through the whole list.
+    if (!validVertex(from)) {
+      return;
+    } // if
+    int i = this.indexOf(from, to);
+    if (i != -1) {
+      this.removeEdgeAt(from, i);
+      --this.numEdges;
+      ++this.version;
+      if (this.sources != null) {
+        this.removeSource(to, from);
       } // if
-    } // while
+      this.logChange(GraphChange.REMOVE_EDGE, from, to, 0, null);
+    } // if
   } // removeEdge(int, int)
 
   /**
@@ -547,25 +998,41 @@ public class Graph {
     // Note the change to the graph
     ++this.version;
     --this.numVertices;
-    this.numEdges -= this.vertices[vertex].size();
+    this.numEdges -= this.degrees.get(vertex);
+
+    // Clear out edges to that vertex. If we know where they come from, we
+    // need only look there.
+    if (this.symmetric()) {
+      for (int i = 0; i < this.degrees.get(vertex); i++) {
+        this.removeEdgeTo(this.targets.get(vertex)[i], vertex);
+      } // for
+    } else if (this.sources != null) {
+      for (int i = 0; i < this.inDegrees[vertex]; i++) {
+        this.removeEdgeTo(this.sources[vertex][i], vertex);
+      } // for
+      for (int i = 0; i < this.degrees.get(vertex); i++) {
+        this.removeSource(this.targets.get(vertex)[i], vertex);
+      } // for
+      this.sources[vertex] = NO_EDGES;
+      this.inDegrees[vertex] = 0;
+    } else {
+      for (int v = nextLive(this.live, 0); v != -1;
+          v = nextLive(this.live, v + 1)) {
+        this.removeEdgeTo(v, vertex);
+      } // for
+    } // if/else
 
     // Clear out the entries associated with the vertex
-    this.vertices[vertex].clear();
-    this.vertexNames[vertex] = null;
-
-    // Clear out edges to that vertex
-    for (int i = 0; i < this.vertices.length; i++) {
-      Iterator<Edge> ie = this.vertices[i].iterator();
-      while (ie.hasNext()) {
-        if (ie.next().to() == vertex) {
-          ie.remove();
-          --this.numEdges;
-        } // if
-      } // while
-    } // for
+    this.targets.set(vertex, NO_EDGES);
+    this.weights.set(vertex, NO_EDGES);
+    this.degrees.set(vertex, 0);
+    this.edgeTables[vertex] = null;
+    this.names.remove(vertex);
+    this.removeLive(vertex);
 
     // Note that the vertex is once again available to use.
-    this.unusedVertices.add(vertex);
+    this.freeNumber(vertex);
+    this.logChange(GraphChange.REMOVE_VERTEX, vertex, -1, 0, null);
   } // removeVertex(int)
 
   /**
@@ -575,37 +1042,91 @@ public class Graph {
     this.removeVertex(this.vertexNumber(vertex));
   } // removeVertex(String)
 
+  /**
+   * Renumber the vertices 0 .. numVertices()-1, keeping them in the same
+   * order, and shrink the graph to fit. Returns the mapping from old
+   * numbers to new: vertex v is now vertex result[v], and result[v] is -1
+   * if v was not a vertex. Clears all marks. Listeners on the change log
+   * see the graph cleared and rebuilt, as when loading a snapshot.
+   */
+  public int[] compact() {
+    int capacity = this.capacity();
+    int[] result = new int[capacity];
+    Arrays.fill(result, -1);
+    int count = 0;
+    boolean dense = true;
+    for (int v = nextLive(this.live, 0); v != -1;
+        v = nextLive(this.live, v + 1)) {
+      dense &= (v == count);
+      result[v] = count++;
+    } // for
+    if (dense) {
+      return result;
+    } // if
+
+    // Lay out the renumbered graph, as in CsrGraph
+    NameTable newNames = new NameTable(count);
+    int[] offsets = new int[count + 1];
+    int[] ends = new int[this.numEdges];
+    int[] costs = new int[this.numEdges];
+    for (int v = 0; v < capacity; v++) {
+      int w = result[v];
+      if (w == -1) {
+        continue;
+      } // if
+      this.names.copyName(v, newNames, w);
+      int at = offsets[w];
+      for (int i = 0; i < this.degrees.get(v); i++) {
+        ends[at + i] = result[this.targets.get(v)[i]];
+      } // for
+      System.arraycopy(this.weights.get(v), 0, costs, at, this.degrees.get(v));
+      offsets[w + 1] = at + this.degrees.get(v);
+    } // for
+    this.replaceWith(newNames, offsets, ends, costs);
+    return result;
+  } // compact()
+
   // +------------------+--------------------------------------------
   // | Marking vertices |
   // +------------------+
 
   /**
-   * Remove all of the marks.
+   * Remove all of the marks. Takes constant time.
    */
   public void clearMarks() {
-    this.marks = new byte[this.marks.length];
+    this.marks.clear();
   } // clearMarks
 
+  /**
+   * Get a new, empty, set of marks for the vertices, independent of the
+   * marks used by mark and unmark. Useful for traversals that run at the
+   * same time as others. The set only covers the vertices that are in the
+   * graph now.
+   */
+  public VertexMarks newMarks() {
+    return new VertexMarks(this.capacity());
+  } // newMarks()
+
   /**
    * Determine if a vertex is marked with a particular mark.
    */
-  boolean isMarked(int vertex, byte mark) {
-    return (this.marks[vertex] & mark) != 0;
-  } // isMarked(int, byte)
+  boolean isMarked(int vertex, long mark) {
+    return this.marks.isMarked(vertex, mark);
+  } // isMarked(int, long)
 
   /**
    * Determine if a vertex is marked at all.
    */
   boolean isMarked(int vertex) {
-    return this.marks[vertex] != 0;
+    return this.marks.isMarked(vertex);
   } // isMarked(int)
 
   /**
    * Determine if a vertex is marked with a particular mark.
    */
-  boolean isMarked(String vertex, byte mark) {
+  boolean isMarked(String vertex, long mark) {
     return this.isMarked(this.vertexNumber(vertex), mark);
-  } // isMarked(String, byte)
+  } // isMarked(String, long)
 
   /**
    * Determine if a vertex is marked at all.
@@ -615,56 +1136,55 @@ public class Graph {
   } // isMarked(String)
 
   /**
-   * Mark a vertex with one of the seven possible marks.
+   * Mark a vertex with one of the VertexMarks.MAX_MARKS possible marks.
+   * Returns true if the vertex did not already have that mark. Safe to call
+   * from several threads at once.
    */
-  void mark(int vertex, byte mark) {
-    this.marks[vertex] |= mark;
-  } // mark(int, byte)
+  boolean mark(int vertex, long mark) {
+    return this.marks.mark(vertex, mark);
+  } // mark(int, long)
 
   /**
    * Mark a vertex using the default mark.
    */
-  void mark(int vertex) {
-    this.mark(vertex, Graph.MARK);
+  boolean mark(int vertex) {
+    return this.mark(vertex, Graph.MARK);
   } // mark(int)
 
   /**
-   * Mark a vertex with one of the seven possible marks.
+   * Mark a vertex with one of the VertexMarks.MAX_MARKS possible marks.
    */
-  void mark(String vertex, byte mark) {
-    this.mark(this.vertexNumber(vertex), mark);
-  } // mark(String, byte)
+  boolean mark(String vertex, long mark) {
+    return this.mark(this.vertexNumber(vertex), mark);
+  } // mark(String, long)
 
   /**
    * Mark a vertex using the default mark.
    */
-  void mark(String vertex) {
-    this.mark(this.vertexNumber(vertex));
+  boolean mark(String vertex) {
+    return this.mark(this.vertexNumber(vertex));
   } // mark(String)
 
   /**
    * Unmark a vertex.
    */
-  void unmark(int vertex, byte mark) {
-    // This approach makes Charlie uncomfortable. However, the more sensible
-    // thing (commented out below) does not work.
-    this.marks[vertex] = (byte) ((this.marks[vertex] | mark) - mark);
-    // this.marks[vertex] |= (byte) ~mark;
-  } // unmark(int, byte)
+  void unmark(int vertex, long mark) {
+    this.marks.unmark(vertex, mark);
+  } // unmark(int, long)
 
   /**
    * Unmark a vertex.
    */
   void unmark(int vertex) {
-    this.marks[vertex] = 0;
+    this.marks.unmark(vertex);
   } // unmark(int)
 
   /**
    * Unmark a vertex.
    */
-  void unmark(String vertex, byte mark) {
+  void unmark(String vertex, long mark) {
     this.unmark(this.vertexNumber(vertex), mark);
-  } // unmark(String, byte)
+  } // unmark(String, long)
 
   /**
    * Unmark a vertex.
@@ -678,39 +1198,515 @@ public class Graph {
   // +-----------+
 
   /**
-   * Add a vertex name / vertex number pair.
+   * Replace everything in the graph with the given vertices and edges.
+   * Vertex v gets name names[v] (or is unused, if names[v] is null), and
+   * its edges are given by ends and costs in positions offsets[v] ..
+   * offsets[v+1]-1, as in CsrGraph.
+   */
+  void replaceWith(String[] names, int[] offsets, int[] ends, int[] costs) {
+    NameTable table = new NameTable(names.length);
+    for (int v = 0; v < names.length; v++) {
+      if (names[v] != null) {
+        table.put(v, names[v]);
+      } // if
+    } // for
+    this.replaceWith(table, offsets, ends, costs);
+  } // replaceWith(String[], int[], int[], int[])
+
+  /**
+   * Replace everything in the graph with the given vertices and edges, as
+   * above, with the names in a table that the graph may keep.
+   */
+  void replaceWith(NameTable names, int[] offsets, int[] ends,
+      int[] costs) {
+    int size = names.capacity();
+    int capacity = Math.max(size, 1);
+    names.ensureCapacity(capacity);
+    ++this.version;
+    this.numVertices = 0;
+    this.numEdges = 0;
+    this.targets = new ListPages(capacity, NO_EDGES);
+    this.weights = new ListPages(capacity, NO_EDGES);
+    this.degrees = new IntPages(capacity, 0);
+    this.edgeTables = new EdgeTable[capacity];
+    this.edgeEpochs = new int[capacity];
+    this.names = names;
+    this.marks = new VertexMarks(capacity);
+    Arrays.fill(this.edgeEpochs, this.epoch);
+    this.freeNumbers = new int[capacity - names.size];
+    this.numFree = 0;
+    this.live = new LongPages(words(capacity), 0);
+    this.reverseIndex = null;
+    this.logChange(GraphChange.CLEAR, -1, -1, 0, null);
+    for (int v = 0; v < capacity; v++) {
+      if (!names.contains(v)) {
+        continue;
+      } // if
+      this.addLive(v);
+      ++this.numVertices;
+      if (this.changes != null) {
+        this.logChange(GraphChange.ADD_VERTEX, v, -1, 0, names.get(v));
+      } // if
+      int degree = offsets[v + 1] - offsets[v];
+      if (degree > 0) {
+        this.targets.set(v,
+            Arrays.copyOfRange(ends, offsets[v], offsets[v + 1]));
+        this.weights.set(v,
+            Arrays.copyOfRange(costs, offsets[v], offsets[v + 1]));
+        this.degrees.set(v, degree);
+        this.numEdges += degree;
+        if (degree >= HASH_THRESHOLD) {
+          this.buildEdgeTable(v);
+        } // if
+      } // if
+    } // for
+    this.freeRange(0, capacity);
+    if (this.changes != null) {
+      for (int v = 0; v < size; v++) {
+        for (int i = 0; i < this.degrees.get(v); i++) {
+          this.logChange(GraphChange.ADD_EDGE, v, this.targets.get(v)[i],
+              this.weights.get(v)[i], null);
+        } // for
+      } // for
+    } // if
+    if (this.sources != null) {
+      this.sources = null;
+      this.inDegrees = null;
+      this.indexIncomingEdges();
+    } // if
+  } // replaceWith(NameTable, int[], int[], int[])
+
+  /**
+   * Add many vertices and edges to the graph, as one change. The new
+   * vertices get the numbers in numbers, which must be unused; the ith
+   * gets the ith name in names, if it has one, and otherwise a default
+   * name. (names may be null if none has a name.) The new edges from
+   * vertex v are in positions offsets[v] .. offsets[v+1]-1 of edges, each
+   * holding an end and weight (see packEdge), with no end repeated. As in
+   * addEdge, a new edge replaces any existing edge between the same
+   * vertices. Assumes every edge is valid.
+   */
+  void merge(NameTable names, int[] numbers, int[] offsets, long[] edges) {
+    ++this.version;
+
+    // Add the vertices
+    int oldSize = this.capacity();
+    int newSize = offsets.length - 1;
+    long[] reused = null;
+    for (int v : numbers) {
+      if (v < oldSize) {
+        if (reused == null) {
+          reused = new long[words(oldSize)];
+        } // if
+        reused[v >>> 6] |= 1L << v;
+      } // if
+    } // for
+    if (reused != null) {
+      int kept = 0;
+      for (int i = 0; i < this.numFree; i++) {
+        int v = this.freeNumbers[i];
+        if ((reused[v >>> 6] & (1L << v)) == 0) {
+          this.freeNumbers[kept++] = v;
+        } // if
+      } // for
+      this.numFree = kept;
+    } // if
+    if (newSize > oldSize) {
+      this.expand(newSize);
+    } // if
+    for (int i = 0; i < numbers.length; i++) {
+      if ((names != null) && names.contains(i)) {
+        names.copyName(i, this.names, numbers[i]);
+      } // if
+    } // for
+    boolean clash = this.names.mayClash();
+    for (int i = 0; i < numbers.length; i++) {
+      int v = numbers[i];
+      if (!this.names.contains(v)) {
+        if (clash) {
+          this.names.put(v, this.unusedName(v));
+        } else {
+          this.names.putDefault(v);
+        } // if/else
+      } // if
+      ++this.numVertices;
+      this.addLive(v);
+      if (this.changes != null) {
+        this.logChange(GraphChange.ADD_VERTEX, v, -1, 0, this.names.get(v));
+      } // if
+    } // for
+    if (newSize > oldSize) {
+      this.freeRange(oldSize, newSize);
+    } // if
+
+    // Add the edges. Each list we touch gets new arrays, so we need not
+    // worry about sharing the old ones with a snapshot. A vertex with no
+    // edges yet gets its lists straight from edges.
+    for (int v = 0; v < newSize; v++) {
+      int start = offsets[v];
+      int end = offsets[v + 1];
+      if (start == end) {
+        continue;
+      } // if
+      int degree = this.degrees.get(v);
+      int[] newEnds = Arrays.copyOf(this.targets.get(v), degree + end - start);
+      int[] newCosts = Arrays.copyOf(this.weights.get(v), newEnds.length);
+      if (degree == 0) {
+        for (int i = start; i < end; i++) {
+          newEnds[degree] = (int) (edges[i] >>> 32);
+          newCosts[degree] = (int) edges[i];
+          ++degree;
+        } // for
+        if ((this.sources != null) || (this.changes != null)) {
+          for (int i = 0; i < degree; i++) {
+            if (this.sources != null) {
+              this.addSource(newEnds[i], v);
+            } // if
+            this.logChange(GraphChange.ADD_EDGE, v, newEnds[i], newCosts[i],
+                null);
+          } // for
+        } // if
+      } else {
+        for (int i = start; i < end; i++) {
+          int to = (int) (edges[i] >>> 32);
+          int weight = (int) edges[i];
+          int existing = this.indexOf(v, to);
+          if (existing != -1) {
+            newCosts[existing] = weight;
+            this.logChange(GraphChange.REPLACE_EDGE, v, to, weight, null);
+          } else {
+            newEnds[degree] = to;
+            newCosts[degree] = weight;
+            if (this.edgeTables[v] != null) {
+              this.edgeTables[v].put(to, degree);
+            } // if
+            if (this.sources != null) {
+              this.addSource(to, v);
+            } // if
+            this.logChange(GraphChange.ADD_EDGE, v, to, weight, null);
+            ++degree;
+          } // if/else
+        } // for
+      } // if/else
+      this.numEdges += degree - this.degrees.get(v);
+      this.targets.set(v, newEnds);
+      this.weights.set(v, newCosts);
+      this.degrees.set(v, degree);
+      this.edgeEpochs[v] = this.epoch;
+      if ((this.edgeTables[v] == null) && (degree >= HASH_THRESHOLD)) {
+        this.buildEdgeTable(v);
+      } // if
+    } // for
+  } // merge(NameTable, int[], int[], long[])
+
+  /**
+   * Add a vertex with a particular name and number, as when copying
+   * another graph.
+   *
+   * @exception Exception if the name or number is in use.
+   */
+  void addVertexAt(String name, int v) throws Exception {
+    if ((v < 0) || validVertex(v)) {
+      throw new Exception("Vertex " + v + " is in use");
+    } // if
+    if (this.vertexNumber(name) != -1) {
+      throw new Exception("Already have a node named " + name);
+    } // if
+    while (v >= this.capacity()) {
+      this.expand();
+    } // while
+    // Usually v is the next number we would have used anyway
+    int i = this.numFree - 1;
+    while (this.freeNumbers[i] != v) {
+      --i;
+    } // while
+    System.arraycopy(this.freeNumbers, i + 1, this.freeNumbers, i,
+        this.numFree - i - 1);
+    --this.numFree;
+    this.addVertex(name, v);
+  } // addVertexAt(String, int)
+
+  /**
+   * Add a vertex name / vertex number pair. A null name means the default
+   * name.
    *
    * Assumes neither the name or number have been used.
    */
   private int addVertex(String name, int v) {
     ++this.version;
     ++this.numVertices;
-    this.vertexNumbers.put(name, v);
-    this.vertexNames[v] = name;
+    if (name == null) {
+      this.names.putDefault(v);
+    } else {
+      this.names.put(v, name);
+    } // if/else
+    this.addLive(v);
+    if (this.changes != null) {
+      this.logChange(GraphChange.ADD_VERTEX, v, -1, 0, this.names.get(v));
+    } // if
     return v;
   } // addVertex(String, int)
 
+  /**
+   * Find a name for vertex v that no vertex has: the default name, if it
+   * is free, and otherwise that name with more v's in front.
+   */
+  String unusedName(int v) {
+    String name = "v" + v;
+    while (this.vertexNumber(name) != -1) {
+      name = "v" + name;
+    } // while
+    return name;
+  } // unusedName(int)
+
   /**
    * Expand the necessary arrays.
    */
   private void expand() {
-    int oldSize = this.vertices.length;
-    int newSize = oldSize * 2;
-    this.vertexNames = Arrays.copyOf(this.vertexNames, newSize);
-    this.marks = Arrays.copyOf(this.marks, newSize);
-    this.vertices = Arrays.copyOf(this.vertices, newSize);
-    for (int i = oldSize; i < newSize; i++) {
-      this.vertices[i] = new ArrayList<Edge>();
-      this.unusedVertices.add(i);
-    } // for
+    int oldSize = this.capacity();
+    this.expand(oldSize * 2);
+    this.freeRange(oldSize, this.capacity());
   } // expand()
 
+  /**
+   * Expand the necessary arrays to hold vertex numbers 0 .. newSize-1.
+   * The caller must note which of the new numbers are unused.
+   */
+  private void expand(int newSize) {
+    int oldSize = this.capacity();
+    this.names.ensureCapacity(newSize);
+    this.marks.ensureCapacity(newSize);
+    this.targets.grow(newSize);
+    this.weights.grow(newSize);
+    this.degrees.grow(newSize);
+    this.edgeTables = Arrays.copyOf(this.edgeTables, newSize);
+    this.edgeEpochs = Arrays.copyOf(this.edgeEpochs, newSize);
+    this.live.grow(words(newSize));
+    if (this.sources != null) {
+      this.sources = Arrays.copyOf(this.sources, newSize);
+      this.inDegrees = Arrays.copyOf(this.inDegrees, newSize);
+      Arrays.fill(this.sources, oldSize, newSize, NO_EDGES);
+    } // if
+  } // expand(int)
+
+  /**
+   * Get a reversed snapshot of the graph, for following edges backward.
+   */
+  CsrGraph reverseIndex() {
+    if ((this.reverseIndex == null)
+        || (this.reverseIndexVersion != this.version)) {
+      this.reverseIndex = this.freezeReversed();
+      this.reverseIndexVersion = this.version;
+    } // if
+    return this.reverseIndex;
+  } // reverseIndex()
+
+  /**
+   * Determine if every edge from u to v is matched by an edge from v to u
+   * with the same weight. (Not in general, but subclasses may promise it.)
+   */
+  boolean symmetric() {
+    return false;
+  } // symmetric()
+
+  /**
+   * Pack the end and weight of an edge into one long, end first, as
+   * merge expects.
+   */
+  static long packEdge(int to, int weight) {
+    return ((long) to << 32) | (weight & 0xFFFFFFFFL);
+  } // packEdge(int, int)
+
+  /**
+   * Build an Edge object for the ith edge from vertex.
+   */
+  Edge edge(int vertex, int i) {
+    return new Edge(vertex, this.targets.get(vertex)[i],
+        this.weights.get(vertex)[i]);
+  } // edge(int, int)
+
+  /**
+   * Find the index of the edge from one vertex to another. Returns -1 if
+   * there is no such edge.
+   */
+  int indexOf(int from, int to) {
+    if (this.edgeTables[from] != null) {
+      return this.edgeTables[from].get(to);
+    } // if
+    int[] ends = this.targets.get(from);
+    int degree = this.degrees.get(from);
+    for (int i = 0; i < degree; i++) {
+      if (ends[i] == to) {
+        return i;
+      } // if
+    } // for
+    return -1;
+  } // indexOf(int, int)
+
+  /**
+   * Make sure that an edge may go from one vertex to another.
+   *
+   * @exception Exception if either end is invalid, or they are the same
+   */
+  void checkEnds(int from, int to) throws Exception {
+    if (!validVertex(from) || !validVertex(to)) {
+      throw new Exception("Invalid ends");
+    } // if
+    if (from == to) {
+      throw new Exception("Cannot add an edge from a vertex to itself");
+    } // if
+  } // checkEnds(int, int)
+
+  /**
+   * Add a new edge to the end of the edges from a vertex, and note it in
+   * the change log. Does not update version or check for an existing
+   * edge.
+   */
+  void appendEdge(int from, int to, int weight) {
+    int[] ends = this.targets.get(from);
+    int[] costs = this.weights.get(from);
+    int degree = this.degrees.get(from);
+    if (degree == ends.length) {
+      int newSize = Math.max(INITIAL_DEGREE, degree * 2);
+      ends = Arrays.copyOf(ends, newSize);
+      costs = Arrays.copyOf(costs, newSize);
+      this.targets.set(from, ends);
+      this.weights.set(from, costs);
+      this.edgeEpochs[from] = this.epoch;
+    } // if
+    ends[degree] = to;
+    costs[degree] = weight;
+    this.degrees.set(from, degree + 1);
+    ++this.numEdges;
+    if (this.edgeTables[from] != null) {
+      this.edgeTables[from].put(to, degree);
+    } else if (degree + 1 >= HASH_THRESHOLD) {
+      this.buildEdgeTable(from);
+    } // if/else
+    if (this.sources != null) {
+      this.addSource(to, from);
+    } // if
+    this.logChange(GraphChange.ADD_EDGE, from, to, weight, null);
+  } // appendEdge(int, int, int)
+
+  /**
+   * Give the ith edge from a vertex a new weight, and note it in the
+   * change log. Does not update version.
+   */
+  void replaceEdgeAt(int from, int i, int weight) {
+    this.ownEdges(from);
+    this.weights.get(from)[i] = weight;
+    this.logChange(GraphChange.REPLACE_EDGE, from, this.targets.get(from)[i],
+        weight, null);
+  } // replaceEdgeAt(int, int, int)
+
+  /**
+   * Remove the ith edge from a vertex. Keeps the remaining edges in order,
+   * unless the vertex has a hash table, in which case the last edge takes
+   * the place of the removed one. Does not update numEdges or version.
+   */
+  void removeEdgeAt(int vertex, int i) {
+    this.ownEdges(vertex);
+    int last = this.degrees.get(vertex) - 1;
+    this.degrees.set(vertex, last);
+    int[] ends = this.targets.get(vertex);
+    int[] costs = this.weights.get(vertex);
+    EdgeTable table = this.edgeTables[vertex];
+    if (table == null) {
+      System.arraycopy(ends, i + 1, ends, i, last - i);
+      System.arraycopy(costs, i + 1, costs, i, last - i);
+    } else {
+      table.remove(ends[i]);
+      if (i != last) {
+        ends[i] = ends[last];
+        costs[i] = costs[last];
+        table.put(ends[i], i);
+      } // if
+    } // if/else
+  } // removeEdgeAt(int, int)
+
+  /**
+   * Build the hash table for the edges from a vertex.
+   */
+  private void buildEdgeTable(int vertex) {
+    int degree = this.degrees.get(vertex);
+    EdgeTable table = new EdgeTable(degree);
+    for (int i = 0; i < degree; i++) {
+      table.put(this.targets.get(vertex)[i], i);
+    } // for
+    this.edgeTables[vertex] = table;
+  } // buildEdgeTable(int)
+
+  /**
+   * Remove the edge from one vertex to another during removeVertex, if
+   * there is one. Does not update version or the incoming-edge index.
+   */
+  private void removeEdgeTo(int from, int to) {
+    int i = this.indexOf(from, to);
+    if (i != -1) {
+      this.removeEdgeAt(from, i);
+      --this.numEdges;
+    } // if
+  } // removeEdgeTo(int, int)
+
+  /**
+   * Note in the incoming-edge index that there is an edge from one vertex
+   * to another.
+   */
+  private void addSource(int to, int from) {
+    int count = this.inDegrees[to];
+    if (count == this.sources[to].length) {
+      this.sources[to] = Arrays.copyOf(this.sources[to],
+          Math.max(INITIAL_DEGREE, count * 2));
+    } // if
+    this.sources[to][count] = from;
+    this.inDegrees[to] = count + 1;
+  } // addSource(int, int)
+
+  /**
+   * Remove an edge from the incoming-edge index. Since order does not
+   * matter there, we move the last entry into the gap.
+   */
+  private void removeSource(int to, int from) {
+    int[] starts = this.sources[to];
+    int last = this.inDegrees[to] - 1;
+    for (int i = 0; i <= last; i++) {
+      if (starts[i] == from) {
+        starts[i] = starts[last];
+        this.inDegrees[to] = last;
+        return;
+      } // if
+    } // for
+  } // removeSource(int, int)
+
+  /**
+   * Record a change in the change log, if we're keeping one.
+   */
+  void logChange(int kind, int from, int to, int weight,
+      String name) {
+    if (this.changes != null) {
+      this.changes.record(this.version, kind, from, to, weight, name);
+    } // if
+  } // logChange(int, int, int, int, String)
+
+  /**
+   * Make sure that no snapshot shares the adjacency list of a vertex,
+   * copying it if necessary.
+   */
+  private void ownEdges(int vertex) {
+    if (this.edgeEpochs[vertex] != this.epoch) {
+      this.targets.set(vertex, this.targets.get(vertex).clone());
+      this.weights.set(vertex, this.weights.get(vertex).clone());
+      this.edgeEpochs[vertex] = this.epoch;
+    } // if
+  } // ownEdges(int)
+
   /**
    * Compare an expected version to the current version. Die if they do not
    * match. (Used to implement the traditional "fail fast" policy for
    * iterators.)
    */
-  private void failFast(long expectedVersion) {
+  void failFast(long expectedVersion) {
     if (this.version != expectedVersion) {
       throw new ConcurrentModificationException();
     } // if
@@ -719,29 +1715,114 @@ public class Graph {
   /**
    * Determine if a vertex is valid.
    */
-  private boolean validVertex(int vertex) {
-    return ((vertex >= 0) && (vertex < this.vertices.length)
-        && (this.vertexNames[vertex] != null));
+  boolean validVertex(int vertex) {
+    return (vertex < this.capacity()) && this.names.contains(vertex);
   } // validVertex
 
   /**
    * Get the next unused vertex number.
    */
   private int newVertexNumber() {
-    if (this.unusedVertices.isEmpty()) {
+    if (this.numFree == 0) {
       this.expand();
     }
-    return this.unusedVertices.remove();
+    return this.freeNumbers[--this.numFree];
   } // newVertexNumber()
 
+  /**
+   * Note that vertex number v is unused.
+   */
+  private void freeNumber(int v) {
+    if (this.numFree == this.freeNumbers.length) {
+      this.freeNumbers = Arrays.copyOf(this.freeNumbers,
+          Math.max(2 * this.numFree, 16));
+    } // if
+    this.freeNumbers[this.numFree++] = v;
+  } // freeNumber(int)
+
+  /**
+   * Note that the numbers lo .. hi-1 that are not vertices are unused.
+   * They go beneath the other unused numbers, so that we reuse the
+   * numbers of removed vertices first, and we take them in increasing
+   * order.
+   */
+  private void freeRange(int lo, int hi) {
+    int count = 0;
+    for (int v = lo; v < hi; v++) {
+      if (!this.names.contains(v)) {
+        ++count;
+      } // if
+    } // for
+    if (this.numFree + count > this.freeNumbers.length) {
+      this.freeNumbers = Arrays.copyOf(this.freeNumbers,
+          Math.max(this.numFree + count, 2 * this.freeNumbers.length));
+    } // if
+    System.arraycopy(this.freeNumbers, 0, this.freeNumbers, count,
+        this.numFree);
+    int i = 0;
+    for (int v = hi - 1; v >= lo; v--) {
+      if (!this.names.contains(v)) {
+        this.freeNumbers[i++] = v;
+      } // if
+    } // for
+    this.numFree += count;
+  } // freeRange(int, int)
+
+  /**
+   * Get the first vertex in the bitset live that is at least from, or -1
+   * if there is none.
+   */
+  static int nextLive(LongPages live, int from) {
+    int i = from >>> 6;
+    if (i >= live.length()) {
+      return -1;
+    } // if
+    long word = live.get(i) & (-1L << from);
+    while (word == 0) {
+      if (++i == live.length()) {
+        return -1;
+      } // if
+      word = live.get(i);
+    } // while
+    return (i << 6) + Long.numberOfTrailingZeros(word);
+  } // nextLive(LongPages, int)
+
+  /**
+   * Note that v is a vertex.
+   */
+  private void addLive(int v) {
+    this.live.set(v >>> 6, this.live.get(v >>> 6) | (1L << v));
+  } // addLive(int)
+
+  /**
+   * Note that v is no longer a vertex.
+   */
+  private void removeLive(int v) {
+    this.live.set(v >>> 6, this.live.get(v >>> 6) & ~(1L << v));
+  } // removeLive(int)
+
+  /**
+   * Get the number of vertex numbers we have room for.
+   */
+  int capacity() {
+    return this.degrees.length();
+  } // capacity()
+
+  /**
+   * Get the number of longs in a bitset of capacity bits.
+   */
+  static int words(int capacity) {
+    return (capacity + 63) >>> 6;
+  } // words(int)
+
   /**
    * Get a vertex number for a vertex name, even if the name is not already in
    * the graph.
    */
-  private int safeVertexNumber(String vertex) throws Exception {
+  int safeVertexNumber(String vertex) throws Exception {
     int num = this.vertexNumber(vertex);
     if (num == -1) {
-      num = this.addVertex(vertex);
+      num = this.addVertex(vertex, this.newVertexNumber());
     } // if
     return num;
   } // safeVertexNumber(String)
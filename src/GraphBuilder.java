@@ -0,0 +1,440 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * A batch of vertices and edges to add to a graph all at once. Much
+ * faster than calling addVertex and addEdge for each one, since the graph
+ * grows its arrays just once and each adjacency list is copied just once.
+ * Get one with Graph.batch().
+ *
+ * Nothing changes in the graph until we commit. A commit changes the
+ * version of the graph just once, so iterators see either none of the
+ * batch or all of it. As with addEdge, a later edge between two vertices
+ * replaces an earlier one (in the batch or in the graph).
+ *
+ * @author Samuel A. Rebelsky
+ */
+public class GraphBuilder {
+
+  // +-------+-------------------------------------------------------
+  // | Notes |
+  // +-------+
+
+  /*
+   * We give each new vertex the number that the graph would have given
+   * it: first the unused numbers, in the order the graph would use them,
+   * and then the numbers past the end of the graph's arrays. That way,
+   * edges in the batch can use the numbers of new vertices. It also means
+   * that the graph must not change between the first new vertex and the
+   * commit; we check that it hasn't.
+   *
+   * We keep the names we are given in a NameTable, by the position of
+   * the vertex in the batch rather than by its number, so that a small
+   * batch needs only a small table. Unnamed vertices get no name here;
+   * the graph gives them default names (see NameTable) when we commit.
+   *
+   * To commit, we sort the edges by start with a counting sort, which
+   * keeps the edges from each vertex in the order we added them. Each
+   * edge becomes one long, holding its end and weight (see Graph.merge),
+   * so the sort writes to one place per edge, which matters since those
+   * writes are all over memory. Then we go through the edges from each
+   * vertex, remembering where we put the edge to each end, so that a
+   * later edge to the same end replaces the weight of the earlier one
+   * rather than being added. That leaves each edge where it would be had
+   * we called addEdge for each one.
+   */
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The graph we're adding to.
+   */
+  Graph graph;
+
+  /**
+   * The version of the graph when we gave out the first new vertex
+   * number, or -1 if we have not yet done so.
+   */
+  long version = -1;
+
+  /**
+   * The numbers for new vertices: the unused numbers in the graph when we
+   * started, followed by capacity, capacity+1, and so on.
+   */
+  int[] freeNumbers;
+
+  /**
+   * The capacity of the graph when we started.
+   */
+  int capacity;
+
+  /**
+   * The names we were given for new vertices, by their position in the
+   * batch (or null, if we have no names).
+   */
+  NameTable newNames;
+
+  /**
+   * The number of new vertices.
+   */
+  int numNewVertices = 0;
+
+  /**
+   * The edges, in the order we added them. The ith edge goes from
+   * froms[i] to tos[i] with weight weights[i].
+   */
+  int[] froms = new int[1024];
+  int[] tos = new int[1024];
+  int[] weights = new int[1024];
+
+  /**
+   * The number of edges.
+   */
+  int numEdges = 0;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Start a batch of changes to graph.
+   */
+  GraphBuilder(Graph graph) {
+    this.graph = graph;
+  } // GraphBuilder(Graph)
+
+  // +----------+----------------------------------------------------
+  // | Vertices |
+  // +----------+
+
+  /**
+   * Add a vertex with a particular name.
+   *
+   * @return the number the vertex will have
+   *
+   * @exception Exception if there is already a vertex with that name, in
+   *   the graph or in the batch.
+   */
+  public int addVertex(String name) throws Exception {
+    if (this.vertexNumber(name) != -1) {
+      throw new Exception("Already have a node named " + name);
+    } // if
+    int i = this.numNewVertices;
+    int v = this.newVertex();
+    this.nameTable(i).put(i, name);
+    return v;
+  } // addVertex(String)
+
+  /**
+   * Add an unnamed vertex. (It gets a name when we commit.)
+   *
+   * @return the number the vertex will have
+   */
+  public int addVertex() {
+    return this.newVertex();
+  } // addVertex()
+
+  /**
+   * Add count unnamed vertices.
+   *
+   * @return the number the first one will have, or -1 if count is 0.
+   *   The numbers are consecutive if the graph has no unused numbers.
+   */
+  public int addVertices(int count) {
+    if (count <= 0) {
+      return -1;
+    } // if
+    int first = this.newVertex();
+    for (int i = 1; i < count; i++) {
+      this.newVertex();
+    } // for
+    return first;
+  } // addVertices(int)
+
+  /**
+   * Get the number of a vertex, in the graph or in the batch. Returns -1
+   * if there is no such vertex.
+   */
+  public int vertexNumber(String name) {
+    int i = (this.newNames == null) ? -1 : this.newNames.find(name);
+    if (i != -1) {
+      return this.freeNumber(i);
+    } // if
+    return this.graph.vertexNumber(name);
+  } // vertexNumber(String)
+
+  /**
+   * Get the number of the vertex whose name has the UTF-8 bytes in[start]
+   * .. in[end-1], adding a new vertex with that name if there is none.
+   */
+  int safeVertexNumber(byte[] in, int start, int end) {
+    int v = this.graph.names.find(in, start, end);
+    if (v != -1) {
+      return v;
+    } // if
+    int i = (this.newNames == null) ? -1 : this.newNames.find(in, start, end);
+    if (i != -1) {
+      return this.freeNumber(i);
+    } // if
+    i = this.numNewVertices;
+    v = this.newVertex();
+    this.nameTable(i).put(i, in, start, end);
+    return v;
+  } // safeVertexNumber(byte[], int, int)
+
+  // +-------+-------------------------------------------------------
+  // | Edges |
+  // +-------+
+
+  /**
+   * Add an edge between two vertices. We check the edge when we commit.
+   */
+  public void addEdge(int from, int to, int weight) {
+    if (this.numEdges == this.froms.length) {
+      this.reserve(this.numEdges);
+    } // if
+    this.froms[this.numEdges] = from;
+    this.tos[this.numEdges] = to;
+    this.weights[this.numEdges] = weight;
+    ++this.numEdges;
+  } // addEdge(int, int, int)
+
+  /**
+   * Add an edge between two named vertices.
+   *
+   * @exception Exception if either vertex does not exist.
+   */
+  public void addEdge(String from, String to, int weight) throws Exception {
+    int f = this.vertexNumber(from);
+    int t = this.vertexNumber(to);
+    if ((f == -1) || (t == -1)) {
+      throw new Exception("Invalid ends");
+    } // if
+    this.addEdge(f, t, weight);
+  } // addEdge(String, String, int)
+
+  /**
+   * Add many edges. The ith edge goes from froms[i] to tos[i] with weight
+   * weights[i].
+   */
+  public void addEdges(int[] froms, int[] tos, int[] weights) {
+    int count = froms.length;
+    if ((tos.length != count) || (weights.length != count)) {
+      throw new IllegalArgumentException("Arrays differ in length");
+    } // if
+    this.addEdges(froms, tos, weights, count);
+  } // addEdges(int[], int[], int[])
+
+  /**
+   * Add the first count edges in the arrays, as above.
+   */
+  void addEdges(int[] froms, int[] tos, int[] weights, int count) {
+    this.reserve(count);
+    System.arraycopy(froms, 0, this.froms, this.numEdges, count);
+    System.arraycopy(tos, 0, this.tos, this.numEdges, count);
+    System.arraycopy(weights, 0, this.weights, this.numEdges, count);
+    this.numEdges += count;
+  } // addEdges(int[], int[], int[], int)
+
+  /**
+   * Add all of the edges in a stream, in order.
+   */
+  public void addEdges(Stream<Edge> edges) {
+    edges.forEachOrdered((e) -> this.addEdge(e.from(), e.to(), e.weight()));
+  } // addEdges(Stream<Edge>)
+
+  /**
+   * Add all of the edges an iterator returns.
+   */
+  public void addEdges(Iterator<Edge> edges) {
+    while (edges.hasNext()) {
+      Edge e = edges.next();
+      this.addEdge(e.from(), e.to(), e.weight());
+    } // while
+  } // addEdges(Iterator<Edge>)
+
+  /**
+   * Get the number of edges in the batch, counting any that replace
+   * others.
+   */
+  public int numEdges() {
+    return this.numEdges;
+  } // numEdges()
+
+  // +--------+------------------------------------------------------
+  // | Commit |
+  // +--------+
+
+  /**
+   * Add everything in the batch to the graph. Afterwards, the batch is
+   * empty and may be used again.
+   *
+   * @exception Exception if any edge has an invalid end or goes from a
+   *   vertex to itself, or if the graph has changed since we numbered the
+   *   first new vertex. In that case, the graph does not change.
+   */
+  public void commit() throws Exception {
+    Graph graph = this.graph;
+    if ((this.version != -1) && (graph.version != this.version)) {
+      throw new Exception("Graph changed during the batch");
+    } // if
+
+    // Number the new vertices
+    int newCapacity = graph.capacity();
+    int[] numbers = new int[this.numNewVertices];
+    for (int i = 0; i < numbers.length; i++) {
+      numbers[i] = this.freeNumber(i);
+      newCapacity = Math.max(newCapacity, numbers[i] + 1);
+    } // for
+    long[] fresh = new long[Graph.words(newCapacity)];
+    for (int v : numbers) {
+      fresh[v >>> 6] |= 1L << v;
+    } // for
+
+    // Check the edges, and count the edges from each vertex
+    boolean symmetric = graph.symmetric();
+    int[] offsets = new int[newCapacity + 1];
+    for (int i = 0; i < this.numEdges; i++) {
+      int from = this.froms[i];
+      int to = this.tos[i];
+      if (!this.valid(from, fresh) || !this.valid(to, fresh)) {
+        throw new Exception("Invalid ends");
+      } // if
+      if (from == to) {
+        throw new Exception("Cannot add an edge from a vertex to itself");
+      } // if
+      ++offsets[from + 1];
+      if (symmetric) {
+        ++offsets[to + 1];
+      } // if
+    } // for
+
+    // Sort by start, keeping the edges from each vertex in order
+    for (int v = 0; v < newCapacity; v++) {
+      offsets[v + 1] += offsets[v];
+    } // for
+    long[] edges = new long[offsets[newCapacity]];
+    int[] next = Arrays.copyOf(offsets, newCapacity);
+    for (int i = 0; i < this.numEdges; i++) {
+      int from = this.froms[i];
+      int to = this.tos[i];
+      edges[next[from]++] = Graph.packEdge(to, this.weights[i]);
+      if (symmetric) {
+        edges[next[to]++] = Graph.packEdge(from, this.weights[i]);
+      } // if
+    } // for
+
+    // Keep one edge between two vertices, with the last weight. The edge
+    // from the current vertex to w is at last[w] if that is in the part
+    // we have kept for the current vertex and ends there at w.
+    int[] last = next;
+    int kept = 0;
+    for (int v = 0; v < newCapacity; v++) {
+      int start = offsets[v];
+      int end = offsets[v + 1];
+      int first = kept;
+      offsets[v] = first;
+      for (int i = start; i < end; i++) {
+        int to = (int) (edges[i] >>> 32);
+        int at = last[to];
+        if ((at >= first) && (at < kept) && ((int) (edges[at] >>> 32) == to)) {
+          edges[at] = edges[i];
+        } else {
+          last[to] = kept;
+          edges[kept++] = edges[i];
+        } // if/else
+      } // for
+    } // for
+    offsets[newCapacity] = kept;
+
+    graph.merge(this.newNames, numbers, offsets, edges);
+    this.clear();
+  } // commit()
+
+  /**
+   * Forget everything in the batch.
+   */
+  public void clear() {
+    this.version = -1;
+    this.freeNumbers = null;
+    this.newNames = null;
+    this.numNewVertices = 0;
+    this.froms = new int[1024];
+    this.tos = new int[1024];
+    this.weights = new int[1024];
+    this.numEdges = 0;
+  } // clear()
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Make room for count more edges.
+   */
+  void reserve(int count) {
+    int needed = this.numEdges + count;
+    if (needed > this.froms.length) {
+      int newSize = Math.max(needed, 2 * this.froms.length);
+      this.froms = Arrays.copyOf(this.froms, newSize);
+      this.tos = Arrays.copyOf(this.tos, newSize);
+      this.weights = Arrays.copyOf(this.weights, newSize);
+    } // if
+  } // reserve(int)
+
+  /**
+   * Add a new vertex and return its number.
+   */
+  int newVertex() {
+    if (this.version == -1) {
+      this.version = this.graph.version;
+      this.capacity = this.graph.capacity();
+      // The graph takes its unused numbers from the top of its stack
+      int numFree = this.graph.numFree;
+      this.freeNumbers = new int[numFree];
+      for (int i = 0; i < numFree; i++) {
+        this.freeNumbers[i] = this.graph.freeNumbers[numFree - 1 - i];
+      } // for
+    } // if
+    return this.freeNumber(this.numNewVertices++);
+  } // newVertex()
+
+  /**
+   * Get the table of names, making sure that it has room for the name of
+   * the ith new vertex.
+   */
+  NameTable nameTable(int i) {
+    if (this.newNames == null) {
+      this.newNames = new NameTable(Math.max(16, i + 1));
+    } else if (i >= this.newNames.capacity()) {
+      this.newNames.ensureCapacity(Math.max(i + 1,
+          2 * this.newNames.capacity()));
+    } // if/else
+    return this.newNames;
+  } // nameTable(int)
+
+  /**
+   * Get the number of the ith new vertex.
+   */
+  int freeNumber(int i) {
+    if (i < this.freeNumbers.length) {
+      return this.freeNumbers[i];
+    } else {
+      return this.capacity + i - this.freeNumbers.length;
+    } // if/else
+  } // freeNumber(int)
+
+  /**
+   * Determine if v is a vertex in the graph or one of the new vertices,
+   * which are the set bits of fresh.
+   */
+  boolean valid(int v, long[] fresh) {
+    return ((v >= 0) && ((v >>> 6) < fresh.length)
+        && ((fresh[v >>> 6] & (1L << v)) != 0))
+        || this.graph.validVertex(v);
+  } // valid(int, long[])
+
+} // class GraphBuilder
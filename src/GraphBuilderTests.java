@@ -0,0 +1,212 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Some tests of batches, each checked against the same changes made one
+ * at a time and against a HashMap of the edges the graph should have.
+ */
+class GraphBuilderTests {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of vertices in the graphs we build.
+   */
+  static final int VERTICES = 200;
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Add batches with many repeated edges, some of which are already in
+   * the graph. The last weight for each edge should win, and each edge
+   * should end up where addEdge would have put it.
+   */
+  @Test
+  void testLastDuplicateWins() throws Exception {
+    checkDuplicates(new Graph(), new Graph());
+  } // testLastDuplicateWins()
+
+  /**
+   * The same, for an undirected graph, where a batch edge also replaces
+   * an earlier edge in the other direction.
+   */
+  @Test
+  void testLastDuplicateWinsUndirected() throws Exception {
+    checkDuplicates(new UndirectedGraph(), new UndirectedGraph());
+  } // testLastDuplicateWinsUndirected()
+
+  /**
+   * Add new vertices in a batch, some reusing the numbers of removed
+   * vertices, and edges between old and new vertices.
+   */
+  @Test
+  void testNewVertices() throws Exception {
+    Graph g = new Graph();
+    Graph expected = new Graph();
+    for (int i = 0; i < 10; i++) {
+      g.addVertex("old" + i);
+      expected.addVertex("old" + i);
+    } // for
+    for (int v : new int[] {2, 7, 4}) {
+      g.removeVertex(v);
+      expected.removeVertex(v);
+    } // for
+
+    GraphBuilder batch = g.batch();
+    int[] numbers = new int[6];
+    for (int i = 0; i < numbers.length; i++) {
+      numbers[i] = (i % 2 == 0) ? batch.addVertex("new" + i)
+          : batch.addVertex();
+      int v = (i % 2 == 0) ? expected.addVertex("new" + i)
+          : expected.addVertex();
+      assertEquals(v, numbers[i], "New vertex " + i);
+    } // for
+    assertEquals(numbers[2], batch.vertexNumber("new2"));
+    assertEquals(0, batch.vertexNumber("old0"));
+    assertThrows(Exception.class, () -> batch.addVertex("new4"));
+    assertThrows(Exception.class, () -> batch.addVertex("old1"));
+    for (int i = 0; i < numbers.length; i++) {
+      batch.addEdge(numbers[i], 0, i);
+      expected.addEdge(numbers[i], 0, i);
+      batch.addEdge(1, numbers[i], 10 + i);
+      expected.addEdge(1, numbers[i], 10 + i);
+    } // for
+    batch.addEdge("new0", "old3", 99);
+    expected.addEdge("new0", "old3", 99);
+    batch.commit();
+
+    assertEquals(edges(expected), edges(g));
+    assertEquals(expected.numVertices(), g.numVertices());
+    for (int i = 0; i < numbers.length; i++) {
+      assertEquals(expected.vertexName(numbers[i]), g.vertexName(numbers[i]));
+    } // for
+  } // testNewVertices()
+
+  /**
+   * A batch with a bad edge should leave the graph as it was, and may be
+   * cleared and used again.
+   */
+  @Test
+  void testRollback() throws Exception {
+    Graph g = new Graph();
+    for (int i = 0; i < 5; i++) {
+      g.addVertex();
+    } // for
+    g.addEdge(0, 1, 1);
+    g.addEdge(1, 2, 2);
+    List<String> before = edges(g);
+
+    // An edge to a vertex that does not exist
+    GraphBuilder batch = g.batch();
+    batch.addVertex("extra");
+    batch.addEdge(0, 2, 3);
+    batch.addEdge(0, 1, 4);
+    batch.addEdge(3, 42, 5);
+    assertThrows(Exception.class, () -> batch.commit());
+    assertEquals(before, edges(g));
+    assertEquals(5, g.numVertices());
+    assertEquals(-1, g.vertexNumber("extra"));
+
+    // An edge from a vertex to itself
+    batch.clear();
+    batch.addEdge(0, 3, 6);
+    batch.addEdge(4, 4, 7);
+    assertThrows(Exception.class, () -> batch.commit());
+    assertEquals(before, edges(g));
+
+    // A graph that changes while the batch has new vertices
+    batch.clear();
+    int v = batch.addVertex();
+    batch.addEdge(0, v, 8);
+    g.addEdge(2, 3, 9);
+    before = edges(g);
+    assertThrows(Exception.class, () -> batch.commit());
+    assertEquals(before, edges(g));
+    assertEquals(5, g.numVertices());
+
+    // Once cleared, the batch works again
+    batch.clear();
+    batch.addEdge(0, 4, 10);
+    batch.commit();
+    assertEquals(10, g.edgeWeight(0, 4));
+    assertEquals(before.size() + 1, edges(g).size());
+  } // testRollback()
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Make random batches for g and make the same changes to expected one
+   * at a time, then compare the two graphs and a map of the last weight
+   * of each edge.
+   */
+  static void checkDuplicates(Graph g, Graph expected) throws Exception {
+    Random random = new Random(17);
+    boolean symmetric = g.symmetric();
+    for (int i = 0; i < VERTICES; i++) {
+      g.addVertex();
+      expected.addVertex();
+    } // for
+    Map<Long, Integer> weights = new HashMap<Long, Integer>();
+    for (int round = 0; round < 5; round++) {
+      GraphBuilder batch = g.batch();
+      for (int i = 0; i < 3000; i++) {
+        // Few enough ends that edges repeat often
+        int from = random.nextInt(VERTICES / 4);
+        int to = random.nextInt(VERTICES / 4);
+        if (from != to) {
+          int weight = random.nextInt(1000);
+          batch.addEdge(from, to, weight);
+          expected.addEdge(from, to, weight);
+          weights.put(key(from, to), weight);
+          if (symmetric) {
+            weights.put(key(to, from), weight);
+          } // if
+        } // if
+      } // for
+      batch.commit();
+      assertEquals(edges(expected), edges(g), "After batch " + round);
+      assertEquals(weights.size(), g.numEdges());
+      for (Map.Entry<Long, Integer> entry : weights.entrySet()) {
+        int from = (int) (entry.getKey() / VERTICES);
+        int to = (int) (entry.getKey() % VERTICES);
+        assertEquals((int) entry.getValue(), g.edgeWeight(from, to),
+            "Edge from " + from + " to " + to);
+      } // for
+    } // for
+  } // checkDuplicates(Graph, Graph)
+
+  /**
+   * Get the edges of a graph, vertex by vertex, in the order that
+   * edgesFrom gives them.
+   */
+  static List<String> edges(Graph g) {
+    List<String> result = new ArrayList<String>();
+    for (Iterator<Integer> vertices = g.vertices(); vertices.hasNext(); ) {
+      int v = vertices.next();
+      for (Iterator<Edge> edges = g.edgesFrom(v); edges.hasNext(); ) {
+        result.add(edges.next().toString());
+      } // for
+    } // for
+    return result;
+  } // edges(Graph)
+
+  /**
+   * Get the key for an edge in a map of weights.
+   */
+  static long key(int from, int to) {
+    return (long) from * VERTICES + to;
+  } // key(int, int)
+
+} // GraphBuilderTests
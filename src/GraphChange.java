@@ -0,0 +1,206 @@
+/**
+ * One change to a graph, as recorded in a ChangeLog.
+ *
+ * @author Samuel A. Rebelsky
+ */
+public class GraphChange {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * A vertex was added. Gives the vertex and name.
+   */
+  public static final int ADD_VERTEX = 1;
+
+  /**
+   * A vertex was removed, along with every edge to or from it. Gives the
+   * vertex.
+   */
+  public static final int REMOVE_VERTEX = 2;
+
+  /**
+   * A new edge was added. Gives from, to, and weight.
+   */
+  public static final int ADD_EDGE = 3;
+
+  /**
+   * The weight of an existing edge was replaced. Gives from, to, and the
+   * new weight.
+   */
+  public static final int REPLACE_EDGE = 4;
+
+  /**
+   * An edge was removed. Gives from and to.
+   */
+  public static final int REMOVE_EDGE = 5;
+
+  /**
+   * Every vertex and edge was removed (so that the graph could be filled
+   * with new ones, which follow as other changes with the same version).
+   */
+  public static final int CLEAR = 6;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The version of the graph just after the change.
+   */
+  private long version;
+
+  /**
+   * The kind of change.
+   */
+  private int kind;
+
+  /**
+   * The vertex (for vertex changes) or start of the edge.
+   */
+  private int from;
+
+  /**
+   * The end of the edge, or -1 for vertex changes.
+   */
+  private int to;
+
+  /**
+   * The weight of the edge, or 0 if there is none.
+   */
+  private int weight;
+
+  /**
+   * The name of an added vertex, or null.
+   */
+  private String name;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a change.
+   */
+  public GraphChange(long version, int kind, int from, int to, int weight,
+      String name) {
+    this.version = version;
+    this.kind = kind;
+    this.from = from;
+    this.to = to;
+    this.weight = weight;
+    this.name = name;
+  } // GraphChange(long, int, int, int, int, String)
+
+  // +------------------+--------------------------------------------
+  // | Standard methods |
+  // +------------------+
+
+  /**
+   * Convert the change to a string.
+   */
+  public String toString() {
+    switch (this.kind) {
+      case ADD_VERTEX:
+        return this.version + ": add vertex " + this.from + " " + this.name;
+      case REMOVE_VERTEX:
+        return this.version + ": remove vertex " + this.from;
+      case ADD_EDGE:
+        return this.version + ": add edge " + this.edge();
+      case REPLACE_EDGE:
+        return this.version + ": replace edge " + this.edge();
+      case REMOVE_EDGE:
+        return this.version + ": remove edge " + new Edge(this.from, this.to);
+      default:
+        return this.version + ": clear";
+    } // switch
+  } // toString()
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the version of the graph just after the change.
+   */
+  public long version() {
+    return this.version;
+  } // version()
+
+  /**
+   * Get the kind of change (ADD_VERTEX, REMOVE_VERTEX, and so on).
+   */
+  public int kind() {
+    return this.kind;
+  } // kind()
+
+  /**
+   * Get the vertex that was added or removed.
+   */
+  public int vertex() {
+    return this.from;
+  } // vertex()
+
+  /**
+   * Get the name of the vertex that was added.
+   */
+  public String name() {
+    return this.name;
+  } // name()
+
+  /**
+   * Get the start of the edge.
+   */
+  public int from() {
+    return this.from;
+  } // from()
+
+  /**
+   * Get the end of the edge.
+   */
+  public int to() {
+    return this.to;
+  } // to()
+
+  /**
+   * Get the weight of the edge.
+   */
+  public int weight() {
+    return this.weight;
+  } // weight()
+
+  /**
+   * Get the edge that was added, replaced, or removed.
+   */
+  public Edge edge() {
+    return new Edge(this.from, this.to, this.weight);
+  } // edge()
+
+  /**
+   * Make the same change to another graph, so that it stays a copy of the
+   * graph this change came from. (If the other graph is undirected, it
+   * gets both directions of each edge.)
+   */
+  public void applyTo(Graph graph) throws Exception {
+    switch (this.kind) {
+      case ADD_VERTEX:
+        graph.addVertexAt(this.name, this.from);
+        break;
+      case REMOVE_VERTEX:
+        graph.removeVertex(this.from);
+        break;
+      case ADD_EDGE:
+      case REPLACE_EDGE:
+        graph.addEdge(this.from, this.to, this.weight);
+        break;
+      case REMOVE_EDGE:
+        graph.removeEdge(this.from, this.to);
+        break;
+      default:
+        graph.replaceWith(new String[0], new int[1], new int[0], new int[0]);
+        break;
+    } // switch
+  } // applyTo(Graph)
+
+} // class GraphChange
@@ -0,0 +1,14 @@
+/**
+ * Something that wants to hear about each change to a graph, as it
+ * happens. See ChangeLog.
+ *
+ * @author Samuel A. Rebelsky
+ */
+@FunctionalInterface
+public interface GraphChangeListener {
+  /**
+   * Note a change. Called on the thread that changed the graph, just after
+   * the change, so it should be quick and must not change the graph.
+   */
+  public void changed(GraphChange change);
+} // interface GraphChangeListener
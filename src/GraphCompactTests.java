@@ -0,0 +1,238 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Some tests of compacting graphs, each checked against a HashMap of the
+ * edges and a table of the names the graph had before it was renumbered.
+ */
+class GraphCompactTests {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of vertex numbers in the random tests.
+   */
+  static final int VERTICES = 200;
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Add and remove vertices and edges at random, compact, and check the
+   * mapping, names, and edges. A listener on the change log keeps a copy
+   * of the graph, which should match after compaction, and a snapshot
+   * from before should keep the old numbers.
+   */
+  @Test
+  void testRandomChanges() throws Exception {
+    Random random = new Random(71);
+    for (int round = 0; round < 5; round++) {
+      Graph g = new Graph();
+      Graph follower = new Graph();
+      g.changeLog().addListener((change) -> {
+        try {
+          change.applyTo(follower);
+        } catch (Exception e) {
+          throw new RuntimeException(e);
+        } // try/catch
+      });
+      Map<Long, Integer> expected = new HashMap<Long, Integer>();
+      for (int i = 0; i < VERTICES; i++) {
+        if (i % 3 == 0) {
+          g.addVertex("name " + i);
+        } else {
+          g.addVertex();
+        } // if/else
+      } // for
+      for (int step = 0; step < 20 * VERTICES; step++) {
+        int from = random.nextInt(VERTICES);
+        int to = random.nextInt(VERTICES);
+        if (from == to || !g.validVertex(from) || !g.validVertex(to)) {
+          continue;
+        } // if
+        if (random.nextInt(4) == 0) {
+          g.removeEdge(from, to);
+          expected.remove(key(from, to));
+        } else {
+          g.addEdge(from, to, step);
+          expected.put(key(from, to), step);
+        } // if/else
+        // Now and then, remove a vertex, more of them in later rounds
+        if (random.nextInt(200) < 1 + round) {
+          g.removeVertex(from);
+          expected.keySet().removeIf(
+              (k) -> (k / VERTICES == from) || (k % VERTICES == from));
+        } // if
+      } // for
+      if (round == 0) {
+        g.indexIncomingEdges();
+      } // if
+
+      String[] names = new String[VERTICES];
+      for (int v = 0; v < VERTICES; v++) {
+        names[v] = g.vertexName(v);
+      } // for
+      GraphSnapshot before = g.snapshot();
+      int n = g.numVertices();
+      int[] mapping = g.compact();
+
+      // The mapping keeps the vertices in order and leaves no holes. It
+      // covers every number the graph had room for.
+      assertTrue(mapping.length >= VERTICES);
+      int next = 0;
+      for (int v = 0; v < mapping.length; v++) {
+        if (v >= VERTICES || names[v] == null) {
+          assertEquals(-1, mapping[v], "Mapping of removed " + v);
+        } else {
+          assertEquals(next++, mapping[v], "Mapping of " + v);
+        } // if/else
+      } // for
+      assertEquals(n, next);
+      assertEquals(n, g.numVertices());
+      assertEquals(n, g.capacity());
+      for (int v = 0; v < n; v++) {
+        assertTrue(g.validVertex(v), "Vertex " + v);
+      } // for
+
+      // The names and edges move with the vertices
+      for (int v = 0; v < VERTICES; v++) {
+        if (names[v] != null) {
+          assertEquals(names[v], g.vertexName(mapping[v]), "Name of " + v);
+          assertEquals(mapping[v], g.vertexNumber(names[v]),
+              "Number of " + names[v]);
+        } // if
+      } // for
+      checkEdges(g, expected, mapping);
+      if (round == 0) {
+        for (int v = 0; v < n; v++) {
+          for (Iterator<Edge> edges = g.edgesTo(v); edges.hasNext(); ) {
+            Edge edge = edges.next();
+            assertEquals(edge.weight(), g.edgeWeight(edge.from(), v),
+                "Incoming edge " + edge);
+          } // for
+        } // for
+      } // if
+
+      // The snapshot still has the old numbers
+      assertEquals(expected.size(), before.numEdges());
+      for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+        int from = (int) (entry.getKey() / VERTICES);
+        int to = (int) (entry.getKey() % VERTICES);
+        assertEquals((int) entry.getValue(), before.edgeWeight(from, to));
+      } // for
+
+      // The follower saw the graph rebuilt
+      assertEquals(n, follower.numVertices());
+      for (int v = 0; v < n; v++) {
+        assertEquals(g.vertexName(v), follower.vertexName(v));
+      } // for
+      checkEdges(follower, expected, mapping);
+
+      // A second compaction changes nothing, and new vertices go at the end
+      int[] again = g.compact();
+      for (int v = 0; v < n; v++) {
+        assertEquals(v, again[v]);
+      } // for
+      int added = g.addVertex();
+      assertEquals(n, added);
+      assertEquals(added, g.vertexNumber(g.vertexName(added)));
+    } // for
+  } // testRandomChanges()
+
+  /**
+   * An undirected graph keeps both directions of each edge.
+   */
+  @Test
+  void testUndirected() throws Exception {
+    Random random = new Random(73);
+    UndirectedGraph g = new UndirectedGraph();
+    for (int i = 0; i < VERTICES; i++) {
+      g.addVertex();
+    } // for
+    Map<Long, Integer> expected = new HashMap<Long, Integer>();
+    for (int i = 0; i < 4 * VERTICES; i++) {
+      int u = random.nextInt(VERTICES);
+      int v = random.nextInt(VERTICES);
+      if (u != v) {
+        g.addEdge(u, v, i);
+        expected.put(key(u, v), i);
+        expected.put(key(v, u), i);
+      } // if
+    } // for
+    for (int i = 0; i < VERTICES / 2; i++) {
+      int u = random.nextInt(VERTICES);
+      g.removeVertex(u);
+      expected.keySet().removeIf(
+          (k) -> (k / VERTICES == u) || (k % VERTICES == u));
+    } // for
+    int[] mapping = g.compact();
+    checkEdges(g, expected, mapping);
+    assertEquals(g.numVertices(), g.capacity());
+  } // testUndirected()
+
+  /**
+   * Compacting a graph with no vertices, or one with no holes, changes
+   * nothing.
+   */
+  @Test
+  void testNothingToDo() throws Exception {
+    Graph g = new Graph();
+    for (int v : g.compact()) {
+      assertEquals(-1, v);
+    } // for
+    g.addVertex("a");
+    g.addVertex("b");
+    g.addEdge(0, 1, 5);
+    int[] same = g.compact();
+    assertEquals(0, same[0]);
+    assertEquals(1, same[1]);
+    assertEquals(5, g.edgeWeight(0, 1));
+    g.removeVertex(1);
+    g.removeVertex(0);
+    int[] mapping = g.compact();
+    assertEquals(-1, mapping[0]);
+    assertEquals(-1, mapping[1]);
+    assertEquals(0, g.numVertices());
+    assertEquals(0, g.addVertex("c"));
+  } // testNothingToDo()
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Check that g has exactly the expected edges, with their ends
+   * renumbered by mapping.
+   */
+  static void checkEdges(Graph g, Map<Long, Integer> expected,
+      int[] mapping) {
+    assertEquals(expected.size(), g.numEdges());
+    for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+      int from = mapping[(int) (entry.getKey() / VERTICES)];
+      int to = mapping[(int) (entry.getKey() % VERTICES)];
+      assertEquals((int) entry.getValue(), g.edgeWeight(from, to),
+          "Edge from " + from + " to " + to);
+    } // for
+    int count = 0;
+    for (Iterator<Edge> edges = g.edges(); edges.hasNext(); ) {
+      edges.next();
+      ++count;
+    } // for
+    assertEquals(expected.size(), count);
+  } // checkEdges(Graph, Map<Long, Integer>, int[])
+
+  /**
+   * Get the key for an edge in the expected edges.
+   */
+  static long key(int from, int to) {
+    return (long) from * VERTICES + to;
+  } // key(int, int)
+
+} // GraphCompactTests
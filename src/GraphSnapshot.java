@@ -0,0 +1,331 @@
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A read-only view of a graph as it was at one moment. Later changes to
+ * the graph do not affect the view, so its iterators never throw
+ * ConcurrentModificationException. Build one with Graph.snapshot().
+ *
+ * @author Samuel A. Rebelsky
+ */
+public class GraphSnapshot {
+
+  // +-------+-------------------------------------------------------
+  // | Notes |
+  // +-------+
+
+  /*
+   * A snapshot shares the pages of the graph it came from (see
+   * IntPages), so taking one copies only the lists of pages. In return,
+   * the graph copies a page before changing it, and an adjacency list,
+   * too (see Graph.ownEdges). The only writes the graph makes to a shared
+   * array are new edges past the end of an adjacency list, which the
+   * snapshot never looks at, and new names past the end of the bytes of
+   * the names (see NameTable).
+   *
+   * All of the fields are final, so once a thread has a snapshot it can
+   * read it safely, even while another thread changes the graph.
+   */
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The version of the graph when we took the snapshot.
+   */
+  final long version;
+
+  /**
+   * The number of vertices in the graph.
+   */
+  final int numVertices;
+
+  /**
+   * The number of edges in the graph.
+   */
+  final int numEdges;
+
+  /**
+   * The ends, weights, and numbers of edges from each vertex, as in
+   * Graph.
+   */
+  final ListPages targets;
+  final ListPages weights;
+  final IntPages degrees;
+
+  /**
+   * The names of the vertices, and the number of each name.
+   */
+  final NameTable names;
+
+  /**
+   * The vertices in use, as a bitset (see Graph.live).
+   */
+  final LongPages live;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Take a snapshot of graph. The graph must treat its adjacency lists as
+   * shared from now on.
+   */
+  GraphSnapshot(Graph graph) {
+    this.version = graph.version;
+    this.numVertices = graph.numVertices;
+    this.numEdges = graph.numEdges;
+    this.targets = graph.targets.share();
+    this.weights = graph.weights.share();
+    this.degrees = graph.degrees.share();
+    this.names = graph.names.share();
+    this.live = graph.live.share();
+  } // GraphSnapshot(Graph)
+
+  // +----------------------+----------------------------------------
+  // | Vertex names/numbers |
+  // +----------------------+
+
+  /**
+   * Given a vertex number, get the corresponding vertex name. If there is no
+   * corresponding vertex name, returns null;
+   */
+  public String vertexName(int vertexNumber) {
+    if (!validVertex(vertexNumber)) {
+      return null;
+    } else {
+      return this.names.get(vertexNumber);
+    } // if/else
+  } // vertexName(int)
+
+  /**
+   * Given a vertex name, get the corresponding vertex number. If there is no
+   * corresponding vertex number, returns -1.
+   */
+  public int vertexNumber(String vertexName) {
+    return this.names.find(vertexName);
+  } // vertexNumber(String)
+
+  // +-----------+---------------------------------------------------
+  // | Observers |
+  // +-----------+
+
+  /**
+   * Get the version of the graph when we took the snapshot.
+   */
+  public long version() {
+    return this.version;
+  } // version()
+
+  /**
+   * Get the number of edges.
+   */
+  public int numEdges() {
+    return this.numEdges;
+  } // numEdges()
+
+  /**
+   * Get the number of vertices.
+   */
+  public int numVertices() {
+    return this.numVertices;
+  } // numVertices()
+
+  /**
+   * Get the number of edges from a particular vertex.
+   */
+  public int degree(int vertex) {
+    return validVertex(vertex) ? this.degrees.get(vertex) : 0;
+  } // degree(int)
+
+  /**
+   * Determine if there is an edge from one vertex to another.
+   */
+  public boolean hasEdge(int from, int to) {
+    return this.indexOf(from, to) != -1;
+  } // hasEdge(int, int)
+
+  /**
+   * Get the weight of the edge from one vertex to another.
+   *
+   * @exception NoSuchElementException if there is no such edge
+   */
+  public int edgeWeight(int from, int to) {
+    int i = this.indexOf(from, to);
+    if (i == -1) {
+      throw new NoSuchElementException("No edge from " + from + " to " + to);
+    } // if
+    return this.weights.get(from)[i];
+  } // edgeWeight(int, int)
+
+  /**
+   * Get an iterator for the vertices.
+   */
+  public Iterator<Integer> vertices() {
+    return new Iterator<Integer>() {
+      // The next vertex number, or -1 if there are no more
+      int vertex = Graph.nextLive(GraphSnapshot.this.live, 0);
+
+      public boolean hasNext() {
+        return this.vertex != -1;
+      } // hasNext()
+
+      public Integer next() {
+        if (!this.hasNext()) {
+          throw new NoSuchElementException();
+        } // if
+        int result = this.vertex;
+        this.vertex = Graph.nextLive(GraphSnapshot.this.live, result + 1);
+        return result;
+      } // next()
+    }; // new Iterator<Integer>
+  } // vertices()
+
+  /**
+   * Get a stream of the vertices, in increasing order. See
+   * Graph.vertexStream.
+   */
+  public IntStream vertexStream() {
+    return StreamSupport.intStream(new VertexSpliterator(null, this.version,
+        this.live, 0, this.targets.length(), this.numVertices), false);
+  } // vertexStream()
+
+  /**
+   * Get a stream of the edges. See Graph.edgeStream.
+   */
+  public Stream<Edge> edgeStream() {
+    return StreamSupport.stream(new EdgeSpliterator(null, this.version,
+        this.targets, this.weights, this.degrees, 0, 0, this.targets.length(),
+        this.numEdges, null), false);
+  } // edgeStream()
+
+  /**
+   * Get all of the edges.
+   */
+  public Iterator<Edge> edges() {
+    return new Iterator<Edge>() {
+      // The vertex whose edges we're visiting, or -1 if there are no more
+      int vertex = Graph.nextLive(GraphSnapshot.this.live, 0);
+      // The position of the next edge from that vertex
+      int pos = 0;
+
+      public boolean hasNext() {
+        IntPages degrees = GraphSnapshot.this.degrees;
+        while ((this.vertex != -1)
+            && (this.pos >= degrees.get(this.vertex))) {
+          this.vertex = Graph.nextLive(GraphSnapshot.this.live,
+              this.vertex + 1);
+          this.pos = 0;
+        } // while
+        return this.vertex != -1;
+      } // hasNext()
+
+      public Edge next() {
+        if (!this.hasNext()) {
+          throw new NoSuchElementException();
+        } // if
+        return GraphSnapshot.this.edge(this.vertex, this.pos++);
+      } // next()
+    }; // new Iterator<Edge>
+  } // edges()
+
+  /**
+   * Get all of the edges from a particular vertex.
+   */
+  public Iterator<Edge> edgesFrom(int vertex) {
+    final int degree = this.degree(vertex);
+    return new Iterator<Edge>() {
+      // The position of the next edge
+      int pos = 0;
+
+      public boolean hasNext() {
+        return this.pos < degree;
+      } // hasNext()
+
+      public Edge next() {
+        if (!this.hasNext()) {
+          throw new NoSuchElementException();
+        } // if
+        return GraphSnapshot.this.edge(vertex, this.pos++);
+      } // next()
+    }; // new Iterator<Edge>
+  } // edgesFrom(int)
+
+  /**
+   * Get all of the edges from a particular vertex.
+   */
+  public Iterator<Edge> edgesFrom(String vertex) {
+    return this.edgesFrom(vertexNumber(vertex));
+  } // edgesFrom(String)
+
+  /**
+   * Visit all of the edges from a particular vertex.
+   */
+  public void forEachNeighbor(int vertex, EdgeVisitor visitor) {
+    int degree = this.degree(vertex);
+    int[] ends = (degree == 0) ? null : this.targets.get(vertex);
+    int[] costs = (degree == 0) ? null : this.weights.get(vertex);
+    for (int i = 0; i < degree; i++) {
+      visitor.visit(vertex, ends[i], costs[i]);
+    } // for
+  } // forEachNeighbor(int, EdgeVisitor)
+
+  /**
+   * Get a path from start to finish with as few edges as possible. If no
+   * such path exists, returns null.
+   */
+  public List<Edge> path(int start, int finish) {
+    if (!validVertex(start) || !validVertex(finish)) {
+      return null;
+    } // if
+    return PathSearch.path(this::forEachNeighbor, this.targets.length(),
+        start, finish);
+  } // path(int, int)
+
+  /**
+   * Get a path from start to finish. If no such path exists, returns null.
+   */
+  public List<Edge> path(String start, String finish) {
+    return path(this.vertexNumber(start), this.vertexNumber(finish));
+  } // path(String, String)
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Build an Edge object for the ith edge from vertex.
+   */
+  private Edge edge(int vertex, int i) {
+    return new Edge(vertex, this.targets.get(vertex)[i],
+        this.weights.get(vertex)[i]);
+  } // edge(int, int)
+
+  /**
+   * Find the index of the edge from one vertex to another. Returns -1 if
+   * there is no such edge.
+   */
+  private int indexOf(int from, int to) {
+    int degree = this.degree(from);
+    int[] ends = (degree == 0) ? null : this.targets.get(from);
+    for (int i = 0; i < degree; i++) {
+      if (ends[i] == to) {
+        return i;
+      } // if
+    } // for
+    return -1;
+  } // indexOf(int, int)
+
+  /**
+   * Determine if a vertex is valid.
+   */
+  private boolean validVertex(int vertex) {
+    return (vertex < this.targets.length()) && this.names.contains(vertex);
+  } // validVertex
+
+} // class GraphSnapshot
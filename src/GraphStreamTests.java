@@ -0,0 +1,203 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Some tests of vertex and edge streams, each checked against the
+ * iterators of the graph and its counts of vertices and edges, after
+ * enough removals that the vertex numbers have holes.
+ */
+class GraphStreamTests {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of vertex numbers in the graphs we stream.
+   */
+  static final int VERTICES = 1000;
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Add and remove vertices and edges at random, checking the streams
+   * from time to time, sequential and parallel.
+   */
+  @Test
+  void testRandomChanges() throws Exception {
+    Random random = new Random(79);
+    Graph g = new Graph();
+    for (int i = 0; i < VERTICES; i++) {
+      g.addVertex();
+    } // for
+    // A hub, so that the edges are unevenly spread
+    for (int v = 1; v < VERTICES; v += 2) {
+      g.addEdge(0, v, v);
+    } // for
+    for (int step = 0; step < 20000; step++) {
+      int from = random.nextInt(VERTICES);
+      int to = random.nextInt(VERTICES);
+      if (g.validVertex(from) && g.validVertex(to) && (from != to)) {
+        if (random.nextInt(3) == 0) {
+          g.removeEdge(from, to);
+        } else {
+          g.addEdge(from, to, step);
+        } // if/else
+      } // if
+      if (step % 50 == 0) {
+        g.removeVertex(random.nextInt(VERTICES));
+      } // if
+      if (step % 2000 == 1999) {
+        check(g);
+      } // if
+    } // for
+    // Removing the hub takes away many edges at once
+    g.removeVertex(0);
+    check(g);
+    g.snapshot();
+    g.removeVertex(VERTICES - 1);
+    check(g);
+  } // testRandomChanges()
+
+  /**
+   * The same, for an undirected graph, which streams each edge in both
+   * directions.
+   */
+  @Test
+  void testUndirected() throws Exception {
+    Random random = new Random(83);
+    UndirectedGraph g = new UndirectedGraph();
+    for (int i = 0; i < VERTICES; i++) {
+      g.addVertex();
+    } // for
+    for (int step = 0; step < 10000; step++) {
+      int u = random.nextInt(VERTICES);
+      int v = random.nextInt(VERTICES);
+      if (g.validVertex(u) && g.validVertex(v) && (u != v)) {
+        if (random.nextInt(3) == 0) {
+          g.removeEdge(u, v);
+        } else {
+          g.addEdge(u, v, step);
+        } // if/else
+      } // if
+      if (step % 40 == 0) {
+        g.removeVertex(random.nextInt(VERTICES));
+      } // if
+    } // for
+    check(g);
+    assertEquals(0, g.numEdges() % 2);
+  } // testUndirected()
+
+  /**
+   * A snapshot streams the graph as it was, after the graph changes.
+   */
+  @Test
+  void testSnapshot() throws Exception {
+    Random random = new Random(89);
+    Graph g = new Graph();
+    for (int i = 0; i < VERTICES; i++) {
+      g.addVertex();
+    } // for
+    for (int i = 0; i < 5 * VERTICES; i++) {
+      int from = random.nextInt(VERTICES / 2);
+      int to = random.nextInt(VERTICES);
+      if (from != to) {
+        g.addEdge(from, to, i);
+      } // if
+    } // for
+    for (int i = 0; i < VERTICES / 10; i++) {
+      g.removeVertex(random.nextInt(VERTICES));
+    } // for
+    List<String> edges = strings(g.edges());
+    List<Integer> vertices = new ArrayList<Integer>();
+    for (Iterator<Integer> it = g.vertices(); it.hasNext(); ) {
+      vertices.add(it.next());
+    } // for
+    GraphSnapshot snapshot = g.snapshot();
+    for (int v = 0; v < VERTICES; v += 3) {
+      g.removeVertex(v);
+    } // for
+    assertEquals(edges.size(), snapshot.edgeStream().parallel().count());
+    assertEquals(edges.size(),
+        snapshot.edgeStream().parallel().filter((e) -> true).count());
+    assertEquals(edges, snapshot.edgeStream().parallel()
+        .map(Edge::toString).collect(Collectors.toList()));
+    assertEquals(vertices, snapshot.vertexStream().parallel().boxed()
+        .collect(Collectors.toList()));
+    check(g);
+  } // testSnapshot()
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Check the streams of g against its iterators and counts. The counts
+   * come both from the sizes the streams report and from visiting every
+   * element, and every part of a full split must know its exact size.
+   */
+  static void check(Graph g) {
+    int numEdges = g.numEdges();
+    int numVertices = g.numVertices();
+
+    // The sizes the streams report
+    assertEquals(numEdges, g.edgeStream().count());
+    assertEquals(numEdges, g.edgeStream().parallel().count());
+    assertEquals(numVertices, g.vertexStream().count());
+    assertEquals(numVertices, g.vertexStream().parallel().count());
+
+    // The elements they visit
+    assertEquals(numEdges, g.edgeStream().parallel().filter((e) -> true)
+        .count());
+    assertEquals(numVertices, g.vertexStream().parallel().filter((v) -> true)
+        .count());
+    List<String> edges = strings(g.edges());
+    assertEquals(edges, g.edgeStream().parallel().map(Edge::toString)
+        .collect(Collectors.toList()));
+    List<Integer> vertices = new ArrayList<Integer>();
+    for (Iterator<Integer> it = g.vertices(); it.hasNext(); ) {
+      vertices.add(it.next());
+    } // for
+    assertEquals(vertices, g.vertexStream().parallel().boxed()
+        .collect(Collectors.toList()));
+    assertEquals(numEdges, split(g.edgeStream().spliterator()));
+    assertEquals(numVertices, split(g.vertexStream().spliterator()));
+  } // check(Graph)
+
+  /**
+   * Split a spliterator as far as it will go, check that each part visits
+   * as many elements as it says it has, and return the total.
+   */
+  static long split(Spliterator<?> spliterator) {
+    Spliterator<?> prefix = spliterator.trySplit();
+    if (prefix != null) {
+      return split(prefix) + split(spliterator);
+    } // if
+    long size = spliterator.estimateSize();
+    long[] count = new long[1];
+    spliterator.forEachRemaining((x) -> ++count[0]);
+    assertEquals(size, count[0]);
+    assertEquals(0, spliterator.estimateSize());
+    return size;
+  } // split(Spliterator<?>)
+
+  /**
+   * Get the edges from an iterator as strings.
+   */
+  static List<String> strings(Iterator<Edge> edges) {
+    List<String> result = new ArrayList<String>();
+    while (edges.hasNext()) {
+      result.add(edges.next().toString());
+    } // while
+    return result;
+  } // strings(Iterator<Edge>)
+
+} // GraphStreamTests
@@ -0,0 +1,14 @@
+/**
+ * An estimate of the distance from a vertex to a goal, for use in A*
+ * search. To guarantee that A* finds a cheapest path, the estimate should
+ * never be more than the actual distance.
+ *
+ * @author Samuel A. Rebelsky
+ */
+@FunctionalInterface
+public interface Heuristic {
+  /**
+   * Estimate the distance from vertex to goal.
+   */
+  public long estimate(int vertex, int goal);
+} // interface Heuristic
@@ -0,0 +1,52 @@
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**
+ * A quick experiment with building a graph in which a few "hub" vertices
+ * have very many edges, as in many real-world graphs.
+ *
+ * Usage: java HubExperiment [vertices] [hubs]
+ */
+public class HubExperiment {
+
+  public static void main(String[] args) throws Exception {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    int numVertices = (args.length > 0) ? Integer.parseInt(args[0]) : 200000;
+    int hubs = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+
+    Graph g = new Graph(numVertices);
+    for (int i = 0; i < numVertices; i++) {
+      g.addVertex();
+    } // for
+
+    // Connect each hub to (almost) every other vertex, in random order,
+    // and then add each edge a second time with a new weight.
+    Random random = new Random(207);
+    long begin = System.nanoTime();
+    for (int round = 0; round < 2; round++) {
+      for (int hub = 0; hub < hubs; hub++) {
+        for (int i = 0; i < numVertices; i++) {
+          int to = random.nextInt(numVertices);
+          if (to != hub) {
+            g.addEdge(hub, to, round);
+          } // if
+        } // for
+      } // for
+    } // for
+    long buildTime = System.nanoTime() - begin;
+
+    // Remove half of the edges
+    begin = System.nanoTime();
+    for (int hub = 0; hub < hubs; hub++) {
+      for (int to = 0; to < numVertices; to += 2) {
+        g.removeEdge(hub, to);
+      } // for
+    } // for
+    long removeTime = System.nanoTime() - begin;
+
+    pen.println(g.numEdges() + " edges remain");
+    pen.println("Adding:   " + buildTime / 1000000 + " ms");
+    pen.println("Removing: " + removeTime / 1000000 + " ms");
+  } // main(String[])
+
+} // class HubExperiment
@@ -0,0 +1,195 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary min-heap of vertex numbers, ordered by long keys, that lets us
+ * lower the key of a vertex already in the heap. Everything is stored in
+ * int and long arrays, so pushing and popping allocate nothing.
+ *
+ * @author Samuel A. Rebelsky
+ */
+class IndexedMinHeap {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The vertices in the heap, in heap order.
+   */
+  int[] heap;
+
+  /**
+   * The keys of the vertices in the heap. keys[i] is the key of heap[i].
+   */
+  long[] keys;
+
+  /**
+   * Where each vertex is in the heap. positions[v] is the index of v in
+   * heap, or -1 if v is not in the heap.
+   */
+  int[] positions;
+
+  /**
+   * The number of vertices in the heap.
+   */
+  int size;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a heap that can hold vertices 0 .. capacity-1.
+   */
+  IndexedMinHeap(int capacity) {
+    this.heap = new int[capacity];
+    this.keys = new long[capacity];
+    this.positions = new int[capacity];
+    Arrays.fill(this.positions, -1);
+    this.size = 0;
+  } // IndexedMinHeap(int)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Remove everything from the heap. Takes time proportional to the number
+   * of vertices in the heap, not to its capacity.
+   */
+  void clear() {
+    for (int i = 0; i < this.size; i++) {
+      this.positions[this.heap[i]] = -1;
+    } // for
+    this.size = 0;
+  } // clear()
+
+  /**
+   * Make sure that the heap can hold vertices 0 .. capacity-1.
+   */
+  void ensureCapacity(int capacity) {
+    int oldCapacity = this.positions.length;
+    if (capacity > oldCapacity) {
+      this.heap = Arrays.copyOf(this.heap, capacity);
+      this.keys = Arrays.copyOf(this.keys, capacity);
+      this.positions = Arrays.copyOf(this.positions, capacity);
+      Arrays.fill(this.positions, oldCapacity, capacity, -1);
+    } // if
+  } // ensureCapacity(int)
+
+  /**
+   * Determine if the heap is empty.
+   */
+  boolean isEmpty() {
+    return this.size == 0;
+  } // isEmpty()
+
+  /**
+   * Determine if a vertex is in the heap.
+   */
+  boolean contains(int vertex) {
+    return this.positions[vertex] != -1;
+  } // contains(int)
+
+  /**
+   * Add a vertex to the heap with a given key. If the vertex is already in
+   * the heap, give it the new key instead.
+   */
+  void push(int vertex, long key) {
+    int i = this.positions[vertex];
+    if (i == -1) {
+      i = this.size++;
+      this.heap[i] = vertex;
+      this.keys[i] = key;
+      this.positions[vertex] = i;
+      this.siftUp(i);
+    } else if (key < this.keys[i]) {
+      this.keys[i] = key;
+      this.siftUp(i);
+    } else {
+      this.keys[i] = key;
+      this.siftDown(i);
+    } // if/else
+  } // push(int, long)
+
+  /**
+   * Remove and return the vertex with the smallest key.
+   *
+   * @exception NoSuchElementException if the heap is empty
+   */
+  int pop() {
+    if (this.size == 0) {
+      throw new NoSuchElementException();
+    } // if
+    int result = this.heap[0];
+    this.positions[result] = -1;
+    --this.size;
+    if (this.size > 0) {
+      this.heap[0] = this.heap[this.size];
+      this.keys[0] = this.keys[this.size];
+      this.positions[this.heap[0]] = 0;
+      this.siftDown(0);
+    } // if
+    return result;
+  } // pop()
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Move the entry at position i up until its parent is no larger.
+   */
+  private void siftUp(int i) {
+    int vertex = this.heap[i];
+    long key = this.keys[i];
+    while (i > 0) {
+      int parent = (i - 1) / 2;
+      if (this.keys[parent] <= key) {
+        break;
+      } // if
+      this.move(parent, i);
+      i = parent;
+    } // while
+    this.heap[i] = vertex;
+    this.keys[i] = key;
+    this.positions[vertex] = i;
+  } // siftUp(int)
+
+  /**
+   * Move the entry at position i down until its children are no smaller.
+   */
+  private void siftDown(int i) {
+    int vertex = this.heap[i];
+    long key = this.keys[i];
+    while (true) {
+      int child = 2 * i + 1;
+      if (child >= this.size) {
+        break;
+      } // if
+      if ((child + 1 < this.size)
+          && (this.keys[child + 1] < this.keys[child])) {
+        ++child;
+      } // if
+      if (key <= this.keys[child]) {
+        break;
+      } // if
+      this.move(child, i);
+      i = child;
+    } // while
+    this.heap[i] = vertex;
+    this.keys[i] = key;
+    this.positions[vertex] = i;
+  } // siftDown(int)
+
+  /**
+   * Move the entry at position from to position to.
+   */
+  private void move(int from, int to) {
+    this.heap[to] = this.heap[from];
+    this.keys[to] = this.keys[from];
+    this.positions[this.heap[to]] = to;
+  } // move(int, int)
+
+} // class IndexedMinHeap
@@ -0,0 +1,243 @@
+import java.util.Arrays;
+
+/**
+ * An array of ints that, once shared, is kept in fixed-size pages, so
+ * that a copy can share every page that neither side changes. Graph and
+ * NameTable keep their per-vertex arrays this way, so that a snapshot
+ * costs little to take and little to keep, while a graph that never
+ * takes one keeps flat arrays.
+ *
+ * @author Samuel A. Rebelsky
+ */
+class IntPages {
+
+  // +-------+-------------------------------------------------------
+  // | Notes |
+  // +-------+
+
+  /*
+   * Until the first call to share, the entries are simply in flat, and
+   * the other fields are unused, so a get costs no more than an array
+   * access. (get checks flat first; in a loop, the JIT hoists that check
+   * along with the load of the field.) share moves the entries into
+   * pages, once, and from then on flat is null.
+   *
+   * Entry i is entry i & PAGE_MASK of pages[i >>> PAGE_BITS]. Every page
+   * but the last holds PAGE_SIZE entries; the last holds just the rest,
+   * so that a small array takes little space.
+   *
+   * share returns a copy that shares our pages, and then we start a new
+   * epoch. A page belongs to us only if we made it in the current epoch
+   * (epochs[p] is the epoch in which we made page p); we copy any other
+   * page the first time we change it. The copy has its own epochs, in
+   * which none of its pages belong to it, so either side may change its
+   * entries without disturbing the other. Sharing takes time in
+   * proportion to the number of pages, and each change after it copies
+   * at most one page.
+   *
+   * LongPages and ListPages do the same for longs and for int arrays.
+   */
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of bits of an index that pick the entry within a page.
+   */
+  static final int PAGE_BITS = 10;
+
+  /**
+   * The number of entries in a page.
+   */
+  static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+  /**
+   * The mask for the entry within a page.
+   */
+  static final int PAGE_MASK = PAGE_SIZE - 1;
+
+  /**
+   * The epochs[p] of a page we did not make.
+   */
+  static final int SHARED = -1;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The entries, if we have never been shared, or null.
+   */
+  int[] flat;
+
+  /**
+   * The pages, once we have been shared.
+   */
+  int[][] pages;
+
+  /**
+   * The epoch in which we made each page, or SHARED.
+   */
+  int[] epochs;
+
+  /**
+   * The current epoch.
+   */
+  int epoch;
+
+  /**
+   * The number of entries.
+   */
+  int length;
+
+  /**
+   * The value of entries we have not set.
+   */
+  int fill;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create an array of length entries, each holding fill.
+   */
+  IntPages(int length, int fill) {
+    this.flat = new int[length];
+    if (fill != 0) {
+      Arrays.fill(this.flat, fill);
+    } // if
+    this.length = length;
+    this.fill = fill;
+  } // IntPages(int, int)
+
+  /**
+   * Create a copy of other that shares its pages.
+   */
+  private IntPages(IntPages other) {
+    this.pages = other.pages.clone();
+    this.epochs = new int[this.pages.length];
+    Arrays.fill(this.epochs, SHARED);
+    this.length = other.length;
+    this.fill = other.fill;
+  } // IntPages(IntPages)
+
+  // +-----------+---------------------------------------------------
+  // | Observers |
+  // +-----------+
+
+  /**
+   * Get entry i.
+   */
+  int get(int i) {
+    int[] flat = this.flat;
+    if (flat != null) {
+      return flat[i];
+    } // if
+    return this.pages[i >>> PAGE_BITS][i & PAGE_MASK];
+  } // get(int)
+
+  /**
+   * Get the number of entries.
+   */
+  int length() {
+    return this.length;
+  } // length()
+
+  // +----------+----------------------------------------------------
+  // | Mutators |
+  // +----------+
+
+  /**
+   * Set entry i.
+   */
+  void set(int i, int value) {
+    if (this.flat != null) {
+      this.flat[i] = value;
+    } else {
+      this.own(i >>> PAGE_BITS)[i & PAGE_MASK] = value;
+    } // if/else
+  } // set(int, int)
+
+  /**
+   * Get a copy that shares our pages. Changes to either do not affect
+   * the other.
+   */
+  IntPages share() {
+    if (this.flat != null) {
+      this.paginate();
+    } // if
+    IntPages copy = new IntPages(this);
+    ++this.epoch;
+    return copy;
+  } // share()
+
+  /**
+   * Make room for at least length entries. The new entries hold fill.
+   */
+  void grow(int length) {
+    if (length <= this.length) {
+      return;
+    } // if
+    if (this.flat != null) {
+      int oldLength = this.length;
+      this.flat = Arrays.copyOf(this.flat, length);
+      if (this.fill != 0) {
+        Arrays.fill(this.flat, oldLength, length, this.fill);
+      } // if
+      this.length = length;
+      return;
+    } // if
+    int oldPages = this.pages.length;
+    int newPages = (length + PAGE_MASK) >>> PAGE_BITS;
+    this.pages = Arrays.copyOf(this.pages, newPages);
+    this.epochs = Arrays.copyOf(this.epochs, newPages);
+    // Every page but the last is full, so only the old last page and the
+    // new pages need room
+    for (int p = Math.max(oldPages - 1, 0); p < newPages; p++) {
+      int size = Math.min(PAGE_SIZE, length - (p << PAGE_BITS));
+      int oldSize = (this.pages[p] == null) ? 0 : this.pages[p].length;
+      if (size > oldSize) {
+        int[] page = (oldSize == 0) ? new int[size]
+            : Arrays.copyOf(this.pages[p], size);
+        Arrays.fill(page, oldSize, size, this.fill);
+        this.pages[p] = page;
+        this.epochs[p] = this.epoch;
+      } // if
+    } // for
+    this.length = length;
+  } // grow(int)
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Move the entries from flat into pages.
+   */
+  private void paginate() {
+    int numPages = (this.length + PAGE_MASK) >>> PAGE_BITS;
+    this.pages = new int[numPages][];
+    this.epochs = new int[numPages];
+    for (int p = 0; p < numPages; p++) {
+      int start = p << PAGE_BITS;
+      this.pages[p] = Arrays.copyOfRange(this.flat, start,
+          Math.min(start + PAGE_SIZE, this.length));
+      this.epochs[p] = this.epoch;
+    } // for
+    this.flat = null;
+  } // paginate()
+
+  /**
+   * Get page p, copying it first if it is not ours.
+   */
+  private int[] own(int p) {
+    if (this.epochs[p] != this.epoch) {
+      this.pages[p] = this.pages[p].clone();
+      this.epochs[p] = this.epoch;
+    } // if
+    return this.pages[p];
+  } // own(int)
+
+} // class IntPages
@@ -0,0 +1,217 @@
+import java.util.Arrays;
+
+/**
+ * An array of int arrays (such as adjacency lists) that, once shared,
+ * is kept in fixed-size pages, so that a copy can share every page that
+ * neither side changes. See IntPages.
+ *
+ * @author Samuel A. Rebelsky
+ */
+class ListPages {
+
+  // +-------+-------------------------------------------------------
+  // | Notes |
+  // +-------+
+
+  /*
+   * Just like IntPages (which see), with references to int arrays for
+   * entries. Copying a page copies only the references; the arrays they
+   * refer to are shared, and it is up to the owner not to change one that
+   * a copy may use (see Graph.ownEdges).
+   */
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The size of the pages, as in IntPages.
+   */
+  static final int PAGE_BITS = IntPages.PAGE_BITS;
+  static final int PAGE_SIZE = IntPages.PAGE_SIZE;
+  static final int PAGE_MASK = IntPages.PAGE_MASK;
+
+  /**
+   * The epochs[p] of a page we did not make.
+   */
+  static final int SHARED = IntPages.SHARED;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The entries, if we have never been shared, or null.
+   */
+  int[][] flat;
+
+  /**
+   * The pages, once we have been shared.
+   */
+  int[][][] pages;
+
+  /**
+   * The epoch in which we made each page, or SHARED.
+   */
+  int[] epochs;
+
+  /**
+   * The current epoch.
+   */
+  int epoch;
+
+  /**
+   * The number of entries.
+   */
+  int length;
+
+  /**
+   * The value of entries we have not set.
+   */
+  int[] fill;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create an array of length entries, each holding fill.
+   */
+  ListPages(int length, int[] fill) {
+    this.flat = new int[length][];
+    if (fill != null) {
+      Arrays.fill(this.flat, fill);
+    } // if
+    this.length = length;
+    this.fill = fill;
+  } // ListPages(int, int[])
+
+  /**
+   * Create a copy of other that shares its pages.
+   */
+  private ListPages(ListPages other) {
+    this.pages = other.pages.clone();
+    this.epochs = new int[this.pages.length];
+    Arrays.fill(this.epochs, SHARED);
+    this.length = other.length;
+    this.fill = other.fill;
+  } // ListPages(ListPages)
+
+  // +-----------+---------------------------------------------------
+  // | Observers |
+  // +-----------+
+
+  /**
+   * Get entry i.
+   */
+  int[] get(int i) {
+    int[][] flat = this.flat;
+    if (flat != null) {
+      return flat[i];
+    } // if
+    return this.pages[i >>> PAGE_BITS][i & PAGE_MASK];
+  } // get(int)
+
+  /**
+   * Get the number of entries.
+   */
+  int length() {
+    return this.length;
+  } // length()
+
+  // +----------+----------------------------------------------------
+  // | Mutators |
+  // +----------+
+
+  /**
+   * Set entry i.
+   */
+  void set(int i, int[] value) {
+    if (this.flat != null) {
+      this.flat[i] = value;
+    } else {
+      this.own(i >>> PAGE_BITS)[i & PAGE_MASK] = value;
+    } // if/else
+  } // set(int, int[])
+
+  /**
+   * Get a copy that shares our pages. Changes to either do not affect
+   * the other.
+   */
+  ListPages share() {
+    if (this.flat != null) {
+      this.paginate();
+    } // if
+    ListPages copy = new ListPages(this);
+    ++this.epoch;
+    return copy;
+  } // share()
+
+  /**
+   * Make room for at least length entries. The new entries hold fill.
+   */
+  void grow(int length) {
+    if (length <= this.length) {
+      return;
+    } // if
+    if (this.flat != null) {
+      int oldLength = this.length;
+      this.flat = Arrays.copyOf(this.flat, length);
+      if (this.fill != null) {
+        Arrays.fill(this.flat, oldLength, length, this.fill);
+      } // if
+      this.length = length;
+      return;
+    } // if
+    int oldPages = this.pages.length;
+    int newPages = (length + PAGE_MASK) >>> PAGE_BITS;
+    this.pages = Arrays.copyOf(this.pages, newPages);
+    this.epochs = Arrays.copyOf(this.epochs, newPages);
+    // Every page but the last is full, so only the old last page and the
+    // new pages need room
+    for (int p = Math.max(oldPages - 1, 0); p < newPages; p++) {
+      int size = Math.min(PAGE_SIZE, length - (p << PAGE_BITS));
+      int oldSize = (this.pages[p] == null) ? 0 : this.pages[p].length;
+      if (size > oldSize) {
+        int[][] page = (oldSize == 0) ? new int[size][]
+            : Arrays.copyOf(this.pages[p], size);
+        Arrays.fill(page, oldSize, size, this.fill);
+        this.pages[p] = page;
+        this.epochs[p] = this.epoch;
+      } // if
+    } // for
+    this.length = length;
+  } // grow(int)
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Move the entries from flat into pages.
+   */
+  private void paginate() {
+    int numPages = (this.length + PAGE_MASK) >>> PAGE_BITS;
+    this.pages = new int[numPages][][];
+    this.epochs = new int[numPages];
+    for (int p = 0; p < numPages; p++) {
+      int start = p << PAGE_BITS;
+      this.pages[p] = Arrays.copyOfRange(this.flat, start,
+          Math.min(start + PAGE_SIZE, this.length));
+      this.epochs[p] = this.epoch;
+    } // for
+    this.flat = null;
+  } // paginate()
+
+  /**
+   * Get page p, copying it first if it is not ours.
+   */
+  private int[][] own(int p) {
+    if (this.epochs[p] != this.epoch) {
+      this.pages[p] = this.pages[p].clone();
+      this.epochs[p] = this.epoch;
+    } // if
+    return this.pages[p];
+  } // own(int)
+
+} // class ListPages
@@ -0,0 +1,92 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**
+ * A quick experiment to see how quickly we can read edges from a file.
+ * We compare EdgeLoader (used by readEdges) to reading one line at a time
+ * with a BufferedReader, and then see how long it takes to reload the
+ * same graph from a binary file and to map it with MappedGraph.
+ *
+ * Usage: java LoaderExperiment [edges] [vertices]
+ */
+public class LoaderExperiment {
+
+  public static void main(String[] args) throws Exception {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    int numEdges = (args.length > 0) ? Integer.parseInt(args[0]) : 5000000;
+    int numVertices = (args.length > 1) ? Integer.parseInt(args[1]) : 500000;
+
+    // Write a file of random edges
+    File file = File.createTempFile("edges", ".txt");
+    file.deleteOnExit();
+    PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file)));
+    Random random = new Random(207);
+    for (int i = 0; i < numEdges; i++) {
+      int from = random.nextInt(numVertices);
+      int to = random.nextInt(numVertices);
+      if (from != to) {
+        out.println("v" + from + " v" + to + " " + random.nextInt(1000));
+      } // if
+    } // for
+    out.close();
+    pen.println("Wrote " + file.length() / (1024 * 1024) + " MB");
+
+    // Read it a line at a time
+    long begin = System.nanoTime();
+    Graph slow = new Graph();
+    BufferedReader lines = new BufferedReader(new FileReader(file));
+    String line;
+    while ((line = lines.readLine()) != null) {
+      String[] parts = line.split(" ");
+      slow.addEdge(slow.safeVertexNumber(parts[0]),
+          slow.safeVertexNumber(parts[1]), Integer.parseInt(parts[2]));
+    } // while
+    lines.close();
+    report(pen, "BufferedReader", slow, System.nanoTime() - begin);
+
+    // Read it with the loader
+    begin = System.nanoTime();
+    Graph fast = new Graph();
+    fast.readEdges(file.getPath());
+    report(pen, "EdgeLoader", fast, System.nanoTime() - begin);
+
+    // Save it in binary, and read it back
+    for (boolean compress : new boolean[] {false, true}) {
+      File binary = File.createTempFile("edges", ".bin");
+      binary.deleteOnExit();
+      fast.saveBinary(binary.getPath(), compress);
+      begin = System.nanoTime();
+      Graph loaded = Graph.loadBinary(binary.getPath());
+      report(pen, compress ? "compressed" : "binary", loaded,
+          System.nanoTime() - begin);
+      pen.println("  (" + binary.length() / (1024 * 1024) + " MB)");
+    } // for
+
+    // Map it, and find a path without ever loading the edges
+    File binary = File.createTempFile("edges", ".bin");
+    binary.deleteOnExit();
+    fast.saveBinary(binary.getPath());
+    begin = System.nanoTime();
+    MappedGraph mapped = new MappedGraph(binary.getPath());
+    pen.printf("%-15s %6d ms\n", "mapped",
+        (System.nanoTime() - begin) / 1000000);
+    begin = System.nanoTime();
+    mapped.path("v0", "v1");
+    pen.printf("%-15s %6d ms\n", "  first path",
+        (System.nanoTime() - begin) / 1000000);
+  } // main(String[])
+
+  /**
+   * Report how fast we read the edges.
+   */
+  static void report(PrintWriter pen, String how, Graph g, long nanos) {
+    pen.printf("%-15s %6d ms, %10.0f edges/sec\n", how, nanos / 1000000,
+        g.numEdges() / (nanos / 1e9));
+  } // report(PrintWriter, String, Graph, long)
+
+} // class LoaderExperiment
@@ -0,0 +1,382 @@
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A read-only graph that stays in a file (saved by Graph.saveBinary)
+ * rather than on the heap. The operating system pages the parts of the
+ * file we use into memory as we need them, so we can open a graph almost
+ * immediately, even if it is much larger than the heap.
+ *
+ * @author Samuel A. Rebelsky
+ */
+public class MappedGraph {
+
+  // +-------+-------------------------------------------------------
+  // | Notes |
+  // +-------+
+
+  /*
+   * We memory-map the uncompressed binary format (see BinaryGraphFile).
+   * Since a single mapping can hold at most 2GB, we map each of the
+   * offsets, targets, and weights in pieces of SEGMENT_INTS ints.
+   *
+   * The offsets are ints, as in CsrGraph, so a file has at most
+   * Integer.MAX_VALUE edges, and so do we.
+   *
+   * Finding the name of a vertex requires knowing where in the file it is,
+   * and finding the number of a name requires a hash table. We build
+   * those (on the heap) the first time someone asks about names. The
+   * table is laid out as in NameTable, with the hash of a name and its
+   * vertex number packed in each cell, but we compare against the names
+   * in the file rather than copies of them. Both take space proportional
+   * to the number of vertices, but not to the number of edges or the
+   * length of the names.
+   */
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of ints in each mapped piece of the file.
+   */
+  static final int SEGMENT_INTS = 1 << 28;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The name of the file.
+   */
+  String fname;
+
+  /**
+   * The number of vertex numbers.
+   */
+  int capacity;
+
+  /**
+   * The number of vertices in the graph.
+   */
+  int numVertices;
+
+  /**
+   * The number of edges in the graph.
+   */
+  int numEdges;
+
+  /**
+   * The vertex names, as in the file.
+   */
+  MappedByteBuffer names;
+
+  /**
+   * The edges, in CSR form (see CsrGraph).
+   */
+  MappedByteBuffer[] offsets;
+  MappedByteBuffer[] targets;
+  MappedByteBuffer[] weights;
+
+  /**
+   * Where the name of each vertex starts in names, or -1 for an unused
+   * vertex number. Null until we need it.
+   */
+  int[] nameStarts;
+
+  /**
+   * The hash table of names, as in NameTable. Null until we need it.
+   */
+  long[] nameCells;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Open a graph saved (without compression) by Graph.saveBinary.
+   *
+   * @exception Exception if the file is not in the right format
+   */
+  public MappedGraph(String fname) throws Exception {
+    this.fname = fname;
+    try (RandomAccessFile file = new RandomAccessFile(fname, "r");
+        FileChannel channel = file.getChannel()) {
+      MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+          BinaryGraphFile.HEADER_SIZE);
+      if ((header.getInt(0) != BinaryGraphFile.MAGIC)
+          || (header.getInt(4) != BinaryGraphFile.FORMAT_VERSION)) {
+        throw new Exception(fname + " is not a version "
+            + BinaryGraphFile.FORMAT_VERSION + " binary graph file");
+      } // if
+      if ((header.getInt(8) & BinaryGraphFile.COMPRESSED) != 0) {
+        throw new Exception("Cannot map compressed file " + fname);
+      } // if
+      this.capacity = header.getInt(12);
+      this.numVertices = header.getInt(16);
+      long numEdges = header.getLong(20);
+      if ((numEdges < 0) || (numEdges > Integer.MAX_VALUE)) {
+        throw new Exception(fname + " has too many edges to map");
+      } // if
+      this.numEdges = (int) numEdges;
+      long edgesStart = header.getLong(BinaryGraphFile.EDGES_START_POSITION);
+
+      this.names = channel.map(FileChannel.MapMode.READ_ONLY,
+          BinaryGraphFile.HEADER_SIZE,
+          edgesStart - BinaryGraphFile.HEADER_SIZE);
+      this.offsets = map(channel, edgesStart, this.capacity + 1);
+      long targetsStart = edgesStart + 4L * (this.capacity + 1);
+      this.targets = map(channel, targetsStart, this.numEdges);
+      this.weights = map(channel, targetsStart + 4L * this.numEdges,
+          this.numEdges);
+    } // try
+  } // MappedGraph(String)
+
+  // +----------------------+----------------------------------------
+  // | Vertex names/numbers |
+  // +----------------------+
+
+  /**
+   * Given a vertex number, get the corresponding vertex name. If there is no
+   * corresponding vertex name, returns null;
+   */
+  public String vertexName(int vertexNumber) {
+    if ((vertexNumber < 0) || (vertexNumber >= this.capacity)) {
+      return null;
+    } // if
+    int start = this.nameStarts()[vertexNumber];
+    if (start == -1) {
+      return null;
+    } // if
+    byte[] bytes = new byte[this.names.getInt(start)];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = this.names.get(start + 4 + i);
+    } // for
+    return new String(bytes, StandardCharsets.UTF_8);
+  } // vertexName(int)
+
+  /**
+   * Given a vertex name, get the corresponding vertex number. If there is no
+   * corresponding vertex number, returns -1.
+   */
+  public int vertexNumber(String vertexName) {
+    if (vertexName == null) {
+      return -1;
+    } // if
+    int[] starts = this.nameStarts();
+    long[] cells = this.nameCells();
+    byte[] bytes = vertexName.getBytes(StandardCharsets.UTF_8);
+    int hash = NameTable.hash(bytes, 0, bytes.length);
+    int mask = cells.length - 1;
+    for (int cell = hash & mask; cells[cell] != NameTable.EMPTY;
+        cell = (cell + 1) & mask) {
+      long entry = cells[cell];
+      int v = (int) entry;
+      if (((int) (entry >>> 32) == hash) && this.matches(starts[v], bytes)) {
+        return v;
+      } // if
+    } // for
+    return -1;
+  } // vertexNumber(String)
+
+  // +-----------+---------------------------------------------------
+  // | Observers |
+  // +-----------+
+
+  /**
+   * Get the number of edges.
+   */
+  public int numEdges() {
+    return this.numEdges;
+  } // numEdges()
+
+  /**
+   * Get the number of vertices.
+   */
+  public int numVertices() {
+    return this.numVertices;
+  } // numVertices()
+
+  /**
+   * Get the number of edges from a particular vertex.
+   */
+  public int degree(int vertex) {
+    if ((vertex < 0) || (vertex >= this.capacity)) {
+      return 0;
+    } // if
+    return get(this.offsets, vertex + 1) - get(this.offsets, vertex);
+  } // degree(int)
+
+  /**
+   * Get all of the edges from a particular vertex.
+   */
+  public Iterator<Edge> edgesFrom(int vertex) {
+    final int start;
+    final int end;
+    if ((vertex < 0) || (vertex >= this.capacity)) {
+      start = 0;
+      end = 0;
+    } else {
+      start = get(this.offsets, vertex);
+      end = get(this.offsets, vertex + 1);
+    } // if/else
+    return new Iterator<Edge>() {
+      // The position of the next edge
+      int pos = start;
+
+      public boolean hasNext() {
+        return this.pos < end;
+      } // hasNext()
+
+      public Edge next() {
+        if (!this.hasNext()) {
+          throw new NoSuchElementException();
+        } // if
+        Edge e = new Edge(vertex, get(MappedGraph.this.targets, this.pos),
+            get(MappedGraph.this.weights, this.pos));
+        ++this.pos;
+        return e;
+      } // next()
+    }; // new Iterator<Edge>
+  } // edgesFrom(int)
+
+  /**
+   * Get all of the edges from a particular vertex.
+   */
+  public Iterator<Edge> edgesFrom(String vertex) {
+    return this.edgesFrom(vertexNumber(vertex));
+  } // edgesFrom(String)
+
+  /**
+   * Visit all of the edges from a particular vertex.
+   */
+  public void forEachNeighbor(int vertex, EdgeVisitor visitor) {
+    if ((vertex < 0) || (vertex >= this.capacity)) {
+      return;
+    } // if
+    int end = get(this.offsets, vertex + 1);
+    for (int pos = get(this.offsets, vertex); pos < end; pos++) {
+      visitor.visit(vertex, get(this.targets, pos), get(this.weights, pos));
+    } // for
+  } // forEachNeighbor(int, EdgeVisitor)
+
+  /**
+   * Get a path from start to finish. If no such path exists, returns null.
+   */
+  public List<Edge> path(int start, int finish) {
+    if ((this.vertexName(start) == null) || (this.vertexName(finish) == null)) {
+      return null;
+    } // if
+    return PathSearch.path(this::forEachNeighbor, this.capacity, start,
+        finish);
+  } // path(int, int)
+
+  /**
+   * Get a path from start to finish. If no such path exists, returns null.
+   */
+  public List<Edge> path(String start, String finish) {
+    return path(this.vertexNumber(start), this.vertexNumber(finish));
+  } // path(String, String)
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Map count ints, starting at position start of the file.
+   */
+  static MappedByteBuffer[] map(FileChannel channel, long start, long count)
+      throws Exception {
+    int pieces = (int) ((count + SEGMENT_INTS - 1) / SEGMENT_INTS);
+    MappedByteBuffer[] result = new MappedByteBuffer[Math.max(pieces, 1)];
+    for (int i = 0; i < result.length; i++) {
+      long first = (long) i * SEGMENT_INTS;
+      long ints = Math.min(SEGMENT_INTS, count - first);
+      result[i] = channel.map(FileChannel.MapMode.READ_ONLY, start + 4 * first,
+          4 * Math.max(ints, 0));
+    } // for
+    return result;
+  } // map(FileChannel, long, long)
+
+  /**
+   * Get the int at index i of a mapped array.
+   */
+  static int get(MappedByteBuffer[] ints, int i) {
+    return ints[i / SEGMENT_INTS].getInt(4 * (i % SEGMENT_INTS));
+  } // get(MappedByteBuffer[], int)
+
+  /**
+   * Get the positions of the names, building them if necessary.
+   */
+  int[] nameStarts() {
+    if (this.nameStarts == null) {
+      int[] starts = new int[this.capacity];
+      int pos = 0;
+      for (int v = 0; v < this.capacity; v++) {
+        int length = this.names.getInt(pos);
+        if (length < 0) {
+          starts[v] = -1;
+          pos += 4;
+        } else {
+          starts[v] = pos;
+          pos += 4 + length;
+        } // if/else
+      } // for
+      this.nameStarts = starts;
+    } // if
+    return this.nameStarts;
+  } // nameStarts()
+
+  /**
+   * Get the hash table of names, building it if necessary.
+   */
+  long[] nameCells() {
+    if (this.nameCells == null) {
+      int[] starts = this.nameStarts();
+      long[] cells = new long[NameTable.tableSize(this.numVertices)];
+      Arrays.fill(cells, NameTable.EMPTY);
+      int mask = cells.length - 1;
+      byte[] bytes = new byte[0];
+      for (int v = 0; v < this.capacity; v++) {
+        if (starts[v] != -1) {
+          int length = this.names.getInt(starts[v]);
+          if (bytes.length < length) {
+            bytes = new byte[Math.max(length, 2 * bytes.length)];
+          } // if
+          this.names.get(starts[v] + 4, bytes, 0, length);
+          int hash = NameTable.hash(bytes, 0, length);
+          int cell = hash & mask;
+          while (cells[cell] != NameTable.EMPTY) {
+            cell = (cell + 1) & mask;
+          } // while
+          cells[cell] = ((long) hash << 32) | v;
+        } // if
+      } // for
+      this.nameCells = cells;
+    } // if
+    return this.nameCells;
+  } // nameCells()
+
+  /**
+   * Determine if the name that starts at position start of names has the
+   * given bytes.
+   */
+  boolean matches(int start, byte[] bytes) {
+    if (this.names.getInt(start) != bytes.length) {
+      return false;
+    } // if
+    for (int i = 0; i < bytes.length; i++) {
+      if (this.names.get(start + 4 + i) != bytes[i]) {
+        return false;
+      } // if
+    } // for
+    return true;
+  } // matches(int, byte[])
+
+} // class MappedGraph
@@ -1,4 +1,6 @@
 import static org.junit.jupiter.api.Assertions.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -21,6 +23,11 @@ class MarkTests {
   // | Fields |
   // +--------+
 
+  /**
+   * The number of threads in the multi-threaded tests.
+   */
+  static final int THREADS = 8;
+
   /**
    * The graph we're using.
    */
@@ -151,4 +158,158 @@ class MarkTests {
       } // for j
     } // for i
   } // testNamedMarksMultiple()
+
+  /**
+   * Use more than seven marks on one vertex.
+   */
+  @Test
+  void testManyMarks() {
+    int v = g.addVertex();
+    for (int i = 1; i <= VertexMarks.MAX_MARKS; i++) {
+      assertTrue(g.mark(v, VertexMarks.nthMark(i)));
+      assertFalse(g.mark(v, VertexMarks.nthMark(i)));
+    } // for i
+    for (int i = 1; i <= VertexMarks.MAX_MARKS; i += 2) {
+      g.unmark(v, VertexMarks.nthMark(i));
+    } // for i
+    for (int i = 1; i <= VertexMarks.MAX_MARKS; i++) {
+      assertEquals(i % 2 == 0, g.isMarked(v, VertexMarks.nthMark(i)),
+          "Mark " + i);
+    } // for i
+    assertEquals(Graph.MARK07, VertexMarks.nthMark(7));
+  } // testManyMarks()
+
+  /**
+   * Clear the marks many times, including more times than there are
+   * epochs.
+   */
+  @Test
+  void testClearMarks() {
+    int v1 = g.addVertex();
+    int v2 = g.addVertex();
+    g.mark(v1, Graph.MARK02);
+    for (int i = 0; i <= VertexMarks.MAX_EPOCH + 1; i++) {
+      g.clearMarks();
+      assertFalse(g.isMarked(v1), "After clear " + i);
+      assertFalse(g.isMarked(v2), "After clear " + i);
+      if (i % 1000 == 0) {
+        g.mark(v2, Graph.MARK03);
+        assertTrue(g.isMarked(v2, Graph.MARK03));
+      } // if
+    } // for
+    g.mark(v1);
+    assertTrue(g.isMarked(v1));
+    assertFalse(g.isMarked(v2));
+  } // testClearMarks()
+
+  /**
+   * Have several threads mark the same vertices with different marks at
+   * the same time. No mark should be lost.
+   */
+  @Test
+  void testConcurrentMarks() throws Exception {
+    int n = 1000;
+    for (int i = 0; i < n; i++) {
+      g.addVertex();
+    } // for
+    inThreads((t) -> {
+      long mark = VertexMarks.nthMark(t + 1);
+      for (int round = 0; round < 100; round++) {
+        for (int v = 0; v < n; v++) {
+          g.mark(v, mark);
+        } // for
+        for (int v = 0; v < n; v++) {
+          if ((round < 99) || (t % 2 == 1)) {
+            g.unmark(v, mark);
+          } // if
+        } // for
+      } // for
+    });
+    for (int v = 0; v < n; v++) {
+      for (int t = 0; t < THREADS; t++) {
+        assertEquals(t % 2 == 0, g.isMarked(v, VertexMarks.nthMark(t + 1)),
+            "Vertex " + v + ", mark " + (t + 1));
+      } // for
+    } // for
+  } // testConcurrentMarks()
+
+  /**
+   * Have several threads race to mark the same vertices with the same
+   * mark. Exactly one thread should succeed for each vertex.
+   */
+  @Test
+  void testConcurrentClaims() throws Exception {
+    int n = 100000;
+    for (int i = 0; i < n; i++) {
+      g.addVertex();
+    } // for
+    AtomicInteger claimed = new AtomicInteger();
+    inThreads((t) -> {
+      for (int v = 0; v < n; v++) {
+        if (g.mark(v, Graph.MARK05)) {
+          claimed.incrementAndGet();
+        } // if
+      } // for
+    });
+    assertEquals(n, claimed.get());
+  } // testConcurrentClaims()
+
+  /**
+   * Two traversals with their own marks should not see each other's marks.
+   */
+  @Test
+  void testSeparateMarks() throws Exception {
+    int n = 1000;
+    for (int i = 0; i < n; i++) {
+      g.addVertex();
+    } // for
+    VertexMarks[] marksets = new VertexMarks[THREADS];
+    for (int t = 0; t < THREADS; t++) {
+      marksets[t] = g.newMarks();
+    } // for
+    inThreads((t) -> {
+      for (int round = 0; round < 50; round++) {
+        marksets[t].clear();
+        for (int v = t; v < n; v += THREADS) {
+          marksets[t].mark(v, Graph.MARK);
+        } // for
+      } // for
+    });
+    for (int t = 0; t < THREADS; t++) {
+      for (int v = 0; v < n; v++) {
+        assertEquals(v % THREADS == t, marksets[t].isMarked(v));
+      } // for
+    } // for
+    assertFalse(g.isMarked(0));
+  } // testSeparateMarks()
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Run body in THREADS threads at once, passing each its number. Fails if
+   * any thread fails.
+   */
+  static void inThreads(IntConsumer body) throws Exception {
+    Thread[] threads = new Thread[THREADS];
+    Throwable[] failures = new Throwable[THREADS];
+    for (int t = 0; t < THREADS; t++) {
+      int number = t;
+      threads[t] = new Thread(() -> {
+        try {
+          body.accept(number);
+        } catch (Throwable e) {
+          failures[number] = e;
+        } // try/catch
+      });
+      threads[t].start();
+    } // for
+    for (int t = 0; t < THREADS; t++) {
+      threads[t].join();
+      if (failures[t] != null) {
+        fail("Thread " + t + " failed", failures[t]);
+      } // if
+    } // for
+  } // inThreads(IntConsumer)
 } // MarkTests
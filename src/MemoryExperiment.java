@@ -0,0 +1,74 @@
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A quick experiment to see how much heap a large graph needs. We compare
+ * the primitive adjacency lists in Graph to lists of Edge objects (the way
+ * Graph used to store edges).
+ *
+ * Usage: java MemoryExperiment [vertices] [edges]
+ */
+public class MemoryExperiment {
+
+  public static void main(String[] args) throws Exception {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    int numVertices = (args.length > 0) ? Integer.parseInt(args[0]) : 100000;
+    int numEdges = (args.length > 1) ? Integer.parseInt(args[1]) : 2000000;
+
+    // Build the graph. We only measure the edges, since the vertex
+    // names are the same either way.
+    Graph g = new Graph(numVertices);
+    for (int i = 0; i < numVertices; i++) {
+      g.addVertex();
+    } // for
+    long before = usedMemory();
+    Random random = new Random(207);
+    while (g.numEdges() < numEdges) {
+      int from = random.nextInt(numVertices);
+      int to = random.nextInt(numVertices);
+      if (from != to) {
+        g.addEdge(from, to, random.nextInt(1000));
+      } // if
+    } // while
+    long graphBytes = usedMemory() - before;
+    g.trimToSize();
+    long trimmedBytes = usedMemory() - before;
+
+    // Build the same edges as lists of Edge objects
+    before = usedMemory();
+    List<List<Edge>> lists = new ArrayList<List<Edge>>(numVertices);
+    for (int v = 0; v < numVertices; v++) {
+      ArrayList<Edge> edges = new ArrayList<Edge>();
+      for (int i = 0; i < g.degrees.get(v); i++) {
+        edges.add(new Edge(v, g.targets.get(v)[i], g.weights.get(v)[i]));
+      } // for
+      edges.trimToSize();
+      lists.add(edges);
+    } // for
+    long listBytes = usedMemory() - before;
+
+    pen.println(numVertices + " vertices, " + g.numEdges() + " edges");
+    pen.println("Primitive adjacency: " + graphBytes / g.numEdges()
+        + " bytes/edge (" + trimmedBytes / g.numEdges() + " after trimming)");
+    pen.println("Edge lists:          " + listBytes / g.numEdges()
+        + " bytes/edge");
+    pen.printf("Ratio: %.2f\n", (double) listBytes / trimmedBytes);
+
+    // Keep both structures alive until we've measured them
+    pen.println(lists.size() + g.numVertices() > 0 ? "Done" : "");
+  } // main(String[])
+
+  /**
+   * Get a rough estimate of the heap in use.
+   */
+  static long usedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 4; i++) {
+      System.gc();
+    } // for
+    return runtime.totalMemory() - runtime.freeMemory();
+  } // usedMemory()
+
+} // class MemoryExperiment
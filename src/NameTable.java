@@ -0,0 +1,629 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The names of the vertices of a graph, by vertex number, along with a
+ * hash table to find the number of a name. Names are kept as UTF-8 bytes
+ * in one big array, so there is no String, boxed Integer, or map entry
+ * per vertex.
+ *
+ * @author Samuel A. Rebelsky
+ */
+class NameTable {
+
+  // +-------+-------------------------------------------------------
+  // | Notes |
+  // +-------+
+
+  /*
+   * The name of vertex v is in bytes[starts[v]] .. bytes[starts[v] +
+   * lengths[v] - 1]; lengths[v] is -1 if v has no name. New names go at
+   * the end of bytes. A removed name leaves a hole, and once the holes
+   * make up more than half of bytes, we pack the names together again.
+   *
+   * The hash table uses open addressing with linear probing, as in
+   * EdgeTable: the capacity is a power of two, we keep the table at most
+   * half full, and we shift entries back after a removal rather than
+   * leave markers. Each cell is a long holding the hash of a name in its
+   * upper half and the vertex number in its lower half (or -1, if the
+   * cell is empty). Keeping the hash there lets us skip other names
+   * without looking at their bytes, which are elsewhere in memory. The
+   * hash of a name is computed over its UTF-8 bytes, just as EdgeLoader
+   * hashes the names it reads, so we can look a name up from the bytes of
+   * a file without building a String.
+   *
+   * Most names are ASCII, and then the bytes are just the chars, so we
+   * hash and compare a String without encoding it. Other Strings we
+   * encode. (As with any use of UTF-8, a String with an unpaired
+   * surrogate comes back with a '?' in its place.)
+   *
+   * A vertex may instead have the default name, "v" followed by its
+   * number, which we mark with a length of DEFAULT. Such names take no
+   * bytes and no cells: find checks for them separately. They must not
+   * clash with a stored name, so we count the stored names that might
+   * look like one (those that start with 'v' and end with a digit), and
+   * the graph only gives out default names while there are none.
+   *
+   * starts, lengths, and the cells are kept in pages (see IntPages), so
+   * that share can give a snapshot of the graph a copy of the table
+   * without copying them. The copy shares bytes, too: we never change
+   * the bytes of a name we have stored, only add new names past the end
+   * (or move everything to a new array, when we grow or pack), so the
+   * names the copy knows stay where it expects them.
+   */
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * An empty cell in the hash table.
+   */
+  static final long EMPTY = -1L;
+
+  /**
+   * The length of a default name.
+   */
+  static final int DEFAULT = -2;
+
+  /**
+   * The smallest number of bytes of holes we bother to pack away.
+   */
+  static final int MIN_PACK = 1 << 16;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The bytes of the names.
+   */
+  byte[] bytes;
+
+  /**
+   * The number of bytes used (including holes).
+   */
+  int used;
+
+  /**
+   * The number of bytes in holes left by removed names.
+   */
+  int holes;
+
+  /**
+   * Where the name of each vertex starts, and how long it is (-1 if the
+   * vertex has no name, DEFAULT if it has the default name).
+   */
+  IntPages starts;
+  IntPages lengths;
+
+  /**
+   * The hash table of hashes and vertex numbers.
+   */
+  LongPages cells;
+
+  /**
+   * The number of names, including default names.
+   */
+  int size;
+
+  /**
+   * The number of default names.
+   */
+  int defaults;
+
+  /**
+   * The number of stored names that might look like default names.
+   */
+  int lookalikes;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create an empty table for vertex numbers 0 .. capacity-1.
+   */
+  NameTable(int capacity) {
+    this(capacity, capacity);
+  } // NameTable(int)
+
+  /**
+   * Create an empty table for vertex numbers 0 .. capacity-1, with room
+   * for about expected names.
+   */
+  NameTable(int capacity, int expected) {
+    this.bytes = new byte[Math.max(16, 8 * expected)];
+    this.starts = new IntPages(capacity, 0);
+    this.lengths = new IntPages(capacity, -1);
+    this.cells = new LongPages(tableSize(expected), EMPTY);
+  } // NameTable(int, int)
+
+  /**
+   * Create a copy of other.
+   */
+  NameTable(NameTable other) {
+    this(other, other.bytes.clone());
+  } // NameTable(NameTable)
+
+  /**
+   * Create a copy of other that shares its pages (see IntPages) and uses
+   * bytes for the bytes of the names.
+   */
+  private NameTable(NameTable other, byte[] bytes) {
+    this.bytes = bytes;
+    this.used = other.used;
+    this.holes = other.holes;
+    this.starts = other.starts.share();
+    this.lengths = other.lengths.share();
+    this.cells = other.cells.share();
+    this.size = other.size;
+    this.defaults = other.defaults;
+    this.lookalikes = other.lookalikes;
+  } // NameTable(NameTable, byte[])
+
+  // +-----------+---------------------------------------------------
+  // | Observers |
+  // +-----------+
+
+  /**
+   * Determine if vertex v has a name.
+   */
+  boolean contains(int v) {
+    return (v >= 0) && (v < this.lengths.length())
+        && (this.lengths.get(v) != -1);
+  } // contains(int)
+
+  /**
+   * Determine if vertex v has the default name.
+   */
+  boolean isDefault(int v) {
+    return (v >= 0) && (v < this.lengths.length())
+        && (this.lengths.get(v) == DEFAULT);
+  } // isDefault(int)
+
+  /**
+   * Determine if a default name could clash with a stored name.
+   */
+  boolean mayClash() {
+    return this.lookalikes > 0;
+  } // mayClash()
+
+  /**
+   * Get the name of vertex v, or null if it has none.
+   */
+  String get(int v) {
+    if (!this.contains(v)) {
+      return null;
+    } // if
+    if (this.lengths.get(v) == DEFAULT) {
+      return "v" + v;
+    } // if
+    return new String(this.bytes, this.starts.get(v), this.lengths.get(v),
+        StandardCharsets.UTF_8);
+  } // get(int)
+
+  /**
+   * Get the UTF-8 bytes of the default name of vertex v.
+   */
+  static byte[] defaultName(int v) {
+    return ("v" + v).getBytes(StandardCharsets.US_ASCII);
+  } // defaultName(int)
+
+  /**
+   * Get the number of the vertex with a given name, or -1 if there is
+   * none.
+   */
+  int find(String name) {
+    if (name == null) {
+      return -1;
+    } // if
+    // For an ASCII name, String's own (cached) hash is the hash of its
+    // bytes. Other names cannot match here, since no byte equals a char
+    // of 0x80 or more.
+    int length = name.length();
+    int hash = EdgeTable.hash(name.hashCode());
+    int mask = this.cells.length() - 1;
+    for (int cell = hash & mask; this.cells.get(cell) != EMPTY;
+        cell = (cell + 1) & mask) {
+      long entry = this.cells.get(cell);
+      int v = (int) entry;
+      if (((int) (entry >>> 32) == hash) && (this.lengths.get(v) == length)) {
+        int start = this.starts.get(v);
+        int i = 0;
+        while ((i < length) && (this.bytes[start + i] == name.charAt(i))) {
+          ++i;
+        } // while
+        if (i == length) {
+          return v;
+        } // if
+      } // if
+    } // for
+    if (!ascii(name)) {
+      byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+      return this.find(utf8, 0, utf8.length);
+    } // if
+    if ((this.defaults > 0) && (length > 1) && (name.charAt(0) == 'v')) {
+      byte[] ascii = new byte[length];
+      for (int i = 0; i < length; i++) {
+        ascii[i] = (byte) name.charAt(i);
+      } // for
+      return this.findDefault(ascii, 0, length);
+    } // if
+    return -1;
+  } // find(String)
+
+  /**
+   * Get the number of the vertex whose name has the UTF-8 bytes in
+   * in[start] .. in[end-1], or -1 if there is none.
+   */
+  int find(byte[] in, int start, int end) {
+    int hash = hash(in, start, end);
+    int mask = this.cells.length() - 1;
+    for (int cell = hash & mask; this.cells.get(cell) != EMPTY;
+        cell = (cell + 1) & mask) {
+      long entry = this.cells.get(cell);
+      int v = (int) entry;
+      if (((int) (entry >>> 32) == hash) && this.matches(v, in, start, end)) {
+        return v;
+      } // if
+    } // for
+    if (this.defaults > 0) {
+      return this.findDefault(in, start, end);
+    } // if
+    return -1;
+  } // find(byte[], int, int)
+
+  /**
+   * Get the number of the vertex whose default name has the bytes
+   * in[start] .. in[end-1], or -1 if there is none.
+   */
+  int findDefault(byte[] in, int start, int end) {
+    int v = parseDefault(in, start, end);
+    if ((v == -1) || (v >= this.lengths.length())
+        || (this.lengths.get(v) != DEFAULT)) {
+      return -1;
+    } // if
+    return v;
+  } // findDefault(byte[], int, int)
+
+  /**
+   * Get the number of vertex numbers the table has room for.
+   */
+  int capacity() {
+    return this.lengths.length();
+  } // capacity()
+
+  /**
+   * Get the names, as strings, by vertex number.
+   */
+  String[] toArray() {
+    String[] result = new String[this.lengths.length()];
+    for (int v = 0; v < result.length; v++) {
+      result[v] = this.get(v);
+    } // for
+    return result;
+  } // toArray()
+
+  /**
+   * Get a read-only copy of the table as it is now, which shares our
+   * storage. Changes to this table do not affect the copy, which costs
+   * little to make and little to keep.
+   */
+  NameTable share() {
+    return new NameTable(this, this.bytes);
+  } // share()
+
+  // +----------+----------------------------------------------------
+  // | Mutators |
+  // +----------+
+
+  /**
+   * Give vertex v a name. Assumes that v has no name and that no other
+   * vertex has this one.
+   */
+  void put(int v, String name) {
+    if (ascii(name)) {
+      int length = name.length();
+      int start = this.reserve(length);
+      for (int i = 0; i < length; i++) {
+        this.bytes[start + i] = (byte) name.charAt(i);
+      } // for
+      this.add(v, start, length);
+    } else {
+      byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+      this.put(v, utf8, 0, utf8.length);
+    } // if/else
+  } // put(int, String)
+
+  /**
+   * Give vertex v the name whose UTF-8 bytes are in in[start] ..
+   * in[end-1]. Assumes that v has no name and that no other vertex has
+   * this one.
+   */
+  void put(int v, byte[] in, int start, int end) {
+    int length = end - start;
+    int at = this.reserve(length);
+    System.arraycopy(in, start, this.bytes, at, length);
+    this.add(v, at, length);
+  } // put(int, byte[], int, int)
+
+  /**
+   * Give vertex w of table to the name that vertex v has here. A default
+   * name stays a default name only if the number stays the same.
+   */
+  void copyName(int v, NameTable to, int w) {
+    int length = this.lengths.get(v);
+    if (length == DEFAULT) {
+      if (v == w) {
+        to.putDefault(w);
+      } else {
+        to.put(w, "v" + v);
+      } // if/else
+    } else {
+      to.put(w, this.bytes, this.starts.get(v), this.starts.get(v) + length);
+    } // if/else
+  } // copyName(int, NameTable, int)
+
+  /**
+   * Give vertex v the default name. Assumes that v has no name and that
+   * no stored name may clash (see mayClash).
+   */
+  void putDefault(int v) {
+    this.lengths.set(v, DEFAULT);
+    ++this.size;
+    ++this.defaults;
+  } // putDefault(int)
+
+  /**
+   * Remove the name of vertex v, if it has one.
+   */
+  void remove(int v) {
+    if (!this.contains(v)) {
+      return;
+    } // if
+    if (this.lengths.get(v) == DEFAULT) {
+      this.lengths.set(v, -1);
+      --this.size;
+      --this.defaults;
+      return;
+    } // if
+    if (this.lookalike(v)) {
+      --this.lookalikes;
+    } // if
+    int mask = this.cells.length() - 1;
+    int cell = this.hashOf(v) & mask;
+    while ((int) this.cells.get(cell) != v) {
+      cell = (cell + 1) & mask;
+    } // while
+    // Shift back any later entries that would no longer be found
+    int hole = cell;
+    cell = (cell + 1) & mask;
+    while (this.cells.get(cell) != EMPTY) {
+      int home = (int) (this.cells.get(cell) >>> 32) & mask;
+      if (((cell - home) & mask) >= ((cell - hole) & mask)) {
+        this.cells.set(hole, this.cells.get(cell));
+        hole = cell;
+      } // if
+      cell = (cell + 1) & mask;
+    } // while
+    this.cells.set(hole, EMPTY);
+    this.holes += this.lengths.get(v);
+    this.lengths.set(v, -1);
+    --this.size;
+    if ((this.holes >= MIN_PACK) && (2 * this.holes > this.used)) {
+      this.pack();
+    } // if
+  } // remove(int)
+
+  /**
+   * Remove every name.
+   */
+  void clear() {
+    // A copy may still read the old bytes, so we start over with new ones
+    this.bytes = new byte[16];
+    this.used = 0;
+    this.holes = 0;
+    this.starts = new IntPages(this.lengths.length(), 0);
+    this.lengths = new IntPages(this.lengths.length(), -1);
+    this.cells = new LongPages(tableSize(0), EMPTY);
+    this.size = 0;
+    this.defaults = 0;
+    this.lookalikes = 0;
+  } // clear()
+
+  /**
+   * Make room for vertex numbers 0 .. capacity-1.
+   */
+  void ensureCapacity(int capacity) {
+    this.starts.grow(capacity);
+    this.lengths.grow(capacity);
+  } // ensureCapacity(int)
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Note that the name of vertex v is at bytes[start] ..
+   * bytes[start+length-1], and add v to the hash table.
+   */
+  private void add(int v, int start, int length) {
+    this.starts.set(v, start);
+    this.lengths.set(v, length);
+    ++this.size;
+    if (this.lookalike(v)) {
+      ++this.lookalikes;
+    } // if
+    if (2 * (this.size - this.defaults) > this.cells.length()) {
+      this.rehash(2 * this.cells.length());
+    } else {
+      this.insert(this.cells, v);
+    } // if/else
+  } // add(int, int, int)
+
+  /**
+   * Put v in the first empty cell of its probe sequence in table.
+   */
+  private void insert(LongPages table, int v) {
+    int hash = this.hashOf(v);
+    int mask = table.length() - 1;
+    int cell = hash & mask;
+    while (table.get(cell) != EMPTY) {
+      cell = (cell + 1) & mask;
+    } // while
+    table.set(cell, ((long) hash << 32) | v);
+  } // insert(LongPages, int)
+
+  /**
+   * Rebuild the hash table with a new number of cells.
+   */
+  private void rehash(int numCells) {
+    LongPages table = new LongPages(numCells, EMPTY);
+    for (int v = 0; v < this.lengths.length(); v++) {
+      if (this.lengths.get(v) >= 0) {
+        this.insert(table, v);
+      } // if
+    } // for
+    this.cells = table;
+  } // rehash(int)
+
+  /**
+   * Make room for a name of length bytes at the end of bytes, and return
+   * where it starts.
+   */
+  private int reserve(int length) {
+    if (this.used + length > this.bytes.length) {
+      if ((this.holes >= MIN_PACK) && (2 * this.holes > this.used)) {
+        this.pack();
+      } // if
+      if (this.used + length > this.bytes.length) {
+        long newSize = Math.max(2L * this.bytes.length,
+            (long) this.used + length);
+        if (newSize > Integer.MAX_VALUE - 8) {
+          throw new OutOfMemoryError("Vertex names too large");
+        } // if
+        this.bytes = Arrays.copyOf(this.bytes, (int) newSize);
+      } // if
+    } // if
+    int start = this.used;
+    this.used += length;
+    return start;
+  } // reserve(int)
+
+  /**
+   * Move the names together, removing the holes.
+   */
+  private void pack() {
+    byte[] packed = new byte[Math.max(16, 2 * (this.used - this.holes))];
+    int pos = 0;
+    for (int v = 0; v < this.lengths.length(); v++) {
+      int length = this.lengths.get(v);
+      if (length >= 0) {
+        System.arraycopy(this.bytes, this.starts.get(v), packed, pos, length);
+        this.starts.set(v, pos);
+        pos += length;
+      } // if
+    } // for
+    this.bytes = packed;
+    this.used = pos;
+    this.holes = 0;
+  } // pack()
+
+  /**
+   * Determine if the stored name of v might look like a default name.
+   */
+  private boolean lookalike(int v) {
+    int length = this.lengths.get(v);
+    if (length < 2) {
+      return false;
+    } // if
+    byte last = this.bytes[this.starts.get(v) + length - 1];
+    return (this.bytes[this.starts.get(v)] == 'v') && (last >= '0')
+        && (last <= '9');
+  } // lookalike(int)
+
+  /**
+   * Determine if the name of v has the bytes in[start] .. in[end-1].
+   */
+  private boolean matches(int v, byte[] in, int start, int end) {
+    int length = end - start;
+    if (this.lengths.get(v) != length) {
+      return false;
+    } // if
+    int at = this.starts.get(v);
+    for (int i = 0; i < length; i++) {
+      if (this.bytes[at + i] != in[start + i]) {
+        return false;
+      } // if
+    } // for
+    return true;
+  } // matches(int, byte[], int, int)
+
+  /**
+   * Get the hash of the name of v.
+   */
+  private int hashOf(int v) {
+    int start = this.starts.get(v);
+    return hash(this.bytes, start, start + this.lengths.get(v));
+  } // hashOf(int)
+
+  /**
+   * Get the hash of the bytes in[start] .. in[end-1]. Matches the hash
+   * EdgeLoader uses for names.
+   */
+  static int hash(byte[] in, int start, int end) {
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + in[i];
+    } // for
+    return EdgeTable.hash(hash);
+  } // hash(byte[], int, int)
+
+  /**
+   * Get the number of cells for a table that will hold about expected
+   * names.
+   */
+  static int tableSize(int expected) {
+    int size = 16;
+    while (size < 2 * expected) {
+      size *= 2;
+    } // while
+    return size;
+  } // tableSize(int)
+
+  /**
+   * Get the number whose default name has the bytes in[start] ..
+   * in[end-1], or -1 if they are not a default name.
+   */
+  static int parseDefault(byte[] in, int start, int end) {
+    // "v" and then the digits of the number, with no extra zeros
+    if ((end - start < 2) || (end - start > 11) || (in[start] != 'v')
+        || ((in[start + 1] == '0') && (end - start > 2))) {
+      return -1;
+    } // if
+    long v = 0;
+    for (int i = start + 1; i < end; i++) {
+      int digit = in[i] - '0';
+      if ((digit < 0) || (digit > 9)) {
+        return -1;
+      } // if
+      v = 10 * v + digit;
+    } // for
+    return (v > Integer.MAX_VALUE) ? -1 : (int) v;
+  } // parseDefault(byte[], int, int)
+
+  /**
+   * Determine if every char of a string is ASCII, so that its UTF-8
+   * bytes are just its chars.
+   */
+  static boolean ascii(String str) {
+    for (int i = 0; i < str.length(); i++) {
+      if (str.charAt(i) >= 0x80) {
+        return false;
+      } // if
+    } // for
+    return true;
+  } // ascii(String)
+
+} // class NameTable
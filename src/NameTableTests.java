@@ -0,0 +1,226 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Some tests of the table of vertex names, each checked against a
+ * HashMap from names to vertex numbers.
+ */
+class NameTableTests {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of vertices in the random tests.
+   */
+  static final int VERTICES = 2000;
+
+  /**
+   * Some names whose UTF-8 bytes are not all ASCII.
+   */
+  static final String[] unusual = {"caf\u00e9", "\u540d\u524d",
+      "na\u00efve", "\u00fcber", "\u03b1\u03b2\u03b3"};
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Give random vertices random names and take them away again, so that
+   * the table grows, probe sequences run into each other, and removals
+   * shift entries back.
+   */
+  @Test
+  void testRandomOperations() {
+    Random random = new Random(3);
+    NameTable table = new NameTable(VERTICES, 4);
+    String[] names = new String[VERTICES];
+    Map<String, Integer> expected = new HashMap<String, Integer>();
+    for (int step = 0; step < 50000; step++) {
+      int v = random.nextInt(VERTICES);
+      if (names[v] != null) {
+        table.remove(v);
+        expected.remove(names[v]);
+        names[v] = null;
+      } else {
+        String name = randomName(random);
+        if (!expected.containsKey(name)) {
+          table.put(v, name);
+          expected.put(name, v);
+          names[v] = name;
+        } // if
+      } // if/else
+      if (step % 1000 == 0) {
+        check(table, names, expected);
+      } // if
+    } // for
+    check(table, names, expected);
+  } // testRandomOperations()
+
+  /**
+   * Remove enough long names that the table packs its bytes, and check
+   * that the names that remain survive the move.
+   */
+  @Test
+  void testPack() {
+    NameTable table = new NameTable(VERTICES);
+    String[] names = new String[VERTICES];
+    Map<String, Integer> expected = new HashMap<String, Integer>();
+    String padding = "x".repeat(100);
+    for (int round = 0; round < 4; round++) {
+      for (int v = 0; v < VERTICES; v++) {
+        if (names[v] == null) {
+          names[v] = padding + round + "-" + v;
+          table.put(v, names[v]);
+          expected.put(names[v], v);
+        } // if
+      } // for
+      for (int v = round % 2; v < VERTICES; v += 2) {
+        table.remove(v);
+        expected.remove(names[v]);
+        names[v] = null;
+      } // for
+      check(table, names, expected);
+    } // for
+    assertTrue(table.used < 2 * VERTICES * (padding.length() + 10),
+        "The table should have packed its bytes");
+  } // testPack()
+
+  /**
+   * Mix default names with stored ones.
+   */
+  @Test
+  void testDefaultNames() {
+    NameTable table = new NameTable(100);
+    for (int v = 0; v < 10; v++) {
+      table.putDefault(v);
+    } // for
+    table.put(10, "ten");
+    assertEquals(11, table.size);
+    assertFalse(table.mayClash());
+    assertEquals("v3", table.get(3));
+    assertTrue(table.isDefault(3));
+    assertFalse(table.isDefault(10));
+    assertEquals(3, table.find("v3"));
+    assertEquals(10, table.find("ten"));
+    assertEquals(-1, table.find("v03"));
+    assertEquals(-1, table.find("v10"));
+    assertEquals(-1, table.find("v"));
+    byte[] bytes = "v7".getBytes(StandardCharsets.US_ASCII);
+    assertEquals(7, table.find(bytes, 0, bytes.length));
+
+    // A stored name that looks like a default name
+    table.put(11, "v12");
+    assertTrue(table.mayClash());
+    assertEquals(11, table.find("v12"));
+    table.remove(11);
+    assertFalse(table.mayClash());
+
+    // Removing a default name
+    table.remove(3);
+    assertFalse(table.contains(3));
+    assertEquals(-1, table.find("v3"));
+    assertEquals(10, table.size);
+
+    // Copying names to another table, at another number
+    NameTable other = new NameTable(100);
+    table.copyName(4, other, 4);
+    table.copyName(5, other, 50);
+    table.copyName(10, other, 0);
+    assertTrue(other.isDefault(4));
+    assertFalse(other.isDefault(50));
+    assertEquals(50, other.find("v5"));
+    assertEquals(0, other.find("ten"));
+  } // testDefaultNames()
+
+  /**
+   * Change a table after sharing it. The copy should still have the
+   * names the table had when we shared it.
+   */
+  @Test
+  void testShare() {
+    Random random = new Random(5);
+    NameTable table = new NameTable(VERTICES, 4);
+    String[] names = new String[2 * VERTICES];
+    Map<String, Integer> expected = new HashMap<String, Integer>();
+    for (int v = 0; v < VERTICES; v += 2) {
+      names[v] = randomName(random) + "-" + v;
+      table.put(v, names[v]);
+      expected.put(names[v], v);
+    } // for
+    NameTable copy = table.share();
+    String[] copyNames = names.clone();
+    Map<String, Integer> copyExpected =
+        new HashMap<String, Integer>(expected);
+
+    // Remove, rename, and add, enough to rehash and to grow the bytes
+    table.ensureCapacity(2 * VERTICES);
+    String padding = "y".repeat(200);
+    for (int v = 0; v < 2 * VERTICES; v++) {
+      if (names[v] != null) {
+        table.remove(v);
+        expected.remove(names[v]);
+        names[v] = null;
+      } // if
+      if (v % 3 != 0) {
+        names[v] = padding + v;
+        table.put(v, names[v]);
+        expected.put(names[v], v);
+      } // if
+    } // for
+    check(table, names, expected);
+    check(copy, copyNames, copyExpected);
+    assertEquals(VERTICES, copy.capacity());
+
+    // Clearing the table leaves the copy alone, too
+    table.clear();
+    assertEquals(-1, table.find(names[1]));
+    check(copy, copyNames, copyExpected);
+  } // testShare()
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Make a name, sometimes a non-ASCII one, from a small enough set that
+   * names come up again.
+   */
+  static String randomName(Random random) {
+    int i = random.nextInt(5 * VERTICES);
+    if (i % 50 == 0) {
+      return unusual[(i / 50) % unusual.length] + i;
+    } else if (i % 7 == 0) {
+      return "v" + i;
+    } // if/else
+    return "name" + i;
+  } // randomName(Random)
+
+  /**
+   * Check that table has exactly the names in names (by vertex number)
+   * and expected (by name).
+   */
+  static void check(NameTable table, String[] names,
+      Map<String, Integer> expected) {
+    assertEquals(expected.size(), table.size);
+    for (int v = 0; v < names.length; v++) {
+      assertEquals(names[v], table.get(v), "Name of " + v);
+      assertEquals(names[v] != null, table.contains(v), "Vertex " + v);
+    } // for
+    for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+      String name = entry.getKey();
+      int v = entry.getValue();
+      assertEquals(v, table.find(name), "Vertex named " + name);
+      byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+      assertEquals(v, table.find(utf8, 0, utf8.length),
+          "Vertex named " + name + ", from bytes");
+      assertEquals(-1, table.find(name + "!"), "Vertex named " + name + "!");
+    } // for
+  } // check(NameTable, String[], Map<String, Integer>)
+
+} // NameTableTests
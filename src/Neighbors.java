@@ -0,0 +1,13 @@
+/**
+ * Something whose edges we can visit one vertex at a time, such as a
+ * graph, a snapshot, or a mapped graph file. See PathSearch.
+ *
+ * @author Samuel A. Rebelsky
+ */
+@FunctionalInterface
+interface Neighbors {
+  /**
+   * Visit all of the edges from a particular vertex.
+   */
+  public void forEachNeighbor(int vertex, EdgeVisitor visitor);
+} // interface Neighbors
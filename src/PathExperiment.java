@@ -33,6 +33,18 @@ public class PathExperiment {
     pen.println(g.path("a", "f"));
     pen.println(g.path("a", "g"));
     pen.println(g.path("a", "a"));
+
+    // And some cheapest paths
+    g.addEdge("a", "c", 5);
+    g.addEdge("b", "c", 3);
+    g.addEdge("c", "g", 4);
+    g.addEdge("d", "e", 1);
+    g.addEdge("c", "d", 1);
+    g.addEdge("e", "g", 1);
+    pen.println(g.shortestPath("a", "g"));
+    pen.println(g.shortestPath("a", "c"));
+    pen.println(g.shortestPath("a", "f"));
+    pen.println(g.shortestPath("a", "a"));
     pen.println("Done");
   } // main(String[])
 
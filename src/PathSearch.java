@@ -0,0 +1,137 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A breadth-first search for a path with as few edges as possible, in
+ * anything whose edges we can visit one vertex at a time. Graph,
+ * CsrGraph, GraphSnapshot, and MappedGraph all find their paths this way.
+ *
+ * @author Samuel A. Rebelsky
+ */
+class PathSearch implements EdgeVisitor {
+
+  // +-------+-------------------------------------------------------
+  // | Notes |
+  // +-------+
+
+  /*
+   * We fill in a BfsTree one vertex at a time, visiting the edges from
+   * each vertex we take off the queue (tree.order) and stopping as soon
+   * as we reach finish.
+   *
+   * A path from a vertex to itself is a cycle. The source is in the tree
+   * from the start, so we instead watch for the first edge back to it
+   * from the vertices we reach, in the order we reach them, which closes
+   * a cycle with as few edges as possible.
+   */
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The search so far.
+   */
+  BfsTree tree;
+
+  /**
+   * The vertex we are looking for.
+   */
+  int finish;
+
+  /**
+   * The start of the first edge back to the source, or -1 if we have not
+   * found one (or are not looking for a cycle).
+   */
+  int closing;
+
+  /**
+   * The weight of that edge.
+   */
+  int closingWeight;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Prepare to search from start to finish in a graph with the given
+   * capacity.
+   */
+  PathSearch(int start, int finish, int capacity) {
+    this.tree = new BfsTree(start, capacity);
+    Arrays.fill(this.tree.distance, -1);
+    this.tree.distance[start] = 0;
+    this.tree.order[0] = start;
+    this.tree.numReached = 1;
+    this.finish = finish;
+    this.closing = -1;
+  } // PathSearch(int, int, int)
+
+  // +----------------+----------------------------------------------
+  // | Static methods |
+  // +----------------+
+
+  /**
+   * Get a path from start to finish with as few edges as possible, or
+   * null if there is no such path. Start and finish must be vertices of
+   * graph, and every vertex number must be less than capacity.
+   */
+  static List<Edge> path(Neighbors graph, int capacity, int start,
+      int finish) {
+    PathSearch search = new PathSearch(start, finish, capacity);
+    BfsTree tree = search.tree;
+    int head = 0;
+    while ((head < tree.numReached) && !search.done()) {
+      graph.forEachNeighbor(tree.order[head++], search);
+    } // while
+    return search.path();
+  } // path(Neighbors, int, int, int)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Note an edge from a vertex we have reached.
+   */
+  public void visit(int from, int to, int weight) {
+    BfsTree tree = this.tree;
+    if (tree.distance[to] == -1) {
+      tree.distance[to] = tree.distance[from] + 1;
+      tree.parent[to] = from;
+      tree.parentWeight[to] = weight;
+      tree.order[tree.numReached++] = to;
+    } else if ((to == this.finish) && (to == tree.source)
+        && (this.closing == -1)) {
+      this.closing = from;
+      this.closingWeight = weight;
+    } // if/else
+  } // visit(int, int, int)
+
+  /**
+   * Determine if we have found what we are looking for.
+   */
+  boolean done() {
+    if (this.finish == this.tree.source) {
+      return this.closing != -1;
+    } // if
+    return this.tree.distance[this.finish] != -1;
+  } // done()
+
+  /**
+   * Get the path we found, or null if we did not find one.
+   */
+  List<Edge> path() {
+    if (this.finish != this.tree.source) {
+      return this.tree.pathTo(this.finish);
+    } // if
+    if (this.closing == -1) {
+      return null;
+    } // if
+    List<Edge> path = this.tree.pathTo(this.closing);
+    path.add(new Edge(this.closing, this.finish, this.closingWeight));
+    return path;
+  } // path()
+
+} // class PathSearch
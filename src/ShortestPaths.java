@@ -0,0 +1,194 @@
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/**
+ * Cheapest paths in weighted graphs, using Dijkstra's algorithm or A*.
+ * Weights must not be negative.
+ *
+ * @author Samuel A. Rebelsky
+ */
+public class ShortestPaths {
+
+  // +-------+-------------------------------------------------------
+  // | Notes |
+  // +-------+
+
+  /*
+   * Dijkstra's algorithm is just A* with a heuristic that always
+   * estimates 0, so we implement both with the same search.
+   *
+   * Each search needs several arrays with one entry per vertex. Rather
+   * than allocate them for every query, each thread keeps a set of them
+   * (a Scratch) and reuses it. To avoid clearing the arrays between
+   * queries, we give each query a new stamp and treat an entry as
+   * meaningful only if its stamp matches the current one.
+   */
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The heuristic for Dijkstra's algorithm.
+   */
+  public static final Heuristic NO_HEURISTIC = (vertex, goal) -> 0;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The scratch space for each thread.
+   */
+  private static final ThreadLocal<Scratch> scratch =
+      ThreadLocal.withInitial(Scratch::new);
+
+  // +----------------+----------------------------------------------
+  // | Public methods |
+  // +----------------+
+
+  /**
+   * Find a cheapest path from start to finish using Dijkstra's algorithm.
+   * If no such path exists, returns null.
+   *
+   * @exception Exception if the search encounters a negative weight
+   */
+  public static WeightedPath dijkstra(Graph graph, int start, int finish)
+      throws Exception {
+    return aStar(graph, start, finish, NO_HEURISTIC);
+  } // dijkstra(Graph, int, int)
+
+  /**
+   * Find a cheapest path from start to finish using A* with the given
+   * heuristic. If no such path exists, returns null.
+   *
+   * @exception Exception if the search encounters a negative weight
+   */
+  public static WeightedPath aStar(Graph graph, int start, int finish,
+      Heuristic heuristic) throws Exception {
+    if (!graph.validVertex(start) || !graph.validVertex(finish)) {
+      return null;
+    } // if
+
+    Scratch s = scratch.get();
+    s.prepare(graph.capacity());
+    IndexedMinHeap frontier = s.heap;
+    EdgeCursor edges = graph.cursor();
+
+    s.reach(start, 0, -1, 0);
+    frontier.push(start, heuristic.estimate(start, finish));
+    while (!frontier.isEmpty()) {
+      int v = frontier.pop();
+      if (v == finish) {
+        return s.pathTo(start, finish);
+      } // if
+      long dv = s.distance[v];
+      edges.reset(v);
+      while (edges.next()) {
+        int weight = edges.weight();
+        if (weight < 0) {
+          throw new Exception("Negative weight on edge " + edges.edge());
+        } // if
+        int to = edges.to();
+        long dist = dv + weight;
+        if (!s.reached(to) || (dist < s.distance[to])) {
+          s.reach(to, dist, v, weight);
+          frontier.push(to, dist + heuristic.estimate(to, finish));
+        } // if
+      } // while
+    } // while
+    return null;
+  } // aStar(Graph, int, int, Heuristic)
+
+  // +---------------+-----------------------------------------------
+  // | Scratch space |
+  // +---------------+
+
+  /**
+   * The arrays used by one thread's searches.
+   */
+  private static class Scratch {
+    /**
+     * The current stamp. An entry for vertex v is meaningful only if
+     * stamps[v] == stamp.
+     */
+    int stamp = 0;
+
+    /**
+     * The stamps of the vertices.
+     */
+    int[] stamps = new int[0];
+
+    /**
+     * The best known distances to the vertices.
+     */
+    long[] distance = new long[0];
+
+    /**
+     * The start of the last edge on the best known path to each vertex.
+     */
+    int[] parent = new int[0];
+
+    /**
+     * The weight of the last edge on the best known path to each vertex.
+     */
+    int[] parentWeight = new int[0];
+
+    /**
+     * The vertices we've reached but not yet explored.
+     */
+    IndexedMinHeap heap = new IndexedMinHeap(0);
+
+    /**
+     * Get ready for a search of a graph with the given capacity.
+     */
+    void prepare(int capacity) {
+      if (capacity > this.stamps.length) {
+        this.stamps = new int[capacity];
+        this.distance = new long[capacity];
+        this.parent = new int[capacity];
+        this.parentWeight = new int[capacity];
+        this.stamp = 0;
+      } // if
+      this.heap.ensureCapacity(capacity);
+      this.heap.clear();
+      if (++this.stamp == Integer.MAX_VALUE) {
+        Arrays.fill(this.stamps, 0);
+        this.stamp = 1;
+      } // if
+    } // prepare(int)
+
+    /**
+     * Determine if we have reached a vertex in this search.
+     */
+    boolean reached(int vertex) {
+      return this.stamps[vertex] == this.stamp;
+    } // reached(int)
+
+    /**
+     * Note that we have reached vertex at a given distance, along an edge
+     * from parent with the given weight.
+     */
+    void reach(int vertex, long dist, int from, int weight) {
+      this.stamps[vertex] = this.stamp;
+      this.distance[vertex] = dist;
+      this.parent[vertex] = from;
+      this.parentWeight[vertex] = weight;
+    } // reach(int, long, int, int)
+
+    /**
+     * Build the path to finish.
+     */
+    WeightedPath pathTo(int start, int finish) {
+      LinkedList<Edge> path = new LinkedList<Edge>();
+      int current = finish;
+      while (current != start) {
+        int from = this.parent[current];
+        path.addFirst(new Edge(from, current, this.parentWeight[current]));
+        current = from;
+      } // while
+      return new WeightedPath(this.distance[finish], path);
+    } // pathTo(int, int)
+  } // class Scratch
+
+} // class ShortestPaths
@@ -0,0 +1,134 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A minimum spanning forest of an undirected graph: for each connected
+ * component, a tree of edges that connects its vertices with the least
+ * total weight. Build one with UndirectedGraph.minimumSpanningForest or
+ * the methods of SpanningForestFinder.
+ *
+ * @author Samuel A. Rebelsky
+ */
+public class SpanningForest {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The names of the vertices of the graph (a copy, so that later changes
+   * to the graph do not affect the forest).
+   */
+  NameTable names;
+
+  /**
+   * The edges of the forest, as parallel arrays. Edge i goes between
+   * froms[i] and tos[i] and has weight weights[i].
+   */
+  int[] froms;
+  int[] tos;
+  int[] weights;
+
+  /**
+   * The number of edges.
+   */
+  int numEdges;
+
+  /**
+   * The sum of the weights of the edges.
+   */
+  long totalWeight;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a forest of the first numEdges edges in the parallel arrays,
+   * for a graph whose vertices have the given names.
+   */
+  SpanningForest(NameTable names, int[] froms, int[] tos, int[] weights,
+      int numEdges) {
+    this.names = names;
+    this.froms = froms;
+    this.tos = tos;
+    this.weights = weights;
+    this.numEdges = numEdges;
+    for (int i = 0; i < numEdges; i++) {
+      this.totalWeight += weights[i];
+    } // for
+  } // SpanningForest(NameTable, int[], int[], int[], int)
+
+  // +------------------+--------------------------------------------
+  // | Standard methods |
+  // +------------------+
+
+  /**
+   * Convert the forest to a string.
+   */
+  public String toString() {
+    return this.totalWeight + " " + this.edges();
+  } // toString()
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the sum of the weights of the edges in the forest.
+   */
+  public long totalWeight() {
+    return this.totalWeight;
+  } // totalWeight()
+
+  /**
+   * Get the number of edges in the forest.
+   */
+  public int numEdges() {
+    return this.numEdges;
+  } // numEdges()
+
+  /**
+   * Get the edges in the forest, each from its smaller end.
+   */
+  public List<Edge> edges() {
+    List<Edge> result = new ArrayList<Edge>(this.numEdges);
+    for (int i = 0; i < this.numEdges; i++) {
+      result.add(new Edge(this.froms[i], this.tos[i], this.weights[i]));
+    } // for
+    return result;
+  } // edges()
+
+  /**
+   * Build an undirected graph of the forest, with the same vertices (and
+   * vertex numbers) as the original graph.
+   */
+  public UndirectedGraph toGraph() {
+    int capacity = this.names.capacity();
+    // Lay the edges out by vertex, in both directions, as in CsrGraph
+    int[] offsets = new int[capacity + 1];
+    for (int i = 0; i < this.numEdges; i++) {
+      ++offsets[this.froms[i] + 1];
+      ++offsets[this.tos[i] + 1];
+    } // for
+    for (int v = 0; v < capacity; v++) {
+      offsets[v + 1] += offsets[v];
+    } // for
+    int[] next = new int[capacity];
+    System.arraycopy(offsets, 0, next, 0, capacity);
+    int[] ends = new int[2 * this.numEdges];
+    int[] costs = new int[2 * this.numEdges];
+    for (int i = 0; i < this.numEdges; i++) {
+      int from = this.froms[i];
+      int to = this.tos[i];
+      ends[next[from]] = to;
+      costs[next[from]++] = this.weights[i];
+      ends[next[to]] = from;
+      costs[next[to]++] = this.weights[i];
+    } // for
+    UndirectedGraph result = new UndirectedGraph();
+    result.replaceWith(new NameTable(this.names), offsets, ends, costs);
+    return result;
+  } // toGraph()
+
+} // class SpanningForest
@@ -0,0 +1,57 @@
+import java.io.PrintWriter;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A quick experiment comparing the ways we find minimum spanning
+ * forests: Kruskal's, Prim's, and Boruvka's algorithms, on a random
+ * undirected graph.
+ *
+ * Usage: java SpanningForestExperiment [vertices] [edges]
+ */
+public class SpanningForestExperiment {
+
+  public static void main(String[] args) throws Exception {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    int numVertices = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+    int numEdges = (args.length > 1) ? Integer.parseInt(args[1]) : 5000000;
+    pen.println(Runtime.getRuntime().availableProcessors() + " processors");
+
+    UndirectedGraph g = new UndirectedGraph();
+    for (int i = 0; i < numVertices; i++) {
+      g.addVertex();
+    } // for
+    Random random = new Random(207);
+    // Each edge is counted in both directions
+    while (g.numEdges() < 2L * numEdges) {
+      int from = random.nextInt(numVertices);
+      int to = random.nextInt(numVertices);
+      if (from != to) {
+        g.addEdge(from, to, random.nextInt(1000));
+      } // if
+    } // while
+    pen.println(g.numEdges() / 2 + " edges");
+
+    long kruskal = 0;
+    long prim = 0;
+    long boruvka = 0;
+    SpanningForest forest = null;
+    for (int round = 0; round < 5; round++) {
+      long begin = System.nanoTime();
+      forest = SpanningForestFinder.kruskal(g);
+      kruskal += System.nanoTime() - begin;
+      begin = System.nanoTime();
+      SpanningForestFinder.prim(g);
+      prim += System.nanoTime() - begin;
+      begin = System.nanoTime();
+      SpanningForestFinder.boruvka(g, ForkJoinPool.commonPool());
+      boruvka += System.nanoTime() - begin;
+    } // for
+    pen.println("  " + forest.numEdges() + " edges in the forest, weight "
+        + forest.totalWeight());
+    pen.println("  kruskal: " + kruskal / 5000000 + " ms");
+    pen.println("  prim:    " + prim / 5000000 + " ms");
+    pen.println("  boruvka: " + boruvka / 5000000 + " ms");
+  } // main(String[])
+
+} // class SpanningForestExperiment
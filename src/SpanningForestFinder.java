@@ -0,0 +1,351 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Finding minimum spanning forests of undirected graphs, with Kruskal's,
+ * Prim's, or Boruvka's algorithm. Weights may be negative.
+ *
+ * @author Samuel A. Rebelsky
+ */
+public class SpanningForestFinder {
+
+  // +-------+-------------------------------------------------------
+  // | Notes |
+  // +-------+
+
+  /*
+   * Kruskal's and Boruvka's algorithms start from a list of the edges,
+   * each once (from its smaller end), in parallel int arrays. We then
+   * give edge e the key (weight << 32) | e, which orders the edges by
+   * weight and breaks ties by position. Kruskal's algorithm sorts the
+   * keys, which is a sort of primitive longs, and adds each edge whose
+   * ends are not yet joined, using the union-find of ComponentFinder.
+   *
+   * Prim's algorithm grows one tree at a time from the cheapest edge
+   * into it, with the vertices not yet in the tree in an IndexedMinHeap.
+   * It needs no edge list, so it uses less memory, and it suits dense
+   * graphs.
+   *
+   * Boruvka's algorithm works in rounds. In each round, every component
+   * finds its cheapest edge to another component, and we add all of
+   * those edges at once. Since the keys are distinct, the chosen edges
+   * cannot form a cycle, and each round at least halves the number of
+   * components. Finding the cheapest edges is a scan of the edge list,
+   * which we split among threads; each thread lowers the best key of a
+   * component with compare-and-set. Joining the components is quick, so
+   * we do it on one thread, and then point every vertex straight at its
+   * root (in parallel) so that the next scan needs no finds.
+   */
+
+  // +----------------+----------------------------------------------
+  // | Public methods |
+  // +----------------+
+
+  /**
+   * Find a minimum spanning forest of graph, using Boruvka's algorithm on
+   * the common fork-join pool if the graph is large and there is more
+   * than one thread, and Kruskal's algorithm otherwise.
+   */
+  public static SpanningForest find(UndirectedGraph graph) {
+    ForkJoinPool pool = ForkJoinPool.commonPool();
+    if ((graph.capacity() < ComponentFinder.PARALLEL_THRESHOLD)
+        || (pool.getParallelism() < 2)) {
+      return kruskal(graph);
+    } // if
+    return boruvka(graph, pool);
+  } // find(UndirectedGraph)
+
+  /**
+   * Find a minimum spanning forest of graph with Kruskal's algorithm.
+   */
+  public static SpanningForest kruskal(UndirectedGraph graph) {
+    long expected = graph.version;
+    EdgeList list = new EdgeList(graph);
+    int n = list.size;
+    long[] keys = new long[n];
+    for (int e = 0; e < n; e++) {
+      keys[e] = key(list.weights[e], e);
+    } // for
+    Arrays.sort(keys);
+
+    int capacity = graph.capacity();
+    int[] parent = identity(capacity);
+    Chosen chosen = new Chosen(graph);
+    // A forest has fewer edges than vertices, so we can stop early
+    int needed = graph.numVertices() - 1;
+    for (int i = 0; (i < n) && (chosen.count < needed); i++) {
+      int e = (int) keys[i];
+      int u = ComponentFinder.find(parent, list.froms[e]);
+      int v = ComponentFinder.find(parent, list.tos[e]);
+      if (u != v) {
+        parent[Math.max(u, v)] = Math.min(u, v);
+        chosen.add(list, e);
+      } // if
+    } // for
+    graph.failFast(expected);
+    return chosen.forest();
+  } // kruskal(UndirectedGraph)
+
+  /**
+   * Find a minimum spanning forest of graph with Prim's algorithm.
+   */
+  public static SpanningForest prim(UndirectedGraph graph) {
+    long expected = graph.version;
+    int capacity = graph.capacity();
+    boolean[] inTree = new boolean[capacity];
+    // The cheapest known edge into each vertex in the heap
+    int[] bestFrom = new int[capacity];
+    int[] bestWeight = new int[capacity];
+    IndexedMinHeap heap = new IndexedMinHeap(capacity);
+    Chosen chosen = new Chosen(graph);
+
+    for (int root = 0; root < capacity; root++) {
+      if (inTree[root] || !graph.validVertex(root)) {
+        continue;
+      } // if
+      bestFrom[root] = -1;
+      heap.push(root, 0);
+      while (!heap.isEmpty()) {
+        int v = heap.pop();
+        inTree[v] = true;
+        if (bestFrom[v] != -1) {
+          chosen.add(Math.min(v, bestFrom[v]), Math.max(v, bestFrom[v]),
+              bestWeight[v]);
+        } // if
+        int[] ends = graph.targets.get(v);
+        int[] costs = graph.weights.get(v);
+        int degree = graph.degrees.get(v);
+        for (int i = 0; i < degree; i++) {
+          int w = ends[i];
+          if (!inTree[w]
+              && (!heap.contains(w) || (costs[i] < bestWeight[w]))) {
+            bestFrom[w] = v;
+            bestWeight[w] = costs[i];
+            heap.push(w, costs[i]);
+          } // if
+        } // for
+      } // while
+    } // for
+    graph.failFast(expected);
+    return chosen.forest();
+  } // prim(UndirectedGraph)
+
+  /**
+   * Find a minimum spanning forest of graph with Boruvka's algorithm,
+   * using the threads in pool.
+   */
+  public static SpanningForest boruvka(UndirectedGraph graph,
+      ForkJoinPool pool) {
+    long expected = graph.version;
+    EdgeList list = new EdgeList(graph);
+    int n = list.size;
+    int capacity = graph.capacity();
+    int[] parent = identity(capacity);
+    AtomicLongArray best = new AtomicLongArray(capacity);
+    Chosen chosen = new Chosen(graph);
+
+    while (true) {
+      ComponentFinder.run(pool, capacity, (lo, hi) -> {
+        for (int v = lo; v < hi; v++) {
+          best.set(v, Long.MAX_VALUE);
+        } // for
+      });
+      // Find the cheapest edge out of each component. Edges inside a
+      // component stay that way, so we mark them to skip next time.
+      ComponentFinder.run(pool, n, (lo, hi) -> {
+        for (int e = lo; e < hi; e++) {
+          int from = list.froms[e];
+          if (from == -1) {
+            continue;
+          } // if
+          int u = parent[from];
+          int v = parent[list.tos[e]];
+          if (u == v) {
+            list.froms[e] = -1;
+            continue;
+          } // if
+          long k = key(list.weights[e], e);
+          lower(best, u, k);
+          lower(best, v, k);
+        } // for
+      });
+      // Add those edges
+      int before = chosen.count;
+      for (int r = 0; r < capacity; r++) {
+        long k = best.get(r);
+        if (k == Long.MAX_VALUE) {
+          continue;
+        } // if
+        int e = (int) k;
+        int u = ComponentFinder.find(parent, list.froms[e]);
+        int v = ComponentFinder.find(parent, list.tos[e]);
+        if (u != v) {
+          parent[Math.max(u, v)] = Math.min(u, v);
+          chosen.add(list, e);
+        } // if
+      } // for
+      if (chosen.count == before) {
+        break;
+      } // if
+      // Point every vertex at its root. Other threads only ever see a
+      // vertex's old parent or its root, both of which lead to the root.
+      ComponentFinder.run(pool, capacity, (lo, hi) -> {
+        for (int v = lo; v < hi; v++) {
+          int root = v;
+          while (parent[root] != root) {
+            root = parent[root];
+          } // while
+          parent[v] = root;
+        } // for
+      });
+    } // while
+    graph.failFast(expected);
+    return chosen.forest();
+  } // boruvka(UndirectedGraph, ForkJoinPool)
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * The key of edge e, which has the given weight.
+   */
+  static long key(int weight, int e) {
+    return ((long) weight << 32) | e;
+  } // key(int, int)
+
+  /**
+   * Lower best[i] to k, if k is smaller, safely with other threads.
+   */
+  static void lower(AtomicLongArray best, int i, long k) {
+    long current = best.get(i);
+    while ((k < current) && !best.compareAndSet(i, current, k)) {
+      current = best.get(i);
+    } // while
+  } // lower(AtomicLongArray, int, long)
+
+  /**
+   * Make a union-find in which every vertex is on its own.
+   */
+  static int[] identity(int capacity) {
+    int[] parent = new int[capacity];
+    for (int v = 0; v < capacity; v++) {
+      parent[v] = v;
+    } // for
+    return parent;
+  } // identity(int)
+
+  // +-----------+---------------------------------------------------
+  // | Edge list |
+  // +-----------+
+
+  /**
+   * The edges of an undirected graph, each once, in parallel arrays.
+   */
+  static class EdgeList {
+    /**
+     * The ends and weight of each edge, with froms[e] < tos[e].
+     */
+    int[] froms;
+    int[] tos;
+    int[] weights;
+
+    /**
+     * The number of edges.
+     */
+    int size;
+
+    /**
+     * List the edges of graph.
+     */
+    EdgeList(Graph graph) {
+      int capacity = graph.capacity();
+      for (int v = 0; v < capacity; v++) {
+        for (int i = 0; i < graph.degrees.get(v); i++) {
+          if (graph.targets.get(v)[i] > v) {
+            ++this.size;
+          } // if
+        } // for
+      } // for
+      this.froms = new int[this.size];
+      this.tos = new int[this.size];
+      this.weights = new int[this.size];
+      int e = 0;
+      for (int v = 0; v < capacity; v++) {
+        int[] ends = graph.targets.get(v);
+        int[] costs = graph.weights.get(v);
+        for (int i = 0; i < graph.degrees.get(v); i++) {
+          if (ends[i] > v) {
+            this.froms[e] = v;
+            this.tos[e] = ends[i];
+            this.weights[e++] = costs[i];
+          } // if
+        } // for
+      } // for
+    } // EdgeList(Graph)
+  } // class EdgeList
+
+  // +--------+------------------------------------------------------
+  // | Chosen |
+  // +--------+
+
+  /**
+   * The edges chosen for a forest so far.
+   */
+  static class Chosen {
+    /**
+     * The graph.
+     */
+    Graph graph;
+
+    /**
+     * The ends and weights of the edges.
+     */
+    int[] froms;
+    int[] tos;
+    int[] weights;
+
+    /**
+     * The number of edges.
+     */
+    int count;
+
+    /**
+     * Get ready to choose edges of graph.
+     */
+    Chosen(Graph graph) {
+      // A forest has fewer edges than vertices
+      int size = Math.max(graph.numVertices() - 1, 0);
+      this.graph = graph;
+      this.froms = new int[size];
+      this.tos = new int[size];
+      this.weights = new int[size];
+    } // Chosen(Graph)
+
+    /**
+     * Choose an edge.
+     */
+    void add(int from, int to, int weight) {
+      this.froms[this.count] = from;
+      this.tos[this.count] = to;
+      this.weights[this.count++] = weight;
+    } // add(int, int, int)
+
+    /**
+     * Choose edge e of list.
+     */
+    void add(EdgeList list, int e) {
+      this.add(list.froms[e], list.tos[e], list.weights[e]);
+    } // add(EdgeList, int)
+
+    /**
+     * Build the forest of the chosen edges.
+     */
+    SpanningForest forest() {
+      return new SpanningForest(new NameTable(this.graph.names), this.froms,
+          this.tos, this.weights, this.count);
+    } // forest()
+  } // class Chosen
+
+} // class SpanningForestFinder
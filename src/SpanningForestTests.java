@@ -0,0 +1,144 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Some tests of minimum spanning forests, each checking that Kruskal's,
+ * Prim's, and Boruvka's algorithms agree on the total weight, and that
+ * each forest spans the components of the graph and has no edge that a
+ * cheaper edge could replace.
+ */
+class SpanningForestTests {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of vertex numbers in the random tests.
+   */
+  static final int VERTICES = 100;
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Random graphs, from many components to one, with negative weights
+   * and holes in the numbering.
+   */
+  @Test
+  void testRandomGraphs() throws Exception {
+    Random random = new Random(61);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (int edges : new int[] {0, 30, 80, 150, 400, 1500}) {
+        UndirectedGraph g = randomGraph(random, edges, 1000);
+        checkAll(g, pool);
+      } // for
+    } finally {
+      pool.shutdown();
+    } // try/finally
+  } // testRandomGraphs()
+
+  /**
+   * Graphs where many edges share a weight, so the algorithms must break
+   * ties, and may pick different edges of the same total weight.
+   */
+  @Test
+  void testTies() throws Exception {
+    Random random = new Random(67);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (int round = 0; round < 10; round++) {
+        UndirectedGraph g = randomGraph(random, 300, 3);
+        checkAll(g, pool);
+      } // for
+    } finally {
+      pool.shutdown();
+    } // try/finally
+  } // testTies()
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Make a graph with VERTICES vertices, less a few, and about the given
+   * number of edges, with weights in -range .. range-1.
+   */
+  static UndirectedGraph randomGraph(Random random, int edges, int range)
+      throws Exception {
+    UndirectedGraph g = new UndirectedGraph();
+    for (int i = 0; i < VERTICES; i++) {
+      g.addVertex();
+    } // for
+    for (int i = 0; i < edges; i++) {
+      int u = random.nextInt(VERTICES);
+      int v = random.nextInt(VERTICES);
+      if (u != v) {
+        g.addEdge(u, v, random.nextInt(2 * range) - range);
+      } // if
+    } // for
+    for (int i = 0; i < 4; i++) {
+      g.removeVertex(random.nextInt(VERTICES));
+    } // for
+    return g;
+  } // randomGraph(Random, int, int)
+
+  /**
+   * Find the forest with each algorithm, check each one, and check that
+   * they have the same weight.
+   */
+  static void checkAll(UndirectedGraph g, ForkJoinPool pool) {
+    SpanningForest kruskal = SpanningForestFinder.kruskal(g);
+    SpanningForest prim = SpanningForestFinder.prim(g);
+    SpanningForest boruvka = SpanningForestFinder.boruvka(g, pool);
+    check(g, kruskal);
+    check(g, prim);
+    check(g, boruvka);
+    assertEquals(kruskal.totalWeight(), prim.totalWeight(), "Prim");
+    assertEquals(kruskal.totalWeight(), boruvka.totalWeight(), "Boruvka");
+    assertEquals(kruskal.totalWeight(),
+        g.minimumSpanningForest().totalWeight(), "minimumSpanningForest");
+  } // checkAll(UndirectedGraph, ForkJoinPool)
+
+  /**
+   * Check that forest is a minimum spanning forest of g: its edges are
+   * edges of g, it joins exactly the vertices that g joins, and for every
+   * edge of g, no edge on the path through the forest between its ends
+   * weighs more.
+   */
+  static void check(UndirectedGraph g, SpanningForest forest) {
+    long total = 0;
+    for (Edge edge : forest.edges()) {
+      assertTrue(edge.from() < edge.to(), "Edge " + edge);
+      assertEquals(g.edgeWeight(edge.from(), edge.to()), edge.weight(),
+          "Weight of " + edge);
+      total += edge.weight();
+    } // for
+    assertEquals(total, forest.totalWeight());
+
+    // A forest with the same components as g
+    UndirectedGraph trees = forest.toGraph();
+    Components components = g.components();
+    assertEquals(g.numVertices() - components.numComponents(),
+        forest.numEdges());
+    assertArrayEquals(components.componentIds(),
+        trees.components().componentIds());
+
+    // The cycle property
+    for (Iterator<Edge> edges = g.edges(); edges.hasNext(); ) {
+      Edge edge = edges.next();
+      List<Edge> path = trees.path(edge.from(), edge.to());
+      for (Edge step : path) {
+        assertTrue(step.weight() <= edge.weight(),
+            "Edge " + step + " could be replaced by " + edge);
+      } // for
+    } // for
+  } // check(UndirectedGraph, SpanningForest)
+
+} // SpanningForestTests
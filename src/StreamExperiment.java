@@ -0,0 +1,76 @@
+import java.io.PrintWriter;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A quick experiment with vertex and edge streams: summing the weights
+ * of the edges and building a histogram of degrees, with an iterator,
+ * with a sequential stream, and with a parallel stream.
+ *
+ * Usage: java StreamExperiment [vertices] [edges]
+ */
+public class StreamExperiment {
+
+  public static void main(String[] args) throws Exception {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    int numVertices = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+    int numEdges = (args.length > 1) ? Integer.parseInt(args[1]) : 8000000;
+
+    // A graph in which a few vertices have many of the edges
+    Graph g = new Graph(numVertices);
+    for (int i = 0; i < numVertices; i++) {
+      g.addVertex();
+    } // for
+    Random random = new Random(207);
+    for (int i = 0; i < numEdges; i++) {
+      int from = (i % 4 == 0) ? random.nextInt(100)
+          : random.nextInt(numVertices);
+      int to = random.nextInt(numVertices);
+      if (from != to) {
+        g.addEdge(from, to, random.nextInt(100));
+      } // if
+    } // for
+    pen.println(g.numVertices() + " vertices, " + g.numEdges() + " edges, "
+        + ForkJoinPool.commonPool().getParallelism() + " threads");
+
+    for (int round = 0; round < 3; round++) {
+      long begin = System.nanoTime();
+      long sum = 0;
+      Iterator<Edge> edges = g.edges();
+      while (edges.hasNext()) {
+        sum += edges.next().weight();
+      } // while
+      report(pen, "iterator sum", begin, sum);
+
+      begin = System.nanoTime();
+      sum = g.edgeStream().mapToLong(Edge::weight).sum();
+      report(pen, "stream sum", begin, sum);
+
+      begin = System.nanoTime();
+      sum = g.edgeStream().parallel().mapToLong(Edge::weight).sum();
+      report(pen, "parallel stream sum", begin, sum);
+
+      begin = System.nanoTime();
+      int[] histogram = g.vertexStream().parallel()
+          .map((v) -> 32 - Integer.numberOfLeadingZeros(g.degrees.get(v)))
+          .collect(() -> new int[33], (h, bucket) -> ++h[bucket],
+              (h1, h2) -> {
+                for (int i = 0; i < h1.length; i++) {
+                  h1[i] += h2[i];
+                } // for
+              });
+      report(pen, "parallel degree histogram", begin, histogram[1]);
+    } // for
+  } // main(String[])
+
+  /**
+   * Report the time since begin.
+   */
+  static void report(PrintWriter pen, String label, long begin,
+      long result) {
+    pen.println(label + ": " + (System.nanoTime() - begin) / 1000000
+        + " ms (" + result + ")");
+  } // report(PrintWriter, String, long, long)
+
+} // class StreamExperiment
@@ -1,9 +1,21 @@
 /**
- * A simple implementation of undirected graphs.
+ * A simple implementation of undirected graphs. Each edge is stored in
+ * both directions, so every algorithm of Graph works unchanged. For large
+ * graphs where memory matters more, see CompactUndirectedGraph, which
+ * stores each edge once.
  *
  * @author Samuel A. Rebelsky
  */
 public class UndirectedGraph extends Graph {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The index of which vertices are connected, if we keep one.
+   */
+  ConnectivityIndex connectivity;
+
   // +--------------+------------------------------------------------
   // | Constructors |
   // +--------------+
@@ -22,6 +34,70 @@ public class UndirectedGraph extends Graph {
     super(fname);
   } // UndirectedGraph(fname)
 
+  /**
+   * Load an undirected graph saved by saveBinary.
+   */
+  public static UndirectedGraph loadBinary(String fname) throws Exception {
+    UndirectedGraph graph = new UndirectedGraph();
+    BinaryGraphFile.load(graph, fname);
+    return graph;
+  } // loadBinary(String)
+
+  // +--------------+------------------------------------------------
+  // | Connectivity |
+  // +--------------+
+
+  /**
+   * Start keeping an index of which vertices are connected, updated as
+   * edges and vertices come and go, so that connected takes constant
+   * time. Adding an edge costs about log V more; removing one costs time
+   * proportional to the smaller of the pieces it might split.
+   */
+  public ConnectivityIndex indexConnectivity() {
+    if (this.connectivity == null) {
+      this.connectivity = new ConnectivityIndex(this);
+    } // if
+    return this.connectivity;
+  } // indexConnectivity()
+
+  /**
+   * Stop keeping the connectivity index.
+   */
+  public void dropConnectivityIndex() {
+    if (this.connectivity != null) {
+      this.connectivity.detach();
+      this.connectivity = null;
+    } // if
+  } // dropConnectivityIndex()
+
+  /**
+   * Determine if there is a path between two vertices. Starts keeping a
+   * connectivity index, if we do not already.
+   */
+  public boolean connected(int u, int v) {
+    return this.indexConnectivity().connected(u, v);
+  } // connected(int, int)
+
+  /**
+   * Determine if there is a path between two vertices. Starts keeping a
+   * connectivity index, if we do not already.
+   */
+  public boolean connected(String u, String v) {
+    return this.connected(this.vertexNumber(u), this.vertexNumber(v));
+  } // connected(String, String)
+
+  // +--------------------+------------------------------------------
+  // | Spanning forests |
+  // +--------------------+
+
+  /**
+   * Find a minimum spanning forest: for each connected component, a tree
+   * of edges joining its vertices with the least total weight.
+   */
+  public SpanningForest minimumSpanningForest() {
+    return SpanningForestFinder.find(this);
+  } // minimumSpanningForest()
+
   // +-----------+---------------------------------------------------
   // | Overrides |
   // +-----------+
@@ -31,36 +107,60 @@ public class UndirectedGraph extends Graph {
     addEdge(this.safeVertexNumber(u), this.safeVertexNumber(v), weight);
   } // addEdge(String, String, int)
   
+  /**
+   * Add an edge between two vertices, in both directions. If the edge
+   * already exists, replace its weight.
+   */
+  @Override
   public void addEdge(int u, int v, int weight) throws Exception {
-    super.addEdge(u, v, weight);
-    super.addEdge(v, u, weight);
+    this.checkEnds(u, v);
+    ++this.version;
+    // Each edge is stored in both directions or neither, so one look
+    // (from the end with fewer edges) tells us which
+    int existing = (this.degrees.get(u) <= this.degrees.get(v))
+        ? this.indexOf(u, v)
+        : this.indexOf(v, u);
+    if (existing == -1) {
+      this.appendEdge(u, v, weight);
+      this.appendEdge(v, u, weight);
+    } else {
+      this.replaceEdgeAt(u, this.indexOf(u, v), weight);
+      this.replaceEdgeAt(v, this.indexOf(v, u), weight);
+    } // if/else
   } // addEdge(int, int, int)
 
   @Override
   public void removeEdge(String u, String v) {
-    super.removeEdge(u, v);
-    super.removeEdge(v, u);
+    this.removeEdge(this.vertexNumber(u), this.vertexNumber(v));
   } // removeEdge(String, String)
 
+  /**
+   * Remove the edge between two vertices, in both directions. If the
+   * edge does not exist, does nothing.
+   */
   @Override
   public void removeEdge(int u, int v) {
-    super.removeEdge(u, v);
-    super.removeEdge(v, u);
+    if (!this.validVertex(u) || !this.validVertex(v)) {
+      return;
+    } // if
+    int i = this.indexOf(u, v);
+    if (i == -1) {
+      return;
+    } // if
+    ++this.version;
+    this.removeEdgeAt(u, i);
+    this.logChange(GraphChange.REMOVE_EDGE, u, v, 0, null);
+    this.removeEdgeAt(v, this.indexOf(v, u));
+    this.logChange(GraphChange.REMOVE_EDGE, v, u, 0, null);
+    this.numEdges -= 2;
   } // removeEdge(int, int)
 
-  // +---------+-----------------------------------------------------
-  // | Helpers |
-  // +---------+
-
   /**
-   * Get the number of a vertex. If the vertex does not already exist, adds it.
+   * Every edge is stored in both directions with the same weight.
    */
-  int safeVertexNumber(String vertex) throws Exception {
-    int num = this.vertexNumber(vertex);
-    if (num == -1) {
-      num = this.addVertex(vertex);
-    } // if
-    return num;
-  } // safeVertexNumber(String)
+  @Override
+  boolean symmetric() {
+    return true;
+  } // symmetric()
 
 } // class UndirectedGraph
@@ -0,0 +1,209 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Marks on the vertices of a graph. Each vertex may carry any combination
+ * of MAX_MARKS different marks. Several threads may mark and unmark
+ * vertices at once, and clearing every mark takes constant time.
+ *
+ * Every graph has one set of marks (used by Graph.mark and friends);
+ * traversals that run alongside others can get their own with
+ * Graph.newMarks.
+ *
+ * @author Samuel A. Rebelsky
+ */
+public class VertexMarks {
+
+  // +-------+-------------------------------------------------------
+  // | Notes |
+  // +-------+
+
+  /*
+   * We keep one long per vertex. The low MAX_MARKS bits hold the marks;
+   * the high EPOCH_BITS bits hold the epoch in which they were set. Marks
+   * from any other epoch don't count, so to clear every mark we need only
+   * start a new epoch. Once we've used every epoch, we start over with a
+   * fresh array, which still takes constant time per clear on average.
+   *
+   * We change a word with compare-and-set, retrying if another thread
+   * changed it first, so no update is ever lost.
+   *
+   * Clearing while other threads are marking is safe but unhelpful: a
+   * mark made at about the same time may or may not survive.
+   */
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of different marks.
+   */
+  public static final int MAX_MARKS = 48;
+
+  /**
+   * The bits of a word that hold the marks.
+   */
+  static final long ALL_MARKS = (1L << MAX_MARKS) - 1;
+
+  /**
+   * The number of bits of a word that hold the epoch.
+   */
+  static final int EPOCH_BITS = 64 - MAX_MARKS;
+
+  /**
+   * The largest epoch.
+   */
+  static final int MAX_EPOCH = (1 << EPOCH_BITS) - 1;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The marks, by vertex number.
+   */
+  volatile AtomicLongArray words;
+
+  /**
+   * The current epoch. Always between 1 and MAX_EPOCH, so a word of 0
+   * never holds current marks.
+   */
+  volatile int epoch;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create marks for vertex numbers 0 .. capacity-1.
+   */
+  public VertexMarks(int capacity) {
+    this.words = new AtomicLongArray(capacity);
+    this.epoch = 1;
+  } // VertexMarks(int)
+
+  // +---------------+-----------------------------------------------
+  // | Class methods |
+  // +---------------+
+
+  /**
+   * Get the nth mark, for n from 1 to MAX_MARKS. (nthMark(1) is
+   * Graph.MARK01, nthMark(2) is Graph.MARK02, and so on.)
+   */
+  public static long nthMark(int n) {
+    if ((n < 1) || (n > MAX_MARKS)) {
+      throw new IllegalArgumentException("No mark number " + n);
+    } // if
+    return 1L << (n - 1);
+  } // nthMark(int)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Determine if a vertex has any of the given marks.
+   */
+  public boolean isMarked(int vertex, long marks) {
+    long word = this.words.get(vertex);
+    return (this.current(word) & marks & ALL_MARKS) != 0;
+  } // isMarked(int, long)
+
+  /**
+   * Determine if a vertex has any marks at all.
+   */
+  public boolean isMarked(int vertex) {
+    return this.current(this.words.get(vertex)) != 0;
+  } // isMarked(int)
+
+  /**
+   * Add the given marks to a vertex. Returns true if this call added any
+   * of them, and false if the vertex already had them all. (So, if several
+   * threads try to mark a vertex with the same mark, exactly one of them
+   * succeeds.)
+   */
+  public boolean mark(int vertex, long marks) {
+    AtomicLongArray words = this.words;
+    long stamp = (long) this.epoch << MAX_MARKS;
+    marks &= ALL_MARKS;
+    long old;
+    long updated;
+    do {
+      old = words.get(vertex);
+      long current = ((old & ~ALL_MARKS) == stamp) ? old : stamp;
+      updated = current | marks;
+      if (updated == old) {
+        return false;
+      } // if
+    } while (!words.compareAndSet(vertex, old, updated));
+    return true;
+  } // mark(int, long)
+
+  /**
+   * Remove the given marks from a vertex. Returns true if this call
+   * removed any of them.
+   */
+  public boolean unmark(int vertex, long marks) {
+    AtomicLongArray words = this.words;
+    long old;
+    long updated;
+    do {
+      old = words.get(vertex);
+      updated = old & ~(marks & ALL_MARKS);
+      if ((this.current(old) & marks & ALL_MARKS) == 0) {
+        return false;
+      } // if
+    } while (!words.compareAndSet(vertex, old, updated));
+    return true;
+  } // unmark(int, long)
+
+  /**
+   * Remove every mark from a vertex.
+   */
+  public void unmark(int vertex) {
+    this.words.set(vertex, 0);
+  } // unmark(int)
+
+  /**
+   * Remove every mark from every vertex.
+   */
+  public void clear() {
+    if (this.epoch == MAX_EPOCH) {
+      this.words = new AtomicLongArray(this.words.length());
+      this.epoch = 1;
+    } else {
+      ++this.epoch;
+    } // if/else
+  } // clear()
+
+  /**
+   * Make room for marks on vertex numbers 0 .. capacity-1. Must not be
+   * called while other threads are using the marks.
+   */
+  void ensureCapacity(int capacity) {
+    AtomicLongArray old = this.words;
+    if (capacity > old.length()) {
+      AtomicLongArray words = new AtomicLongArray(capacity);
+      for (int i = 0; i < old.length(); i++) {
+        words.set(i, old.get(i));
+      } // for
+      this.words = words;
+    } // if
+  } // ensureCapacity(int)
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Get the marks in a word that belong to the current epoch.
+   */
+  private long current(long word) {
+    if ((word >>> MAX_MARKS) == this.epoch) {
+      return word & ALL_MARKS;
+    } else {
+      return 0;
+    } // if/else
+  } // current(long)
+
+} // class VertexMarks
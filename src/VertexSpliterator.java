@@ -0,0 +1,200 @@
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * A spliterator over the vertices of a graph (or a snapshot), in
+ * increasing order. See Graph.vertexStream.
+ *
+ * @author Samuel A. Rebelsky
+ */
+class VertexSpliterator implements Spliterator.OfInt {
+
+  // +-------+-------------------------------------------------------
+  // | Notes |
+  // +-------+
+
+  /*
+   * We visit the set bits of the bitset of vertices in use (Graph.live)
+   * from pos up to (but not including) end. To split, we cut the range
+   * at a word boundary near the middle and count the vertices on each
+   * side with Long.bitCount, which takes one step per 64 vertex numbers,
+   * so every part knows its exact size.
+   *
+   * Like the iterators of Graph, we fail fast if the graph changes, but
+   * we only check at the end of a traversal (or when we run out).
+   */
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The characteristics of every vertex spliterator.
+   */
+  static final int CHARACTERISTICS = ORDERED | DISTINCT | SORTED | NONNULL
+      | SIZED | SUBSIZED;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The graph, for fail-fast checks, or null if the vertices cannot
+   * change (as in a snapshot).
+   */
+  Graph graph;
+
+  /**
+   * The version of the graph when we started.
+   */
+  long version;
+
+  /**
+   * The vertices in use, as a bitset.
+   */
+  LongPages live;
+
+  /**
+   * The next vertex number to consider.
+   */
+  int pos;
+
+  /**
+   * One more than the last vertex number to consider.
+   */
+  int end;
+
+  /**
+   * The number of vertices left.
+   */
+  int remaining;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a spliterator over the remaining vertices in live[pos .. end-1].
+   */
+  VertexSpliterator(Graph graph, long version, LongPages live, int pos,
+      int end, int remaining) {
+    this.graph = graph;
+    this.version = version;
+    this.live = live;
+    this.pos = pos;
+    this.end = end;
+    this.remaining = remaining;
+  } // VertexSpliterator(Graph, long, LongPages, int, int, int)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Visit the next vertex, if there is one.
+   */
+  public boolean tryAdvance(IntConsumer action) {
+    if (this.remaining == 0) {
+      this.check();
+      return false;
+    } // if
+    int v = Graph.nextLive(this.live, this.pos);
+    this.pos = v + 1;
+    --this.remaining;
+    action.accept(v);
+    return true;
+  } // tryAdvance(IntConsumer)
+
+  /**
+   * Visit all of the remaining vertices.
+   */
+  public void forEachRemaining(IntConsumer action) {
+    LongPages bits = this.live;
+    int v = this.pos;
+    int left = this.remaining;
+    this.pos = this.end;
+    this.remaining = 0;
+    if (left > 0) {
+      int i = v >>> 6;
+      long word = bits.get(i) & (-1L << v);
+      while (true) {
+        while (word == 0) {
+          word = bits.get(++i);
+        } // while
+        action.accept((i << 6) + Long.numberOfTrailingZeros(word));
+        if (--left == 0) {
+          break;
+        } // if
+        word &= word - 1;
+      } // while
+    } // if
+    this.check();
+  } // forEachRemaining(IntConsumer)
+
+  /**
+   * Split off the first half of the vertex numbers, or return null if the
+   * range is too small to split.
+   */
+  public Spliterator.OfInt trySplit() {
+    int mid = ((this.pos + this.end) >>> 1) & ~63;
+    if (mid <= this.pos) {
+      return null;
+    } // if
+    int count = count(this.live, this.pos, mid);
+    VertexSpliterator prefix = new VertexSpliterator(this.graph,
+        this.version, this.live, this.pos, mid, count);
+    this.pos = mid;
+    this.remaining -= count;
+    return prefix;
+  } // trySplit()
+
+  /**
+   * Get the number of vertices left.
+   */
+  public long estimateSize() {
+    return this.remaining;
+  } // estimateSize()
+
+  /**
+   * Get the characteristics of the spliterator.
+   */
+  public int characteristics() {
+    return CHARACTERISTICS;
+  } // characteristics()
+
+  /**
+   * Get the comparator for the order of the vertices. (They are in their
+   * natural order.)
+   */
+  public Comparator<? super Integer> getComparator() {
+    return null;
+  } // getComparator()
+
+  // +-----------+---------------------------------------------------
+  // | Utilities |
+  // +-----------+
+
+  /**
+   * Make sure that the graph has not changed.
+   */
+  void check() {
+    if (this.graph != null) {
+      this.graph.failFast(this.version);
+    } // if
+  } // check()
+
+  /**
+   * Count the set bits of live in positions from .. to-1, where to is a
+   * multiple of 64.
+   */
+  static int count(LongPages live, int from, int to) {
+    int i = from >>> 6;
+    int count = Long.bitCount(live.get(i) & (-1L << from));
+    for (++i; i < (to >>> 6); i++) {
+      count += Long.bitCount(live.get(i));
+    } // for
+    return count;
+  } // count(LongPages, int, int)
+
+} // class VertexSpliterator
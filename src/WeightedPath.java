@@ -0,0 +1,65 @@
+import java.util.List;
+
+/**
+ * A path through a weighted graph, along with its total weight.
+ *
+ * @author Samuel A. Rebelsky
+ */
+public class WeightedPath {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The sum of the weights of the edges on the path.
+   */
+  private long distance;
+
+  /**
+   * The edges on the path, in order.
+   */
+  private List<Edge> edges;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new path.
+   */
+  public WeightedPath(long distance, List<Edge> edges) {
+    this.distance = distance;
+    this.edges = edges;
+  } // WeightedPath(long, List<Edge>)
+
+  // +------------------+--------------------------------------------
+  // | Standard methods |
+  // +------------------+
+
+  /**
+   * Convert the path to a string.
+   */
+  public String toString() {
+    return this.distance + " " + this.edges;
+  } // toString()
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Get the total weight of the path.
+   */
+  public long distance() {
+    return this.distance;
+  } // distance()
+
+  /**
+   * Get the edges on the path.
+   */
+  public List<Edge> edges() {
+    return this.edges;
+  } // edges()
+
+} // class WeightedPath